@@ -0,0 +1,109 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.lwjgl.BackgroundPolygonIndex;
+import org.joml.lwjgl.PolygonIndex;
+import org.joml.lwjgl.RandomStrokes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long committing 50 strokes, one after the other, to an index of 1M vertices blocks the calling thread, with a
+ * {@link PolygonIndex} directly or with a {@link BackgroundPolygonIndex}, and how long it takes until each stroke is visible to queries
+ * on the {@link BackgroundPolygonIndex} while the caller keeps querying it, like the <code>PolygonDrawer</code> does when the mouse moves
+ * right after a stroke.
+ * <p>
+ * The indexes are built again for every iteration, because neither can take back a stroke and a timed loop of commits would grow them
+ * without bound. Each iteration therefore times a fixed batch of commits. The latency distribution of single commits is reported by the
+ * <code>PolygonTraceReplay</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = BackgroundPolygonIndexBenchmark.COMMITS)
+@Measurement(iterations = 20, batchSize = BackgroundPolygonIndexBenchmark.COMMITS)
+@Fork(1)
+public class BackgroundPolygonIndexBenchmark {
+
+    static final int TOTAL_VERTICES = 1000000;
+    static final int COMMITS = 50;
+
+    float[] verticesXY;
+    int[] polygons;
+    int strokes;
+    final float[] newStrokesXY = new float[2 * COMMITS * RandomStrokes.STROKE_VERTICES];
+    int next;
+    final Random rnd = new Random(2);
+    PolygonIndex direct;
+    BackgroundPolygonIndex background;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(1);
+        int strokeVertices = RandomStrokes.STROKE_VERTICES;
+        strokes = TOTAL_VERTICES / strokeVertices;
+        verticesXY = new float[2 * TOTAL_VERTICES];
+        polygons = new int[strokes];
+        for (int s = 0; s < strokes; s++) {
+            RandomStrokes.stroke(rnd, verticesXY, s * strokeVertices, strokeVertices);
+            polygons[s] = (s + 1) * strokeVertices;
+        }
+        for (int s = 0; s < COMMITS; s++)
+            RandomStrokes.stroke(rnd, newStrokesXY, s * strokeVertices, strokeVertices);
+    }
+
+    @Setup(Level.Iteration)
+    public void buildIndexes() throws InterruptedException {
+        direct = new PolygonIndex();
+        for (int s = 0, first = 0; s < strokes; first = polygons[s++])
+            direct.add(verticesXY, first, polygons[s] - first);
+        background = new BackgroundPolygonIndex();
+        background.addAll(verticesXY, polygons, strokes);
+        background.awaitPublished();
+    }
+
+    @TearDown(Level.Iteration)
+    public void shutdown() {
+        background.shutdown();
+    }
+
+    private int nextStroke() {
+        int s = next;
+        next = s + 1 == COMMITS ? 0 : s + 1;
+        return s * RandomStrokes.STROKE_VERTICES;
+    }
+
+    @Benchmark
+    public int directAdd() {
+        return direct.add(newStrokesXY, nextStroke(), RandomStrokes.STROKE_VERTICES);
+    }
+
+    @Benchmark
+    public void backgroundAdd() {
+        background.add(newStrokesXY, nextStroke(), RandomStrokes.STROKE_VERTICES);
+    }
+
+    @Benchmark
+    public int backgroundAddUntilVisible() {
+        background.add(newStrokesXY, nextStroke(), RandomStrokes.STROKE_VERTICES);
+        int queries = 0;
+        while (background.isStale()) {
+            background.polygonAt(rnd.nextFloat() * RandomStrokes.WIDTH, rnd.nextFloat() * RandomStrokes.HEIGHT);
+            queries++;
+        }
+        return queries;
+    }
+
+}
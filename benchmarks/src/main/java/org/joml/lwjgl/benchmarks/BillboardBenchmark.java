@@ -0,0 +1,127 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.joml.lwjgl.BillboardBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building the billboard model matrices of all boxes of the <code>BillboardDemo</code> for one frame and writing them into a
+ * direct buffer like its instance buffer:
+ * <ul>
+ * <li>with a {@link Vector3f} and a {@link Matrix4f} per box and the JOML billboard methods, like the demo did
+ * <li>with a {@link BillboardBatch} on one thread
+ * <li>with a {@link BillboardBatch} on the common {@link ForkJoinPool}
+ * </ul>
+ * The setup checks that all three produce the same matrices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BillboardBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int count;
+
+    /**
+     * {@link BillboardBatch#CYLINDRICAL}, {@link BillboardBatch#SPHERICAL} or {@link BillboardBatch#SHORTEST_ARC}.
+     */
+    @Param({ "1", "2", "3" })
+    public int mode;
+
+    Vector3f[] boxes;
+    Matrix4f[] modelMatrices;
+    BillboardBatch batch;
+    BillboardBatch parallelBatch;
+    ForkJoinPool singleThread;
+    FloatBuffer instances;
+    Vector3f origin = new Vector3f(3.0f, 12.0f, -25.0f);
+    Vector3f up = new Vector3f(0.0f, 1.0f, 0.0f);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rnd = new Random(12345);
+        boxes = new Vector3f[count];
+        modelMatrices = new Matrix4f[count];
+        singleThread = new ForkJoinPool(1);
+        batch = new BillboardBatch(count, singleThread);
+        parallelBatch = new BillboardBatch(count);
+        for (int i = 0; i < count; i++) {
+            boxes[i] = new Vector3f(rnd.nextFloat() * 40.0f - 20.0f, 0.0f, rnd.nextFloat() * 40.0f - 20.0f);
+            modelMatrices[i] = new Matrix4f();
+            batch.add(boxes[i].x, boxes[i].y, boxes[i].z);
+            parallelBatch.add(boxes[i].x, boxes[i].y, boxes[i].z);
+        }
+        instances = ByteBuffer.allocateDirect(4 * 16 * count).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        check();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        singleThread.shutdown();
+    }
+
+    private void check() {
+        FloatBuffer expected = ByteBuffer.allocateDirect(4 * 16 * count).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        FloatBuffer actual = instances;
+        jomlPerObject();
+        expected.put(instances.duplicate());
+        for (BillboardBatch b : new BillboardBatch[] { batch, parallelBatch }) {
+            b.build(mode, origin, up, actual, 0);
+            for (int i = 0; i < 16 * count; i++)
+                if (Math.abs(actual.get(i) - expected.get(i)) > 1E-5f)
+                    throw new AssertionError("element " + i % 16 + " of matrix " + i / 16 + ": expected " + expected.get(i) + " but got "
+                            + actual.get(i));
+        }
+    }
+
+    @Benchmark
+    public FloatBuffer jomlPerObject() {
+        for (int i = 0; i < count; i++) {
+            Matrix4f m = modelMatrices[i];
+            if (mode == BillboardBatch.CYLINDRICAL)
+                m.billboardCylindrical(boxes[i], origin, up);
+            else if (mode == BillboardBatch.SPHERICAL)
+                m.billboardSpherical(boxes[i], origin, up);
+            else
+                m.billboardSpherical(boxes[i], origin);
+            m.get(16 * i, instances);
+        }
+        return instances;
+    }
+
+    @Benchmark
+    public FloatBuffer soa() {
+        batch.build(mode, origin, up, instances, 0);
+        return instances;
+    }
+
+    @Benchmark
+    public FloatBuffer soaParallel() {
+        parallelBatch.build(mode, origin, up, instances, 0);
+        return instances;
+    }
+
+}
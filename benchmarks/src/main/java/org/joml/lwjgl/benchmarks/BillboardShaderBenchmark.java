@@ -0,0 +1,181 @@
+package org.joml.lwjgl.benchmarks;
+
+import static org.lwjgl.glfw.GLFW.*;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.joml.lwjgl.BillboardBatch;
+import org.joml.lwjgl.BillboardCubeRenderer;
+import org.joml.lwjgl.InstancedCubeRenderer;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the CPU time needed per frame to draw billboard boxes like the <code>BillboardDemo</code>:
+ * <ul>
+ * <li>with a {@link BillboardBatch}, which builds the model matrices and writes them into the instance buffer of an
+ * {@link InstancedCubeRenderer}
+ * <li>with a {@link BillboardCubeRenderer}, which only sets the uniforms of its vertex shader
+ * </ul>
+ * The setup first checks that the vertex shader computes the same matrices as the {@link BillboardBatch}. It captures them with
+ * {@link BillboardCubeRenderer#capture(int, Vector3f, Vector3f, FloatBuffer)} for boxes at random positions seen from random targets,
+ * with two up axes, and they must match within {@link #TOLERANCE}, which leaves room for the different rounding of the GPU close to the
+ * up axis of cylindrical billboards. The largest difference is printed.
+ * <p>
+ * Like in the {@link InstancedCubeBenchmark}, each trial renders into a hidden GLFW window whose context is current on the benchmark
+ * thread, and <code>glFinish()</code> is called after each frame but outside of the measured time. Needs OpenGL 3.3.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BillboardShaderBenchmark {
+
+    static final int CHECKED_BOXES = 10000;
+    static final int CHECKED_TARGETS = 20;
+    static final float TOLERANCE = 1E-3f;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int count;
+
+    /**
+     * {@link BillboardBatch#CYLINDRICAL}, {@link BillboardBatch#SPHERICAL} or {@link BillboardBatch#SHORTEST_ARC}.
+     */
+    @Param({ "1", "2", "3" })
+    public int mode;
+
+    long window;
+    InstancedCubeRenderer instanced;
+    BillboardCubeRenderer shaded;
+    BillboardBatch boxes;
+    int frame;
+
+    final Vector3f target = new Vector3f();
+    final Vector3f up = new Vector3f(0.0f, 1.0f, 0.0f);
+    final Matrix4f projMatrix = new Matrix4f();
+    final Matrix4f viewMatrix = new Matrix4f();
+    final FloatBuffer fb = BufferUtils.createFloatBuffer(16);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (!glfwInit())
+            throw new IllegalStateException("Unable to initialize GLFW");
+        glfwDefaultWindowHints();
+        glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
+        window = glfwCreateWindow(800, 800, "BillboardShaderBenchmark", NULL, NULL);
+        if (window == NULL) {
+            glfwTerminate();
+            throw new IllegalStateException("Failed to create the GLFW window");
+        }
+        glfwMakeContextCurrent(window);
+        glfwSwapInterval(0);
+        GL.createCapabilities();
+        if (!GL.getCapabilities().OpenGL33)
+            throw new IllegalStateException("The vertex shader billboards require OpenGL 3.3");
+        glViewport(0, 0, 800, 800);
+        glEnable(GL_DEPTH_TEST);
+        glEnable(GL_CULL_FACE);
+        instanced = new InstancedCubeRenderer(true);
+        shaded = new BillboardCubeRenderer();
+        check();
+
+        Random rnd = new Random(12345);
+        float extent = (float) Math.sqrt(count);
+        boxes = new BillboardBatch(count);
+        for (int i = 0; i < count; i++)
+            boxes.add((rnd.nextFloat() - 0.5f) * 2.0f * extent, 0.0f, (rnd.nextFloat() - 0.5f) * 2.0f * extent);
+        shaded.setPositions(boxes);
+        target.set(0.0f, extent, extent * 2.0f);
+        projMatrix.setPerspective((float) Math.toRadians(40), 1.0f, 0.01f, extent * 10.0f);
+        glMatrixMode(GL_PROJECTION);
+        glLoadMatrixf(projMatrix.get(fb));
+        viewMatrix.setLookAt(0.0f, extent, extent * 2.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
+        glMatrixMode(GL_MODELVIEW);
+        glLoadMatrixf(viewMatrix.get(fb));
+    }
+
+    private void check() {
+        Random rnd = new Random(1);
+        BillboardBatch checked = new BillboardBatch(CHECKED_BOXES);
+        for (int i = 0; i < CHECKED_BOXES; i++)
+            checked.add(rnd.nextFloat() * 40.0f - 20.0f, rnd.nextFloat() * 10.0f - 5.0f, rnd.nextFloat() * 40.0f - 20.0f);
+        shaded.setPositions(checked);
+        FloatBuffer expected = BufferUtils.createFloatBuffer(16 * CHECKED_BOXES);
+        FloatBuffer actual = BufferUtils.createFloatBuffer(16 * CHECKED_BOXES);
+        Vector3f[] ups = { new Vector3f(0.0f, 1.0f, 0.0f), new Vector3f(0.3f, 1.0f, -0.2f).normalize() };
+        Vector3f checkedTarget = new Vector3f();
+        float maxError = 0.0f;
+        for (int t = 0; t < CHECKED_TARGETS; t++) {
+            checkedTarget.set(rnd.nextFloat() * 60.0f - 30.0f, rnd.nextFloat() * 30.0f, rnd.nextFloat() * 60.0f - 30.0f);
+            for (Vector3f checkedUp : ups) {
+                checked.build(mode, checkedTarget, checkedUp, expected, 0);
+                shaded.capture(mode, checkedTarget, checkedUp, actual);
+                for (int i = 0; i < 16 * CHECKED_BOXES; i++) {
+                    float error = Math.abs(actual.get(i) - expected.get(i));
+                    if (!(error <= TOLERANCE))
+                        throw new AssertionError("target " + checkedTarget + ", up " + checkedUp + ": element " + i % 16 + " of matrix "
+                                + i / 16 + ": expected " + expected.get(i) + " but got " + actual.get(i));
+                    maxError = Math.max(maxError, error);
+                }
+            }
+        }
+        System.out.printf("Vertex shader matches BillboardBatch in mode %d, max error %.2e%n", mode, maxError);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        instanced.destroy();
+        shaded.destroy();
+        GL.setCapabilities(null);
+        glfwDestroyWindow(window);
+        glfwTerminate();
+    }
+
+    /**
+     * Wait for the frame to be rendered, so that the next one does not pay for it, and move the target along a circle.
+     */
+    @TearDown(Level.Invocation)
+    public void finishFrame() {
+        glFinish();
+        frame++;
+        float extent = (float) Math.sqrt(count), angle = frame * 0.01f;
+        target.set((float) Math.sin(angle) * extent * 2.0f, extent, (float) Math.cos(angle) * extent * 2.0f);
+    }
+
+    @Benchmark
+    public void batch() {
+        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        instanced.begin();
+        int offset = instanced.reserve(boxes.size());
+        boxes.build(mode, target, up, instanced.instanceBuffer(), offset);
+        instanced.draw();
+    }
+
+    @Benchmark
+    public void shader() {
+        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        shaded.draw(mode, target, up);
+    }
+
+}
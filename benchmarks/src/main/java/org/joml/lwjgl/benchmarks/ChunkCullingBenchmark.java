@@ -0,0 +1,118 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joml.Matrix4f;
+import org.joml.lwjgl.ChunkCuller;
+import org.joml.lwjgl.ChunkedVoxelStorage;
+import org.joml.lwjgl.VoxelMesh;
+import org.joml.lwjgl.VoxelMesher;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures culling the chunks of a 512x64x512 voxel terrain with the {@link ChunkCuller} for one frame, cycling through the frames of a
+ * camera circling over the terrain and looking a bit down.
+ * <p>
+ * A far plane of 100 is the one of the <code>BoxPickingDemo</code>, 1000 covers the whole world. Every chunk is meshed by the
+ * {@link VoxelMesher} once in the setup, and culled with the index counts of its mesh. The {@link Counters} report how many chunks and
+ * indices were drawn out of the ones tested, which is the geometry submitted with and without culling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkCullingBenchmark {
+
+    static final int SIZE = 512;
+    static final int HEIGHT = 64;
+    static final int FRAMES = 2000;
+
+    /**
+     * Totals over all frames culled in an iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long chunksTested;
+        public long chunksDrawn;
+        public long indicesTotal;
+        public long indicesDrawn;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            chunksTested = 0L;
+            chunksDrawn = 0L;
+            indicesTotal = 0L;
+            indicesDrawn = 0L;
+        }
+    }
+
+    @Param({ "100", "1000" })
+    public float far;
+
+    ChunkCuller culler;
+    int[] indexCounts;
+    int[] visible;
+    final Matrix4f[] projViews = new Matrix4f[FRAMES];
+    int frame;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ChunkedVoxelStorage storage = new ChunkedVoxelStorage(SIZE, HEIGHT, SIZE);
+        for (int z = 0; z < SIZE; z++)
+            for (int x = 0; x < SIZE; x++)
+                storage.fill(x, 0, z, x + 1, 20 + (int) (14.0 * Math.sin(x * 0.03) * Math.cos(z * 0.04)), z + 1, true);
+        indexCounts = new int[storage.chunksX() * storage.chunksY() * storage.chunksZ()];
+        int[] padded = new int[VoxelMesher.PADDED_VOLUME];
+        VoxelMesher mesher = new VoxelMesher();
+        VoxelMesh mesh = new VoxelMesh();
+        for (int cy = 0; cy < storage.chunksY(); cy++)
+            for (int cz = 0; cz < storage.chunksZ(); cz++)
+                for (int cx = 0; cx < storage.chunksX(); cx++) {
+                    if (storage.isChunkEmpty(cx, cy, cz))
+                        continue;
+                    VoxelMesher.copyPadded(storage, cx, cy, cz, padded);
+                    mesher.mesh(padded, 0, 0, 0, mesh);
+                    indexCounts[(cy * storage.chunksZ() + cz) * storage.chunksX() + cx] = mesh.indexCount();
+                }
+        visible = new int[indexCounts.length];
+        culler = new ChunkCuller(storage, 0.0f, 0.0f, 0.0f);
+        Matrix4f proj = new Matrix4f().setPerspective((float) Math.toRadians(45), 1.5f, 0.01f, far);
+        Matrix4f view = new Matrix4f();
+        for (int i = 0; i < FRAMES; i++) {
+            float angle = (float) (2.0 * Math.PI * i / FRAMES);
+            float x = SIZE * 0.5f + (float) Math.cos(angle) * SIZE * 0.3f;
+            float z = SIZE * 0.5f + (float) Math.sin(angle) * SIZE * 0.3f;
+            float y = HEIGHT * 0.75f + 8.0f * (float) Math.sin(angle * 5.0f);
+            view.identity().rotateX(0.3f).rotateY(angle).translate(-x, -y, -z);
+            projViews[i] = proj.mul(view, new Matrix4f());
+        }
+    }
+
+    @Benchmark
+    public int cull(Counters counters) {
+        int i = frame;
+        frame = i + 1 == FRAMES ? 0 : i + 1;
+        int drawn = culler.cull(projViews[i], indexCounts, visible);
+        counters.chunksTested += culler.chunksTested;
+        counters.chunksDrawn += culler.chunksDrawn;
+        counters.indicesTotal += culler.indicesTotal;
+        counters.indicesDrawn += culler.indicesDrawn;
+        return drawn;
+    }
+
+}
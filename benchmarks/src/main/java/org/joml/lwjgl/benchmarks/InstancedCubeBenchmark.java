@@ -0,0 +1,181 @@
+package org.joml.lwjgl.benchmarks;
+
+import static org.lwjgl.glfw.GLFW.*;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.Matrix4f;
+import org.joml.lwjgl.InstancedCubeRenderer;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the CPU time needed per frame to submit a grid of rotating cubes with:
+ * <ul>
+ * <li>immediate mode, loading the model-view matrix and drawing a <code>glBegin(GL_QUADS)</code> cube per cube, like the demos did
+ * <li>the {@link InstancedCubeRenderer} without instancing, drawing the cube VBO once per cube
+ * <li>the {@link InstancedCubeRenderer} with instancing, which fails without OpenGL 3.3
+ * </ul>
+ * Each trial renders into a hidden GLFW window whose context is current on the benchmark thread, so this does not run on macOS, where
+ * GLFW windows must be created on the main thread. <code>glFinish()</code> is called after each frame but outside of the measured time,
+ * which therefore covers building the matrices and the OpenGL calls, but not the rendering itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstancedCubeBenchmark {
+
+    @Param({ "100", "1000", "10000", "100000" })
+    public int count;
+
+    long window;
+    InstancedCubeRenderer looped;
+    InstancedCubeRenderer instanced;
+    int frame;
+
+    final Matrix4f projMatrix = new Matrix4f();
+    final Matrix4f viewMatrix = new Matrix4f();
+    final Matrix4f modelMatrix = new Matrix4f();
+    final Matrix4f modelViewMatrix = new Matrix4f();
+    final FloatBuffer fb = BufferUtils.createFloatBuffer(16);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (!glfwInit())
+            throw new IllegalStateException("Unable to initialize GLFW");
+        glfwDefaultWindowHints();
+        glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
+        window = glfwCreateWindow(800, 800, "InstancedCubeBenchmark", NULL, NULL);
+        if (window == NULL) {
+            glfwTerminate();
+            throw new IllegalStateException("Failed to create the GLFW window");
+        }
+        glfwMakeContextCurrent(window);
+        glfwSwapInterval(0);
+        GL.createCapabilities();
+        glViewport(0, 0, 800, 800);
+        glEnable(GL_DEPTH_TEST);
+        glEnable(GL_CULL_FACE);
+        looped = new InstancedCubeRenderer(false);
+        instanced = GL.getCapabilities().OpenGL33 ? new InstancedCubeRenderer(true) : null;
+
+        float extent = (float) Math.sqrt(count);
+        projMatrix.setPerspective((float) Math.toRadians(40), 1.0f, 0.01f, extent * 10.0f);
+        glMatrixMode(GL_PROJECTION);
+        glLoadMatrixf(projMatrix.get(fb));
+        viewMatrix.setLookAt(0.0f, extent, extent * 2.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
+        glMatrixMode(GL_MODELVIEW);
+        glLoadMatrixf(viewMatrix.get(fb));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        looped.destroy();
+        if (instanced != null)
+            instanced.destroy();
+        GL.setCapabilities(null);
+        glfwDestroyWindow(window);
+        glfwTerminate();
+    }
+
+    /**
+     * Wait for the frame to be rendered, so that the next one does not pay for it.
+     */
+    @TearDown(Level.Invocation)
+    public void finishFrame() {
+        glFinish();
+        frame++;
+    }
+
+    static void renderCube() {
+        glBegin(GL_QUADS);
+        glColor3f(   0.0f,  0.0f,  0.2f );
+        glVertex3f(  0.5f, -0.5f, -0.5f );
+        glVertex3f( -0.5f, -0.5f, -0.5f );
+        glVertex3f( -0.5f,  0.5f, -0.5f );
+        glVertex3f(  0.5f,  0.5f, -0.5f );
+        glColor3f(   0.0f,  0.0f,  1.0f );
+        glVertex3f(  0.5f, -0.5f,  0.5f );
+        glVertex3f(  0.5f,  0.5f,  0.5f );
+        glVertex3f( -0.5f,  0.5f,  0.5f );
+        glVertex3f( -0.5f, -0.5f,  0.5f );
+        glColor3f(   1.0f,  0.0f,  0.0f );
+        glVertex3f(  0.5f, -0.5f, -0.5f );
+        glVertex3f(  0.5f,  0.5f, -0.5f );
+        glVertex3f(  0.5f,  0.5f,  0.5f );
+        glVertex3f(  0.5f, -0.5f,  0.5f );
+        glColor3f(   0.2f,  0.0f,  0.0f );
+        glVertex3f( -0.5f, -0.5f,  0.5f );
+        glVertex3f( -0.5f,  0.5f,  0.5f );
+        glVertex3f( -0.5f,  0.5f, -0.5f );
+        glVertex3f( -0.5f, -0.5f, -0.5f );
+        glColor3f(   0.0f,  1.0f,  0.0f );
+        glVertex3f(  0.5f,  0.5f,  0.5f );
+        glVertex3f(  0.5f,  0.5f, -0.5f );
+        glVertex3f( -0.5f,  0.5f, -0.5f );
+        glVertex3f( -0.5f,  0.5f,  0.5f );
+        glColor3f(   0.0f,  0.2f,  0.0f );
+        glVertex3f(  0.5f, -0.5f, -0.5f );
+        glVertex3f(  0.5f, -0.5f,  0.5f );
+        glVertex3f( -0.5f, -0.5f,  0.5f );
+        glVertex3f( -0.5f, -0.5f, -0.5f );
+        glEnd();
+    }
+
+    /**
+     * Set the model matrix of the cube with the given index in a square grid of <code>count</code> cubes.
+     */
+    Matrix4f model(int i) {
+        int side = (int) Math.ceil(Math.sqrt(count));
+        return modelMatrix.translation((i % side - side * 0.5f) * 2.0f, 0, (i / side - side * 0.5f) * 2.0f).rotateY(frame * 0.01f);
+    }
+
+    private void render(InstancedCubeRenderer cubes) {
+        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        cubes.begin();
+        for (int i = 0; i < count; i++)
+            cubes.add(model(i));
+        cubes.draw();
+    }
+
+    @Benchmark
+    public void immediate() {
+        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        for (int i = 0; i < count; i++) {
+            glLoadMatrixf(viewMatrix.mul(model(i), modelViewMatrix).get(fb));
+            renderCube();
+        }
+    }
+
+    @Benchmark
+    public void vboLoop() {
+        render(looped);
+    }
+
+    @Benchmark
+    public void instanced() {
+        if (instanced == null)
+            throw new IllegalStateException("Instanced rendering requires OpenGL 3.3");
+        render(instanced);
+    }
+
+}
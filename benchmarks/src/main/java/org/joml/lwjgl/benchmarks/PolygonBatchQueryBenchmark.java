@@ -0,0 +1,94 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.PolygonsIntersection;
+import org.joml.lwjgl.PolygonBatchQuery;
+import org.joml.lwjgl.PolygonIndex;
+import org.joml.lwjgl.RandomStrokes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures testing random points against 400 strokes one at a time, with a {@link PolygonsIntersection} over all polygons or with a
+ * {@link PolygonIndex} like the <code>PolygonDrawer</code> does for the mouse cursor, and all at once with the multi-threaded
+ * {@link PolygonBatchQuery} on the common pool. The score is the throughput in points per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolygonBatchQueryBenchmark {
+
+    static final int POLYGONS = 400;
+    static final int POINTS = 1 << 16;
+
+    PolygonsIntersection full;
+    PolygonIndex index;
+    PolygonBatchQuery query;
+    final float[] xs = new float[POINTS], ys = new float[POINTS];
+    final int[] hits = new int[POINTS];
+    final BitSet hitPolygons = new BitSet();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(1);
+        int strokeVertices = RandomStrokes.STROKE_VERTICES;
+        float[] verticesXY = new float[2 * POLYGONS * strokeVertices];
+        int[] polygons = new int[POLYGONS - 1];
+        index = new PolygonIndex();
+        for (int p = 0; p < POLYGONS; p++) {
+            RandomStrokes.stroke(rnd, verticesXY, p * strokeVertices, strokeVertices);
+            index.add(verticesXY, p * strokeVertices, strokeVertices);
+            if (p > 0)
+                polygons[p - 1] = p * strokeVertices;
+        }
+        full = new PolygonsIntersection(verticesXY, polygons, POLYGONS * strokeVertices);
+        query = new PolygonBatchQuery(index);
+        for (int i = 0; i < POINTS; i++) {
+            xs[i] = rnd.nextFloat() * RandomStrokes.WIDTH;
+            ys[i] = rnd.nextFloat() * RandomStrokes.HEIGHT;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int polygonsIntersection() {
+        int inside = 0;
+        for (int i = 0; i < POINTS; i++)
+            if (full.testPoint(xs[i], ys[i], hitPolygons))
+                inside++;
+        return inside;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int indexOneAtATime() {
+        int inside = 0;
+        for (int i = 0; i < POINTS; i++)
+            if ((hits[i] = index.polygonAt(xs[i], ys[i])) >= 0)
+                inside++;
+        return inside;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int batch() {
+        return query.testPoints(xs, ys, hits, POINTS);
+    }
+
+}
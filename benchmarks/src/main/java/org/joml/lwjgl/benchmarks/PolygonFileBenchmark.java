@@ -0,0 +1,95 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.lwjgl.PolygonFile;
+import org.joml.lwjgl.PolygonIndex;
+import org.joml.lwjgl.RandomStrokes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing and opening a {@link PolygonFile} of 20000 strokes with 10M vertices, and point queries on the opened file.
+ * <p>
+ * The file is written once per trial into a temporary file, so opening it mostly reads from the page cache. There is no
+ * {@link PolygonIndex} over the same vertices to compare the queries with: it would grow the heap so much that the collections freeing
+ * the mappings of opened files take longer than opening them. The <code>PolygonsIntersectionBenchmark</code> measures queries on
+ * the index instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolygonFileBenchmark {
+
+    static final int POLYGONS = 20000;
+    static final int QUERIES = 1024;
+
+    float[] verticesXY;
+    int[] polygons;
+    File path, written;
+    PolygonFile file;
+    final float[] xs = new float[QUERIES], ys = new float[QUERIES];
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random rnd = new Random(1);
+        int strokeVertices = RandomStrokes.STROKE_VERTICES;
+        verticesXY = new float[2 * POLYGONS * strokeVertices];
+        polygons = new int[POLYGONS];
+        for (int p = 0; p < POLYGONS; p++) {
+            RandomStrokes.stroke(rnd, verticesXY, p * strokeVertices, strokeVertices);
+            polygons[p] = (p + 1) * strokeVertices;
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            xs[i] = rnd.nextFloat() * RandomStrokes.WIDTH;
+            ys[i] = rnd.nextFloat() * RandomStrokes.HEIGHT;
+        }
+        path = File.createTempFile("polygons", ".gon");
+        written = File.createTempFile("polygons", ".gon");
+        PolygonFile.write(path, null, verticesXY, polygons, POLYGONS);
+        file = PolygonFile.open(path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        path.delete();
+        written.delete();
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        PolygonFile.write(written, null, verticesXY, polygons, POLYGONS);
+    }
+
+    @Benchmark
+    public PolygonFile open() throws IOException {
+        return PolygonFile.open(path);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int filePolygonAt() {
+        int sum = 0;
+        for (int i = 0; i < QUERIES; i++)
+            sum += file.polygonAt(xs[i], ys[i]);
+        return sum;
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.PolygonsIntersection;
+import org.joml.lwjgl.PolygonIndex;
+import org.joml.lwjgl.RandomStrokes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures committing one more stroke of {@link RandomStrokes#STROKE_VERTICES} vertices in the <code>PolygonDrawer</code>, either by
+ * rebuilding a {@link PolygonsIntersection} over all vertices, like the demo used to do, or by adding it to a {@link PolygonIndex} and
+ * removing it again, which undo does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolygonIndexBenchmark {
+
+    /**
+     * The number of vertices of all strokes drawn before.
+     */
+    @Param({ "1000", "100000", "1000000" })
+    public int totalVertices;
+
+    float[] verticesXY;
+    int[] polygons;
+    int first, strokeVertices;
+    PolygonIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(totalVertices);
+        int strokes = Math.max(1, totalVertices / RandomStrokes.STROKE_VERTICES);
+        strokeVertices = Math.min(RandomStrokes.STROKE_VERTICES, totalVertices);
+        verticesXY = new float[2 * (strokes + 1) * strokeVertices];
+        polygons = new int[strokes + 1];
+        index = new PolygonIndex();
+        for (int p = 0; p < strokes; p++) {
+            RandomStrokes.stroke(rnd, verticesXY, first, strokeVertices);
+            index.add(verticesXY, first, strokeVertices);
+            first += strokeVertices;
+            polygons[p] = first;
+        }
+        RandomStrokes.stroke(rnd, verticesXY, first, strokeVertices);
+        polygons[strokes] = first + strokeVertices;
+    }
+
+    @Benchmark
+    public PolygonsIntersection rebuild() {
+        return new PolygonsIntersection(verticesXY, polygons, first + strokeVertices);
+    }
+
+    @Benchmark
+    public boolean addAndRemove() {
+        return index.remove(index.add(verticesXY, first, strokeVertices));
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.lwjgl.PolygonIndex;
+import org.joml.lwjgl.PolygonRaster;
+import org.joml.lwjgl.RandomStrokes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures adding strokes to a {@link PolygonRaster} covering an 800x600 window, and hover lookups in it compared to
+ * {@link PolygonIndex#polygonAt(float, float)} for 200 strokes, both on their own and with the exact test of the index for points
+ * near an edge, as the <code>PolygonSession</code> does.
+ * <p>
+ * The query points are random with fractional coordinates, and some lie outside of the bitmap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolygonRasterBenchmark {
+
+    static final int STROKES = 200;
+    static final int QUERIES = 4096;
+
+    float[] verticesXY;
+    PolygonIndex index;
+    PolygonRaster raster;
+    final PolygonRaster scratch = new PolygonRaster(0, 0, RandomStrokes.WIDTH, RandomStrokes.HEIGHT);
+    final float[] xs = new float[QUERIES], ys = new float[QUERIES];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(1);
+        int strokeVertices = RandomStrokes.STROKE_VERTICES;
+        verticesXY = new float[2 * STROKES * strokeVertices];
+        index = new PolygonIndex();
+        raster = new PolygonRaster(0, 0, RandomStrokes.WIDTH, RandomStrokes.HEIGHT);
+        for (int s = 0; s < STROKES; s++) {
+            RandomStrokes.stroke(rnd, verticesXY, s * strokeVertices, strokeVertices);
+            int id = index.add(verticesXY, s * strokeVertices, strokeVertices);
+            raster.add(id, verticesXY, s * strokeVertices, strokeVertices);
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            xs[i] = rnd.nextFloat() * (RandomStrokes.WIDTH + 20) - 10;
+            ys[i] = rnd.nextFloat() * (RandomStrokes.HEIGHT + 20) - 10;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STROKES)
+    public PolygonRaster add() {
+        scratch.clear();
+        for (int s = 0; s < STROKES; s++)
+            scratch.add(s, verticesXY, s * RandomStrokes.STROKE_VERTICES, RandomStrokes.STROKE_VERTICES);
+        return scratch;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int bitmap() {
+        int sum = 0;
+        for (int i = 0; i < QUERIES; i++)
+            sum += raster.polygonAt(xs[i], ys[i]);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int bitmapWithExactFallback() {
+        int sum = 0;
+        for (int i = 0; i < QUERIES; i++)
+            sum += raster.needsExactTest(xs[i], ys[i]) ? index.polygonAt(xs[i], ys[i]) : raster.polygonAt(xs[i], ys[i]);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int index() {
+        int sum = 0;
+        for (int i = 0; i < QUERIES; i++)
+            sum += index.polygonAt(xs[i], ys[i]);
+        return sum;
+    }
+
+}
@@ -0,0 +1,120 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.lwjgl.FloatArray;
+import org.joml.lwjgl.PolygonIndex;
+import org.joml.lwjgl.PolygonSimplifier;
+import org.joml.lwjgl.RandomStrokes;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures simplifying a slowly drawn stroke with the {@link PolygonSimplifier} like the <code>PolygonDrawer</code> does when committing
+ * it, and point queries on a {@link PolygonIndex} over 200 such strokes with and without simplification.
+ * <p>
+ * The {@link Counters} of {@link #simplify(Counters)} report the vertices of the original strokes and the vertices kept with a
+ * tolerance of one pixel, whose ratio is the reduction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolygonSimplifierBenchmark {
+
+    static final int STROKES = 200;
+    static final int QUERIES = 1024;
+    static final float TOLERANCE = 1.0f;
+
+    /**
+     * Totals over all strokes simplified in an iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long originalVertices;
+        public long keptVertices;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            originalVertices = 0L;
+            keptVertices = 0L;
+        }
+    }
+
+    float[] originalXY, scratch;
+    int[] polygons;
+    final PolygonSimplifier simplifier = new PolygonSimplifier();
+    final PolygonIndex originalIndex = new PolygonIndex(), simplifiedIndex = new PolygonIndex();
+    final float[] xs = new float[QUERIES], ys = new float[QUERIES];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(1);
+        FloatArray original = new FloatArray();
+        polygons = new int[STROKES];
+        for (int s = 0; s < STROKES; s++) {
+            RandomStrokes.slowStroke(rnd, original);
+            polygons[s] = original.size() / 2;
+        }
+        originalXY = original.array();
+        scratch = new float[originalXY.length];
+        for (int s = 0, first = 0; s < STROKES; first = polygons[s++]) {
+            int count = polygons[s] - first;
+            originalIndex.add(originalXY, first, count);
+            System.arraycopy(originalXY, 2 * first, scratch, 0, 2 * count);
+            simplifiedIndex.add(scratch, 0, simplifier.simplify(scratch, 0, count, TOLERANCE));
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            xs[i] = rnd.nextFloat() * RandomStrokes.WIDTH;
+            ys[i] = rnd.nextFloat() * RandomStrokes.HEIGHT;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STROKES)
+    public int simplify(Counters counters) {
+        int kept = 0;
+        for (int s = 0, first = 0; s < STROKES; first = polygons[s++]) {
+            int count = polygons[s] - first;
+            System.arraycopy(originalXY, 2 * first, scratch, 0, 2 * count);
+            kept += simplifier.simplify(scratch, 0, count, TOLERANCE);
+        }
+        counters.originalVertices += polygons[STROKES - 1];
+        counters.keptVertices += kept;
+        return kept;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int queryOriginal() {
+        int sum = 0;
+        for (int i = 0; i < QUERIES; i++)
+            sum += originalIndex.polygonAt(xs[i], ys[i]);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int querySimplified() {
+        int sum = 0;
+        for (int i = 0; i < QUERIES; i++)
+            sum += simplifiedIndex.polygonAt(xs[i], ys[i]);
+        return sum;
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.lwjgl.IntArray;
+import org.joml.lwjgl.PolygonTriangulator;
+import org.joml.lwjgl.RandomStrokes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link PolygonTriangulator} on a wavy outline with 100k vertices and one pixel of noise, like a huge stroke drawn with
+ * the mouse, on the same polygon with 100 holes, and per stroke on 2000 strokes like the ones drawn in the <code>PolygonDrawer</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolygonTriangulatorBenchmark {
+
+    static final int VERTICES = 100000;
+    static final int HOLES = 100;
+    static final int HOLE_VERTICES = 64;
+    static final int STROKES = 2000;
+    /**
+     * Makes the vertices of the large polygon about one unit apart, like those of a stroke.
+     */
+    static final float RADIUS = 15000.0f;
+
+    float[] outlineXY, strokesXY;
+    FloatBuffer holedXY;
+    final int[] holes = new int[HOLES];
+    final PolygonTriangulator triangulator = new PolygonTriangulator();
+    final IntArray triangles = new IntArray();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(1);
+        outlineXY = new float[2 * VERTICES];
+        RandomStrokes.outline(rnd, outlineXY, 0, VERTICES, 0.0f, 0.0f, RADIUS, false);
+        float[] holed = new float[2 * (VERTICES + HOLES * HOLE_VERTICES)];
+        System.arraycopy(outlineXY, 0, holed, 0, 2 * VERTICES);
+        for (int h = 0; h < HOLES; h++) {
+            double angle = 2.0 * Math.PI * h / HOLES;
+            holes[h] = VERTICES + h * HOLE_VERTICES;
+            float cx = 0.4f * RADIUS * (float) Math.cos(angle), cy = 0.4f * RADIUS * (float) Math.sin(angle);
+            RandomStrokes.outline(rnd, holed, holes[h], HOLE_VERTICES, cx, cy, 50.0f, true);
+        }
+        holedXY = FloatBuffer.wrap(holed);
+        int strokeVertices = RandomStrokes.STROKE_VERTICES;
+        strokesXY = new float[2 * STROKES * strokeVertices];
+        for (int s = 0; s < STROKES; s++)
+            RandomStrokes.stroke(rnd, strokesXY, s * strokeVertices, strokeVertices);
+    }
+
+    @Benchmark
+    public int outline() {
+        triangles.clear();
+        return triangulator.triangulate(outlineXY, 0, VERTICES, triangles);
+    }
+
+    @Benchmark
+    public int outlineWithHoles() {
+        triangles.clear();
+        return triangulator.triangulate(holedXY, 0, VERTICES + HOLES * HOLE_VERTICES, holes, triangles);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STROKES)
+    public int strokes() {
+        triangles.clear();
+        int sum = 0;
+        for (int s = 0; s < STROKES; s++)
+            sum += triangulator.triangulate(strokesXY, s * RandomStrokes.STROKE_VERTICES, RandomStrokes.STROKE_VERTICES, triangles);
+        return sum;
+    }
+
+}
@@ -0,0 +1,157 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.PolygonsIntersection;
+import org.joml.lwjgl.PolygonIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures building a {@link PolygonsIntersection} or a {@link PolygonIndex} and testing points against them, for polygon sets shaped
+ * like the input of the <code>PolygonDrawer</code>: closed, non-overlapping outlines with many vertices each.
+ * <p>
+ * The polygons are laid out on a square grid. Convex polygons are regular polygons, concave polygons are stars whose vertices alternate
+ * between two radii. A query point is either placed near the center of a random polygon, where it is inside both kinds of polygon, or
+ * near a corner of a grid cell, where it is outside of all polygons. <code>hitRatio</code> is the fraction of points placed inside.
+ * <p>
+ * To measure what the grid of the {@link PolygonIndex} gains, the same polygons are also queried in an index whose single grid cell
+ * covers all of them, so that every query tests the bounding box of every polygon like a linear scan. With 100k polygons, the
+ * <code>vertexCount</code> is kept small enough for all copies of the vertices to fit into a default heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolygonsIntersectionBenchmark {
+
+    static final int POINTS = 1024;
+    static final float CELL_SIZE = 100.0f;
+
+    public enum Shape {
+        CONVEX, CONCAVE
+    }
+
+    @Param({ "10", "1000", "100000" })
+    public int polygonCount;
+
+    @Param({ "16", "128" })
+    public int vertexCount;
+
+    @Param({ "CONVEX", "CONCAVE" })
+    public Shape shape;
+
+    @Param({ "0.0", "0.5", "1.0" })
+    public float hitRatio;
+
+    float[] verticesXY;
+    int[] polygons;
+    float[] xs = new float[POINTS], ys = new float[POINTS];
+    PolygonsIntersection intersection;
+    PolygonIndex index;
+    PolygonIndex singleCellIndex;
+    BitSet hitPolygons = new BitSet();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rnd = new Random(12345);
+        int side = (int) Math.ceil(Math.sqrt(polygonCount));
+        verticesXY = new float[2 * polygonCount * vertexCount];
+        /* The index of the first vertex of each polygon but the first, as expected by PolygonsIntersection */
+        polygons = new int[polygonCount - 1];
+        for (int p = 0; p < polygonCount; p++) {
+            float cx = (p % side + 0.5f) * CELL_SIZE, cy = (p / side + 0.5f) * CELL_SIZE;
+            float phase = rnd.nextFloat();
+            for (int i = 0; i < vertexCount; i++) {
+                double angle = 2.0 * Math.PI * (i + phase) / vertexCount;
+                float r = CELL_SIZE * (shape == Shape.CONCAVE && (i & 1) != 0 ? 0.25f : 0.4f);
+                verticesXY[2 * (p * vertexCount + i)] = cx + r * (float) Math.cos(angle);
+                verticesXY[2 * (p * vertexCount + i) + 1] = cy + r * (float) Math.sin(angle);
+            }
+            if (p > 0)
+                polygons[p - 1] = p * vertexCount;
+        }
+        for (int i = 0; i < POINTS; i++) {
+            int p = rnd.nextInt(polygonCount);
+            float cx = (p % side + 0.5f) * CELL_SIZE, cy = (p / side + 0.5f) * CELL_SIZE;
+            if (rnd.nextFloat() < hitRatio) {
+                /* Within the inner radius of the star */
+                xs[i] = cx + (rnd.nextFloat() - 0.5f) * CELL_SIZE * 0.2f;
+                ys[i] = cy + (rnd.nextFloat() - 0.5f) * CELL_SIZE * 0.2f;
+            } else {
+                /* Near a corner of the grid cell */
+                xs[i] = cx - CELL_SIZE * 0.5f + (rnd.nextFloat() - 0.5f) * CELL_SIZE * 0.1f;
+                ys[i] = cy - CELL_SIZE * 0.5f + (rnd.nextFloat() - 0.5f) * CELL_SIZE * 0.1f;
+            }
+        }
+        intersection = buildPolygonsIntersection();
+        index = buildPolygonIndex();
+        singleCellIndex = new PolygonIndex((side + 1) * CELL_SIZE);
+        for (int p = 0; p < polygonCount; p++)
+            singleCellIndex.add(verticesXY, p * vertexCount, vertexCount);
+    }
+
+    @Benchmark
+    public PolygonsIntersection buildPolygonsIntersection() {
+        return new PolygonsIntersection(verticesXY, polygons, polygonCount * vertexCount);
+    }
+
+    @Benchmark
+    public PolygonIndex buildPolygonIndex() {
+        PolygonIndex index = new PolygonIndex();
+        for (int p = 0; p < polygonCount; p++)
+            index.add(verticesXY, p * vertexCount, vertexCount);
+        return index;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void testPoint(Blackhole bh) {
+        for (int i = 0; i < POINTS; i++)
+            bh.consume(intersection.testPoint(xs[i], ys[i]));
+    }
+
+    /**
+     * Like the <code>PolygonDrawer</code> did for the mouse cursor before it used the {@link PolygonIndex}.
+     */
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void testPointWithHitPolygons(Blackhole bh) {
+        for (int i = 0; i < POINTS; i++)
+            bh.consume(intersection.testPoint(xs[i], ys[i], hitPolygons));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void polygonIndexTestPoint(Blackhole bh) {
+        for (int i = 0; i < POINTS; i++)
+            bh.consume(index.testPoint(xs[i], ys[i], hitPolygons));
+    }
+
+    /**
+     * Like {@link #polygonIndexTestPoint(Blackhole)}, but without the broadphase of the grid.
+     */
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void singleCellIndexTestPoint(Blackhole bh) {
+        for (int i = 0; i < POINTS; i++)
+            bh.consume(singleCellIndex.testPoint(xs[i], ys[i], hitPolygons));
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.lwjgl.ChunkedVoxelStorage;
+import org.joml.lwjgl.VoxelMesh;
+import org.joml.lwjgl.VoxelMesher;
+import org.joml.lwjgl.VoxelStorage;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures copying one chunk with its neighbours' border voxels and meshing it with the {@link VoxelMesher}, cycling through the
+ * non-empty chunks of a world. The score is the throughput in voxels of the meshed chunks per millisecond.
+ * <p>
+ * <code>FLAT_BASE</code> is the single layer of the <code>BoxPickingDemo</code>, <code>TERRAIN</code> a sine-shaped height field with
+ * mostly large flat faces, and <code>RANDOM</code> sets a quarter of all voxels at random, which gives the mesher the least to merge.
+ * <p>
+ * The {@link Counters} report the vertices emitted next to the 24 vertices per solid voxel of drawing every voxel as a cube, and the
+ * number of chunks meshed to divide them by.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoxelMesherBenchmark {
+
+    static final int CHUNK_VOLUME = VoxelStorage.CHUNK_SIZE * VoxelStorage.CHUNK_SIZE * VoxelStorage.CHUNK_SIZE;
+
+    /**
+     * Totals over all chunks meshed in an iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long chunks;
+        public long vertices;
+        public long cubeVertices;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            chunks = 0L;
+            vertices = 0L;
+            cubeVertices = 0L;
+        }
+    }
+
+    public enum World {
+        FLAT_BASE, TERRAIN, RANDOM
+    }
+
+    @Param({ "FLAT_BASE", "TERRAIN", "RANDOM" })
+    public World world;
+
+    ChunkedVoxelStorage storage;
+    int[] chunks;
+    int next;
+    final int[] padded = new int[VoxelMesher.PADDED_VOLUME];
+    final VoxelMesher mesher = new VoxelMesher();
+    final VoxelMesh mesh = new VoxelMesh();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (world) {
+        case FLAT_BASE:
+            storage = new ChunkedVoxelStorage(64, 64, 64);
+            storage.fill(0, 0, 0, 64, 1, 64, true);
+            break;
+        case TERRAIN:
+            storage = new ChunkedVoxelStorage(256, 64, 256);
+            for (int z = 0; z < 256; z++)
+                for (int x = 0; x < 256; x++)
+                    storage.fill(x, 0, z, x + 1, 16 + (int) (12.0 * Math.sin(x * 0.07) * Math.cos(z * 0.05)), z + 1, true);
+            break;
+        case RANDOM:
+            storage = new ChunkedVoxelStorage(128, 64, 128);
+            Random rnd = new Random(1234);
+            for (int i = 0; i < 128 * 64 * 128 / 4; i++)
+                storage.set(rnd.nextInt(128), rnd.nextInt(64), rnd.nextInt(128), true);
+            break;
+        }
+        List<int[]> nonEmpty = new ArrayList<int[]>();
+        for (int cy = 0; cy < storage.chunksY(); cy++)
+            for (int cz = 0; cz < storage.chunksZ(); cz++)
+                for (int cx = 0; cx < storage.chunksX(); cx++)
+                    if (!storage.isChunkEmpty(cx, cy, cz))
+                        nonEmpty.add(new int[] { cx, cy, cz });
+        if (nonEmpty.isEmpty())
+            throw new AssertionError("No chunk to mesh");
+        chunks = new int[3 * nonEmpty.size()];
+        for (int i = 0; i < nonEmpty.size(); i++)
+            System.arraycopy(nonEmpty.get(i), 0, chunks, 3 * i, 3);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_VOLUME)
+    public VoxelMesh meshChunk(Counters counters) {
+        int i = next;
+        next = i + 3 == chunks.length ? 0 : i + 3;
+        VoxelMesher.copyPadded(storage, chunks[i], chunks[i + 1], chunks[i + 2], padded);
+        mesher.mesh(padded, 0, 0, 0, mesh);
+        counters.chunks++;
+        counters.vertices += mesh.vertexCount();
+        counters.cubeVertices += 24 * storage.chunkCount(chunks[i], chunks[i + 1], chunks[i + 2]);
+        return mesh;
+    }
+
+}
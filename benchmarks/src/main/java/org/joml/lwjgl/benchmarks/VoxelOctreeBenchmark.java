@@ -0,0 +1,121 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.lwjgl.ChunkedVoxelStorage;
+import org.joml.lwjgl.FlatVoxelStorage;
+import org.joml.lwjgl.OctreeVoxelStorage;
+import org.joml.lwjgl.VoxelRaycast;
+import org.joml.lwjgl.VoxelStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures casting rays into a 256x128x256 world held by a {@link FlatVoxelStorage}, a {@link ChunkedVoxelStorage} or an
+ * {@link OctreeVoxelStorage}.
+ * <p>
+ * <code>RANDOM</code> worlds have solid voxels scattered uniformly, <code>TERRAIN</code> worlds are filled from the bottom to a rolling
+ * height field; <code>ratio</code> is the fraction of solid voxels. Rays start in the upper half of the world and look around, mostly
+ * downwards, like a player would.
+ * <p>
+ * The memory footprint of the storages for the same kinds of world is printed by the <code>VoxelOctree</code> check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoxelOctreeBenchmark {
+
+    static final int SIZE = 256;
+    static final int HEIGHT = 128;
+    static final int RAYS = 1024;
+
+    public enum Storage {
+        FLAT, CHUNKED, OCTREE
+    }
+
+    public enum World {
+        RANDOM, TERRAIN
+    }
+
+    @Param({ "FLAT", "CHUNKED", "OCTREE" })
+    public Storage storage;
+
+    @Param({ "RANDOM", "TERRAIN" })
+    public World world;
+
+    @Param({ "0.01", "0.1", "0.5" })
+    public double ratio;
+
+    VoxelStorage voxels;
+    final float[] rays = new float[6 * RAYS];
+    final VoxelRaycast.Hit hit = new VoxelRaycast.Hit();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (storage) {
+        case FLAT:
+            voxels = new FlatVoxelStorage(SIZE, HEIGHT, SIZE);
+            break;
+        case CHUNKED:
+            voxels = new ChunkedVoxelStorage(SIZE, HEIGHT, SIZE);
+            break;
+        case OCTREE:
+            voxels = new OctreeVoxelStorage(SIZE, HEIGHT, SIZE);
+            break;
+        }
+        if (world == World.RANDOM) {
+            Random rnd = new Random(1234);
+            for (int y = 0; y < HEIGHT; y++)
+                for (int z = 0; z < SIZE; z++)
+                    for (int x = 0; x < SIZE; x++)
+                        if (rnd.nextDouble() < ratio)
+                            voxels.set(x, y, z, true);
+        } else {
+            double mean = ratio * HEIGHT;
+            double amplitude = Math.min(mean, HEIGHT - mean) * 0.8;
+            for (int z = 0; z < SIZE; z++)
+                for (int x = 0; x < SIZE; x++) {
+                    int h = (int) Math.round(mean + amplitude * Math.sin(x * 0.05) * Math.cos(z * 0.04));
+                    voxels.fill(x, 0, z, x + 1, h, z + 1, true);
+                }
+        }
+        Random rnd = new Random(42);
+        for (int i = 0; i < RAYS; i++) {
+            rays[6 * i + 0] = rnd.nextFloat() * SIZE;
+            rays[6 * i + 1] = HEIGHT * (0.5f + 0.5f * rnd.nextFloat());
+            rays[6 * i + 2] = rnd.nextFloat() * SIZE;
+            float dx = rnd.nextFloat() * 2.0f - 1.0f, dy = -rnd.nextFloat(), dz = rnd.nextFloat() * 2.0f - 1.0f;
+            float invLength = (float) (1.0 / Math.sqrt(dx * dx + dy * dy + dz * dz));
+            rays[6 * i + 3] = dx * invLength;
+            rays[6 * i + 4] = dy * invLength;
+            rays[6 * i + 5] = dz * invLength;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public int raycast() {
+        int hits = 0;
+        for (int i = 0; i < RAYS; i++)
+            if (voxels.raycast(rays[6 * i], rays[6 * i + 1], rays[6 * i + 2], rays[6 * i + 3], rays[6 * i + 4], rays[6 * i + 5], 2.0f * SIZE,
+                    hit))
+                hits++;
+        return hits;
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.lwjgl.ChunkedVoxelStorage;
+import org.joml.lwjgl.VoxelRegionStore;
+import org.joml.lwjgl.VoxelStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading a 1024x64x1024 voxel world saved by a {@link VoxelRegionStore}, either only the 17x17 columns of chunks around the
+ * center or all 16384 chunks, and saving it again after editing a single voxel.
+ * <p>
+ * The region files are written once per trial into a temporary directory, so loading mostly reads from the page cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoxelRegionBenchmark {
+
+    static final int SIZE = 1024;
+    static final int HEIGHT = 64;
+    static final int VIEW_RADIUS = 8;
+
+    File directory;
+    ChunkedVoxelStorage world;
+    VoxelRegionStore store;
+    boolean edited;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = File.createTempFile("voxelworld", "");
+        directory.delete();
+        world = new ChunkedVoxelStorage(SIZE, HEIGHT, SIZE);
+        for (int z = 0; z < SIZE; z++)
+            for (int x = 0; x < SIZE; x++) {
+                int h = 24 + (int) (16.0 * Math.sin(x * 0.03) * Math.cos(z * 0.02));
+                world.fill(x, 0, z, x + 1, h, z + 1, true);
+                if (((x ^ z) & 7) == 0)
+                    world.setType(x, h - 1, z, 2 + (x & 3));
+            }
+        store = new VoxelRegionStore(directory, world);
+        store.markAllLoaded();
+        store.markAllModified();
+        store.save();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File f : files)
+                f.delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public int loadNearby() throws IOException {
+        ChunkedVoxelStorage nearby = new ChunkedVoxelStorage(SIZE, HEIGHT, SIZE);
+        VoxelRegionStore nearbyStore = new VoxelRegionStore(directory, nearby);
+        int center = (SIZE / 2) >> VoxelStorage.CHUNK_SHIFT;
+        for (int cz = center - VIEW_RADIUS; cz <= center + VIEW_RADIUS; cz++)
+            for (int cx = center - VIEW_RADIUS; cx <= center + VIEW_RADIUS; cx++)
+                for (int cy = 0; cy < nearby.chunksY(); cy++)
+                    nearbyStore.ensureLoaded(cx, cy, cz);
+        nearbyStore.close();
+        return nearbyStore.chunksLoaded();
+    }
+
+    @Benchmark
+    public int loadAll() throws IOException {
+        ChunkedVoxelStorage all = new ChunkedVoxelStorage(SIZE, HEIGHT, SIZE);
+        VoxelRegionStore allStore = new VoxelRegionStore(directory, all);
+        for (int cy = 0; cy < all.chunksY(); cy++)
+            for (int cz = 0; cz < all.chunksZ(); cz++)
+                for (int cx = 0; cx < all.chunksX(); cx++)
+                    allStore.ensureLoaded(cx, cy, cz);
+        allStore.close();
+        return allStore.chunksLoaded();
+    }
+
+    @Benchmark
+    public int saveEdit() throws IOException {
+        edited = !edited;
+        world.set(SIZE / 2, HEIGHT - 1, SIZE / 2, edited);
+        store.markModified((SIZE / 2) >> VoxelStorage.CHUNK_SHIFT, world.chunksY() - 1, (SIZE / 2) >> VoxelStorage.CHUNK_SHIFT);
+        return store.save();
+    }
+
+}
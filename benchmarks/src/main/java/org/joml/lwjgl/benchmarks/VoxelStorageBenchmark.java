@@ -0,0 +1,75 @@
+package org.joml.lwjgl.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.lwjgl.ChunkedVoxelStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures random reads from a 256x256x256 world with 10% of random voxels set, held by a flat <code>boolean[]</code> of one byte per
+ * voxel, as used by the <code>BoxPickingDemo</code> before, or by a {@link ChunkedVoxelStorage}.
+ * <p>
+ * How much memory the two need is compared by the <code>VoxelStorage</code> check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoxelStorageBenchmark {
+
+    static final int SIZE = 256;
+    static final int READS = 4096;
+
+    boolean[] flat;
+    ChunkedVoxelStorage chunked;
+    final int[] coords = new int[3 * READS];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(1234);
+        flat = new boolean[SIZE * SIZE * SIZE];
+        chunked = new ChunkedVoxelStorage(SIZE, SIZE, SIZE);
+        for (int i = 0; i < flat.length / 10; i++) {
+            int x = rnd.nextInt(SIZE), y = rnd.nextInt(SIZE), z = rnd.nextInt(SIZE);
+            flat[(y * SIZE + z) * SIZE + x] = true;
+            chunked.set(x, y, z, true);
+        }
+        for (int i = 0; i < coords.length; i++)
+            coords[i] = rnd.nextInt(SIZE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READS)
+    public int flatReads() {
+        int hits = 0;
+        for (int i = 0; i < 3 * READS; i += 3)
+            if (flat[(coords[i + 1] * SIZE + coords[i + 2]) * SIZE + coords[i]])
+                hits++;
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READS)
+    public int chunkedReads() {
+        int hits = 0;
+        for (int i = 0; i < 3 * READS; i += 3)
+            if (chunked.get(coords[i], coords[i + 1], coords[i + 2]))
+                hits++;
+        return hits;
+    }
+
+}
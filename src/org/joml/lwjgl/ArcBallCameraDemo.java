@@ -26,41 +26,6 @@ public class ArcBallCameraDemo {
     private static final Vector3f center = new Vector3f();
     private static float pitch = 0.3f, yaw = 0.2f;
 
-    private static void renderCube() {
-        glBegin(GL_QUADS);
-        glColor3f(0.0f, 0.0f, 0.2f);
-        glVertex3f(0.5f, -0.5f, -0.5f);
-        glVertex3f(0.5f, 0.5f, -0.5f);
-        glVertex3f(-0.5f, 0.5f, -0.5f);
-        glVertex3f(-0.5f, -0.5f, -0.5f);
-        glColor3f(0.0f, 0.0f, 1.0f);
-        glVertex3f(0.5f, -0.5f, 0.5f);
-        glVertex3f(0.5f, 0.5f, 0.5f);
-        glVertex3f(-0.5f, 0.5f, 0.5f);
-        glVertex3f(-0.5f, -0.5f, 0.5f);
-        glColor3f(1.0f, 0.0f, 0.0f);
-        glVertex3f(0.5f, -0.5f, -0.5f);
-        glVertex3f(0.5f, 0.5f, -0.5f);
-        glVertex3f(0.5f, 0.5f, 0.5f);
-        glVertex3f(0.5f, -0.5f, 0.5f);
-        glColor3f(0.2f, 0.0f, 0.0f);
-        glVertex3f(-0.5f, -0.5f, 0.5f);
-        glVertex3f(-0.5f, 0.5f, 0.5f);
-        glVertex3f(-0.5f, 0.5f, -0.5f);
-        glVertex3f(-0.5f, -0.5f, -0.5f);
-        glColor3f(0.0f, 1.0f, 0.0f);
-        glVertex3f(0.5f, 0.5f, 0.5f);
-        glVertex3f(0.5f, 0.5f, -0.5f);
-        glVertex3f(-0.5f, 0.5f, -0.5f);
-        glVertex3f(-0.5f, 0.5f, 0.5f);
-        glColor3f(0.0f, 0.2f, 0.0f);
-        glVertex3f(0.5f, -0.5f, -0.5f);
-        glVertex3f(0.5f, -0.5f, 0.5f);
-        glVertex3f(-0.5f, -0.5f, 0.5f);
-        glVertex3f(-0.5f, -0.5f, -0.5f);
-        glEnd();
-    }
-
     private static void renderGrid() {
         glBegin(GL_LINES);
         glColor3f(0.2f, 0.2f, 0.2f);
@@ -116,6 +81,7 @@ public class ArcBallCameraDemo {
         height = framebufferSize.get(1);
         glfwMakeContextCurrent(window);
         GL.createCapabilities();
+        InstancedCubeRenderer cubes = new InstancedCubeRenderer();
         glClearColor(0.9f, 0.9f, 0.9f, 1.0f);
         glEnable(GL_DEPTH_TEST);
         Matrix4f mat = new Matrix4f();
@@ -140,9 +106,10 @@ public class ArcBallCameraDemo {
             glLoadMatrixf(
                 mat.translate(center)
                    .get(fb));
-            renderCube();
+            cubes.drawCube();
             glfwSwapBuffers(window);
             glfwPollEvents();
         }
+        cubes.destroy();
     }
 }
\ No newline at end of file
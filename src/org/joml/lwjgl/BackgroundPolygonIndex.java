@@ -0,0 +1,248 @@
+package org.joml.lwjgl;
+
+import java.util.BitSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link PolygonIndex} which is updated on a worker thread, so that committing a polygon never blocks the thread that queries it.
+ * <p>
+ * The worker applies all submitted changes to its own index, and when no more changes are queued it publishes a copy of that index
+ * through an {@link AtomicReference}. A published copy is never modified again, so queries run on it without locking. Until the worker
+ * publishes the next copy, queries keep answering from the previous one.
+ * <p>
+ * A query is stale if changes were submitted which the published copy does not contain yet. {@link #staleness()} records for every
+ * stale query how long the index had been outdated at that time, that is, since the oldest change still missing.
+ * {@link #publishLatency()} records for every published copy how long the oldest change in it had been waiting.
+ * <p>
+ * Publishing copies the polygon table and the grid but shares the vertices and intersection tests, so a copy takes time and memory
+ * proportional to the number of polygons and grid cells, but not to the number of vertices. On a single core the worker usually
+ * preempts the submitting thread as soon as a change is queued, so {@link #add(float[], int, int)} then blocks for applying the change
+ * and one copy, and queries see the change within a scheduler time slice. The <code>BackgroundPolygonIndexBenchmark</code> in the
+ * <code>benchmarks</code> module measures both. Polygons added
+ * one at a time in a loop would then each be published on their own, so that the copies add up to garbage quadratic in the number of
+ * polygons and the collections for it stall both threads; {@link #addAll(float[], int[], int)} submits them as a single change with a
+ * single copy instead.
+ * <p>
+ * Changes must be submitted from the thread that runs the queries, like the GLFW callbacks of the {@link PolygonDrawer}.
+ */
+public class BackgroundPolygonIndex {
+
+    /**
+     * A published index together with the number of changes it contains.
+     */
+    private static final class Snapshot {
+        final PolygonIndex index;
+        final long version;
+
+        Snapshot(PolygonIndex index, long version) {
+            this.index = index;
+            this.version = version;
+        }
+    }
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "PolygonIndex builder");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final AtomicReference<Snapshot> published = new AtomicReference<Snapshot>(new Snapshot(new PolygonIndex(), 0L));
+    private final LatencyHistogram staleness = new LatencyHistogram();
+    private final LatencyHistogram publishLatency = new LatencyHistogram();
+
+    /* Only accessed by the worker */
+    private final PolygonIndex building = new PolygonIndex();
+    private long oldestUnpublished = -1L;
+
+    /**
+     * The number of submitted changes the worker has not applied yet.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /* Only accessed by the submitting thread */
+    private long submitted;
+    /**
+     * The time of submission of each change not known to be published yet, indexed by its version modulo the length.
+     */
+    private long[] submitTimes = new long[16];
+
+    /**
+     * A change of the index, numbered by the order of submission starting with 1.
+     */
+    private abstract class Change implements Runnable {
+        final long version;
+        final long submitTime;
+
+        Change(long version, long submitTime) {
+            this.version = version;
+            this.submitTime = submitTime;
+        }
+
+        abstract void apply(PolygonIndex index);
+
+        public void run() {
+            apply(building);
+            if (oldestUnpublished < 0L)
+                oldestUnpublished = submitTime;
+            if (queued.decrementAndGet() > 0)
+                return;
+            /* No more changes queued, so publish everything applied so far with a single copy */
+            published.set(new Snapshot(new PolygonIndex(building), version));
+            publishLatency.record(System.nanoTime() - oldestUnpublished);
+            oldestUnpublished = -1L;
+        }
+    }
+
+    private void submit(Change change) {
+        long publishedVersion = published.get().version;
+        if (change.version - publishedVersion > submitTimes.length) {
+            long[] newSubmitTimes = new long[submitTimes.length * 2];
+            for (long v = publishedVersion + 1; v < change.version; v++)
+                newSubmitTimes[(int) v & (newSubmitTimes.length - 1)] = submitTimes[(int) v & (submitTimes.length - 1)];
+            submitTimes = newSubmitTimes;
+        }
+        submitTimes[(int) change.version & (submitTimes.length - 1)] = change.submitTime;
+        queued.incrementAndGet();
+        worker.execute(change);
+    }
+
+    /**
+     * Submit adding the polygon made of the <code>count</code> vertices starting at vertex <code>first</code> of the given
+     * <code>(x, y)</code> array. The vertices are copied before this method returns.
+     * <p>
+     * Polygons get the same ids as they would get from {@link PolygonIndex#add(float[], int, int)} in the order of submission.
+     */
+    public void add(float[] verticesXY, int first, int count) {
+        final float[] copy = new float[2 * count];
+        System.arraycopy(verticesXY, 2 * first, copy, 0, 2 * count);
+        final int n = count;
+        submit(new Change(++submitted, System.nanoTime()) {
+            void apply(PolygonIndex index) {
+                index.add(copy, 0, n);
+            }
+        });
+    }
+
+    /**
+     * Submit adding the first <code>polygonCount</code> polygons given by <code>verticesXY</code> and <code>polygons</code> as a single
+     * change, which is published with a single copy. The vertices are copied before this method returns.
+     *
+     * @param polygons
+     *          the index of the vertex after the last vertex of each polygon, as used by the {@link PolygonDrawer}
+     */
+    public void addAll(float[] verticesXY, final int[] polygons, final int polygonCount) {
+        if (polygonCount == 0)
+            return;
+        final float[] copy = new float[2 * polygons[polygonCount - 1]];
+        System.arraycopy(verticesXY, 0, copy, 0, copy.length);
+        final int[] ends = new int[polygonCount];
+        System.arraycopy(polygons, 0, ends, 0, polygonCount);
+        submit(new Change(++submitted, System.nanoTime()) {
+            void apply(PolygonIndex index) {
+                for (int p = 0, first = 0; p < polygonCount; first = ends[p++])
+                    index.add(copy, first, ends[p] - first);
+            }
+        });
+    }
+
+    /**
+     * Submit removing all polygons.
+     */
+    public void clear() {
+        submit(new Change(++submitted, System.nanoTime()) {
+            void apply(PolygonIndex index) {
+                index.clear();
+            }
+        });
+    }
+
+    /**
+     * Return the latest published index, which must not be modified.
+     */
+    public PolygonIndex index() {
+        return published.get().index;
+    }
+
+    /**
+     * Return the latest published index and record the staleness of a query on it.
+     */
+    private PolygonIndex queryIndex() {
+        Snapshot snapshot = published.get();
+        if (snapshot.version < submitted) {
+            long oldestMissing = submitTimes[(int) (snapshot.version + 1) & (submitTimes.length - 1)];
+            staleness.record(System.nanoTime() - oldestMissing);
+        }
+        return snapshot.index;
+    }
+
+    /**
+     * Return whether changes were submitted which are not published yet.
+     */
+    public boolean isStale() {
+        return published.get().version < submitted;
+    }
+
+    /**
+     * Return the number of polygons in the latest published index.
+     */
+    public int size() {
+        return published.get().index.size();
+    }
+
+    /**
+     * Like {@link PolygonIndex#testPoint(float, float, BitSet)} on the latest published index.
+     */
+    public boolean testPoint(float x, float y, BitSet inPolygons) {
+        return queryIndex().testPoint(x, y, inPolygons);
+    }
+
+    /**
+     * Like {@link PolygonIndex#polygonAt(float, float)} on the latest published index.
+     */
+    public int polygonAt(float x, float y) {
+        return queryIndex().polygonAt(x, y);
+    }
+
+    /**
+     * Return the histogram of how long the index had been outdated when a query ran on it, with one entry per stale query.
+     */
+    public LatencyHistogram staleness() {
+        return staleness;
+    }
+
+    /**
+     * Return the histogram of the time from submitting the oldest change of a published copy until it was published.
+     */
+    public LatencyHistogram publishLatency() {
+        return publishLatency;
+    }
+
+    /**
+     * Wait until all changes submitted so far are published.
+     */
+    public void awaitPublished() throws InterruptedException {
+        /* The worker runs the changes in order and publishes after the last queued one, before it runs this */
+        try {
+            worker.submit(new Runnable() {
+                public void run() {
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Stop the worker thread. Changes submitted afterwards are rejected.
+     */
+    public void shutdown() {
+        worker.shutdown();
+    }
+
+}
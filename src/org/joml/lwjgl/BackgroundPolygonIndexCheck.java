@@ -0,0 +1,61 @@
+package org.joml.lwjgl;
+
+import java.util.Random;
+
+/**
+ * Commits strokes to a {@link BackgroundPolygonIndex} while querying it until each one is published, and checks that every query but
+ * the last one per stroke is recorded as stale, and that it reports the same polygons as a {@link PolygonIndex} built directly once all
+ * changes are published.
+ */
+class BackgroundPolygonIndexCheck {
+
+    static final int STROKES = 200;
+    static final int COMMITS = 50;
+    static final int QUERIES = 10000;
+
+    static void check() throws InterruptedException {
+        Random rnd = new Random(1);
+        int strokeVertices = RandomStrokes.STROKE_VERTICES;
+        float[] verticesXY = new float[2 * (STROKES + COMMITS) * strokeVertices];
+        BackgroundPolygonIndex background = new BackgroundPolygonIndex();
+        PolygonIndex direct = new PolygonIndex();
+        int[] polygons = new int[STROKES];
+        for (int s = 0; s < STROKES; s++) {
+            RandomStrokes.stroke(rnd, verticesXY, s * strokeVertices, strokeVertices);
+            direct.add(verticesXY, s * strokeVertices, strokeVertices);
+            polygons[s] = (s + 1) * strokeVertices;
+        }
+        try {
+            background.addAll(verticesXY, polygons, STROKES);
+            background.awaitPublished();
+            long queries = 0L;
+            for (int c = 0; c < COMMITS; c++) {
+                int first = (STROKES + c) * strokeVertices;
+                RandomStrokes.stroke(rnd, verticesXY, first, strokeVertices);
+                background.add(verticesXY, first, strokeVertices);
+                direct.add(verticesXY, first, strokeVertices);
+                /* The last query may find the stroke published already */
+                while (background.isStale()) {
+                    background.polygonAt(rnd.nextFloat() * RandomStrokes.WIDTH, rnd.nextFloat() * RandomStrokes.HEIGHT);
+                    queries++;
+                }
+            }
+            long stale = background.staleness().count();
+            if (stale > queries || stale < queries - COMMITS)
+                throw new AssertionError(stale + " of " + queries + " queries stale, but all but the last one of each commit should be");
+
+            background.awaitPublished();
+            if (background.size() != direct.size())
+                throw new AssertionError("expected " + direct.size() + " polygons but got " + background.size());
+            for (int i = 0; i < QUERIES; i++) {
+                float x = rnd.nextFloat() * RandomStrokes.WIDTH, y = rnd.nextFloat() * RandomStrokes.HEIGHT;
+                int expected = direct.polygonAt(x, y), actual = background.polygonAt(x, y);
+                if (actual != expected)
+                    throw new AssertionError("(" + x + ", " + y + "): expected " + expected + " but got " + actual);
+            }
+        } finally {
+            background.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,306 @@
+package org.joml.lwjgl;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+/**
+ * Builds the billboard model matrices of many objects at once, computing the same matrices as {@link Matrix4f#translation(Vector3f)},
+ * {@link Matrix4f#billboardCylindrical(Vector3f, Vector3f, Vector3f)} and the two variants of
+ * {@link Matrix4f#billboardSpherical(Vector3f, Vector3f, Vector3f) billboardSpherical}.
+ * <p>
+ * The positions of the objects are kept in separate arrays of x, y and z coordinates instead of a {@link Vector3f} per object, and the
+ * matrices are written as 16 floats in column-major order straight into a buffer, such as the instance buffer of an
+ * {@link InstancedCubeRenderer}, instead of into a {@link Matrix4f} per object. So building the matrices is a loop over a few arrays
+ * which allocates nothing and touches no other objects.
+ * <p>
+ * With more than {@link #MIN_BATCH} objects the work is split across the threads of a {@link ForkJoinPool}. The tasks are created once
+ * and reused. A batch must only be used by one thread at a time.
+ */
+public class BillboardBatch {
+
+    /**
+     * Only translate each object to its position.
+     */
+    public static final int NONE = 0;
+    /**
+     * Rotate each object about the up axis to face the target, like
+     * {@link Matrix4f#billboardCylindrical(Vector3f, Vector3f, Vector3f)}.
+     */
+    public static final int CYLINDRICAL = 1;
+    /**
+     * Rotate each object to face the target with its y axis in the plane of the up axis, like
+     * {@link Matrix4f#billboardSpherical(Vector3f, Vector3f, Vector3f)}.
+     */
+    public static final int SPHERICAL = 2;
+    /**
+     * Rotate each object by the shortest arc from its z axis to the direction of the target, like
+     * {@link Matrix4f#billboardSpherical(Vector3f, Vector3f)}.
+     */
+    public static final int SHORTEST_ARC = 3;
+
+    static final int FLOATS_PER_MATRIX = 16;
+    /**
+     * Batches with fewer objects than this are not split any further. A batch of this size is still long enough to be worth handing to
+     * another thread, while the boxes of a small scene are built on the calling thread without forking at all. The
+     * <code>BillboardBenchmark</code> in the <code>benchmarks</code> module measures both.
+     */
+    static final int MIN_BATCH = 8192;
+    /**
+     * The number of matrices built into a scratch array before they are copied into the output buffer.
+     */
+    static final int CHUNK = 256;
+
+    private float[] xs, ys, zs;
+    private int count;
+
+    private final ForkJoinBatches batches;
+    /**
+     * The matrices of each batch are built into its own scratch array before they are copied into the output buffer.
+     */
+    private final float[][] scratch;
+    /**
+     * A view of the output buffer with its own position for each batch, and the buffer each view was created from.
+     */
+    private final FloatBuffer[] views, viewSources;
+
+    /* The arguments of the current call */
+    private int mode;
+    private float targetX, targetY, targetZ;
+    private float upX, upY, upZ;
+    private FloatBuffer matrices;
+    private int offset;
+
+    /**
+     * Create a batch for up to <code>initialCapacity</code> objects without growing, running on the common {@link ForkJoinPool}.
+     */
+    public BillboardBatch(int initialCapacity) {
+        this(initialCapacity, ForkJoinPool.commonPool());
+    }
+
+    public BillboardBatch(int initialCapacity, ForkJoinPool pool) {
+        xs = new float[initialCapacity];
+        ys = new float[initialCapacity];
+        zs = new float[initialCapacity];
+        this.batches = new ForkJoinBatches(pool, MIN_BATCH) {
+            protected void compute(int batch, int start, int end) {
+                build(batch, start, end);
+            }
+        };
+        this.scratch = new float[batches.maxBatches()][FLOATS_PER_MATRIX * CHUNK];
+        this.views = new FloatBuffer[batches.maxBatches()];
+        this.viewSources = new FloatBuffer[batches.maxBatches()];
+    }
+
+    /**
+     * Add an object at the given position.
+     *
+     * @return the index of the object
+     */
+    public int add(float x, float y, float z) {
+        if (count == xs.length) {
+            int newCapacity = FloatArray.grow(xs.length, count + 1);
+            xs = Arrays.copyOf(xs, newCapacity);
+            ys = Arrays.copyOf(ys, newCapacity);
+            zs = Arrays.copyOf(zs, newCapacity);
+        }
+        xs[count] = x;
+        ys[count] = y;
+        zs[count] = z;
+        return count++;
+    }
+
+    /**
+     * Move the object with the given index to the given position.
+     */
+    public void set(int index, float x, float y, float z) {
+        if (index >= count)
+            throw new IndexOutOfBoundsException(index + " >= " + count);
+        xs[index] = x;
+        ys[index] = y;
+        zs[index] = z;
+    }
+
+    public float x(int index) {
+        return xs[index];
+    }
+
+    public float y(int index) {
+        return ys[index];
+    }
+
+    public float z(int index) {
+        return zs[index];
+    }
+
+    /**
+     * Remove all objects.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Write the model matrix of every object for the given billboard mode into <code>matrices</code>, as 16 floats per object starting
+     * at the index <code>offset</code>. The position of the buffer is not changed.
+     *
+     * @param mode
+     *          one of {@link #NONE}, {@link #CYLINDRICAL}, {@link #SPHERICAL} and {@link #SHORTEST_ARC}
+     * @param target
+     *          the position the objects face, usually the camera origin
+     * @param up
+     *          the up axis of {@link #CYLINDRICAL} and {@link #SPHERICAL} billboards, which must be normalized for cylindrical
+     *          billboards; ignored otherwise
+     */
+    public void build(int mode, Vector3f target, Vector3f up, FloatBuffer matrices, int offset) {
+        if (mode < NONE || mode > SHORTEST_ARC)
+            throw new IllegalArgumentException("mode: " + mode);
+        if (offset < 0 || matrices.capacity() - offset < (long) FLOATS_PER_MATRIX * count)
+            throw new IllegalArgumentException("buffer must hold " + count + " matrices after offset " + offset);
+        this.mode = mode;
+        this.targetX = target.x;
+        this.targetY = target.y;
+        this.targetZ = target.z;
+        this.upX = up.x;
+        this.upY = up.y;
+        this.upZ = up.z;
+        this.matrices = matrices;
+        this.offset = offset;
+        try {
+            batches.run(count);
+        } finally {
+            this.matrices = null;
+        }
+    }
+
+    /**
+     * Build the matrices of the objects in <code>[start, end)</code> into the scratch array of the given batch, and copy them into the
+     * output buffer with one bulk put per chunk, which avoids the bounds check of a put per float into a direct buffer.
+     */
+    private void build(int batch, int start, int end) {
+        if (viewSources[batch] != matrices) {
+            views[batch] = matrices.duplicate();
+            viewSources[batch] = matrices;
+        }
+        FloatBuffer view = views[batch];
+        float[] scratch = this.scratch[batch];
+        for (int chunkStart = start; chunkStart < end; chunkStart += CHUNK) {
+            int chunkEnd = Math.min(end, chunkStart + CHUNK);
+            if (mode == NONE)
+                buildTranslations(chunkStart, chunkEnd, scratch);
+            else if (mode == CYLINDRICAL)
+                buildCylindrical(chunkStart, chunkEnd, scratch);
+            else if (mode == SPHERICAL)
+                buildSpherical(chunkStart, chunkEnd, scratch);
+            else
+                buildShortestArc(chunkStart, chunkEnd, scratch);
+            view.position(offset + FLOATS_PER_MATRIX * chunkStart);
+            view.put(scratch, 0, FLOATS_PER_MATRIX * (chunkEnd - chunkStart));
+        }
+    }
+
+    private static void put(float[] m, int o, float m00, float m01, float m02, float m10, float m11, float m12, float m20, float m21,
+            float m22, float m30, float m31, float m32) {
+        m[o] = m00;
+        m[o + 1] = m01;
+        m[o + 2] = m02;
+        m[o + 3] = 0.0f;
+        m[o + 4] = m10;
+        m[o + 5] = m11;
+        m[o + 6] = m12;
+        m[o + 7] = 0.0f;
+        m[o + 8] = m20;
+        m[o + 9] = m21;
+        m[o + 10] = m22;
+        m[o + 11] = 0.0f;
+        m[o + 12] = m30;
+        m[o + 13] = m31;
+        m[o + 14] = m32;
+        m[o + 15] = 1.0f;
+    }
+
+    private void buildTranslations(int start, int end, float[] m) {
+        float[] xs = this.xs, ys = this.ys, zs = this.zs;
+        for (int i = start, o = 0; i < end; i++, o += FLOATS_PER_MATRIX)
+            put(m, o, 1.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f, 0.0f, 0.0f, 1.0f, xs[i], ys[i], zs[i]);
+    }
+
+    private void buildCylindrical(int start, int end, float[] m) {
+        float[] xs = this.xs, ys = this.ys, zs = this.zs;
+        float upX = this.upX, upY = this.upY, upZ = this.upZ;
+        for (int i = start, o = 0; i < end; i++, o += FLOATS_PER_MATRIX) {
+            float dirX = targetX - xs[i], dirY = targetY - ys[i], dirZ = targetZ - zs[i];
+            // left = up x dir
+            float leftX = upY * dirZ - upZ * dirY;
+            float leftY = upZ * dirX - upX * dirZ;
+            float leftZ = upX * dirY - upY * dirX;
+            float invLeftLength = (float) (1.0 / Math.sqrt(leftX * leftX + leftY * leftY + leftZ * leftZ));
+            leftX *= invLeftLength;
+            leftY *= invLeftLength;
+            leftZ *= invLeftLength;
+            // constrain the rotation to the up axis: dir = left x up
+            dirX = leftY * upZ - leftZ * upY;
+            dirY = leftZ * upX - leftX * upZ;
+            dirZ = leftX * upY - leftY * upX;
+            float invDirLength = (float) (1.0 / Math.sqrt(dirX * dirX + dirY * dirY + dirZ * dirZ));
+            dirX *= invDirLength;
+            dirY *= invDirLength;
+            dirZ *= invDirLength;
+            put(m, o, leftX, leftY, leftZ, upX, upY, upZ, dirX, dirY, dirZ, xs[i], ys[i], zs[i]);
+        }
+    }
+
+    private void buildSpherical(int start, int end, float[] m) {
+        float[] xs = this.xs, ys = this.ys, zs = this.zs;
+        float upX = this.upX, upY = this.upY, upZ = this.upZ;
+        for (int i = start, o = 0; i < end; i++, o += FLOATS_PER_MATRIX) {
+            float dirX = targetX - xs[i], dirY = targetY - ys[i], dirZ = targetZ - zs[i];
+            float invDirLength = (float) (1.0 / Math.sqrt(dirX * dirX + dirY * dirY + dirZ * dirZ));
+            dirX *= invDirLength;
+            dirY *= invDirLength;
+            dirZ *= invDirLength;
+            // left = up x dir
+            float leftX = upY * dirZ - upZ * dirY;
+            float leftY = upZ * dirX - upX * dirZ;
+            float leftZ = upX * dirY - upY * dirX;
+            float invLeftLength = (float) (1.0 / Math.sqrt(leftX * leftX + leftY * leftY + leftZ * leftZ));
+            leftX *= invLeftLength;
+            leftY *= invLeftLength;
+            leftZ *= invLeftLength;
+            // up = dir x left
+            float upXn = dirY * leftZ - dirZ * leftY;
+            float upYn = dirZ * leftX - dirX * leftZ;
+            float upZn = dirX * leftY - dirY * leftX;
+            put(m, o, leftX, leftY, leftZ, upXn, upYn, upZn, dirX, dirY, dirZ, xs[i], ys[i], zs[i]);
+        }
+    }
+
+    private void buildShortestArc(int start, int end, float[] m) {
+        float[] xs = this.xs, ys = this.ys, zs = this.zs;
+        for (int i = start, o = 0; i < end; i++, o += FLOATS_PER_MATRIX) {
+            float toDirX = targetX - xs[i], toDirY = targetY - ys[i], toDirZ = targetZ - zs[i];
+            // the quaternion rotating +Z onto the direction, with its z component being zero
+            float x = -toDirY;
+            float y = toDirX;
+            float w = (float) Math.sqrt(toDirX * toDirX + toDirY * toDirY + toDirZ * toDirZ) + toDirZ;
+            float invNorm = (float) (1.0 / Math.sqrt(x * x + y * y + w * w));
+            x *= invNorm;
+            y *= invNorm;
+            w *= invNorm;
+            float q00 = (x + x) * x;
+            float q11 = (y + y) * y;
+            float q01 = (x + x) * y;
+            float q03 = (x + x) * w;
+            float q13 = (y + y) * w;
+            put(m, o, 1.0f - q11, q01, -q13, q01, 1.0f - q00, q03, q13, -q03, 1.0f - q11 - q00, xs[i], ys[i], zs[i]);
+        }
+    }
+
+}
@@ -0,0 +1,264 @@
+package org.joml.lwjgl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL33.*;
+
+import java.nio.FloatBuffer;
+
+import org.joml.Vector3f;
+import org.lwjgl.BufferUtils;
+
+/**
+ * Draws a unit cube at each of many positions with a single draw call, and computes the billboard model matrix of every cube in the
+ * vertex shader.
+ * <p>
+ * A {@link BillboardBatch} with an {@link InstancedCubeRenderer} builds and uploads 16 floats per cube every frame. Here the positions
+ * are uploaded once with {@link #setPositions(BillboardBatch)}, and a frame only sets the billboard mode, the target and the up axis as
+ * uniforms before the draw call. So the CPU cost of a frame does not depend on the number of cubes. The vertex shader computes the same
+ * matrices as the {@link BillboardBatch}, which stays the reference. {@link #capture(int, Vector3f, Vector3f, FloatBuffer)} reads the
+ * matrices of the shader back, and the <code>BillboardShaderBenchmark</code> in the <code>benchmarks</code> module compares them with
+ * those of the {@link BillboardBatch} before it measures both.
+ * <p>
+ * Requires OpenGL 3.3.
+ */
+public class BillboardCubeRenderer {
+
+    /**
+     * The GLSL function <code>mat4 billboard(vec3 position)</code> with its uniforms <code>mode</code>, <code>target</code> and
+     * <code>up</code>, which computes the same model matrix as {@link BillboardBatch#build(int, Vector3f, Vector3f, FloatBuffer, int)}
+     * for the object at <code>position</code>. The values of <code>mode</code> are those of the constants of {@link BillboardBatch}.
+     */
+    static final String BILLBOARD_FUNCTION =
+            "uniform int mode;" +
+            "uniform vec3 target;" +
+            "uniform vec3 up;" +
+            "mat4 billboard(vec3 position) {" +
+            "  vec3 dir = target - position;" +
+            "  vec3 x = vec3(1.0, 0.0, 0.0);" +
+            "  vec3 y = vec3(0.0, 1.0, 0.0);" +
+            "  vec3 z = vec3(0.0, 0.0, 1.0);" +
+            "  if (mode == 1) {" + // cylindrical
+            "    x = normalize(cross(up, dir));" +
+            "    y = up;" +
+            "    z = normalize(cross(x, up));" +
+            "  } else if (mode == 2) {" + // spherical
+            "    z = normalize(dir);" +
+            "    x = normalize(cross(up, z));" +
+            "    y = cross(z, x);" +
+            "  } else if (mode == 3) {" + // shortest arc
+            // x, y and w of the quaternion rotating +Z onto the direction, whose z is zero
+            "    vec3 q = normalize(vec3(-dir.y, dir.x, length(dir) + dir.z));" +
+            "    float q00 = 2.0 * q.x * q.x;" +
+            "    float q11 = 2.0 * q.y * q.y;" +
+            "    float q01 = 2.0 * q.x * q.y;" +
+            "    float q03 = 2.0 * q.x * q.z;" +
+            "    float q13 = 2.0 * q.y * q.z;" +
+            "    x = vec3(1.0 - q11, q01, -q13);" +
+            "    y = vec3(q01, 1.0 - q00, q03);" +
+            "    z = vec3(q13, -q03, 1.0 - q11 - q00);" +
+            "  }" +
+            "  return mat4(vec4(x, 0.0), vec4(y, 0.0), vec4(z, 0.0), vec4(position, 1.0));" +
+            "}";
+
+    /**
+     * The attribute location of the per-instance position. Generic attribute 0 aliases <code>gl_Vertex</code> on some drivers.
+     */
+    static final int POSITION_LOCATION = 1;
+
+    private final int program;
+    private final int modeLocation;
+    private final int targetLocation;
+    private final int upLocation;
+    private final int cubeVbo;
+    private final int cubeIbo;
+    private final int positionVbo;
+    private FloatBuffer positions = BufferUtils.createFloatBuffer(3 * 64);
+    private int count;
+    /**
+     * The program and buffer of {@link #capture(int, Vector3f, Vector3f, FloatBuffer)}, created on first use.
+     */
+    private int captureProgram;
+    private int feedbackVbo;
+    private long feedbackBytes;
+
+    /**
+     * Create the renderer in the current OpenGL context, which must support OpenGL 3.3.
+     */
+    public BillboardCubeRenderer() {
+        cubeVbo = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, cubeVbo);
+        glBufferData(GL_ARRAY_BUFFER, InstancedCubeRenderer.buildCube(), GL_STATIC_DRAW);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        cubeIbo = glGenBuffers();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, cubeIbo);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, InstancedCubeRenderer.buildCubeIndices(), GL_STATIC_DRAW);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        positionVbo = glGenBuffers();
+        program = InstancedCubeRenderer.createProgram(
+                "#version 120\n" +
+                "attribute vec3 position;" +
+                BILLBOARD_FUNCTION +
+                "void main(void) {" +
+                "  gl_FrontColor = gl_Color;" +
+                "  gl_Position = gl_ModelViewProjectionMatrix * billboard(position) * gl_Vertex;" +
+                "}");
+        glBindAttribLocation(program, POSITION_LOCATION, "position");
+        InstancedCubeRenderer.linkProgram(program);
+        modeLocation = glGetUniformLocation(program, "mode");
+        targetLocation = glGetUniformLocation(program, "target");
+        upLocation = glGetUniformLocation(program, "up");
+    }
+
+    /**
+     * Upload the positions of all objects of the given batch, and draw a cube at each of them from now on.
+     */
+    public void setPositions(BillboardBatch batch) {
+        count = batch.size();
+        if (positions.capacity() < 3 * count)
+            positions = BufferUtils.createFloatBuffer(Math.max(3 * count, positions.capacity() * 2));
+        positions.clear();
+        for (int i = 0; i < count; i++)
+            positions.put(batch.x(i)).put(batch.y(i)).put(batch.z(i));
+        positions.flip();
+        glBindBuffer(GL_ARRAY_BUFFER, positionVbo);
+        glBufferData(GL_ARRAY_BUFFER, positions, GL_STATIC_DRAW);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Return the number of cubes drawn, which is the number of positions last uploaded.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Draw all cubes as triangles, see {@link #draw(int, Vector3f, Vector3f, boolean)}.
+     */
+    public void draw(int mode, Vector3f target, Vector3f up) {
+        draw(mode, target, up, false);
+    }
+
+    /**
+     * Draw all cubes with the current model-view and projection matrices, each rotated like by
+     * {@link BillboardBatch#build(int, Vector3f, Vector3f, FloatBuffer, int) BillboardBatch.build} with the given arguments.
+     *
+     * @param mode
+     *          one of {@link BillboardBatch#NONE}, {@link BillboardBatch#CYLINDRICAL}, {@link BillboardBatch#SPHERICAL} and
+     *          {@link BillboardBatch#SHORTEST_ARC}
+     * @param quads
+     *          whether to draw the faces as <code>GL_QUADS</code> instead of triangles, so that they are outlined without diagonals
+     *          with <code>glPolygonMode(GL_LINE)</code>
+     */
+    public void draw(int mode, Vector3f target, Vector3f up, boolean quads) {
+        if (mode < BillboardBatch.NONE || mode > BillboardBatch.SHORTEST_ARC)
+            throw new IllegalArgumentException("mode: " + mode);
+        if (count == 0)
+            return;
+        glBindBuffer(GL_ARRAY_BUFFER, cubeVbo);
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glEnableClientState(GL_COLOR_ARRAY);
+        glVertexPointer(3, GL_FLOAT, 0, 0L);
+        glColorPointer(3, GL_FLOAT, 0, 4L * 3 * 4 * 6);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, cubeIbo);
+        glBindBuffer(GL_ARRAY_BUFFER, positionVbo);
+        glEnableVertexAttribArray(POSITION_LOCATION);
+        glVertexAttribPointer(POSITION_LOCATION, 3, GL_FLOAT, false, 0, 0L);
+        glVertexAttribDivisor(POSITION_LOCATION, 1);
+        glUseProgram(program);
+        glUniform1i(modeLocation, mode);
+        glUniform3f(targetLocation, target.x, target.y, target.z);
+        glUniform3f(upLocation, up.x, up.y, up.z);
+        if (quads)
+            glDrawArraysInstanced(GL_QUADS, 0, 4 * 6, count);
+        else
+            glDrawElementsInstanced(GL_TRIANGLES, 6 * 6, GL_UNSIGNED_BYTE, 0L, count);
+        glUseProgram(0);
+        glVertexAttribDivisor(POSITION_LOCATION, 0);
+        glDisableVertexAttribArray(POSITION_LOCATION);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        glDisableClientState(GL_COLOR_ARRAY);
+        glDisableClientState(GL_VERTEX_ARRAY);
+    }
+
+    /**
+     * Compute the model matrices of all cubes with the vertex shader, and read them back into <code>matrices</code> as 16 floats per
+     * cube in column-major order, like {@link BillboardBatch#build(int, Vector3f, Vector3f, FloatBuffer, int) BillboardBatch.build}
+     * writes them.
+     * <p>
+     * The matrices are captured with transform feedback while rasterization is disabled, so nothing is drawn.
+     */
+    public void capture(int mode, Vector3f target, Vector3f up, FloatBuffer matrices) {
+        if (mode < BillboardBatch.NONE || mode > BillboardBatch.SHORTEST_ARC)
+            throw new IllegalArgumentException("mode: " + mode);
+        if (matrices.remaining() < 16 * count)
+            throw new IllegalArgumentException("matrices must have room for " + 16 * count + " floats");
+        if (captureProgram == 0) {
+            captureProgram = InstancedCubeRenderer.createProgram(
+                    "#version 120\n" +
+                    "attribute vec3 position;" +
+                    BILLBOARD_FUNCTION +
+                    "varying vec4 column0, column1, column2, column3;" +
+                    "void main(void) {" +
+                    "  mat4 model = billboard(position);" +
+                    "  column0 = model[0];" +
+                    "  column1 = model[1];" +
+                    "  column2 = model[2];" +
+                    "  column3 = model[3];" +
+                    "  gl_Position = vec4(0.0, 0.0, 0.0, 1.0);" +
+                    "}");
+            glBindAttribLocation(captureProgram, POSITION_LOCATION, "position");
+            glTransformFeedbackVaryings(captureProgram, new CharSequence[] { "column0", "column1", "column2", "column3" },
+                    GL_INTERLEAVED_ATTRIBS);
+            InstancedCubeRenderer.linkProgram(captureProgram);
+            feedbackVbo = glGenBuffers();
+        }
+        if (count == 0)
+            return;
+        glBindBuffer(GL_TRANSFORM_FEEDBACK_BUFFER, feedbackVbo);
+        if (feedbackBytes < 4L * 16 * count) {
+            feedbackBytes = 4L * 16 * count;
+            glBufferData(GL_TRANSFORM_FEEDBACK_BUFFER, feedbackBytes, GL_STREAM_READ);
+        }
+        glBindBuffer(GL_TRANSFORM_FEEDBACK_BUFFER, 0);
+        glUseProgram(captureProgram);
+        glUniform1i(glGetUniformLocation(captureProgram, "mode"), mode);
+        glUniform3f(glGetUniformLocation(captureProgram, "target"), target.x, target.y, target.z);
+        glUniform3f(glGetUniformLocation(captureProgram, "up"), up.x, up.y, up.z);
+        glBindBuffer(GL_ARRAY_BUFFER, positionVbo);
+        glEnableVertexAttribArray(POSITION_LOCATION);
+        glVertexAttribPointer(POSITION_LOCATION, 3, GL_FLOAT, false, 0, 0L);
+        glBindBufferBase(GL_TRANSFORM_FEEDBACK_BUFFER, 0, feedbackVbo);
+        glEnable(GL_RASTERIZER_DISCARD);
+        glBeginTransformFeedback(GL_POINTS);
+        glDrawArrays(GL_POINTS, 0, count);
+        glEndTransformFeedback();
+        glDisable(GL_RASTERIZER_DISCARD);
+        glBindBufferBase(GL_TRANSFORM_FEEDBACK_BUFFER, 0, 0);
+        glDisableVertexAttribArray(POSITION_LOCATION);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glUseProgram(0);
+        FloatBuffer dest = matrices.duplicate();
+        dest.limit(dest.position() + 16 * count);
+        glBindBuffer(GL_TRANSFORM_FEEDBACK_BUFFER, feedbackVbo);
+        glGetBufferSubData(GL_TRANSFORM_FEEDBACK_BUFFER, 0L, dest);
+        glBindBuffer(GL_TRANSFORM_FEEDBACK_BUFFER, 0);
+    }
+
+    public void destroy() {
+        glDeleteBuffers(cubeVbo);
+        glDeleteBuffers(cubeIbo);
+        glDeleteBuffers(positionVbo);
+        glDeleteProgram(program);
+        if (captureProgram != 0) {
+            glDeleteProgram(captureProgram);
+            glDeleteBuffers(feedbackVbo);
+        }
+    }
+
+}
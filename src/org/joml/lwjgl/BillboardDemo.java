@@ -55,25 +55,49 @@ public class BillboardDemo {
     }
 
     ArcBallCamera cam = new ArcBallCamera();
-    int numBoxes = 40;
-    Vector3f[] boxes = new Vector3f[numBoxes];
-    Matrix4f[] modelMatrices = new Matrix4f[numBoxes];
-    int billboardMode = 1; // <- start with cylindrical billboards
+    static final int[] BOX_COUNTS = { 40, 10000, 100000, 1000000 };
+    int numBoxes = BOX_COUNTS[0];
+    /**
+     * The positions of all boxes, whose model matrices are built straight into the instance buffer of the cube renderer.
+     */
+    BillboardBatch boxes = new BillboardBatch(numBoxes);
+    InstancedCubeRenderer cubes;
+    /**
+     * Draws the boxes with the billboard matrices computed in the vertex shader, or <code>null</code> without OpenGL 3.3.
+     */
+    BillboardCubeRenderer shaderCubes;
+    int billboardMode = BillboardBatch.CYLINDRICAL; // <- start with cylindrical billboards
+    boolean shaderBillboards;
     boolean wireframe;
     boolean freeze;
+    /**
+     * The billboard mode and target the boxes are drawn with, which are kept while frozen.
+     */
+    int drawnMode;
+    Vector3f drawnTarget = new Vector3f();
+    /**
+     * Whether the boxes were moved, so that they are drawn without billboarding while frozen.
+     */
+    boolean boxesMoved;
+    /**
+     * Whether the matrices in the instance buffer of <code>cubes</code> must be built again even when frozen.
+     */
+    boolean matricesStale;
+    /**
+     * Whether the positions of the boxes must be uploaded to <code>shaderCubes</code> again.
+     */
+    boolean positionsStale;
 
     void resetBoxes() {
-        for (int i = 0; i < boxes.length; i++) {
-            boxes[i].set((float) Math.random() *  40.0f - 20.0f, 0.0f, (float) Math.random() * 40.0f - 20.0f);
-            modelMatrices[i].translation(boxes[i]);
-        }
+        boxes.clear();
+        for (int i = 0; i < numBoxes; i++)
+            boxes.add((float) Math.random() *  40.0f - 20.0f, 0.0f, (float) Math.random() * 40.0f - 20.0f);
+        boxesMoved = true;
+        matricesStale = true;
+        positionsStale = true;
     }
 
     void init() {
-        for (int i = 0; i < boxes.length; i++) {
-            boxes[i] = new Vector3f();
-            modelMatrices[i] = new Matrix4f();
-        }
         resetBoxes();
 
         glfwSetErrorCallback(errorCallback = GLFWErrorCallback.createPrint(System.err));
@@ -94,6 +118,8 @@ public class BillboardDemo {
         System.out.println("Press 'B' to toggle between no, spherical, cylindrical and spherical shortest arc billboards.");
         System.out.println("Press 'F' to freeze current box rotations.");
         System.out.println("Press 'W' to toggle between wireframe and filled.");
+        System.out.println("Press 'N' to change the number of boxes.");
+        System.out.println("Press 'G' to toggle between computing the billboards on the CPU and in the vertex shader.");
         glfwSetKeyCallback(window, keyCallback = new GLFWKeyCallback() {
             @Override
             public void invoke(long window, int key, int scancode, int action, int mods) {
@@ -124,6 +150,24 @@ public class BillboardDemo {
                         System.out.println("Froze updating box model matrices");
                     else
                         System.out.println("Resumed updating box model matrices");
+                } else if (key == GLFW_KEY_N && action == GLFW_PRESS) {
+                    int next = 0;
+                    while (BOX_COUNTS[next] != numBoxes)
+                        next++;
+                    numBoxes = BOX_COUNTS[(next + 1) % BOX_COUNTS.length];
+                    resetBoxes();
+                    System.out.println("Using " + numBoxes + " boxes");
+                } else if (key == GLFW_KEY_G && action == GLFW_PRESS) {
+                    if (shaderCubes == null) {
+                        System.out.println("Computing billboards in the vertex shader requires OpenGL 3.3");
+                    } else {
+                        shaderBillboards = !shaderBillboards;
+                        matricesStale = true;
+                        if (shaderBillboards)
+                            System.out.println("Computing billboards in the vertex shader");
+                        else
+                            System.out.println("Computing billboards on the CPU");
+                    }
                 }
             }
         });
@@ -179,41 +223,6 @@ public class BillboardDemo {
         glfwShowWindow(window);
     }
 
-    void renderCube() {
-        glBegin(GL_QUADS);
-        glColor3f(   0.0f,  0.0f,  0.2f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glColor3f(   0.0f,  0.0f,  1.0f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glColor3f(   1.0f,  0.0f,  0.0f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glColor3f(   0.2f,  0.0f,  0.0f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glColor3f(   0.0f,  1.0f,  0.0f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glColor3f(   0.0f,  0.2f,  0.0f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glEnd();
-    }
-
     void renderGrid() {
         glBegin(GL_LINES);
         glColor3f(0.2f, 0.2f, 0.2f);
@@ -234,6 +243,9 @@ public class BillboardDemo {
         // Enable depth testing
         glEnable(GL_DEPTH_TEST);
         glLineWidth(1.4f);
+        cubes = new InstancedCubeRenderer();
+        if (GL.getCapabilities().OpenGL33)
+            shaderCubes = new BillboardCubeRenderer();
 
         // Remember the current time.
         long lastTime = System.nanoTime();
@@ -245,7 +257,6 @@ public class BillboardDemo {
         // Objects for building the billboard matrix
         Vector3f origin = new Vector3f();
         Vector3f up = new Vector3f(0, 1, 0);
-        Matrix4f modelViewProj = new Matrix4f();
 
         cam.setAlpha((float) Math.toRadians(-20));
         cam.setBeta((float) Math.toRadians(20));
@@ -295,29 +306,42 @@ public class BillboardDemo {
             }
             glPolygonMode(GL_FRONT_AND_BACK, mode);
 
-            /* Render each cube */
-            for (int i = 0; i < boxes.length; i++) {
-                /* Build box model matrix */
-                if (!freeze) {
-                    if (billboardMode == 0) // not using billboards
-                        modelMatrices[i].translation(boxes[i]);
-                    else if (billboardMode == 1) // cylindrical
-                        modelMatrices[i].billboardCylindrical(boxes[i], origin, up);
-                    else if (billboardMode == 2) // spherical
-                        modelMatrices[i].billboardSpherical(boxes[i], origin, up);
-                    else if (billboardMode == 3) // shortest arc spherical
-                        modelMatrices[i].billboardSpherical(boxes[i], origin);
+            /*
+             * When frozen, the boxes keep the mode and target of the last frame before freezing, unless they were moved, which are then
+             * drawn without billboarding.
+             */
+            if (!freeze) {
+                drawnMode = billboardMode;
+                drawnTarget.set(origin);
+            } else if (boxesMoved) {
+                drawnMode = BillboardBatch.NONE;
+            }
+            boxesMoved = false;
+            if (shaderBillboards) {
+                /* Only upload the positions when they changed, and let the vertex shader compute the matrices */
+                if (positionsStale) {
+                    shaderCubes.setPositions(boxes);
+                    positionsStale = false;
                 }
-
-                /* Multiply with view-projection matrix */
-                mat.mulAffine(modelMatrices[i], modelViewProj);
-                glLoadMatrixf(modelViewProj.get(fb));
-                renderCube();
+                shaderCubes.draw(drawnMode, drawnTarget, up, wireframe);
+            } else {
+                /* Build all box model matrices straight into the instance buffer, which keeps them while frozen */
+                if (!freeze || matricesStale) {
+                    cubes.begin();
+                    int offset = cubes.reserve(boxes.size());
+                    boxes.build(drawnMode, drawnTarget, up, cubes.instanceBuffer(), offset);
+                    matricesStale = false;
+                }
+                /* Render all cubes with a single draw call */
+                cubes.draw(wireframe);
             }
 
             glfwSwapBuffers(window);
             glfwPollEvents();
         }
+        cubes.destroy();
+        if (shaderCubes != null)
+            shaderCubes.destroy();
     }
 
     public static void main(String[] args) {
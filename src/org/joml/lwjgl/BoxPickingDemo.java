@@ -2,16 +2,18 @@ package org.joml.lwjgl;
 
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
 import static org.lwjgl.system.MemoryUtil.*;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
-import java.util.Arrays;
+import java.util.BitSet;
 
-import org.joml.Intersectionf;
 import org.joml.Matrix4f;
-import org.joml.Vector2f;
 import org.joml.Vector3f;
+import org.joml.Vector3i;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.glfw.*;
 import org.lwjgl.opengl.*;
@@ -31,33 +33,121 @@ public class BoxPickingDemo {
     float mouseX, mouseY;
     boolean[] keyDown = new boolean[GLFW.GLFW_KEY_LAST + 1];
     float movementSpeed = 3.666f;
-    int LEVEL_LENGTH = 64;
+    int LEVEL_LENGTH = Integer.getInteger("levelLength", 64);
     int LEVEL_HEIGHT = 64;
     static float GHOST_CUBE_ALPHA = 0.4f;
-    boolean displayListNeedsRecompile;
-    int displayList = -1;
-    int selectedCube = -1;
-    int ghostCube = -1;
+    boolean hasSelectedCube;
+    boolean hasGhostCube;
+    Vector3i selectedCube = new Vector3i();
+    Vector3i ghostCube = new Vector3i();
     Vector3f pos = new Vector3f(0, 2, 0);
     Vector3f selectedPos = new Vector3f();
+    Vector3i selectedFace = new Vector3i();
+    VoxelRaycast.Hit hit = new VoxelRaycast.Hit();
+    /**
+     * The latencies of all view ray casts.
+     */
+    LatencyHistogram pickLatency = new LatencyHistogram();
     Vector3f tmp = new Vector3f();
     Matrix4f viewMatrix = new Matrix4f();
-    boolean[] boxes = new boolean[LEVEL_LENGTH * LEVEL_LENGTH * LEVEL_HEIGHT];
+    /**
+     * The voxels of the level, stored in an octree when running with <code>-Dvoxels=octree</code> or in chunks otherwise.
+     */
+    VoxelStorage boxes = "octree".equals(System.getProperty("voxels"))
+            ? new OctreeVoxelStorage(LEVEL_LENGTH, LEVEL_HEIGHT, LEVEL_LENGTH)
+            : new ChunkedVoxelStorage(LEVEL_LENGTH, LEVEL_HEIGHT, LEVEL_LENGTH);
+    /**
+     * Saves and loads the level in the directory given with <code>-Dworld=&lt;directory&gt;</code>, if any.
+     */
+    VoxelRegionStore worldStore = System.getProperty("world") != null && boxes instanceof ChunkedVoxelStorage
+            ? new VoxelRegionStore(new File(System.getProperty("world")), (ChunkedVoxelStorage) boxes)
+            : null;
     {
-        /* Make a base */
-        Arrays.fill(boxes, 0, LEVEL_LENGTH * LEVEL_LENGTH, true);
-        displayListNeedsRecompile = true;
+        if (worldStore == null || !worldStore.exists()) {
+            /* Make a base */
+            boxes.fill(0, 0, 0, LEVEL_LENGTH, 1, LEVEL_LENGTH, true);
+            if (worldStore != null) {
+                worldStore.markAllLoaded();
+                worldStore.markAllModified();
+            }
+        }
     }
+    int numChunks = boxes.chunksX() * boxes.chunksY() * boxes.chunksZ();
+    /**
+     * The vertex and index buffer of each chunk, or <code>0</code> if the chunk has no mesh (yet).
+     */
+    int[] chunkVbos = new int[numChunks];
+    int[] chunkIbos = new int[numChunks];
+    int[] chunkIndexCounts = new int[numChunks];
+    long[] chunkColorOffsets = new long[numChunks];
+    /**
+     * Tests the bounding boxes of the chunks against the view frustum, so that only visible chunks are drawn.
+     */
+    ChunkCuller culler = new ChunkCuller(boxes, -LEVEL_LENGTH / 2 - 0.5f, -0.5f, -LEVEL_LENGTH / 2 - 0.5f);
+    int[] visibleChunks = new int[numChunks];
+    Matrix4f projViewMatrix = new Matrix4f();
+    /**
+     * Incremented on every edit of a chunk, to recognize outdated meshes.
+     */
+    int[] chunkVersions = new int[numChunks];
+    /**
+     * The chunks which must be meshed again after an edit.
+     */
+    BitSet dirtyChunks = new BitSet();
+    /**
+     * Number of mesh worker threads, whether to use virtual threads instead (Java 21+) and the maximum number of mesh bytes to upload per
+     * frame.
+     */
+    static int MESH_THREADS = Integer.getInteger("meshThreads", Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    static boolean MESH_VIRTUAL_THREADS = Boolean.getBoolean("meshVirtualThreads");
+    static int UPLOAD_BUDGET_BYTES = Integer.getInteger("uploadBudget", 256 * 1024);
+    /**
+     * Chunks within this horizontal distance (in chunks) of the camera are streamed in, and chunks outside of it are evicted once the
+     * voxels (with a saved level) or the meshes exceed the given number of megabytes, or else kept.
+     */
+    static int VIEW_RADIUS = Integer.getInteger("viewRadius", 8);
+    static int MAX_RESIDENT_MB = Integer.getInteger("maxResidentMB", 64);
+    static int MAX_MESH_MB = Integer.getInteger("maxMeshMB", 64);
+    static int LOADS_PER_FRAME = Integer.getInteger("loadsPerFrame", 16);
+    ChunkMeshScheduler meshScheduler = new ChunkMeshScheduler(MESH_THREADS, MESH_VIRTUAL_THREADS);
+    ChunkStreamer streamer = new ChunkStreamer(boxes, worldStore, new ChunkStreamer.Listener() {
+        public void meshChunk(int c) {
+            BoxPickingDemo.this.meshChunk(c);
+        }
+
+        public void evictMesh(int c) {
+            /* Also drop the mesh if it is still being built */
+            chunkVersions[c]++;
+            deleteChunkBuffers(c);
+        }
+    });
+    {
+        streamer.viewRadius = VIEW_RADIUS;
+        streamer.maxResidentBytes = (long) MAX_RESIDENT_MB << 20;
+        streamer.maxMeshBytes = (long) MAX_MESH_MB << 20;
+        streamer.loadsPerFrame = LOADS_PER_FRAME;
+    }
+    FloatBuffer vertexStaging = BufferUtils.createFloatBuffer(4096);
+    IntBuffer indexStaging = BufferUtils.createIntBuffer(4096);
+    long lastStatsTime;
+    int frames;
+    int uploads;
 
     void run() {
         try {
             init();
             loop();
+            meshScheduler.shutdown();
+            saveWorld();
+            if (worldStore != null)
+                worldStore.close();
 
             glfwDestroyWindow(window);
             keyCallback.free();
             fbCallback.free();
             cpCallback.free();
+        } catch (IOException e) {
+            e.printStackTrace();
         } finally {
             glfwTerminate();
             errorCallback.free();
@@ -91,12 +181,19 @@ public class BoxPickingDemo {
         System.out.println("Press left shift to move faster.");
         System.out.println("Press left control/spacebar to move up/down.");
         System.out.println("Move the mouse to rotate.");
+        if (worldStore != null)
+            System.out.println("Press F5 to save the level (it is also saved on exit).");
+        System.out.println("Press H to write the histogram of pick latencies to 'pick-latency.csv'.");
         glfwSetKeyCallback(window, keyCallback = new GLFWKeyCallback() {
             public void invoke(long window, int key, int scancode, int action, int mods) {
                 if (key == GLFW_KEY_UNKNOWN)
                     return;
                 if (key == GLFW_KEY_ESCAPE && action == GLFW_RELEASE)
                     glfwSetWindowShouldClose(window, true);
+                if (key == GLFW_KEY_F5 && action == GLFW_RELEASE)
+                    saveWorld();
+                if (key == GLFW_KEY_H && action == GLFW_RELEASE)
+                    dumpPickLatencies("pick-latency.csv");
                 if (action == GLFW_PRESS || action == GLFW_REPEAT)
                     keyDown[key] = true;
                 else
@@ -176,65 +273,236 @@ public class BoxPickingDemo {
         glEnd();
     }
 
+    /**
+     * Cast the view ray through the grid and stop at the first occupied cell.
+     * <p>
+     * The {@link VoxelStorage} skips over empty regions as large as it knows about (whole chunks, or whole octree nodes), so the cost
+     * depends neither on the volume of the level nor on the number of empty cells along the ray. Besides the cell and the hit position
+     * this also yields the face through which the ray entered the cell.
+     */
     void computeBoxUnderCenter() {
-        float closestDistance = Float.POSITIVE_INFINITY;
-        selectedCube = -1;
+        hasSelectedCube = false;
+        selectedFace.zero();
         Vector3f dir = viewMatrix.positiveZ(tmp).negate();
-        Vector2f nearFar = new Vector2f();
-        for (int y = 0; y < LEVEL_HEIGHT; y++) {
-            for (int z = 0; z < LEVEL_LENGTH; z++) {
-                for (int x = 0; x < LEVEL_LENGTH; x++) {
-                    int idx = y * LEVEL_LENGTH * LEVEL_LENGTH + z * LEVEL_LENGTH + x;
-                    if (boxes[idx]) {
-                        int px = (x - LEVEL_LENGTH / 2);
-                        int py = y;
-                        int pz = (z - LEVEL_LENGTH / 2);
-                        if (Intersectionf.intersectRayAab(pos.x, pos.y, pos.z, dir.x, dir.y, dir.z, px - 0.5f, py - 0.5f, pz - 0.5f, px + 0.5f, py + 0.5f, pz + 0.5f, nearFar)) {
-                            if (nearFar.x < closestDistance) {
-                                closestDistance = nearFar.x;
-                                selectedCube = idx;
-                                selectedPos.set(dir).mul(closestDistance).add(pos);
-                            }
-                        }
-                    }
-                }
-            }
+        /* Ray origin in grid space, where cell (x, y, z) spans [x, x+1] x [y, y+1] x [z, z+1] */
+        float ox = pos.x + LEVEL_LENGTH / 2 + 0.5f;
+        float oy = pos.y + 0.5f;
+        float oz = pos.z + LEVEL_LENGTH / 2 + 0.5f;
+        long time = System.nanoTime();
+        /* No range limit: the ray ends where it leaves the level, so any box in view can be picked */
+        boolean found = boxes.raycast(ox, oy, oz, dir.x, dir.y, dir.z, Float.POSITIVE_INFINITY, hit);
+        pickLatency.record(System.nanoTime() - time);
+        if (!found)
+            return;
+        hasSelectedCube = true;
+        selectedCube.set(hit.x, hit.y, hit.z);
+        selectedFace.set(hit.faceX, hit.faceY, hit.faceZ);
+        selectedPos.set(dir).mul(hit.t).add(pos);
+    }
+
+    int chunkIndex(int cx, int cy, int cz) {
+        return (cy * boxes.chunksZ() + cz) * boxes.chunksX() + cx;
+    }
+
+    /**
+     * Mark the chunk containing the given cell as dirty, as well as every neighbour chunk sharing a face with that cell.
+     */
+    void markDirty(int x, int y, int z) {
+        int cx = x >> VoxelStorage.CHUNK_SHIFT, cy = y >> VoxelStorage.CHUNK_SHIFT, cz = z >> VoxelStorage.CHUNK_SHIFT;
+        int lx = x & VoxelStorage.CHUNK_MASK, ly = y & VoxelStorage.CHUNK_MASK, lz = z & VoxelStorage.CHUNK_MASK;
+        dirtyChunks.set(chunkIndex(cx, cy, cz));
+        streamer.chunkEdited(chunkIndex(cx, cy, cz));
+        if (worldStore != null)
+            worldStore.markModified(cx, cy, cz);
+        if (lx == 0 && cx > 0)
+            dirtyChunks.set(chunkIndex(cx - 1, cy, cz));
+        if (lx == VoxelStorage.CHUNK_MASK && cx < boxes.chunksX() - 1)
+            dirtyChunks.set(chunkIndex(cx + 1, cy, cz));
+        if (ly == 0 && cy > 0)
+            dirtyChunks.set(chunkIndex(cx, cy - 1, cz));
+        if (ly == VoxelStorage.CHUNK_MASK && cy < boxes.chunksY() - 1)
+            dirtyChunks.set(chunkIndex(cx, cy + 1, cz));
+        if (lz == 0 && cz > 0)
+            dirtyChunks.set(chunkIndex(cx, cy, cz - 1));
+        if (lz == VoxelStorage.CHUNK_MASK && cz < boxes.chunksZ() - 1)
+            dirtyChunks.set(chunkIndex(cx, cy, cz + 1));
+    }
+
+    /**
+     * Hand the dirty chunks to the {@link ChunkMeshScheduler}, so that the cost of an edit is bounded by the chunk size and not by the
+     * size of the level, and meshing does not stall the render thread.
+     * <p>
+     * Each chunk is meshed with the {@link VoxelMesher}, which drops all faces between two solid cubes and merges the remaining ones
+     * into as few quads as possible. Chunks without a mesh are skipped, as the {@link ChunkStreamer} meshes them once they come into the
+     * view radius again.
+     */
+    void submitDirtyChunks() {
+        int chunksX = boxes.chunksX(), chunksZ = boxes.chunksZ();
+        for (int c = dirtyChunks.nextSetBit(0); c >= 0; c = dirtyChunks.nextSetBit(c + 1)) {
+            if (!streamer.isMeshed(c))
+                continue;
+            int cx = c % chunksX, cz = c / chunksX % chunksZ, cy = c / (chunksX * chunksZ);
+            /* The mesh depends on the border voxels of the neighbour chunks, too */
+            streamer.ensureResident(cx, cy, cz);
+            meshChunk(c);
         }
+        dirtyChunks.clear();
     }
 
-    void compileDisplayList() {
-        if (!displayListNeedsRecompile)
+    void meshChunk(int c) {
+        int chunksX = boxes.chunksX(), chunksZ = boxes.chunksZ();
+        int cx = c % chunksX, cz = c / chunksX % chunksZ, cy = c / (chunksX * chunksZ);
+        /* Any mesh still being built for this chunk is outdated now */
+        chunkVersions[c]++;
+        if (boxes.isChunkEmpty(cx, cy, cz)) {
+            deleteChunkBuffers(c);
             return;
-        if (displayList != -1) {
-            glDeleteLists(displayList, 1);
         }
-        displayList = glGenLists(1);
-        glNewList(displayList, GL_COMPILE);
-        for (int y = 0; y < LEVEL_HEIGHT; y++) {
-            for (int z = 0; z < LEVEL_LENGTH; z++) {
-                for (int x = 0; x < LEVEL_LENGTH; x++) {
-                    if (boxes[y * LEVEL_LENGTH * LEVEL_LENGTH + z * LEVEL_LENGTH + x]) {
-                        int px = (x - LEVEL_LENGTH / 2);
-                        int py = y;
-                        int pz = (z - LEVEL_LENGTH / 2);
-                        renderCube(px, py, pz, false, false);
-                    }
-                }
+        ChunkMeshScheduler.Result r = meshScheduler.obtain();
+        VoxelMesher.copyPadded(boxes, cx, cy, cz, r.padded);
+        meshScheduler.submit(r, c, chunkVersions[c],
+                             (cx << VoxelStorage.CHUNK_SHIFT) - LEVEL_LENGTH / 2 - 0.5f,
+                             (cy << VoxelStorage.CHUNK_SHIFT) - 0.5f,
+                             (cz << VoxelStorage.CHUNK_SHIFT) - LEVEL_LENGTH / 2 - 0.5f);
+    }
+
+    /**
+     * Write all chunks edited since the last save to the saved level.
+     */
+    void saveWorld() {
+        if (worldStore == null)
+            return;
+        try {
+            long time = System.nanoTime();
+            int chunks = worldStore.save();
+            System.out.printf("Saved %d chunks in %.1f ms%n", chunks, (System.nanoTime() - time) / 1E6);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    void dumpPickLatencies(String file) {
+        try {
+            pickLatency.writeCsv(new File(file));
+            System.out.printf("Wrote %d pick latencies to %s%n", pickLatency.count(), file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Upload finished chunk meshes until the per-frame upload budget is used up. At least one mesh is uploaded per frame. Chunks whose
+     * meshing failed are reported.
+     */
+    void uploadFinishedMeshes() {
+        int uploadedBytes = 0;
+        ChunkMeshScheduler.Result r;
+        while (uploadedBytes < UPLOAD_BUDGET_BYTES && (r = meshScheduler.poll()) != null) {
+            if (r.error != null) {
+                /*
+                 * Meshing the same voxels again would fail again, so keep the previous mesh of the chunk until it is edited the next time
+                 */
+                System.err.println("Meshing chunk " + r.chunk + " failed:");
+                r.error.printStackTrace();
+            } else if (r.version == chunkVersions[r.chunk]) {
+                /* Drop meshes of chunks which have been edited again in the meantime */
+                uploadChunkMesh(r.chunk, r.mesh);
+                uploadedBytes += r.mesh.sizeInBytes();
+                uploads++;
             }
+            meshScheduler.recycle(r);
+        }
+    }
+
+    void uploadChunkMesh(int c, VoxelMesh mesh) {
+        if (mesh.indexCount == 0) {
+            deleteChunkBuffers(c);
+            return;
+        }
+        if (chunkVbos[c] == 0) {
+            chunkVbos[c] = glGenBuffers();
+            chunkIbos[c] = glGenBuffers();
         }
-        glEndList();
-        displayListNeedsRecompile = false;
+        /* Positions followed by colors */
+        int floats = 3 * mesh.vertexCount;
+        if (vertexStaging.capacity() < 2 * floats)
+            vertexStaging = BufferUtils.createFloatBuffer(Math.max(2 * floats, 2 * vertexStaging.capacity()));
+        vertexStaging.clear();
+        vertexStaging.put(mesh.positions, 0, floats).put(mesh.colors, 0, floats).flip();
+        if (indexStaging.capacity() < mesh.indexCount)
+            indexStaging = BufferUtils.createIntBuffer(Math.max(mesh.indexCount, 2 * indexStaging.capacity()));
+        indexStaging.clear();
+        indexStaging.put(mesh.indices, 0, mesh.indexCount).flip();
+        glBindBuffer(GL_ARRAY_BUFFER, chunkVbos[c]);
+        glBufferData(GL_ARRAY_BUFFER, vertexStaging, GL_STATIC_DRAW);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, chunkIbos[c]);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexStaging, GL_STATIC_DRAW);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        chunkIndexCounts[c] = mesh.indexCount;
+        chunkColorOffsets[c] = 4L * floats;
+        streamer.meshUploaded(c, mesh.sizeInBytes());
+    }
+
+    void deleteChunkBuffers(int c) {
+        if (chunkVbos[c] != 0) {
+            glDeleteBuffers(chunkVbos[c]);
+            glDeleteBuffers(chunkIbos[c]);
+        }
+        chunkVbos[c] = 0;
+        chunkIbos[c] = 0;
+        chunkIndexCounts[c] = 0;
+        streamer.meshUploaded(c, 0L);
+    }
+
+    /**
+     * Draw the meshes of all chunks intersecting the frustum of the given <code>projection * view</code> matrix.
+     */
+    void renderChunks(Matrix4f projView) {
+        int visible = culler.cull(projView, chunkIndexCounts, visibleChunks);
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glEnableClientState(GL_COLOR_ARRAY);
+        for (int i = 0; i < visible; i++) {
+            int c = visibleChunks[i];
+            glBindBuffer(GL_ARRAY_BUFFER, chunkVbos[c]);
+            glVertexPointer(3, GL_FLOAT, 0, 0L);
+            glColorPointer(3, GL_FLOAT, 0, chunkColorOffsets[c]);
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, chunkIbos[c]);
+            glDrawElements(GL_TRIANGLES, chunkIndexCounts[c], GL_UNSIGNED_INT, 0L);
+        }
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        glDisableClientState(GL_COLOR_ARRAY);
+        glDisableClientState(GL_VERTEX_ARRAY);
+    }
+
+    /**
+     * Show the mesh queue depth, the mesh latency, the number of uploads per frame, the streaming counters and the number of chunks drawn
+     * and tested in the last frame and the pick latency percentiles in the window title once per second.
+     */
+    void updateStats(long time) {
+        frames++;
+        if (time - lastStatsTime < 1000000000L)
+            return;
+        glfwSetWindowTitle(window, String.format("Hello picking! (mesh queue: %d finished + %d in flight, latency: %.2f ms avg / %.2f ms max, %.2f uploads/frame"
+                + " | resident: %d chunks / %d KB, meshed: %d chunks / %d KB, evicted: %d + %d meshes, load queue: %d, %.1f ms avg / %.1f ms max"
+                + " | drawn: %d of %d chunks | pick: %s)",
+                meshScheduler.queueDepth(), meshScheduler.inFlight(), meshScheduler.averageLatencyMillisAndReset(),
+                meshScheduler.maxLatencyMillisAndReset(), (float) uploads / frames, streamer.residentChunks(), streamer.residentBytes() >> 10,
+                streamer.meshedChunks(), streamer.meshBytes() >> 10, streamer.residentEvictions(), streamer.meshEvictions(),
+                streamer.queueLength(), streamer.averageLatencyMillisAndReset(), streamer.maxLatencyMillisAndReset(), culler.chunksDrawn,
+                culler.chunksTested, pickLatency.summary()));
+        lastStatsTime = time;
+        frames = 0;
+        uploads = 0;
     }
 
     void renderSelectedCube() {
         glPushMatrix();
-        int idx = selectedCube;
-        int x = idx % LEVEL_LENGTH;
-        idx /= LEVEL_LENGTH;
-        int z = idx % LEVEL_LENGTH;
-        idx /= LEVEL_LENGTH;
-        int y = idx;
-        renderCube(x - LEVEL_LENGTH / 2, y, z - LEVEL_LENGTH / 2, true, false);
+        /* Scale the cube a bit so that it is not hidden behind the faces of the chunk mesh */
+        glTranslatef(selectedCube.x - LEVEL_LENGTH / 2, selectedCube.y, selectedCube.z - LEVEL_LENGTH / 2);
+        glScalef(1.03f, 1.03f, 1.03f);
+        renderCube(0, 0, 0, true, false);
         glPopMatrix();
     }
 
@@ -243,65 +511,33 @@ public class BoxPickingDemo {
     }
 
     void renderGhostCube() {
-        if (ghostCube == -1)
+        if (!hasGhostCube)
             return;
         glEnable(GL_BLEND);
         glPushMatrix();
-        int idx = ghostCube;
-        int x = idx % LEVEL_LENGTH;
-        idx /= LEVEL_LENGTH;
-        int z = idx % LEVEL_LENGTH;
-        idx /= LEVEL_LENGTH;
-        int y = idx;
-        renderCube(x - LEVEL_LENGTH / 2, y, z - LEVEL_LENGTH / 2, true, true);
+        renderCube(ghostCube.x - LEVEL_LENGTH / 2, ghostCube.y, ghostCube.z - LEVEL_LENGTH / 2, true, true);
         glPopMatrix();
         glDisable(GL_BLEND);
     }
 
     void clickSelected(boolean add) {
-        if (add && ghostCube != -1) {
-            boxes[ghostCube] = true;
-            displayListNeedsRecompile = true;
-        } else if (selectedCube != -1) {
-            boxes[selectedCube] = false;
-            displayListNeedsRecompile = true;
+        if (add && hasGhostCube) {
+            streamer.ensureLoaded(ghostCube.x >> VoxelStorage.CHUNK_SHIFT, ghostCube.y >> VoxelStorage.CHUNK_SHIFT, ghostCube.z >> VoxelStorage.CHUNK_SHIFT);
+            boxes.set(ghostCube.x, ghostCube.y, ghostCube.z, true);
+            markDirty(ghostCube.x, ghostCube.y, ghostCube.z);
+        } else if (hasSelectedCube) {
+            boxes.set(selectedCube.x, selectedCube.y, selectedCube.z, false);
+            markDirty(selectedCube.x, selectedCube.y, selectedCube.z);
         }
     }
 
     void computeGhostCube() {
-        if (selectedCube == -1)
+        hasGhostCube = false;
+        /* No face when the camera is inside the selected cube */
+        if (!hasSelectedCube || selectedFace.x == 0 && selectedFace.y == 0 && selectedFace.z == 0)
             return;
-        int idx = selectedCube;
-        int x = idx % LEVEL_LENGTH;
-        idx /= LEVEL_LENGTH;
-        int z = idx % LEVEL_LENGTH;
-        idx /= LEVEL_LENGTH;
-        int y = idx;
-        float px = x - LEVEL_LENGTH / 2;
-        float py = y;
-        float pz = z - LEVEL_LENGTH / 2;
-        Vector3f d = tmp.set(selectedPos).sub(px, py, pz);
-        int maxComponent = d.maxComponent();
-        int nx, ny, nz;
-        int signX = d.x > 0.0f ? 1 : -1;
-        int signY = d.y > 0.0f ? 1 : -1;
-        int signZ = d.z > 0.0f ? 1 : -1;
-        if (maxComponent == 0) {
-            nx = x + signX;
-            ny = y;
-            nz = z;
-        } else if (maxComponent == 1) {
-            nx = x;
-            ny = y + signY;
-            nz = z;
-        } else {
-            nx = x;
-            ny = y;
-            nz = z + signZ;
-        }
-        if (inRange(nx, ny, nz)) {
-            ghostCube = ny * LEVEL_LENGTH * LEVEL_LENGTH + nz * LEVEL_LENGTH + nx;
-        }
+        selectedCube.add(selectedFace, ghostCube);
+        hasGhostCube = inRange(ghostCube.x, ghostCube.y, ghostCube.z);
     }
 
     void drawCrosshair() {
@@ -370,16 +606,19 @@ public class BoxPickingDemo {
             glLoadMatrixf(viewMatrix.identity().rotateX(rotX).rotateY(rotY).translate(-pos.x, -pos.y, -pos.z).get(fb));
             glViewport(0, 0, width, height);
             glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-            compileDisplayList();
-            if (displayList != -1)
-                glCallList(displayList);
+            viewMatrix.positiveZ(dir).negate();
+            streamer.update(pos.x + LEVEL_LENGTH / 2 + 0.5f, pos.y + 0.5f, pos.z + LEVEL_LENGTH / 2 + 0.5f, dir.x, dir.y, dir.z, thisTime);
+            submitDirtyChunks();
+            uploadFinishedMeshes();
+            renderChunks(mat.mul(viewMatrix, projViewMatrix));
             computeBoxUnderCenter();
-            if (selectedCube != -1) {
+            if (hasSelectedCube) {
                 renderSelectedCube();
             }
             computeGhostCube();
             renderGhostCube();
             drawCrosshair();
+            updateStats(thisTime);
             glfwSwapBuffers(window);
             glfwPollEvents();
         }
@@ -103,41 +103,6 @@ public class CameraDemo {
         height = framebufferSize.get(1);
     }
 
-    void renderCube() {
-        glBegin(GL_QUADS);
-        glColor3f(   0.0f,  0.0f,  0.2f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glColor3f(   0.0f,  0.0f,  1.0f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glColor3f(   1.0f,  0.0f,  0.0f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glColor3f(   0.2f,  0.0f,  0.0f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glColor3f(   0.0f,  1.0f,  0.0f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glColor3f(   0.0f,  0.2f,  0.0f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glEnd();
-    }
-
     void renderGrid() {
         glBegin(GL_LINES);
         glColor3f(0.2f, 0.2f, 0.2f);
@@ -195,6 +160,7 @@ public class CameraDemo {
 
     void loop() {
         GL.createCapabilities();
+        InstancedCubeRenderer cubes = new InstancedCubeRenderer();
 
         // Set the clear color
         glClearColor(0.6f, 0.7f, 0.8f, 1.0f);
@@ -246,7 +212,7 @@ public class CameraDemo {
             glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
             glViewport(0, 0, width, height);
             // Render a cube
-            renderCube();
+            cubes.drawCube();
 
             // Load the active camera's view again to render the inactive camera's frustum
             glLoadMatrixf(viewMatrix[active].get(fb));
@@ -257,6 +223,7 @@ public class CameraDemo {
             glfwSwapBuffers(window);
             glfwPollEvents();
         }
+        cubes.destroy();
     }
 
     public static void main(String[] args) {
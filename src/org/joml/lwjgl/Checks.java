@@ -0,0 +1,82 @@
+package org.joml.lwjgl;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the correctness checks of the algorithms used by the demos. Each check compares an algorithm with a simpler reference or with
+ * known results and throws an {@link AssertionError} on the first difference. None of them needs a window or an OpenGL context.
+ * <p>
+ * How fast the algorithms are is measured by the JMH benchmarks in the <code>benchmarks</code> module instead. Checks of voxel storages
+ * also print how much memory they need, which does not depend on the machine.
+ * <p>
+ * Without arguments all checks run; otherwise only the checks with the given names, such as <code>VoxelMesher</code>.
+ */
+public class Checks {
+
+    private static boolean selected(List<String> names, String name) {
+        return names.isEmpty() || names.contains(name);
+    }
+
+    private static void passed(String name) {
+        System.out.println(name + " OK");
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> names = Arrays.asList(args);
+        if (selected(names, "VoxelStorage")) {
+            VoxelStorageCheck.check();
+            passed("VoxelStorage");
+        }
+        if (selected(names, "VoxelMesher")) {
+            VoxelMesherCheck.check();
+            passed("VoxelMesher");
+        }
+        if (selected(names, "VoxelOctree")) {
+            VoxelOctreeCheck.check();
+            passed("VoxelOctree");
+        }
+        if (selected(names, "VoxelRegion")) {
+            VoxelRegionCheck.check();
+            passed("VoxelRegion");
+        }
+        if (selected(names, "ChunkCulling")) {
+            ChunkCullingCheck.check();
+            passed("ChunkCulling");
+        }
+        if (selected(names, "PolygonIndex")) {
+            PolygonIndexCheck.check();
+            passed("PolygonIndex");
+        }
+        if (selected(names, "PolygonBatchQuery")) {
+            PolygonBatchQueryCheck.check();
+            passed("PolygonBatchQuery");
+        }
+        if (selected(names, "PolygonGrid")) {
+            PolygonGridCheck.check();
+            passed("PolygonGrid");
+        }
+        if (selected(names, "PolygonFile")) {
+            PolygonFileCheck.check();
+            passed("PolygonFile");
+        }
+        if (selected(names, "PolygonSimplifier")) {
+            PolygonSimplifierCheck.check();
+            passed("PolygonSimplifier");
+        }
+        if (selected(names, "BackgroundPolygonIndex")) {
+            BackgroundPolygonIndexCheck.check();
+            passed("BackgroundPolygonIndex");
+        }
+        if (selected(names, "PolygonRaster")) {
+            PolygonRasterCheck.check();
+            passed("PolygonRaster");
+        }
+        if (selected(names, "PolygonTriangulator")) {
+            PolygonTriangulatorCheck.check();
+            passed("PolygonTriangulator");
+        }
+    }
+
+}
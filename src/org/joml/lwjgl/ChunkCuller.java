@@ -0,0 +1,68 @@
+package org.joml.lwjgl;
+
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+
+/**
+ * Determines which chunk meshes intersect the view frustum, by testing the bounding box of each chunk with a {@link FrustumIntersection}.
+ * <p>
+ * The counters of the last {@link #cull} call tell how many chunks were tested and how many of them (and how many indices) would be
+ * drawn.
+ */
+public class ChunkCuller {
+
+    private final FrustumIntersection frustum = new FrustumIntersection();
+    private final int chunksX, chunksZ;
+    private final float offsetX, offsetY, offsetZ;
+
+    /* Counters of the last cull */
+    public int chunksTested;
+    public int chunksDrawn;
+    public long indicesDrawn;
+    public long indicesTotal;
+
+    /**
+     * Create a culler for the chunks of the given storage, whose chunk (0, 0, 0) starts at the given position in world space.
+     */
+    public ChunkCuller(VoxelStorage storage, float offsetX, float offsetY, float offsetZ) {
+        this.chunksX = storage.chunksX();
+        this.chunksZ = storage.chunksZ();
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.offsetZ = offsetZ;
+    }
+
+    /**
+     * Store the indices of all chunks with a non-empty mesh whose bounding box intersects the frustum of the given
+     * <code>projection * view</code> matrix in <code>visible</code>.
+     *
+     * @param projView
+     *          the combined projection and view matrix
+     * @param indexCounts
+     *          the number of indices of the mesh of each chunk
+     * @param visible
+     *          will hold the visible chunks; must be at least as long as <code>indexCounts</code>
+     * @return the number of visible chunks
+     */
+    public int cull(Matrix4f projView, int[] indexCounts, int[] visible) {
+        frustum.set(projView);
+        chunksTested = chunksDrawn = 0;
+        indicesDrawn = indicesTotal = 0L;
+        for (int c = 0; c < indexCounts.length; c++) {
+            if (indexCounts[c] == 0)
+                continue;
+            chunksTested++;
+            indicesTotal += indexCounts[c];
+            int cx = c % chunksX, cz = c / chunksX % chunksZ, cy = c / (chunksX * chunksZ);
+            float minX = offsetX + (cx << VoxelStorage.CHUNK_SHIFT);
+            float minY = offsetY + (cy << VoxelStorage.CHUNK_SHIFT);
+            float minZ = offsetZ + (cz << VoxelStorage.CHUNK_SHIFT);
+            if (!frustum.testAab(minX, minY, minZ, minX + VoxelStorage.CHUNK_SIZE, minY + VoxelStorage.CHUNK_SIZE, minZ + VoxelStorage.CHUNK_SIZE))
+                continue;
+            visible[chunksDrawn++] = c;
+            indicesDrawn += indexCounts[c];
+        }
+        return chunksDrawn;
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.joml.lwjgl;
+
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+
+/**
+ * Flies a camera along a circle over a voxel terrain and checks for a few dozen frames that every chunk the {@link ChunkCuller} drops
+ * has all vertices of its mesh outside of the same clip plane, so that culling never drops visible geometry.
+ */
+class ChunkCullingCheck {
+
+    static final int SIZE = 512;
+    static final int HEIGHT = 64;
+    static final int FRAMES = 40;
+
+    /**
+     * Check that all vertices of the mesh of the given chunk are on the outer side of the same clip plane.
+     */
+    static void checkCulled(Matrix4f projView, VoxelMesh mesh, int c) {
+        Vector4f v = new Vector4f();
+        int outside = 0x3F;
+        for (int i = 0; i < mesh.vertexCount && outside != 0; i++) {
+            projView.transform(v.set(mesh.positions[3 * i], mesh.positions[3 * i + 1], mesh.positions[3 * i + 2], 1.0f));
+            int planes = 0;
+            if (v.x < -v.w) planes |= 1;
+            if (v.x > v.w) planes |= 2;
+            if (v.y < -v.w) planes |= 4;
+            if (v.y > v.w) planes |= 8;
+            if (v.z < -v.w) planes |= 16;
+            if (v.z > v.w) planes |= 32;
+            outside &= planes;
+        }
+        if (outside == 0)
+            throw new AssertionError("chunk " + c + " was culled but is not outside of the frustum");
+    }
+
+    static void check(float far, VoxelMesh[] meshes, int[] indexCounts, ChunkCuller culler) {
+        int[] visible = new int[indexCounts.length];
+        Matrix4f proj = new Matrix4f().setPerspective((float) Math.toRadians(45), 1.5f, 0.01f, far);
+        Matrix4f view = new Matrix4f();
+        Matrix4f projView = new Matrix4f();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            /* Circle around the center of the world, looking along the path and a bit down */
+            float angle = (float) (2.0 * Math.PI * frame / FRAMES);
+            float x = SIZE * 0.5f + (float) Math.cos(angle) * SIZE * 0.3f;
+            float z = SIZE * 0.5f + (float) Math.sin(angle) * SIZE * 0.3f;
+            float y = HEIGHT * 0.75f + 8.0f * (float) Math.sin(angle * 5.0f);
+            view.identity().rotateX(0.3f).rotateY(angle).translate(-x, -y, -z);
+            proj.mul(view, projView);
+            int n = culler.cull(projView, indexCounts, visible);
+            boolean[] isVisible = new boolean[indexCounts.length];
+            for (int i = 0; i < n; i++)
+                isVisible[visible[i]] = true;
+            for (int c = 0; c < indexCounts.length; c++)
+                if (indexCounts[c] != 0 && !isVisible[c])
+                    checkCulled(projView, meshes[c], c);
+        }
+    }
+
+    static void check() {
+        ChunkedVoxelStorage storage = new ChunkedVoxelStorage(SIZE, HEIGHT, SIZE);
+        for (int z = 0; z < SIZE; z++)
+            for (int x = 0; x < SIZE; x++)
+                storage.fill(x, 0, z, x + 1, 20 + (int) (14.0 * Math.sin(x * 0.03) * Math.cos(z * 0.04)), z + 1, true);
+        int numChunks = storage.chunksX() * storage.chunksY() * storage.chunksZ();
+        VoxelMesh[] meshes = new VoxelMesh[numChunks];
+        int[] indexCounts = new int[numChunks];
+        int[] padded = new int[VoxelMesher.PADDED_VOLUME];
+        VoxelMesher mesher = new VoxelMesher();
+        for (int cy = 0; cy < storage.chunksY(); cy++)
+            for (int cz = 0; cz < storage.chunksZ(); cz++)
+                for (int cx = 0; cx < storage.chunksX(); cx++) {
+                    if (storage.isChunkEmpty(cx, cy, cz))
+                        continue;
+                    int c = (cy * storage.chunksZ() + cz) * storage.chunksX() + cx;
+                    VoxelMesher.copyPadded(storage, cx, cy, cz, padded);
+                    meshes[c] = new VoxelMesh();
+                    mesher.mesh(padded, cx << VoxelStorage.CHUNK_SHIFT, cy << VoxelStorage.CHUNK_SHIFT, cz << VoxelStorage.CHUNK_SHIFT,
+                            meshes[c]);
+                    indexCounts[c] = meshes[c].indexCount;
+                }
+        ChunkCuller culler = new ChunkCuller(storage, 0.0f, 0.0f, 0.0f);
+        /* The far plane of the BoxPickingDemo, and one covering the whole world */
+        check(100.0f, meshes, indexCounts, culler);
+        check(1000.0f, meshes, indexCounts, culler);
+    }
+
+}
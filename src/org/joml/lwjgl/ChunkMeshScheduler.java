@@ -0,0 +1,190 @@
+package org.joml.lwjgl;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meshes chunks with the {@link VoxelMesher} on a pool of worker threads and hands the finished meshes back to the render thread.
+ * <p>
+ * The render thread {@link #submit submits} a padded copy of the chunk (see {@link VoxelMesher#copyPadded}), so the workers never touch
+ * the {@link VoxelStorage} which is edited on the render thread. Finished meshes are put into a lock-free queue which the render thread
+ * drains with {@link #poll()}, usually within a per-frame upload budget.
+ * Padded copies and meshes are pooled and must be handed back via {@link #recycle(Result)}.
+ */
+public class ChunkMeshScheduler {
+
+    /**
+     * A finished chunk mesh.
+     */
+    public static class Result {
+        int chunk;
+        /**
+         * The version of the chunk which was meshed, so that results of outdated chunk contents can be detected.
+         */
+        int version;
+        final VoxelMesh mesh = new VoxelMesh();
+        int[] padded;
+        float offsetX, offsetY, offsetZ;
+        long submitTime;
+        /**
+         * The exception thrown by the mesher, or <code>null</code> if <code>mesh</code> holds the finished mesh.
+         */
+        Throwable error;
+    }
+
+    private final ExecutorService executor;
+    private final ThreadLocal<VoxelMesher> meshers = new ThreadLocal<VoxelMesher>() {
+        protected VoxelMesher initialValue() {
+            return new VoxelMesher();
+        }
+    };
+    private final ConcurrentLinkedQueue<Result> finished = new ConcurrentLinkedQueue<Result>();
+    private final ConcurrentLinkedQueue<Result> pool = new ConcurrentLinkedQueue<Result>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger finishedCount = new AtomicInteger();
+
+    /* Metrics */
+    private final AtomicLong meshed = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Create a scheduler meshing on the given number of worker threads.
+     *
+     * @param parallelism
+     *          the number of worker threads of the {@link ForkJoinPool}
+     * @param virtualThreads
+     *          whether to use one virtual thread per chunk instead, if the JVM supports them
+     */
+    public ChunkMeshScheduler(int parallelism, boolean virtualThreads) {
+        ExecutorService executor = virtualThreads ? newVirtualThreadPerTaskExecutor() : null;
+        this.executor = executor != null ? executor : new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Return a virtual-thread-per-task executor on JVMs providing one, or <code>null</code>.
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Return a pooled {@link Result} whose <code>padded</code> array the chunk must be copied into before {@link #submit submitting} it.
+     */
+    public Result obtain() {
+        Result r = pool.poll();
+        if (r == null) {
+            r = new Result();
+            r.padded = new int[VoxelMesher.PADDED_VOLUME];
+        }
+        return r;
+    }
+
+    /**
+     * Mesh the padded chunk copy in <code>r.padded</code> asynchronously.
+     */
+    public void submit(final Result r, int chunk, int version, float offsetX, float offsetY, float offsetZ) {
+        r.chunk = chunk;
+        r.version = version;
+        r.offsetX = offsetX;
+        r.offsetY = offsetY;
+        r.offsetZ = offsetZ;
+        r.submitTime = System.nanoTime();
+        r.error = null;
+        inFlight.incrementAndGet();
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    meshers.get().mesh(r.padded, r.offsetX, r.offsetY, r.offsetZ, r.mesh);
+                    long latency = System.nanoTime() - r.submitTime;
+                    meshed.incrementAndGet();
+                    totalLatencyNanos.addAndGet(latency);
+                    long max;
+                    while (latency > (max = maxLatencyNanos.get()) && !maxLatencyNanos.compareAndSet(max, latency))
+                        ;
+                } catch (Throwable t) {
+                    /* Hand the failed chunk back as well, so that the render thread can report it */
+                    r.error = t;
+                    failed.incrementAndGet();
+                } finally {
+                    finished.add(r);
+                    finishedCount.incrementAndGet();
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * Return the next finished mesh or <code>null</code> if there is none.
+     * <p>
+     * If meshing the chunk failed, {@link Result#error} holds the exception and the mesh must not be uploaded. The result must be
+     * {@link #recycle recycled} all the same.
+     */
+    public Result poll() {
+        Result r = finished.poll();
+        if (r != null)
+            finishedCount.decrementAndGet();
+        return r;
+    }
+
+    /**
+     * Hand a {@link Result} back for reuse once its mesh was uploaded.
+     */
+    public void recycle(Result r) {
+        pool.add(r);
+    }
+
+    /**
+     * Return the number of finished meshes waiting to be uploaded.
+     */
+    public int queueDepth() {
+        return finishedCount.get();
+    }
+
+    /**
+     * Return the number of chunks currently being meshed or waiting for a worker.
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Return the average time in milliseconds between submitting a chunk and its mesh being finished, and reset the average.
+     */
+    public double averageLatencyMillisAndReset() {
+        long n = meshed.getAndSet(0L);
+        long total = totalLatencyNanos.getAndSet(0L);
+        return n > 0 ? total / 1E6 / n : 0.0;
+    }
+
+    /**
+     * Return the maximum time in milliseconds between submitting a chunk and its mesh being finished, and reset the maximum.
+     */
+    public double maxLatencyMillisAndReset() {
+        return maxLatencyNanos.getAndSet(0L) / 1E6;
+    }
+
+    /**
+     * Return the number of chunks whose meshing failed so far.
+     */
+    public long failed() {
+        return failed.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,433 @@
+package org.joml.lwjgl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Keeps only the chunks around the camera resident, on the CPU as voxels and on the GPU as meshes.
+ * <p>
+ * Every frame, {@link #update} looks at all chunks within the view radius around the camera. Those whose voxels are not loaded or which
+ * have no mesh yet are loaded from the {@link VoxelRegionStore} and handed to the {@link Listener} for meshing, nearest chunks in view
+ * direction first and at most {@link #loadsPerFrame} per frame. Chunks outside of the view radius stay resident until a memory cap is
+ * exceeded, and are then evicted least recently wanted first: meshes via the {@link Listener}, voxels via
+ * {@link VoxelRegionStore#unload}. Evicting the voxels of a chunk evicts its mesh as well, so that every chunk drawn can also be picked.
+ * Chunks within the view radius are never evicted, so the caps may be exceeded when they are too small for the view radius.
+ * <p>
+ * Without a {@link VoxelRegionStore} all voxels are considered resident and only meshes are streamed.
+ */
+public class ChunkStreamer {
+
+    /**
+     * Receives the chunks to (re)build or drop the meshes of, on the thread calling {@link ChunkStreamer#update}.
+     */
+    public interface Listener {
+        /**
+         * Build the mesh of the given chunk. Its voxels and those of its neighbours are loaded. The size of the mesh must be reported
+         * back via {@link ChunkStreamer#meshUploaded}.
+         */
+        void meshChunk(int c);
+
+        /**
+         * Delete the mesh of the given chunk, including any mesh of it still being built.
+         */
+        void evictMesh(int c);
+    }
+
+    /**
+     * Doubly-linked list of chunk indices, in the order they were last touched.
+     */
+    static class Lru {
+        private final int[] prev, next;
+        private final int head;
+        private int size;
+
+        Lru(int capacity) {
+            prev = new int[capacity + 1];
+            next = new int[capacity + 1];
+            head = capacity;
+            Arrays.fill(prev, -1);
+            Arrays.fill(next, -1);
+            prev[head] = next[head] = head;
+        }
+
+        boolean contains(int c) {
+            return next[c] != -1;
+        }
+
+        /**
+         * Make the given chunk the most recently used one, adding it if necessary.
+         */
+        void touch(int c) {
+            if (contains(c)) {
+                if (prev[head] == c)
+                    return;
+                unlink(c);
+            } else {
+                size++;
+            }
+            prev[c] = prev[head];
+            next[c] = head;
+            next[prev[head]] = c;
+            prev[head] = c;
+        }
+
+        void remove(int c) {
+            if (!contains(c))
+                return;
+            unlink(c);
+            prev[c] = next[c] = -1;
+            size--;
+        }
+
+        private void unlink(int c) {
+            next[prev[c]] = next[c];
+            prev[next[c]] = prev[c];
+        }
+
+        /**
+         * Return the least recently used chunk, or <code>-1</code> if there is none.
+         */
+        int eldest() {
+            return size > 0 ? next[head] : -1;
+        }
+
+        /**
+         * Return the chunk touched next after the given one, or <code>-1</code> if it is the most recently used one.
+         */
+        int newer(int c) {
+            return next[c] != head ? next[c] : -1;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    private final VoxelRegionStore store;
+    private final Listener listener;
+    private final int chunksX, chunksY, chunksZ;
+    /**
+     * Chunks within this horizontal distance (in chunks) of the camera are kept resident.
+     */
+    public int viewRadius = 8;
+    /**
+     * The maximum number of bytes of voxels kept in memory. Only applies with a {@link VoxelRegionStore} to unload chunks to.
+     */
+    public long maxResidentBytes = 64L << 20;
+    /**
+     * The maximum number of bytes of chunk meshes kept on the GPU.
+     */
+    public long maxMeshBytes = 64L << 20;
+    /**
+     * The maximum number of chunks to load and mesh per frame.
+     */
+    public int loadsPerFrame = 16;
+
+    private final Lru resident;
+    private final Lru meshed;
+    private final long[] residentBytes;
+    private final long[] meshBytes;
+    private long totalResidentBytes, totalMeshBytes;
+    /**
+     * The frame in which each chunk was last within the view radius.
+     */
+    private final int[] lastWanted;
+    /**
+     * The time at which each chunk started waiting to be loaded or meshed, or <code>0</code>.
+     */
+    private final long[] requestTimes;
+    private int frame;
+    private long[] candidates = new long[256];
+    private int queueLength;
+
+    /* Metrics */
+    private int residentEvictions;
+    private int meshEvictions;
+    private long loads;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    /**
+     * Create a streamer for the chunks of the given storage.
+     *
+     * @param storage
+     *          the voxels
+     * @param store
+     *          the store to load voxels from and unload them to, or <code>null</code>
+     * @param listener
+     *          builds and deletes the chunk meshes
+     */
+    public ChunkStreamer(VoxelStorage storage, VoxelRegionStore store, Listener listener) {
+        this.store = store;
+        this.listener = listener;
+        this.chunksX = storage.chunksX();
+        this.chunksY = storage.chunksY();
+        this.chunksZ = storage.chunksZ();
+        int numChunks = chunksX * chunksY * chunksZ;
+        this.resident = new Lru(numChunks);
+        this.meshed = new Lru(numChunks);
+        this.residentBytes = new long[numChunks];
+        this.meshBytes = new long[numChunks];
+        this.lastWanted = new int[numChunks];
+        Arrays.fill(lastWanted, -1);
+        this.requestTimes = new long[numChunks];
+        if (store != null)
+            addLoadedChunks();
+    }
+
+    /**
+     * Count the chunks the store already considers loaded, such as all chunks of a freshly generated world, as resident, so that they
+     * show up in {@link #residentBytes()} and can be unloaded before streaming ever touches them.
+     */
+    private void addLoadedChunks() {
+        for (int cy = 0; cy < chunksY; cy++)
+            for (int cz = 0; cz < chunksZ; cz++)
+                for (int cx = 0; cx < chunksX; cx++) {
+                    if (!store.isLoaded(cx, cy, cz))
+                        continue;
+                    int c = chunkIndex(cx, cy, cz);
+                    resident.touch(c);
+                    residentBytes[c] = store.chunkFootprint(cx, cy, cz);
+                    totalResidentBytes += residentBytes[c];
+                }
+    }
+
+    int chunkIndex(int cx, int cy, int cz) {
+        return (cy * chunksZ + cz) * chunksX + cx;
+    }
+
+    boolean inRange(int cx, int cy, int cz) {
+        return cx >= 0 && cx < chunksX && cy >= 0 && cy < chunksY && cz >= 0 && cz < chunksZ;
+    }
+
+    public boolean isLoaded(int c) {
+        return store == null || resident.contains(c);
+    }
+
+    public boolean isMeshed(int c) {
+        return meshed.contains(c);
+    }
+
+    /**
+     * Load the voxels of the chunk with the given chunk coordinates, if it exists and is not loaded yet.
+     */
+    public void ensureLoaded(int cx, int cy, int cz) {
+        if (store == null || !inRange(cx, cy, cz))
+            return;
+        int c = chunkIndex(cx, cy, cz);
+        try {
+            store.ensureLoaded(cx, cy, cz);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load chunk (" + cx + ", " + cy + ", " + cz + ")", e);
+        }
+        if (!resident.contains(c)) {
+            residentBytes[c] = store.chunkFootprint(cx, cy, cz);
+            totalResidentBytes += residentBytes[c];
+        }
+        resident.touch(c);
+    }
+
+    /**
+     * Load the voxels of the chunk with the given chunk coordinates and of its neighbours, which are needed to mesh it.
+     */
+    public void ensureResident(int cx, int cy, int cz) {
+        ensureLoaded(cx, cy, cz);
+        ensureLoaded(cx - 1, cy, cz);
+        ensureLoaded(cx + 1, cy, cz);
+        ensureLoaded(cx, cy - 1, cz);
+        ensureLoaded(cx, cy + 1, cz);
+        ensureLoaded(cx, cy, cz - 1);
+        ensureLoaded(cx, cy, cz + 1);
+    }
+
+    /**
+     * Report the size of the uploaded mesh of the given chunk, <code>0</code> if the chunk has no mesh.
+     */
+    public void meshUploaded(int c, long bytes) {
+        if (!meshed.contains(c))
+            return;
+        totalMeshBytes += bytes - meshBytes[c];
+        meshBytes[c] = bytes;
+    }
+
+    /**
+     * Load and mesh the chunks around the camera and evict chunks while a memory cap is exceeded.
+     *
+     * @param x
+     *          the x coordinate of the camera in grid space
+     * @param y
+     *          the y coordinate of the camera in grid space
+     * @param z
+     *          the z coordinate of the camera in grid space
+     * @param dirX
+     *          the x coordinate of the normalized view direction
+     * @param dirY
+     *          the y coordinate of the normalized view direction
+     * @param dirZ
+     *          the z coordinate of the normalized view direction
+     * @param time
+     *          the current time in nanoseconds
+     */
+    public void update(float x, float y, float z, float dirX, float dirY, float dirZ, long time) {
+        frame++;
+        int cameraX = (int) Math.floor(x) >> VoxelStorage.CHUNK_SHIFT, cameraZ = (int) Math.floor(z) >> VoxelStorage.CHUNK_SHIFT;
+        int count = 0;
+        for (int cz = Math.max(0, cameraZ - viewRadius); cz <= Math.min(chunksZ - 1, cameraZ + viewRadius); cz++)
+            for (int cx = Math.max(0, cameraX - viewRadius); cx <= Math.min(chunksX - 1, cameraX + viewRadius); cx++)
+                for (int cy = 0; cy < chunksY; cy++) {
+                    int c = chunkIndex(cx, cy, cz);
+                    boolean wantedBefore = lastWanted[c] == frame - 1;
+                    lastWanted[c] = frame;
+                    if (isLoaded(c) && meshed.contains(c)) {
+                        if (store != null)
+                            resident.touch(c);
+                        meshed.touch(c);
+                        continue;
+                    }
+                    /* Start waiting now, unless the chunk already waited in the previous frame */
+                    if (requestTimes[c] == 0L || !wantedBefore)
+                        requestTimes[c] = time;
+                    /* Order by distance, with chunks in front of the camera coming first */
+                    float dx = ((cx << VoxelStorage.CHUNK_SHIFT) + VoxelStorage.CHUNK_SIZE * 0.5f) - x;
+                    float dy = ((cy << VoxelStorage.CHUNK_SHIFT) + VoxelStorage.CHUNK_SIZE * 0.5f) - y;
+                    float dz = ((cz << VoxelStorage.CHUNK_SHIFT) + VoxelStorage.CHUNK_SIZE * 0.5f) - z;
+                    float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+                    float cos = distance > 0.0f ? (dx * dirX + dy * dirY + dz * dirZ) / distance : 1.0f;
+                    int priority = (int) (distance * (1.5f - 0.5f * cos) * 16.0f);
+                    if (count == candidates.length)
+                        candidates = Arrays.copyOf(candidates, count * 2);
+                    candidates[count++] = (long) priority << 32 | c;
+                }
+        Arrays.sort(candidates, 0, count);
+        int processed = Math.min(count, loadsPerFrame);
+        for (int i = 0; i < processed; i++) {
+            int c = (int) candidates[i];
+            int cx = c % chunksX, cz = c / chunksX % chunksZ, cy = c / (chunksX * chunksZ);
+            ensureResident(cx, cy, cz);
+            if (!meshed.contains(c)) {
+                meshed.touch(c);
+                meshBytes[c] = 0L;
+                listener.meshChunk(c);
+            }
+            long latency = time - requestTimes[c];
+            requestTimes[c] = 0L;
+            loads++;
+            totalLatencyNanos += latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+        }
+        queueLength = count - processed;
+        evict();
+    }
+
+    /**
+     * Evict the least recently used chunks until the caps are met. Wanted chunks which were not touched this frame, such as those still
+     * waiting for their mesh, are skipped rather than ending the scan, so that the chunks behind them can still be evicted.
+     */
+    private void evict() {
+        for (int c = meshed.eldest(); c != -1 && totalMeshBytes > maxMeshBytes;) {
+            int newer = meshed.newer(c);
+            if (lastWanted[c] != frame)
+                evictMesh(c);
+            c = newer;
+        }
+        if (store == null)
+            return;
+        for (int c = resident.eldest(); c != -1 && totalResidentBytes > maxResidentBytes;) {
+            int newer = resident.newer(c);
+            if (lastWanted[c] != frame) {
+                int cx = c % chunksX, cz = c / chunksX % chunksZ, cy = c / (chunksX * chunksZ);
+                try {
+                    store.unload(cx, cy, cz);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not unload chunk (" + cx + ", " + cy + ", " + cz + ")", e);
+                }
+                resident.remove(c);
+                totalResidentBytes -= residentBytes[c];
+                residentBytes[c] = 0L;
+                residentEvictions++;
+                /* A mesh without voxels would show boxes which cannot be picked */
+                if (meshed.contains(c))
+                    evictMesh(c);
+            }
+            c = newer;
+        }
+    }
+
+    private void evictMesh(int c) {
+        meshed.remove(c);
+        totalMeshBytes -= meshBytes[c];
+        meshBytes[c] = 0L;
+        listener.evictMesh(c);
+        meshEvictions++;
+    }
+
+    /**
+     * Update the recorded voxel memory of the given chunk after it was edited.
+     */
+    public void chunkEdited(int c) {
+        if (store == null || !resident.contains(c))
+            return;
+        int cx = c % chunksX, cz = c / chunksX % chunksZ, cy = c / (chunksX * chunksZ);
+        long bytes = store.chunkFootprint(cx, cy, cz);
+        totalResidentBytes += bytes - residentBytes[c];
+        residentBytes[c] = bytes;
+    }
+
+    /**
+     * Return the number of chunks whose voxels are loaded, or <code>-1</code> without a {@link VoxelRegionStore}.
+     */
+    public int residentChunks() {
+        return store != null ? resident.size() : -1;
+    }
+
+    public long residentBytes() {
+        return totalResidentBytes;
+    }
+
+    /**
+     * Return the number of chunks with a mesh (or with a mesh being built).
+     */
+    public int meshedChunks() {
+        return meshed.size();
+    }
+
+    public long meshBytes() {
+        return totalMeshBytes;
+    }
+
+    /**
+     * Return the number of chunks within the view radius still waiting to be loaded or meshed after the last {@link #update}.
+     */
+    public int queueLength() {
+        return queueLength;
+    }
+
+    public int residentEvictions() {
+        return residentEvictions;
+    }
+
+    public int meshEvictions() {
+        return meshEvictions;
+    }
+
+    /**
+     * Return the average time in milliseconds chunks waited to be loaded and meshed since the last call, and reset the average.
+     */
+    public double averageLatencyMillisAndReset() {
+        double avg = loads > 0 ? totalLatencyNanos / 1E6 / loads : 0.0;
+        loads = 0L;
+        totalLatencyNanos = 0L;
+        return avg;
+    }
+
+    /**
+     * Return the maximum time in milliseconds a chunk waited to be loaded and meshed since the last call, and reset the maximum.
+     */
+    public double maxLatencyMillisAndReset() {
+        double max = maxLatencyNanos / 1E6;
+        maxLatencyNanos = 0L;
+        return max;
+    }
+
+}
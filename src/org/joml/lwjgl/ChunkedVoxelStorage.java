@@ -0,0 +1,386 @@
+package org.joml.lwjgl;
+
+import java.util.Arrays;
+
+/**
+ * {@link VoxelStorage} which stores the occupancy of each chunk as a bitset of <code>long</code> words, so a chunk of 16<sup>3</sup>
+ * voxels takes 512 bytes instead of the 4096 bytes of a <code>boolean[]</code>.
+ * <p>
+ * Chunks without any solid voxel are not allocated at all and chunks with only solid voxels share a single bitset. Block types other
+ * than the {@link #DEFAULT_TYPE} are kept in an optional per-chunk palette whose indices are bit-packed with as few bits as the number
+ * of distinct types in that chunk requires.
+ */
+public class ChunkedVoxelStorage implements VoxelStorage {
+
+    /**
+     * Number of voxels in a chunk.
+     */
+    static final int CHUNK_VOLUME = CHUNK_SIZE * CHUNK_SIZE * CHUNK_SIZE;
+    /**
+     * Number of <code>long</code> words in the bitset of a chunk.
+     */
+    static final int CHUNK_WORDS = CHUNK_VOLUME >>> 6;
+    /**
+     * The bitset shared by all chunks whose voxels are all solid. It must never be modified.
+     */
+    static final long[] FULL = new long[CHUNK_WORDS];
+    static {
+        Arrays.fill(FULL, -1L);
+    }
+    /**
+     * Approximate size of an array object header.
+     */
+    static final int ARRAY_HEADER_BYTES = 16;
+
+    /**
+     * Maps the voxels of a chunk to block types using as few bits per voxel as possible.
+     */
+    static class Palette {
+        int[] types = new int[2];
+        int size;
+        int bitsPerEntry = 1;
+        long[] indices = new long[CHUNK_VOLUME >>> 6];
+
+        Palette(int defaultType) {
+            types[size++] = defaultType;
+        }
+
+        int get(int i) {
+            int bitIndex = i * bitsPerEntry;
+            long mask = (1L << bitsPerEntry) - 1L;
+            return types[(int) ((indices[bitIndex >>> 6] >>> (bitIndex & 63)) & mask)];
+        }
+
+        void set(int i, int type) {
+            int entry = indexOf(type);
+            if (entry == -1)
+                entry = add(type);
+            int bitIndex = i * bitsPerEntry;
+            long mask = (1L << bitsPerEntry) - 1L;
+            int word = bitIndex >>> 6, shift = bitIndex & 63;
+            indices[word] = indices[word] & ~(mask << shift) | (long) entry << shift;
+        }
+
+        int indexOf(int type) {
+            for (int i = 0; i < size; i++)
+                if (types[i] == type)
+                    return i;
+            return -1;
+        }
+
+        int add(int type) {
+            if (size == types.length) {
+                /* Double the number of bits per entry and repack the indices */
+                Palette p = new Palette(0);
+                p.bitsPerEntry = bitsPerEntry << 1;
+                p.indices = new long[(CHUNK_VOLUME * p.bitsPerEntry) >>> 6];
+                long mask = (1L << bitsPerEntry) - 1L;
+                for (int i = 0; i < CHUNK_VOLUME; i++) {
+                    int bitIndex = i * bitsPerEntry;
+                    long entry = (indices[bitIndex >>> 6] >>> (bitIndex & 63)) & mask;
+                    int newBitIndex = i * p.bitsPerEntry;
+                    p.indices[newBitIndex >>> 6] |= entry << (newBitIndex & 63);
+                }
+                types = Arrays.copyOf(types, 1 << p.bitsPerEntry);
+                bitsPerEntry = p.bitsPerEntry;
+                indices = p.indices;
+            }
+            types[size] = type;
+            return size++;
+        }
+
+        /**
+         * Drop all types which are not used by any of the solid voxels in the given occupancy bitset.
+         */
+        void compact(long[] occupancy) {
+            int[] remap = new int[size];
+            Arrays.fill(remap, -1);
+            Palette p = new Palette(0);
+            p.size = 0;
+            for (int i = 0; i < CHUNK_VOLUME; i++) {
+                if ((occupancy[i >>> 6] & 1L << i) == 0L)
+                    continue;
+                int bitIndex = i * bitsPerEntry;
+                int entry = (int) ((indices[bitIndex >>> 6] >>> (bitIndex & 63)) & (1L << bitsPerEntry) - 1L);
+                if (remap[entry] == -1)
+                    remap[entry] = p.add(types[entry]);
+                int newBitIndex = i * p.bitsPerEntry;
+                p.indices[newBitIndex >>> 6] |= (long) remap[entry] << (newBitIndex & 63);
+            }
+            types = p.types;
+            size = p.size;
+            bitsPerEntry = p.bitsPerEntry;
+            indices = p.indices;
+        }
+
+        long memoryFootprint() {
+            return ARRAY_HEADER_BYTES + 4L * types.length + ARRAY_HEADER_BYTES + 8L * indices.length + 16;
+        }
+    }
+
+    private final int sizeX, sizeY, sizeZ;
+    private final int chunksX, chunksY, chunksZ;
+    /**
+     * The occupancy bitset of each chunk; <code>null</code> for empty chunks and {@link #FULL} for full chunks.
+     */
+    private final long[][] bits;
+    /**
+     * The number of solid voxels of each chunk.
+     */
+    private final int[] counts;
+    /**
+     * The block type palette of each chunk; <code>null</code> if all solid voxels have the {@link #DEFAULT_TYPE}.
+     */
+    private final Palette[] palettes;
+
+    public ChunkedVoxelStorage(int sizeX, int sizeY, int sizeZ) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.chunksX = (sizeX + CHUNK_MASK) >> CHUNK_SHIFT;
+        this.chunksY = (sizeY + CHUNK_MASK) >> CHUNK_SHIFT;
+        this.chunksZ = (sizeZ + CHUNK_MASK) >> CHUNK_SHIFT;
+        int numChunks = chunksX * chunksY * chunksZ;
+        this.bits = new long[numChunks][];
+        this.counts = new int[numChunks];
+        this.palettes = new Palette[numChunks];
+    }
+
+    public int sizeX() {
+        return sizeX;
+    }
+
+    public int sizeY() {
+        return sizeY;
+    }
+
+    public int sizeZ() {
+        return sizeZ;
+    }
+
+    public int chunksX() {
+        return chunksX;
+    }
+
+    public int chunksY() {
+        return chunksY;
+    }
+
+    public int chunksZ() {
+        return chunksZ;
+    }
+
+    boolean inRange(int x, int y, int z) {
+        return x >= 0 && x < sizeX && y >= 0 && y < sizeY && z >= 0 && z < sizeZ;
+    }
+
+    int chunkIndex(int cx, int cy, int cz) {
+        return (cy * chunksZ + cz) * chunksX + cx;
+    }
+
+    static int localIndex(int x, int y, int z) {
+        return (y & CHUNK_MASK) << (CHUNK_SHIFT << 1) | (z & CHUNK_MASK) << CHUNK_SHIFT | x & CHUNK_MASK;
+    }
+
+    private void checkRange(int x, int y, int z) {
+        if (!inRange(x, y, z))
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ", " + z + ")");
+    }
+
+    public boolean get(int x, int y, int z) {
+        if (!inRange(x, y, z))
+            return false;
+        long[] b = bits[chunkIndex(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT, z >> CHUNK_SHIFT)];
+        if (b == null)
+            return false;
+        int i = localIndex(x, y, z);
+        return (b[i >>> 6] & 1L << i) != 0L;
+    }
+
+    public int emptyExtent(int x, int y, int z) {
+        if (!inRange(x, y, z))
+            return 1;
+        long[] b = bits[chunkIndex(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT, z >> CHUNK_SHIFT)];
+        if (b == null)
+            return CHUNK_SIZE;
+        int i = localIndex(x, y, z);
+        return (b[i >>> 6] & 1L << i) != 0L ? 0 : 1;
+    }
+
+    public int getType(int x, int y, int z) {
+        if (!inRange(x, y, z))
+            return 0;
+        int c = chunkIndex(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT, z >> CHUNK_SHIFT);
+        long[] b = bits[c];
+        if (b == null)
+            return 0;
+        int i = localIndex(x, y, z);
+        if ((b[i >>> 6] & 1L << i) == 0L)
+            return 0;
+        Palette p = palettes[c];
+        return p != null ? p.get(i) : DEFAULT_TYPE;
+    }
+
+    public void set(int x, int y, int z, boolean solid) {
+        setType(x, y, z, solid ? DEFAULT_TYPE : 0);
+    }
+
+    public void setType(int x, int y, int z, int type) {
+        checkRange(x, y, z);
+        int c = chunkIndex(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT, z >> CHUNK_SHIFT);
+        int i = localIndex(x, y, z);
+        setBit(c, i, type != 0);
+        if (type == 0)
+            return;
+        Palette p = palettes[c];
+        if (p == null && type != DEFAULT_TYPE)
+            p = palettes[c] = new Palette(DEFAULT_TYPE);
+        if (p != null) {
+            if (p.size == p.types.length && p.indexOf(type) == -1)
+                p.compact(bits[c]);
+            p.set(i, type);
+        }
+    }
+
+    private void setBit(int c, int i, boolean solid) {
+        long[] b = bits[c];
+        long bit = 1L << i;
+        if (solid) {
+            if (b == FULL)
+                return;
+            if (b == null)
+                b = bits[c] = new long[CHUNK_WORDS];
+            else if ((b[i >>> 6] & bit) != 0L)
+                return;
+            b[i >>> 6] |= bit;
+            if (++counts[c] == CHUNK_VOLUME)
+                bits[c] = FULL;
+        } else {
+            if (b == null || (b[i >>> 6] & bit) == 0L)
+                return;
+            if (b == FULL)
+                b = bits[c] = FULL.clone();
+            b[i >>> 6] &= ~bit;
+            if (--counts[c] == 0) {
+                bits[c] = null;
+                palettes[c] = null;
+            }
+        }
+    }
+
+    public void fill(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, boolean solid) {
+        for (int cy = minY >> CHUNK_SHIFT; cy <= (maxY - 1) >> CHUNK_SHIFT; cy++)
+            for (int cz = minZ >> CHUNK_SHIFT; cz <= (maxZ - 1) >> CHUNK_SHIFT; cz++)
+                for (int cx = minX >> CHUNK_SHIFT; cx <= (maxX - 1) >> CHUNK_SHIFT; cx++) {
+                    int x0 = cx << CHUNK_SHIFT, y0 = cy << CHUNK_SHIFT, z0 = cz << CHUNK_SHIFT;
+                    boolean wholeChunk = minX <= x0 && maxX >= x0 + CHUNK_SIZE && minY <= y0 && maxY >= y0 + CHUNK_SIZE
+                                      && minZ <= z0 && maxZ >= z0 + CHUNK_SIZE;
+                    if (wholeChunk && inRange(x0 + CHUNK_MASK, y0 + CHUNK_MASK, z0 + CHUNK_MASK)) {
+                        /* Set the whole chunk at once */
+                        int c = chunkIndex(cx, cy, cz);
+                        bits[c] = solid ? FULL : null;
+                        counts[c] = solid ? CHUNK_VOLUME : 0;
+                        palettes[c] = null;
+                        continue;
+                    }
+                    for (int y = Math.max(minY, y0); y < Math.min(maxY, y0 + CHUNK_SIZE); y++)
+                        for (int z = Math.max(minZ, z0); z < Math.min(maxZ, z0 + CHUNK_SIZE); z++)
+                            for (int x = Math.max(minX, x0); x < Math.min(maxX, x0 + CHUNK_SIZE); x++)
+                                set(x, y, z, solid);
+                }
+    }
+
+    public boolean isChunkEmpty(int cx, int cy, int cz) {
+        return bits[chunkIndex(cx, cy, cz)] == null;
+    }
+
+    /**
+     * Return whether all voxels of the chunk with the given chunk coordinates are solid.
+     */
+    public boolean isChunkFull(int cx, int cy, int cz) {
+        return bits[chunkIndex(cx, cy, cz)] == FULL;
+    }
+
+    /**
+     * Return the number of solid voxels in the chunk with the given chunk coordinates.
+     */
+    public int chunkCount(int cx, int cy, int cz) {
+        return counts[chunkIndex(cx, cy, cz)];
+    }
+
+    public void visitChunk(int cx, int cy, int cz, Visitor visitor) {
+        int c = chunkIndex(cx, cy, cz);
+        long[] b = bits[c];
+        if (b == null)
+            return;
+        Palette p = palettes[c];
+        int x0 = cx << CHUNK_SHIFT, y0 = cy << CHUNK_SHIFT, z0 = cz << CHUNK_SHIFT;
+        for (int w = 0; w < CHUNK_WORDS; w++) {
+            /* Only visit the set bits of each word */
+            long word = b[w];
+            while (word != 0L) {
+                int i = w << 6 | Long.numberOfTrailingZeros(word);
+                word &= word - 1L;
+                int x = x0 + (i & CHUNK_MASK);
+                int z = z0 + (i >>> CHUNK_SHIFT & CHUNK_MASK);
+                int y = y0 + (i >>> (CHUNK_SHIFT << 1));
+                if (inRange(x, y, z))
+                    visitor.visit(x, y, z, p != null ? p.get(i) : DEFAULT_TYPE);
+            }
+        }
+    }
+
+    /**
+     * Return the occupancy bitset of the chunk with the given index; <code>null</code> if it is empty and {@link #FULL} if it is full.
+     * The returned array must not be modified.
+     */
+    long[] chunkBits(int c) {
+        return bits[c];
+    }
+
+    /**
+     * Return the block type palette of the chunk with the given index, or <code>null</code>.
+     */
+    Palette chunkPalette(int c) {
+        return palettes[c];
+    }
+
+    /**
+     * Replace the contents of the chunk with the given index, taking ownership of the given arrays.
+     */
+    void setChunk(int c, long[] b, Palette p) {
+        int count = 0;
+        if (b != null)
+            for (int w = 0; w < CHUNK_WORDS; w++)
+                count += Long.bitCount(b[w]);
+        if (count == 0) {
+            b = null;
+            p = null;
+        } else if (count == CHUNK_VOLUME && p == null) {
+            b = FULL;
+        }
+        bits[c] = b;
+        counts[c] = count;
+        palettes[c] = p;
+    }
+
+    /**
+     * Return the number of bytes used by the bitset and palette of the chunk with the given index.
+     */
+    long chunkFootprint(int c) {
+        long bytes = 0L;
+        if (bits[c] != null && bits[c] != FULL)
+            bytes += ARRAY_HEADER_BYTES + 8L * CHUNK_WORDS;
+        if (palettes[c] != null)
+            bytes += palettes[c].memoryFootprint();
+        return bytes;
+    }
+
+    public long memoryFootprint() {
+        long bytes = 3L * ARRAY_HEADER_BYTES + 8L * bits.length + 4L * counts.length + 4L * palettes.length;
+        for (int c = 0; c < bits.length; c++)
+            bytes += chunkFootprint(c);
+        return bytes;
+    }
+
+}
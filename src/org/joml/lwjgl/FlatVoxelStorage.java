@@ -0,0 +1,55 @@
+package org.joml.lwjgl;
+
+/**
+ * {@link VoxelStorage} with one <code>boolean</code> per voxel in a single dense array, like the original <code>boolean[][][]</code> of
+ * the {@link BoxPickingDemo}.
+ * <p>
+ * It is the simplest possible storage, which the other storages are compared with, and it only knows a single block type.
+ */
+public class FlatVoxelStorage implements VoxelStorage {
+
+    private final int sizeX, sizeY, sizeZ;
+    private final boolean[] solid;
+
+    public FlatVoxelStorage(int sizeX, int sizeY, int sizeZ) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.solid = new boolean[sizeX * sizeY * sizeZ];
+    }
+
+    public int sizeX() {
+        return sizeX;
+    }
+
+    public int sizeY() {
+        return sizeY;
+    }
+
+    public int sizeZ() {
+        return sizeZ;
+    }
+
+    public boolean get(int x, int y, int z) {
+        if (x < 0 || x >= sizeX || y < 0 || y >= sizeY || z < 0 || z >= sizeZ)
+            return false;
+        return solid[(y * sizeZ + z) * sizeX + x];
+    }
+
+    public void set(int x, int y, int z, boolean solid) {
+        this.solid[(y * sizeZ + z) * sizeX + x] = solid;
+    }
+
+    public int getType(int x, int y, int z) {
+        return get(x, y, z) ? DEFAULT_TYPE : 0;
+    }
+
+    public void setType(int x, int y, int z, int type) {
+        set(x, y, z, type != 0);
+    }
+
+    public long memoryFootprint() {
+        return 16 + solid.length;
+    }
+
+}
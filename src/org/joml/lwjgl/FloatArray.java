@@ -0,0 +1,101 @@
+package org.joml.lwjgl;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive <code>float</code> values.
+ * <p>
+ * The capacity doubles whenever it is exceeded, so appending is amortized constant time. The backing array is exposed via
+ * {@link #array()} so that it can be handed to APIs taking a <code>float[]</code>, such as {@link org.joml.PolygonsIntersection} or
+ * LWJGL's array overloads, without boxing or copying. It is only valid until the next call that grows this array.
+ */
+public class FloatArray {
+
+    /**
+     * Some VMs cannot allocate arrays with exactly {@link Integer#MAX_VALUE} elements.
+     */
+    static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private float[] array;
+    private int size;
+
+    public FloatArray() {
+        this(1024);
+    }
+
+    public FloatArray(int initialCapacity) {
+        array = new float[Math.max(initialCapacity, 1)];
+    }
+
+    static int grow(int capacity, int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY)
+            throw new OutOfMemoryError("Required array size too large: " + (minCapacity & 0xFFFFFFFFL));
+        int newCapacity = capacity <= MAX_CAPACITY / 2 ? capacity * 2 : MAX_CAPACITY;
+        return Math.max(newCapacity, minCapacity);
+    }
+
+    /**
+     * Make sure that the array can hold at least <code>minCapacity</code> elements without growing.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > array.length)
+            array = Arrays.copyOf(array, grow(array.length, minCapacity));
+    }
+
+    public void add(float v) {
+        if (size == array.length)
+            ensureCapacity(size + 1);
+        array[size++] = v;
+    }
+
+    public void add(float x, float y) {
+        if (size + 2 > array.length)
+            ensureCapacity(size + 2);
+        array[size] = x;
+        array[size + 1] = y;
+        size += 2;
+    }
+
+    public float get(int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException(index + " >= " + size);
+        return array[index];
+    }
+
+    public void set(int index, float v) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException(index + " >= " + size);
+        array[index] = v;
+    }
+
+    /**
+     * Return the number of elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Set the number of elements, growing the array if necessary. New elements are zero or keep the value they had before the array was
+     * shrunk.
+     */
+    public void setSize(int size) {
+        ensureCapacity(size);
+        this.size = size;
+    }
+
+    /**
+     * Remove all elements but keep the capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Return the backing array, whose first {@link #size()} elements are the elements of this array.
+     */
+    public float[] array() {
+        return array;
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.joml.lwjgl;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits the items <code>[0, count)</code> into a few contiguous batches and processes them on the threads of a {@link ForkJoinPool}, for
+ * the bulk operations of {@link PolygonBatchQuery} and {@link BillboardBatch}.
+ * <p>
+ * There are a few batches per thread of the pool, so that threads finishing early can steal work. The tasks are created once and
+ * reused, so a call of {@link #run(int)} allocates nothing, and the batch number passed to {@link #compute(int, int, int)} lets
+ * subclasses keep per-batch results and scratch memory in arrays of {@link #maxBatches()} elements. With no more than one batch worth
+ * of items, the only batch runs on the calling thread without involving the pool.
+ * <p>
+ * An instance must only be used by one thread at a time.
+ */
+abstract class ForkJoinBatches {
+
+    private final ForkJoinPool pool;
+    private final int minBatch;
+    private final Batch[] batches;
+    private final RecursiveAction root = new RecursiveAction() {
+        private static final long serialVersionUID = 1L;
+
+        protected void compute() {
+            /* Batches beyond the ones used by the current call are empty */
+            invokeAll(batches);
+        }
+    };
+
+    private class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int number;
+        int start, end;
+
+        Batch(int number) {
+            this.number = number;
+        }
+
+        protected void compute() {
+            if (start < end)
+                ForkJoinBatches.this.compute(number, start, end);
+        }
+    }
+
+    /**
+     * @param minBatch
+     *          batches with fewer items than this are not split any further, because forking them would cost more than it saves
+     */
+    ForkJoinBatches(ForkJoinPool pool, int minBatch) {
+        this.pool = pool;
+        this.minBatch = minBatch;
+        this.batches = new Batch[Math.max(2, pool.getParallelism() * 4)];
+        for (int i = 0; i < batches.length; i++)
+            batches[i] = new Batch(i);
+    }
+
+    /**
+     * Return the largest number of batches a call of {@link #run(int)} uses.
+     */
+    int maxBatches() {
+        return batches.length;
+    }
+
+    /**
+     * Process the items <code>[start, end)</code> as the batch with the given number on the current thread.
+     */
+    protected abstract void compute(int batch, int start, int end);
+
+    /**
+     * Process the items <code>[0, count)</code> and wait until all batches are done.
+     *
+     * @return the number of batches used, which are numbered from zero
+     */
+    int run(int count) {
+        int numBatches = Math.min(batches.length, (count + minBatch - 1) / minBatch);
+        if (numBatches <= 1) {
+            compute(0, 0, count);
+            return 1;
+        }
+        for (int i = 0; i < batches.length; i++) {
+            Batch batch = batches[i];
+            batch.reinitialize();
+            batch.start = i < numBatches ? (int) ((long) count * i / numBatches) : count;
+            batch.end = i < numBatches ? (int) ((long) count * (i + 1) / numBatches) : count;
+        }
+        root.reinitialize();
+        pool.invoke(root);
+        return numBatches;
+    }
+
+}
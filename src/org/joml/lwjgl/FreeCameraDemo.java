@@ -127,41 +127,6 @@ public class FreeCameraDemo {
         glfwSetCursorPos(window, width/2, height/2);
     }
 
-    void renderCube() {
-        glBegin(GL_QUADS);
-        glColor3f(   0.0f,  0.0f,  0.2f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glColor3f(   0.0f,  0.0f,  1.0f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glColor3f(   1.0f,  0.0f,  0.0f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glColor3f(   0.2f,  0.0f,  0.0f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glColor3f(   0.0f,  1.0f,  0.0f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glColor3f(   0.0f,  0.2f,  0.0f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glEnd();
-    }
-
     void renderGrid() {
         glBegin(GL_LINES);
         glColor3f(0.2f, 0.2f, 0.2f);
@@ -176,6 +141,7 @@ public class FreeCameraDemo {
 
     void loop() {
         GL.createCapabilities();
+        InstancedCubeRenderer cubes = new InstancedCubeRenderer();
 
         // Set the clear color
         glClearColor(0.9f, 0.9f, 0.9f, 1.0f);
@@ -223,15 +189,16 @@ public class FreeCameraDemo {
             mat.identity();
             if (thirdPerson) {
                 glLoadMatrixf(mat.translation(0, -1.0f, -5.0f).get(fb));
-                renderCube(); // <- as the player
+                cubes.drawCube(); // <- as the player
             }
             glLoadMatrixf(cam.apply(mat).get(fb));
             renderGrid();
-            renderCube();
+            cubes.drawCube();
 
             glfwSwapBuffers(window);
             glfwPollEvents();
         }
+        cubes.destroy();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,365 @@
+package org.joml.lwjgl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL33.*;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import org.joml.Matrix4f;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+
+/**
+ * Draws many unit cubes (the same cube the demos used to render with <code>glBegin(GL_QUADS)</code>) with a single draw call.
+ * <p>
+ * The cube is stored once in a VBO and the model matrix of each cube is written into a per-instance buffer, which a small vertex shader
+ * multiplies with the current (fixed-function) model-view-projection matrix. So a whole grid of cubes costs one buffer upload and one
+ * <code>glDrawElementsInstanced</code> instead of 24 <code>glVertex3f</code> calls and a <code>glLoadMatrixf</code> per cube.
+ * <p>
+ * Without OpenGL 3.3 the cubes are drawn one after another from the same VBO with <code>glMultMatrixf</code>.
+ * <p>
+ * Usage per frame: {@link #begin()}, {@link #add(Matrix4f)} for every cube, {@link #draw()}. Many model matrices can also be written
+ * straight into the instance buffer after {@link #reserve(int)}, for example by a {@link BillboardBatch}. Demos which draw one cube at a
+ * time use {@link #drawCube()} instead.
+ * <p>
+ * The cube is drawn as twelve triangles. Outlines drawn with <code>glPolygonMode(GL_LINE)</code> would show their diagonals, so
+ * {@link #draw(boolean)} and {@link #drawCubeQuads()} draw the same vertices as six <code>GL_QUADS</code> instead.
+ */
+public class InstancedCubeRenderer {
+
+    private static final int FLOATS_PER_INSTANCE = 16;
+    /**
+     * The first attribute location of the per-instance model matrix, which occupies four consecutive locations, one per column. Generic
+     * attributes 0 and 3 alias <code>gl_Vertex</code> and <code>gl_Color</code> on some drivers, so the columns go to 4 to 7.
+     */
+    static final int MODEL_LOCATION = 4;
+
+    private final boolean instanced;
+    private int program;
+    private final int cubeVbo;
+    private final int cubeIbo;
+    private final int instanceVbo;
+    private FloatBuffer instances = BufferUtils.createFloatBuffer(FLOATS_PER_INSTANCE * 64);
+    private int count;
+
+    /**
+     * Create the renderer in the current OpenGL context.
+     */
+    public InstancedCubeRenderer() {
+        this(GL.getCapabilities().OpenGL33);
+    }
+
+    /**
+     * Create the renderer in the current OpenGL context, which must support OpenGL 3.3 if <code>instanced</code> is <code>true</code>.
+     */
+    public InstancedCubeRenderer(boolean instanced) {
+        this.instanced = instanced;
+        cubeVbo = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, cubeVbo);
+        glBufferData(GL_ARRAY_BUFFER, buildCube(), GL_STATIC_DRAW);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        cubeIbo = glGenBuffers();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, cubeIbo);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, buildCubeIndices(), GL_STATIC_DRAW);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        instanceVbo = instanced ? glGenBuffers() : 0;
+        if (instanced)
+            createProgram();
+    }
+
+    /**
+     * Build the positions followed by the colors of the 24 vertices of the cube.
+     */
+    static FloatBuffer buildCube() {
+        FloatBuffer pb = BufferUtils.createFloatBuffer(2 * 3 * 4 * 6);
+        pb.put( 0.5f).put(-0.5f).put(-0.5f);
+        pb.put(-0.5f).put(-0.5f).put(-0.5f);
+        pb.put(-0.5f).put( 0.5f).put(-0.5f);
+        pb.put( 0.5f).put( 0.5f).put(-0.5f);
+        pb.put( 0.5f).put(-0.5f).put( 0.5f);
+        pb.put( 0.5f).put( 0.5f).put( 0.5f);
+        pb.put(-0.5f).put( 0.5f).put( 0.5f);
+        pb.put(-0.5f).put(-0.5f).put( 0.5f);
+        pb.put( 0.5f).put(-0.5f).put(-0.5f);
+        pb.put( 0.5f).put( 0.5f).put(-0.5f);
+        pb.put( 0.5f).put( 0.5f).put( 0.5f);
+        pb.put( 0.5f).put(-0.5f).put( 0.5f);
+        pb.put(-0.5f).put(-0.5f).put( 0.5f);
+        pb.put(-0.5f).put( 0.5f).put( 0.5f);
+        pb.put(-0.5f).put( 0.5f).put(-0.5f);
+        pb.put(-0.5f).put(-0.5f).put(-0.5f);
+        pb.put( 0.5f).put( 0.5f).put( 0.5f);
+        pb.put( 0.5f).put( 0.5f).put(-0.5f);
+        pb.put(-0.5f).put( 0.5f).put(-0.5f);
+        pb.put(-0.5f).put( 0.5f).put( 0.5f);
+        pb.put( 0.5f).put(-0.5f).put(-0.5f);
+        pb.put( 0.5f).put(-0.5f).put( 0.5f);
+        pb.put(-0.5f).put(-0.5f).put( 0.5f);
+        pb.put(-0.5f).put(-0.5f).put(-0.5f);
+        float[][] faceColors = {
+            { 0.0f, 0.0f, 0.2f }, { 0.0f, 0.0f, 1.0f }, { 1.0f, 0.0f, 0.0f },
+            { 0.2f, 0.0f, 0.0f }, { 0.0f, 1.0f, 0.0f }, { 0.0f, 0.2f, 0.0f }
+        };
+        for (float[] color : faceColors)
+            for (int i = 0; i < 4; i++)
+                pb.put(color[0]).put(color[1]).put(color[2]);
+        pb.flip();
+        return pb;
+    }
+
+    /**
+     * Build the indices of the 12 triangles of the cube, two per face of {@link #buildCube()}.
+     */
+    static ByteBuffer buildCubeIndices() {
+        ByteBuffer eb = BufferUtils.createByteBuffer(6 * 6);
+        for (int i = 0; i < 4 * 6; i += 4)
+            eb.put((byte) i).put((byte) (i + 1)).put((byte) (i + 2)).put((byte) (i + 2)).put((byte) (i + 3)).put((byte) i);
+        eb.flip();
+        return eb;
+    }
+
+    private static int compileShader(int type, String source) {
+        int shader = glCreateShader(type);
+        glShaderSource(shader, source);
+        glCompileShader(shader);
+        if (glGetShaderi(shader, GL_COMPILE_STATUS) == 0)
+            throw new IllegalStateException("Could not compile " + (type == GL_VERTEX_SHADER ? "vertex" : "fragment") + " shader: "
+                    + glGetShaderInfoLog(shader));
+        return shader;
+    }
+
+    /**
+     * Create a program with the given vertex shader and a fragment shader which outputs the interpolated color. Attribute locations
+     * and the like can be set before it is linked with {@link #linkProgram(int)}.
+     */
+    static int createProgram(String vertexShader) {
+        int program = glCreateProgram();
+        int vs = compileShader(GL_VERTEX_SHADER, vertexShader);
+        int fs = compileShader(GL_FRAGMENT_SHADER,
+                "void main(void) {" +
+                "  gl_FragColor = gl_Color;" +
+                "}");
+        glAttachShader(program, vs);
+        glAttachShader(program, fs);
+        /* The shaders are only flagged for deletion while they are attached */
+        glDeleteShader(vs);
+        glDeleteShader(fs);
+        return program;
+    }
+
+    static void linkProgram(int program) {
+        glLinkProgram(program);
+        if (glGetProgrami(program, GL_LINK_STATUS) == 0)
+            throw new IllegalStateException("Could not link program: " + glGetProgramInfoLog(program));
+    }
+
+    private void createProgram() {
+        program = createProgram(
+                "#version 120\n" +
+                "attribute mat4 model;" +
+                "void main(void) {" +
+                "  gl_FrontColor = gl_Color;" +
+                "  gl_Position = gl_ModelViewProjectionMatrix * model * gl_Vertex;" +
+                "}");
+        glBindAttribLocation(program, MODEL_LOCATION, "model");
+        linkProgram(program);
+    }
+
+    /**
+     * Return whether cubes are drawn with instancing, or else one after another.
+     */
+    public boolean isInstanced() {
+        return instanced;
+    }
+
+    /**
+     * Remove all cubes added for the previous frame.
+     */
+    public void begin() {
+        instances.clear();
+        count = 0;
+    }
+
+    private void ensureCapacity() {
+        ensureCapacity(1);
+    }
+
+    private void ensureCapacity(int cubes) {
+        if (instances.remaining() >= FLOATS_PER_INSTANCE * cubes)
+            return;
+        int minCapacity = instances.position() + FLOATS_PER_INSTANCE * cubes;
+        FloatBuffer newInstances = BufferUtils.createFloatBuffer(Math.max(minCapacity, instances.capacity() * 2));
+        instances.flip();
+        newInstances.put(instances);
+        instances = newInstances;
+    }
+
+    /**
+     * Add a cube with the given model matrix.
+     */
+    public void add(Matrix4f model) {
+        ensureCapacity();
+        model.get(instances.position(), instances);
+        instances.position(instances.position() + FLOATS_PER_INSTANCE);
+        count++;
+    }
+
+    /**
+     * Add a cube translated by the given offset.
+     */
+    public void add(float x, float y, float z) {
+        ensureCapacity();
+        instances.put(1.0f).put(0.0f).put(0.0f).put(0.0f)
+                 .put(0.0f).put(1.0f).put(0.0f).put(0.0f)
+                 .put(0.0f).put(0.0f).put(1.0f).put(0.0f)
+                 .put(x).put(y).put(z).put(1.0f);
+        count++;
+    }
+
+    /**
+     * Add <code>cubes</code> cubes whose model matrices the caller writes into {@link #instanceBuffer()} before {@link #draw()}, as 16
+     * floats in column-major order per cube.
+     *
+     * @return the index in {@link #instanceBuffer()} of the first float of the first added cube
+     */
+    public int reserve(int cubes) {
+        ensureCapacity(cubes);
+        int offset = instances.position();
+        instances.position(offset + FLOATS_PER_INSTANCE * cubes);
+        count += cubes;
+        return offset;
+    }
+
+    /**
+     * Return the buffer holding the model matrices of all cubes added since {@link #begin()}. It is replaced when it needs to grow, so
+     * it must be obtained again after adding or reserving cubes.
+     */
+    public FloatBuffer instanceBuffer() {
+        return instances;
+    }
+
+    /**
+     * Return the number of cubes added since {@link #begin()}.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Draw all cubes added since {@link #begin()} with the current model-view and projection matrices.
+     */
+    public void draw() {
+        draw(false);
+    }
+
+    /**
+     * Draw all cubes added since {@link #begin()} with the current model-view and projection matrices.
+     *
+     * @param quads
+     *          whether to draw the faces as <code>GL_QUADS</code> instead of triangles, so that they are outlined without diagonals
+     *          with <code>glPolygonMode(GL_LINE)</code>
+     */
+    public void draw(boolean quads) {
+        if (count == 0)
+            return;
+        bindCube(true);
+        if (instanced) {
+            instances.flip();
+            glBindBuffer(GL_ARRAY_BUFFER, instanceVbo);
+            glBufferData(GL_ARRAY_BUFFER, instances, GL_STREAM_DRAW);
+            for (int i = 0; i < 4; i++) {
+                glEnableVertexAttribArray(MODEL_LOCATION + i);
+                glVertexAttribPointer(MODEL_LOCATION + i, 4, GL_FLOAT, false, 4 * FLOATS_PER_INSTANCE, 4L * 4 * i);
+                glVertexAttribDivisor(MODEL_LOCATION + i, 1);
+            }
+            glUseProgram(program);
+            if (quads)
+                glDrawArraysInstanced(GL_QUADS, 0, 4 * 6, count);
+            else
+                glDrawElementsInstanced(GL_TRIANGLES, 6 * 6, GL_UNSIGNED_BYTE, 0L, count);
+            glUseProgram(0);
+            for (int i = 0; i < 4; i++) {
+                glVertexAttribDivisor(MODEL_LOCATION + i, 0);
+                glDisableVertexAttribArray(MODEL_LOCATION + i);
+            }
+            instances.position(instances.limit()).limit(instances.capacity());
+        } else {
+            glMatrixMode(GL_MODELVIEW);
+            for (int i = 0; i < count; i++) {
+                glPushMatrix();
+                instances.position(FLOATS_PER_INSTANCE * i);
+                glMultMatrixf(instances);
+                if (quads)
+                    glDrawArrays(GL_QUADS, 0, 4 * 6);
+                else
+                    glDrawElements(GL_TRIANGLES, 6 * 6, GL_UNSIGNED_BYTE, 0L);
+                glPopMatrix();
+            }
+            instances.position(FLOATS_PER_INSTANCE * count);
+        }
+        unbindCube();
+    }
+
+    /**
+     * Draw a single cube straight from the cube VBO with the current matrices and the current program, if any, independent of the cubes
+     * added since {@link #begin()}. This replaces a <code>glBegin(GL_QUADS)</code> cube in demos that draw one cube at a time, also with
+     * their own shaders, which get the face colors as <code>gl_Color</code>.
+     */
+    public void drawCube() {
+        bindCube(true);
+        glDrawElements(GL_TRIANGLES, 6 * 6, GL_UNSIGNED_BYTE, 0L);
+        unbindCube();
+    }
+
+    /**
+     * Draw a single cube like {@link #drawCube()}, but as six <code>GL_QUADS</code>, so that its faces are outlined without diagonals
+     * with <code>glPolygonMode(GL_LINE)</code>.
+     */
+    public void drawCubeQuads() {
+        bindCube(true);
+        glDrawArrays(GL_QUADS, 0, 4 * 6);
+        unbindCube();
+    }
+
+    /**
+     * Draw a single cube like {@link #drawCube()}, but with all faces in the given color.
+     */
+    public void drawCube(float red, float green, float blue) {
+        bindCube(false);
+        glColor3f(red, green, blue);
+        glDrawElements(GL_TRIANGLES, 6 * 6, GL_UNSIGNED_BYTE, 0L);
+        unbindCube();
+    }
+
+    private void bindCube(boolean faceColors) {
+        glBindBuffer(GL_ARRAY_BUFFER, cubeVbo);
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glVertexPointer(3, GL_FLOAT, 0, 0L);
+        if (faceColors) {
+            glEnableClientState(GL_COLOR_ARRAY);
+            glColorPointer(3, GL_FLOAT, 0, 4L * 3 * 4 * 6);
+        }
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, cubeIbo);
+    }
+
+    private void unbindCube() {
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        glDisableClientState(GL_COLOR_ARRAY);
+        glDisableClientState(GL_VERTEX_ARRAY);
+    }
+
+    public void destroy() {
+        glDeleteBuffers(cubeVbo);
+        glDeleteBuffers(cubeIbo);
+        if (instanced) {
+            glDeleteBuffers(instanceVbo);
+            glDeleteProgram(program);
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.joml.lwjgl;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive <code>int</code> values.
+ * <p>
+ * Like {@link FloatArray}, the capacity doubles whenever it is exceeded and the backing array is exposed via {@link #array()}.
+ */
+public class IntArray {
+
+    private int[] array;
+    private int size;
+
+    public IntArray() {
+        this(64);
+    }
+
+    public IntArray(int initialCapacity) {
+        array = new int[Math.max(initialCapacity, 1)];
+    }
+
+    /**
+     * Make sure that the array can hold at least <code>minCapacity</code> elements without growing.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > array.length)
+            array = Arrays.copyOf(array, FloatArray.grow(array.length, minCapacity));
+    }
+
+    public void add(int v) {
+        if (size == array.length)
+            ensureCapacity(size + 1);
+        array[size++] = v;
+    }
+
+    public int get(int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException(index + " >= " + size);
+        return array[index];
+    }
+
+    public void set(int index, int v) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException(index + " >= " + size);
+        array[index] = v;
+    }
+
+    /**
+     * Return the last element.
+     */
+    public int last() {
+        return get(size - 1);
+    }
+
+    /**
+     * Return the number of elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Set the number of elements, growing the array if necessary.
+     */
+    public void setSize(int size) {
+        ensureCapacity(size);
+        this.size = size;
+    }
+
+    /**
+     * Remove all elements but keep the capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Return the backing array, whose first {@link #size()} elements are the elements of this array.
+     */
+    public int[] array() {
+        return array;
+    }
+
+    /**
+     * Return a copy of the elements.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(array, size);
+    }
+
+}
@@ -0,0 +1,187 @@
+package org.joml.lwjgl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records latencies in nanoseconds in buckets of logarithmically growing size and reports percentiles of them.
+ * <p>
+ * Every power of two is split into {@link #SUB_BUCKETS} buckets, so a reported percentile is at most 1/{@link #SUB_BUCKETS} larger
+ * than the actual value, for any value from one nanosecond to centuries.
+ * <p>
+ * {@link #record(long)} neither locks nor allocates, so it can be called for every single query, also from multiple threads. The
+ * reporting methods may run concurrently with it, but their snapshot is only approximate then: the buckets are read one at a time, so
+ * it can contain some of the latencies recorded meanwhile and miss others, and {@link #count()}, {@link #mean()} and {@link #max()}
+ * can be slightly ahead of it. Each report computes its percentiles from a single read of every bucket, so at least these agree with
+ * each other and with the total they are ranked against.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 3;
+    /**
+     * The number of buckets per power of two.
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Return the bucket holding the given non-negative value.
+     */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Return the smallest value of the given bucket.
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Return the largest value of the given bucket.
+     */
+    static long upperBound(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowerBound(bucket + 1) - 1;
+    }
+
+    /**
+     * Record the given latency. Negative values are recorded as zero.
+     */
+    public void record(long nanos) {
+        if (nanos < 0L)
+            nanos = 0L;
+        counts.incrementAndGet(bucket(nanos));
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        long m;
+        while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos))
+            ;
+    }
+
+    /**
+     * Return the number of recorded latencies.
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * Return the largest recorded latency in nanoseconds.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Return the average recorded latency in nanoseconds, or zero if nothing was recorded.
+     */
+    public double mean() {
+        long n = count.get();
+        return n == 0L ? 0.0 : (double) total.get() / n;
+    }
+
+    /**
+     * Return the latency in nanoseconds which the given fraction of all recorded latencies does not exceed, or zero if nothing was
+     * recorded.
+     *
+     * @param fraction
+     *          the percentile as a fraction in <code>[0, 1]</code>, such as 0.99 for the 99th percentile
+     */
+    public long percentile(double fraction) {
+        return percentile(snapshot(), fraction, max.get());
+    }
+
+    /**
+     * Read every bucket once.
+     */
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++)
+            snapshot[b] = counts.get(b);
+        return snapshot;
+    }
+
+    /**
+     * Return the given percentile of the given bucket counts, ranked against their own sum.
+     */
+    private static long percentile(long[] snapshot, double fraction, long max) {
+        long n = 0L;
+        for (int b = 0; b < BUCKETS; b++)
+            n += snapshot[b];
+        if (n == 0L)
+            return 0L;
+        long rank = Math.max(1L, (long) Math.ceil(fraction * n));
+        long seen = 0L;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += snapshot[b];
+            if (seen >= rank)
+                return Math.min(upperBound(b), max);
+        }
+        return max;
+    }
+
+    /**
+     * Forget all recorded latencies.
+     */
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b++)
+            counts.set(b, 0L);
+        count.set(0L);
+        total.set(0L);
+        max.set(0L);
+    }
+
+    /**
+     * Return the 50th, 99th and 99.9th percentile and the maximum in microseconds, all from the same snapshot of the buckets.
+     */
+    public String summary() {
+        long[] snapshot = snapshot();
+        long max = this.max.get();
+        return String.format("p50 %.1f / p99 %.1f / p999 %.1f / max %.1f µs", percentile(snapshot, 0.5, max) / 1E3,
+                percentile(snapshot, 0.99, max) / 1E3, percentile(snapshot, 0.999, max) / 1E3, max / 1E3);
+    }
+
+    /**
+     * Write one line per non-empty bucket with its smallest and largest value in nanoseconds, its count and the fraction of all
+     * latencies up to and including that bucket to the given CSV file.
+     */
+    public void writeCsv(File path) throws IOException {
+        long[] snapshot = snapshot();
+        long n = 0L;
+        for (int b = 0; b < BUCKETS; b++)
+            n += snapshot[b];
+        PrintWriter out = new PrintWriter(path, "UTF-8");
+        try {
+            out.println("lower_ns,upper_ns,count,cumulative");
+            long seen = 0L;
+            for (int b = 0; b < BUCKETS; b++) {
+                if (snapshot[b] == 0L)
+                    continue;
+                seen += snapshot[b];
+                out.println(lowerBound(b) + "," + upperBound(b) + "," + snapshot[b] + "," + (double) seen / n);
+            }
+            if (out.checkError())
+                throw new IOException("Could not write " + path);
+        } finally {
+            out.close();
+        }
+    }
+
+}
@@ -24,7 +24,7 @@ public class LwjglDemo {
     Matrix4f projMatrix = new Matrix4f();
     Matrix4f viewMatrix = new Matrix4f();
     Matrix4f modelMatrix = new Matrix4f();
-    Matrix4f modelViewMatrix = new Matrix4f();
+    InstancedCubeRenderer cubes;
 
     // FloatBuffer for transferring matrices to OpenGL
     FloatBuffer fb = BufferUtils.createFloatBuffer(16);
@@ -83,41 +83,6 @@ public class LwjglDemo {
         glfwShowWindow(window);
     }
 
-    void renderCube() {
-        glBegin(GL_QUADS);
-        glColor3f(   0.0f,  0.0f,  0.2f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glColor3f(   0.0f,  0.0f,  1.0f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glColor3f(   1.0f,  0.0f,  0.0f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glColor3f(   0.2f,  0.0f,  0.0f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glColor3f(   0.0f,  1.0f,  0.0f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glColor3f(   0.0f,  0.2f,  0.0f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glEnd();
-    }
-
     void loop() {
         GL.createCapabilities();
 
@@ -127,6 +92,9 @@ public class LwjglDemo {
         glEnable(GL_DEPTH_TEST);
         glEnable(GL_CULL_FACE);
 
+        // Draw all cubes with a single draw call
+        cubes = new InstancedCubeRenderer();
+
         // Remember the current time.
         long firstTime = System.nanoTime();
 
@@ -152,20 +120,23 @@ public class LwjglDemo {
                                  0.0f, 0.0f, 0.0f,
                                  0.0f, 1.0f, 0.0f);
             glMatrixMode(GL_MODELVIEW);
+            glLoadMatrixf(viewMatrix.get(fb));
             glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 
             // Render some grid of cubes at different x and z positions
+            cubes.begin();
             for (int x = -2; x <= 2; x++) {
                 for (int z = -2; z <= 2; z++) {
                     modelMatrix.translation(x * 2.0f, 0, z * 2.0f)
                                .rotateY(angle * (float) Math.toRadians(90));
-                    glLoadMatrixf(viewMatrix.mul(modelMatrix, modelViewMatrix).get(fb));
-                    renderCube();
+                    cubes.add(modelMatrix);
                 }
             }
+            cubes.draw();
             glfwSwapBuffers(window);
             glfwPollEvents();
         }
+        cubes.destroy();
     }
 
     public static void main(String[] args) {
@@ -21,7 +21,7 @@ public class ObliqueProjectDemo {
     private int height = 200;
 
     private Matrix4f projMatrix = new Matrix4f();
-    private Matrix4f modelMatrix = new Matrix4f();
+    private InstancedCubeRenderer cubes;
 
     private FloatBuffer fb = BufferUtils.createFloatBuffer(16);
 
@@ -69,46 +69,12 @@ public class ObliqueProjectDemo {
         glfwShowWindow(window);
     }
 
-    private void renderCube() {
-        glBegin(GL_QUADS);
-        glColor3f(   0.0f,  0.0f,  0.2f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glColor3f(   0.0f,  0.0f,  1.0f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glColor3f(   1.0f,  0.0f,  0.0f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glColor3f(   0.2f,  0.0f,  0.0f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glColor3f(   0.0f,  1.0f,  0.0f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glColor3f(   0.0f,  0.2f,  0.0f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glEnd();
-    }
-
     private void loop() {
         GL.createCapabilities();
         glClearColor(0.6f, 0.7f, 0.8f, 1.0f);
         glEnable(GL_DEPTH_TEST);
         glEnable(GL_CULL_FACE);
+        cubes = new InstancedCubeRenderer();
 
         /* Create a matrix for an oblique (cavalier) projection of 45° */
         float angle = 45.0f;
@@ -134,16 +100,17 @@ public class ObliqueProjectDemo {
             glLoadMatrixf(projMatrix.get(fb));
 
             glMatrixMode(GL_MODELVIEW);
+            glLoadIdentity();
             glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-            for (int x = -2; x <= 2; x++) {
-                for (int y = -2; y <= 2; y++) {
-                    glLoadMatrixf(modelMatrix.translation(x * 2.0f, y * 2.0f, 0).get(fb));
-                    renderCube();
-                }
-            }
+            cubes.begin();
+            for (int x = -2; x <= 2; x++)
+                for (int y = -2; y <= 2; y++)
+                    cubes.add(x * 2.0f, y * 2.0f, 0);
+            cubes.draw();
             glfwSwapBuffers(window);
             glfwPollEvents();
         }
+        cubes.destroy();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,220 @@
+package org.joml.lwjgl;
+
+import java.util.Arrays;
+
+/**
+ * {@link VoxelStorage} backed by a sparse voxel octree.
+ * <p>
+ * Any cube of voxels of the same block type, be it empty or full, is stored as a single leaf, no matter how large it is. This makes large
+ * and mostly empty (or mostly full) worlds cheap, and lets {@link #raycast ray casts} skip whole empty subtrees via
+ * {@link #emptyExtent(int, int, int)}. Edits split and collapse only the nodes along the path to the edited voxel.
+ * <p>
+ * Nodes are stored without any objects in a single <code>int[]</code> of 8 slots per node. A slot either holds the index of the child
+ * node's first slot (<code>&gt;= 0</code>), or a leaf encoded as <code>-(type + 1)</code>.
+ */
+public class OctreeVoxelStorage implements VoxelStorage {
+
+    private final int sizeX, sizeY, sizeZ;
+    /**
+     * Log2 of the edge length of the cube covered by the root.
+     */
+    private final int depth;
+    private int root = leaf(0);
+    private int[] slots = new int[8 * 64];
+    private int nodeCount;
+    private int[] freeNodes = new int[16];
+    private int freeCount;
+    /* Path from the root to the currently edited voxel */
+    private final int[] pathNodes = new int[32];
+    private final int[] pathSlots = new int[32];
+
+    public OctreeVoxelStorage(int sizeX, int sizeY, int sizeZ) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        int size = Math.max(1, Math.max(sizeX, Math.max(sizeY, sizeZ)));
+        this.depth = 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    static int leaf(int type) {
+        return -type - 1;
+    }
+
+    static int leafType(int slot) {
+        return -slot - 1;
+    }
+
+    static int child(int x, int y, int z, int level) {
+        return x >> level & 1 | (y >> level & 1) << 1 | (z >> level & 1) << 2;
+    }
+
+    public int sizeX() {
+        return sizeX;
+    }
+
+    public int sizeY() {
+        return sizeY;
+    }
+
+    public int sizeZ() {
+        return sizeZ;
+    }
+
+    boolean inRange(int x, int y, int z) {
+        return x >= 0 && x < sizeX && y >= 0 && y < sizeY && z >= 0 && z < sizeZ;
+    }
+
+    /**
+     * Return the number of nodes currently in use.
+     */
+    public int nodeCount() {
+        return nodeCount - freeCount;
+    }
+
+    private int allocate(int fill) {
+        int node;
+        if (freeCount > 0) {
+            node = freeNodes[--freeCount];
+        } else {
+            node = 8 * nodeCount++;
+            if (node + 8 > slots.length)
+                slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+        Arrays.fill(slots, node, node + 8, fill);
+        return node;
+    }
+
+    private void free(int node) {
+        if (freeCount == freeNodes.length)
+            freeNodes = Arrays.copyOf(freeNodes, freeNodes.length * 2);
+        freeNodes[freeCount++] = node;
+    }
+
+    private void freeTree(int node) {
+        for (int i = 0; i < 8; i++)
+            if (slots[node + i] >= 0)
+                freeTree(slots[node + i]);
+        free(node);
+    }
+
+    /**
+     * If all children of the given node are the same leaf, free the node and return that leaf, else return the node.
+     */
+    private int collapse(int node) {
+        int first = slots[node];
+        if (first >= 0)
+            return node;
+        for (int i = 1; i < 8; i++)
+            if (slots[node + i] != first)
+                return node;
+        free(node);
+        return first;
+    }
+
+    private void write(int slot, int value) {
+        if (slot == -1)
+            root = value;
+        else
+            slots[slot] = value;
+    }
+
+    public boolean get(int x, int y, int z) {
+        return getType(x, y, z) != 0;
+    }
+
+    public int getType(int x, int y, int z) {
+        if (!inRange(x, y, z))
+            return 0;
+        int v = root;
+        for (int level = depth - 1; v >= 0; level--)
+            v = slots[v + child(x, y, z, level)];
+        return leafType(v);
+    }
+
+    public int emptyExtent(int x, int y, int z) {
+        if (!inRange(x, y, z))
+            return 1;
+        int v = root;
+        int level = depth;
+        while (v >= 0) {
+            level--;
+            v = slots[v + child(x, y, z, level)];
+        }
+        return leafType(v) != 0 ? 0 : 1 << level;
+    }
+
+    public void set(int x, int y, int z, boolean solid) {
+        setType(x, y, z, solid ? DEFAULT_TYPE : 0);
+    }
+
+    public void setType(int x, int y, int z, int type) {
+        if (!inRange(x, y, z))
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ", " + z + ")");
+        int target = leaf(type);
+        int slot = -1, v = root, n = 0;
+        for (int level = depth - 1; level >= 0; level--) {
+            if (v == target)
+                return;
+            if (v < 0) {
+                /* Split the leaf into 8 children of the same type */
+                int node = allocate(v);
+                write(slot, node);
+                v = node;
+            }
+            pathNodes[n] = v;
+            pathSlots[n++] = slot;
+            slot = v + child(x, y, z, level);
+            v = slots[slot];
+        }
+        if (v == target)
+            return;
+        write(slot, target);
+        /* Merge nodes whose children became all the same */
+        for (int i = n - 1; i >= 0; i--) {
+            int collapsed = collapse(pathNodes[i]);
+            if (collapsed >= 0)
+                break;
+            write(pathSlots[i], collapsed);
+        }
+    }
+
+    public void fill(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, boolean solid) {
+        minX = Math.max(minX, 0);
+        minY = Math.max(minY, 0);
+        minZ = Math.max(minZ, 0);
+        maxX = Math.min(maxX, sizeX);
+        maxY = Math.min(maxY, sizeY);
+        maxZ = Math.min(maxZ, sizeZ);
+        if (minX >= maxX || minY >= maxY || minZ >= maxZ)
+            return;
+        root = fill(root, 0, 0, 0, depth, minX, minY, minZ, maxX, maxY, maxZ, leaf(solid ? DEFAULT_TYPE : 0));
+    }
+
+    private int fill(int v, int x0, int y0, int z0, int level, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int target) {
+        int s = 1 << level;
+        if (x0 >= maxX || x0 + s <= minX || y0 >= maxY || y0 + s <= minY || z0 >= maxZ || z0 + s <= minZ)
+            return v;
+        if (v == target)
+            return v;
+        if (x0 >= minX && x0 + s <= maxX && y0 >= minY && y0 + s <= maxY && z0 >= minZ && z0 + s <= maxZ) {
+            if (v >= 0)
+                freeTree(v);
+            return target;
+        }
+        if (v < 0)
+            v = allocate(v);
+        int h = s >> 1;
+        for (int i = 0; i < 8; i++) {
+            /* Do not write into 'slots' before the call returns, as the call may reallocate it */
+            int c = fill(slots[v + i], x0 + (i & 1) * h, y0 + (i >> 1 & 1) * h, z0 + (i >> 2 & 1) * h, level - 1,
+                         minX, minY, minZ, maxX, maxY, maxZ, target);
+            slots[v + i] = c;
+        }
+        return collapse(v);
+    }
+
+    public long memoryFootprint() {
+        return 16 + 4L * slots.length + 16 + 4L * freeNodes.length;
+    }
+
+}
@@ -0,0 +1,133 @@
+package org.joml.lwjgl;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests many points against the polygons of a {@link PolygonIndex} at once, splitting the points across the threads of a
+ * {@link ForkJoinPool}.
+ * <p>
+ * The points are given as separate arrays or buffers of x and y coordinates, and for each point the lowest id of the polygons containing
+ * it (see {@link PolygonIndex#polygonAt(float, float)}), or <code>-1</code>, is written to the corresponding element of the output.
+ * <p>
+ * The tasks are created once and reused, so a call allocates nothing. A query object must only be used by one thread at a time, and the
+ * index must not be modified while a query runs.
+ */
+public class PolygonBatchQuery {
+
+    /**
+     * Batches with fewer points than this are not split any further, so that each batch keeps a thread busy for much longer than forking
+     * and joining it takes. How many points per second the batches reach is measured by the <code>PolygonBatchQueryBenchmark</code> in
+     * the <code>benchmarks</code> module.
+     */
+    static final int MIN_BATCH = 4096;
+
+    private final PolygonIndex index;
+    private final ForkJoinBatches batches;
+    /**
+     * The number of points inside of any polygon found by each batch.
+     */
+    private final int[] inside;
+
+    /* The arguments of the current query; either the arrays or the buffers are set */
+    private float[] xs, ys;
+    private int[] hits;
+    private FloatBuffer xsBuffer, ysBuffer;
+    private IntBuffer hitsBuffer;
+
+    /**
+     * Test the points in <code>[start, end)</code> on the current thread.
+     *
+     * @return the number of points inside of any polygon
+     */
+    private int testPoints(int start, int end) {
+        int n = 0;
+        if (xs != null) {
+            for (int i = start; i < end; i++) {
+                int id = index.polygonAt(xs[i], ys[i]);
+                hits[i] = id;
+                if (id >= 0)
+                    n++;
+            }
+        } else {
+            int xp = xsBuffer.position(), yp = ysBuffer.position(), hp = hitsBuffer.position();
+            for (int i = start; i < end; i++) {
+                int id = index.polygonAt(xsBuffer.get(xp + i), ysBuffer.get(yp + i));
+                hitsBuffer.put(hp + i, id);
+                if (id >= 0)
+                    n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Create a query on the given index running on the common {@link ForkJoinPool}.
+     */
+    public PolygonBatchQuery(PolygonIndex index) {
+        this(index, ForkJoinPool.commonPool());
+    }
+
+    public PolygonBatchQuery(PolygonIndex index, ForkJoinPool pool) {
+        this.index = index;
+        this.batches = new ForkJoinBatches(pool, MIN_BATCH) {
+            protected void compute(int batch, int start, int end) {
+                inside[batch] = testPoints(start, end);
+            }
+        };
+        this.inside = new int[batches.maxBatches()];
+    }
+
+    /**
+     * Test the first <code>count</code> points given by <code>xs</code> and <code>ys</code> and store the id of the polygon containing
+     * each point, or <code>-1</code>, in <code>hits</code>.
+     *
+     * @return the number of points inside of any polygon
+     */
+    public int testPoints(float[] xs, float[] ys, int[] hits, int count) {
+        if (xs.length < count || ys.length < count || hits.length < count)
+            throw new IllegalArgumentException("arrays must hold at least " + count + " elements");
+        this.xs = xs;
+        this.ys = ys;
+        this.hits = hits;
+        try {
+            return run(count);
+        } finally {
+            this.xs = this.ys = null;
+            this.hits = null;
+        }
+    }
+
+    /**
+     * Test the points given by the remaining elements of <code>xs</code> and <code>ys</code> and store the id of the polygon containing
+     * each point, or <code>-1</code>, in <code>hits</code> starting at its position.
+     * <p>
+     * The positions of the buffers are not changed.
+     *
+     * @return the number of points inside of any polygon
+     */
+    public int testPoints(FloatBuffer xs, FloatBuffer ys, IntBuffer hits) {
+        int count = xs.remaining();
+        if (ys.remaining() != count || hits.remaining() < count)
+            throw new IllegalArgumentException("buffers must hold at least " + count + " elements");
+        this.xsBuffer = xs;
+        this.ysBuffer = ys;
+        this.hitsBuffer = hits;
+        try {
+            return run(count);
+        } finally {
+            this.xsBuffer = this.ysBuffer = null;
+            this.hitsBuffer = null;
+        }
+    }
+
+    private int run(int count) {
+        int numBatches = batches.run(count);
+        int total = 0;
+        for (int i = 0; i < numBatches; i++)
+            total += inside[i];
+        return total;
+    }
+
+}
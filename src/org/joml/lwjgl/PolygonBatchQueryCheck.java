@@ -0,0 +1,68 @@
+package org.joml.lwjgl;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.joml.PolygonsIntersection;
+import org.lwjgl.BufferUtils;
+
+/**
+ * Checks that the {@link PolygonBatchQuery} reports the same polygon for every point as testing each polygon on its own with a
+ * {@link PolygonsIntersection}, for points given in arrays and in buffers starting at a non-zero position. A single
+ * {@link PolygonsIntersection} over all polygons is no reference, see {@link PolygonGridCheck}.
+ */
+class PolygonBatchQueryCheck {
+
+    static final int POLYGONS = 400;
+    static final int POINTS = 1 << 16;
+
+    static void check() {
+        Random rnd = new Random(1);
+        int strokeVertices = RandomStrokes.STROKE_VERTICES;
+        float[] verticesXY = new float[2 * POLYGONS * strokeVertices];
+        PolygonsIntersection[] single = new PolygonsIntersection[POLYGONS];
+        float[] bounds = new float[4 * POLYGONS];
+        PolygonIndex index = new PolygonIndex();
+        for (int p = 0; p < POLYGONS; p++) {
+            RandomStrokes.stroke(rnd, verticesXY, p * strokeVertices, strokeVertices);
+            index.add(verticesXY, p * strokeVertices, strokeVertices);
+            single[p] = PolygonGridCheck.single(verticesXY, p * strokeVertices, strokeVertices, bounds, p);
+        }
+
+        float[] xs = new float[POINTS], ys = new float[POINTS];
+        int[] expected = new int[POINTS];
+        int expectedInside = 0;
+        BitSet hitPolygons = new BitSet();
+        for (int i = 0; i < POINTS; i++) {
+            xs[i] = rnd.nextFloat() * RandomStrokes.WIDTH;
+            ys[i] = rnd.nextFloat() * RandomStrokes.HEIGHT;
+            PolygonGridCheck.testEachPolygon(single, bounds, xs[i], ys[i], hitPolygons);
+            expected[i] = hitPolygons.nextSetBit(0);
+            if (expected[i] >= 0)
+                expectedInside++;
+        }
+
+        PolygonBatchQuery query = new PolygonBatchQuery(index);
+        int[] hits = new int[POINTS];
+        int inside = query.testPoints(xs, ys, hits, POINTS);
+        for (int i = 0; i < POINTS; i++)
+            if (hits[i] != expected[i])
+                throw new AssertionError("point " + i + ": expected " + expected[i] + " but got " + hits[i]);
+        if (inside != expectedInside)
+            throw new AssertionError("expected " + expectedInside + " points inside but got " + inside);
+
+        FloatBuffer xsBuffer = BufferUtils.createFloatBuffer(POINTS + 1);
+        FloatBuffer ysBuffer = BufferUtils.createFloatBuffer(POINTS + 1);
+        IntBuffer hitsBuffer = BufferUtils.createIntBuffer(POINTS + 1);
+        xsBuffer.put(0.0f).put(xs).flip().position(1);
+        ysBuffer.put(0.0f).put(ys).flip().position(1);
+        hitsBuffer.position(1);
+        query.testPoints(xsBuffer, ysBuffer, hitsBuffer);
+        for (int i = 0; i < POINTS; i++)
+            if (hitsBuffer.get(i + 1) != expected[i])
+                throw new AssertionError("point " + i + " in buffers: expected " + expected[i] + " but got " + hitsBuffer.get(i + 1));
+    }
+
+}
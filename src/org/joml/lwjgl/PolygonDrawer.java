@@ -5,8 +5,9 @@ import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.system.MemoryUtil.NULL;
 import static org.lwjgl.system.MemoryUtil.memAddress;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.IntBuffer;
-import java.util.BitSet;
 
 import org.joml.PolygonsIntersection;
 import org.lwjgl.BufferUtils;
@@ -40,22 +41,32 @@ public class PolygonDrawer {
     int fbWidth = 800;
     int fbHeight = 600;
     int x, y;
-    boolean down;
-    float[] verticesXY = new float[1024 * 1024];
-    int[] polygons = new int[0];
-    PolygonsIntersection pointIntersection;
-    BitSet hitPolygons = new BitSet();
-    int first = 0;
-    int num = 0;
-    boolean inside;
-    int querymicroseconds = 0;
-    int hitPolygonIndex = -1;
+    /**
+     * The drawn and loaded polygons, which the mouse callbacks draw, commit and query in window coordinates.
+     */
+    PolygonSession session = new PolygonSession();
+    /**
+     * The loaded polygons followed by the drawn ones, in the order of their polygon index.
+     */
+    PolygonRenderer renderer;
+    /**
+     * Whether to fill the polygons with their cached triangles in addition to drawing their outlines.
+     */
+    boolean filled;
+    static final long STATS_INTERVAL_NANOS = 250000000L;
+    long lastStatsTime = System.nanoTime() - STATS_INTERVAL_NANOS;
 
     void run() {
         try {
             init();
             loop();
 
+            renderer.destroy();
+            try {
+                session.shutdown();
+            } catch (IOException e) {
+                System.err.println("Could not write the trace: " + e.getMessage());
+            }
             glfwDestroyWindow(window);
             keyCallback.free();
             fbCallback.free();
@@ -68,47 +79,77 @@ public class PolygonDrawer {
         }
     }
 
-    // void store(String file) {
-    // try {
-    // RandomAccessFile rFile = new RandomAccessFile(file, "rw");
-    // rFile.setLength(0);
-    // FileChannel inChannel = rFile.getChannel();
-    // ByteBuffer buf_in = ByteBuffer.allocateDirect(num * 2 * 4).order(ByteOrder.nativeOrder());
-    // FloatBuffer fb = buf_in.asFloatBuffer();
-    // fb.put(verticesXY, 0, num * 2);
-    // while (buf_in.hasRemaining()) {
-    // inChannel.write(buf_in);
-    // }
-    // inChannel.close();
-    // rFile.close();
-    // } catch (IOException e) {
-    // // just ignore everything :)
-    // }
-    // }
-    //
-    // void load(String file) {
-    // try {
-    // RandomAccessFile rFile = new RandomAccessFile(file, "r");
-    // int size = (int) rFile.length();
-    // FileChannel inChannel = rFile.getChannel();
-    // ByteBuffer buf_in = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
-    // while (buf_in.hasRemaining()) {
-    // inChannel.read(buf_in);
-    // }
-    // buf_in.flip();
-    // FloatBuffer fb = buf_in.asFloatBuffer();
-    // num = fb.remaining() / 2;
-    // fb.get(verticesXY, 0, num * 2);
-    // inChannel.close();
-    // rFile.close();
-    // pointIntersection = new PolygonPointIntersection(verticesXY, num);
-    // } catch (IOException e) {
-    // // just ignore everything :)
-    // }
-    // }
-    
+    void store(String file) {
+        try {
+            long time1 = System.nanoTime();
+            session.store(new File(file));
+            long time2 = System.nanoTime();
+            System.out.println("Saved " + session.polygonCount() + " polygons to '" + file + "' in "
+                    + (int) ((time2 - time1) / 1E6) + " ms.");
+        } catch (IOException e) {
+            System.err.println("Could not save '" + file + "': " + e.getMessage());
+        }
+    }
+
+    void load(String file) {
+        File path = new File(file);
+        if (!path.exists())
+            return;
+        try {
+            long time1 = System.nanoTime();
+            session.load(path);
+            long time2 = System.nanoTime();
+            System.out.println("Loaded " + session.loaded.polygonCount() + " polygons from '" + file + "' in "
+                    + (int) ((time2 - time1) / 1E3) + " µs.");
+        } catch (IOException e) {
+            System.err.println("Could not load '" + file + "': " + e.getMessage());
+            return;
+        }
+        renderer.clear();
+        renderer.add(session.loaded);
+        updateStats();
+    }
+
+    void dumpLatencies(String file) {
+        try {
+            session.queryLatency.writeCsv(new File(file));
+            System.out.println("Wrote " + session.queryLatency.count() + " query latencies to '" + file + "'.");
+        } catch (IOException e) {
+            System.err.println("Could not write '" + file + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Start recording all mouse input into the given trace file, or stop recording.
+     */
+    void toggleRecording(String file) {
+        try {
+            if (session.isRecording()) {
+                long events = session.stopRecording();
+                System.out.println("Recorded " + events + " events to '" + file + "'.");
+            } else {
+                session.startRecording(new File(file));
+                System.out.println("Recording to '" + file + "'...");
+            }
+        } catch (IOException e) {
+            System.err.println("Could not record '" + file + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Show the number of vertices, the query latency percentiles and, with the exact test near edges on, the number of queries which ran
+     * on an outdated index in the window title, but only a few times per second, because setting the title is much more expensive than a
+     * query.
+     */
     void updateStats() {
-        glfwSetWindowTitle(window, "Polygon Demo (" + num + " vertices @ " + querymicroseconds + " µs.)");
+        long time = System.nanoTime();
+        if (time - lastStatsTime < STATS_INTERVAL_NANOS)
+            return;
+        lastStatsTime = time;
+        glfwSetWindowTitle(window, "Polygon Demo (" + session.vertexCount() + " vertices, "
+                + (int) (session.simplifier.keptRatio() * 100.0f) + "% of drawn kept, " + session.queryLatency.count() + " queries: "
+                + session.queryLatency.summary() + (session.exactNearEdges ? ", " + session.pointIntersection.staleness().count()
+                + " stale, max " + session.pointIntersection.staleness().max() / 1000L + " µs" : "") + ")");
     }
 
     void init() {
@@ -125,8 +166,12 @@ public class PolygonDrawer {
         System.out.println("Draw polygons with holding the left mouse button down");
         System.out.println("Move the mouse cursor in and out of the polygons");
         System.out.println("Press 'C' to clear all polygons");
-        // System.out.println("Press 'S' to load save the current polygon in file 'poly.gon'");
-        // System.out.println("Press 'L' to load a previously saved polygon from file 'poly.gon'");
+        System.out.println("Press 'S' to save the current polygons in file 'poly.gon'");
+        System.out.println("Press 'L' to load previously saved polygons from file 'poly.gon'");
+        System.out.println("Press 'H' to write the histogram of query latencies to file 'query-latency.csv'");
+        System.out.println("Press 'E' to toggle the exact test for pixels close to an edge");
+        System.out.println("Press 'F' to toggle filling the polygons");
+        System.out.println("Press 'R' to start or stop recording the mouse input to file 'strokes.trace'");
 
         window = glfwCreateWindow(width, height, "Polygon Demo", NULL, NULL);
         if (window == NULL)
@@ -140,12 +185,28 @@ public class PolygonDrawer {
                 if (key == GLFW_KEY_ESCAPE && action == GLFW_RELEASE)
                     glfwSetWindowShouldClose(window, true);
                 if (key == GLFW_KEY_L && action == GLFW_RELEASE) {
-                    // load("poly.gon");
+                    load("poly.gon");
                 } else if (key == GLFW_KEY_S && action == GLFW_RELEASE) {
-                    // store("poly.gon");
+                    store("poly.gon");
+                } else if (key == GLFW_KEY_H && action == GLFW_RELEASE) {
+                    dumpLatencies("query-latency.csv");
+                } else if (key == GLFW_KEY_E && action == GLFW_RELEASE) {
+                    session.setExactNearEdges(!session.exactNearEdges);
+                    System.out.println("Exact test near edges: " + (session.exactNearEdges ? "on" : "off"));
+                } else if (key == GLFW_KEY_F && action == GLFW_RELEASE) {
+                    filled = !filled;
+                    /* Loaded polygons are triangulated when first filled */
+                    long time1 = System.nanoTime();
+                    if (filled)
+                        renderer.triangulate();
+                    long time2 = System.nanoTime();
+                    System.out.println("Fill: " + (filled ? "on" : "off") + " (" + renderer.triangleCount()
+                            + " triangles, triangulated in " + (int) ((time2 - time1) / 1E6) + " ms)");
+                } else if (key == GLFW_KEY_R && action == GLFW_RELEASE) {
+                    toggleRecording("strokes.trace");
                 } else if (key == GLFW_KEY_C && action == GLFW_RELEASE) {
-                    num = 0;
-                    polygons = new int[0];
+                    session.clear();
+                    renderer.clear();
                     updateStats();
                 }
             }
@@ -164,6 +225,7 @@ public class PolygonDrawer {
                 if (w > 0 && h > 0) {
                     width = w;
                     height = h;
+                    session.setRasterBounds(0, 0, width, height);
                 }
             }
         });
@@ -172,41 +234,22 @@ public class PolygonDrawer {
             public void invoke(long window, double xpos, double ypos) {
                 x = (int) xpos;
                 y = (int) ypos;
-                if (down) {
-                    verticesXY[2 * num + 0] = x;
-                    verticesXY[2 * num + 1] = y;
-                    num++;
-                    updateStats();
-                } else {
-                    if (pointIntersection != null) {
-                        long time1 = System.nanoTime();
-                        inside = pointIntersection.testPoint(x, y, hitPolygons);
-                        if (inside) {
-                            hitPolygonIndex = hitPolygons.nextSetBit(0);
-                        }
-                        long time2 = System.nanoTime();
-                        querymicroseconds = (int) ((time2 - time1) / 1E3);
-                        updateStats();
-                    }
-                    else
-                        inside = false;
-                }
+                if (session.down)
+                    session.move(x, y);
+                else
+                    session.query(x, y);
+                updateStats();
             }
         });
         glfwSetMouseButtonCallback(window, mbCallback = new GLFWMouseButtonCallback() {
             @Override
             public void invoke(long window, int button, int action, int mods) {
                 if (action == GLFW_PRESS && button == GLFW_MOUSE_BUTTON_LEFT) {
-                    down = true;
-                    inside = false;
+                    session.press();
                 } else if (action == GLFW_RELEASE && button == GLFW_MOUSE_BUTTON_LEFT) {
-                    down = false;
-                    first = num;
-                    int[] newPolygons = new int[polygons.length + 1];
-                    System.arraycopy(polygons, 0, newPolygons, 0, polygons.length);
-                    newPolygons[polygons.length] = num;
-                    polygons = newPolygons;
-                    pointIntersection = new PolygonsIntersection(verticesXY, polygons, num);
+                    int polygon = session.release();
+                    if (polygon >= 0)
+                        renderer.add(session.vertices.array(), session.firstVertex(polygon), session.vertexCount(polygon));
                 }
             }
         });
@@ -223,71 +266,54 @@ public class PolygonDrawer {
         glfwSwapInterval(0);
         glfwShowWindow(window);
 
-        warmup();
+        GL.createCapabilities();
+        renderer = new PolygonRenderer();
+        session.setRasterBounds(0, 0, width, height);
+
         updateStats();
 
         // auto-restore last autosave
-        // load("autopoly.gon");
+        load("autopoly.gon");
     }
 
-    void warmup() {
-        glfwSetWindowTitle(window, "Warming up...");
-        glfwPollEvents();
-        // Warmup polygon
-        int warmupCount = 1024 * 64;
-        float[] warmupVertices = new float[warmupCount * 2];
-        for (int i = 0; i < warmupCount; i++) {
-            warmupVertices[2*i+0] = ((float)Math.cos((float)i/warmupCount) - 0.5f) * 2.0f;
-            warmupVertices[2*i+1] = ((float)Math.cos((float)i/warmupCount) - 0.5f) * 2.0f;
-        }
-        pointIntersection = new PolygonsIntersection(warmupVertices, new int[0], warmupCount);
-        int warmupIterations = 1024 * 1024 * 8;
-        float[] warmupSamples = new float[256];
-        for (int i = 0; i < warmupSamples.length; i++) {
-            warmupSamples[i] = ((float)Math.random() - 0.5f);
+    void renderPolygons() {
+        if (filled) {
+            glColor3f(0.85f, 0.85f, 0.85f);
+            renderer.fill();
+            if (session.hitPolygon >= 0) {
+                glColor3f(1.0f, 0.75f, 0.75f);
+                renderer.fill(session.hitPolygon);
+            }
         }
-        for (int i = 0; i < warmupIterations; i++) {
-            float x = warmupSamples[i%256];
-            float y = warmupSamples[(i+1)%256];
-            pointIntersection.testPoint(x, y);
+        glColor3f(0.01f, 0.01f, 0.01f);
+        renderer.draw();
+        if (session.hitPolygon >= 0) {
+            // draw the hit polygon again on top instead of submitting all polygons with another color
+            glColor3f(1.0f, 0.3f, 0.3f);
+            renderer.draw(session.hitPolygon);
         }
-        pointIntersection = new PolygonsIntersection(verticesXY, new int[0], 0);
     }
 
-    void renderPolygon() {
+    /**
+     * Draw the stroke which is still being drawn and therefore not in the VBO yet.
+     */
+    void renderStroke() {
+        int first = session.first, num = session.num;
+        if (!session.down || num == first)
+            return;
+        float[] verticesXY = session.vertices.array();
+        glColor3f(0.01f, 0.01f, 0.01f);
         glBegin(GL_LINE_STRIP);
-        if (num > 0) {
-            int curr = 0;
-            int first = 0;
-            for (int i = 0; i < num; i++) {
-                if (inside && curr == hitPolygonIndex)
-                    glColor3f(1.0f, 0.3f, 0.3f);
-                else
-                    glColor3f(0.01f, 0.01f, 0.01f);
-                if ((i == (num - 1)) && down)
-                    glColor3f(0.8f, 0.8f, 0.8f);
-                if (polygons.length > curr && polygons[curr] == i) {
-                    // close current polygon
-                    glVertex2f(verticesXY[2 * first + 0], verticesXY[2 * first + 1]);
-                    first = i;
-                    curr++;
-                    glEnd();
-                    glBegin(GL_LINE_STRIP);
-                    if (inside && curr == hitPolygonIndex)
-                        glColor3f(1.0f, 0.3f, 0.3f);
-                    else
-                        glColor3f(0.01f, 0.01f, 0.01f);
-                }
-                glVertex2f(verticesXY[2 * i + 0], verticesXY[2 * i + 1]);
-            }
-            glVertex2f(verticesXY[2 * first + 0], verticesXY[2 * first + 1]);
+        for (int i = first; i < num; i++) {
+            if (i == num - 1)
+                glColor3f(0.8f, 0.8f, 0.8f);
+            glVertex2f(verticesXY[2 * i + 0], verticesXY[2 * i + 1]);
         }
+        glVertex2f(verticesXY[2 * first + 0], verticesXY[2 * first + 1]);
         glEnd();
     }
 
     void loop() {
-        GL.createCapabilities();
-
         glClearColor(0.99f, 0.99f, 0.99f, 1.0f);
         glLineWidth(1.8f);
 
@@ -301,14 +327,17 @@ public class PolygonDrawer {
             glMatrixMode(GL_MODELVIEW);
             glLoadIdentity();
 
-            renderPolygon();
+            renderPolygons();
+            renderStroke();
+            // show the latest statistics also when the mouse stops moving
+            updateStats();
 
             glfwSwapBuffers(window);
             glfwPollEvents();
         }
 
-        // autosave current polygon
-        // store("autopoly.gon");
+        // autosave current polygons
+        store("autopoly.gon");
     }
 
     public static void main(String[] args) {
@@ -5,12 +5,12 @@ import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.system.MemoryUtil.NULL;
 import static org.lwjgl.system.MemoryUtil.memAddress;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
-import java.util.BitSet;
 
 import org.joml.Matrix4f;
-import org.joml.PolygonsIntersection;
 import org.joml.Vector3f;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.glfw.GLFW;
@@ -44,15 +44,21 @@ public class PolygonDrawer2 {
     int fbWidth = 800;
     int fbHeight = 600;
     int x, y;
-    boolean down;
-    float[] verticesXY = new float[1024 * 1024];
-    int[] polygons = new int[0];
-    PolygonsIntersection pointIntersection;
-    BitSet hitPolygons = new BitSet();
-    int num = 0;
-    boolean inside;
+    /**
+     * Whether the cursor moved since the last frame, so that the next query follows from input and is recorded.
+     */
+    boolean cursorMoved;
+    /**
+     * The drawn polygons, which are drawn, committed and queried in polygon space. Its hover bitmap covers the window at any rotation,
+     * so that the rotation never forces a rebuild.
+     */
+    PolygonSession session = new PolygonSession();
+    PolygonRenderer renderer;
+    /**
+     * Whether to fill the polygons with their cached triangles in addition to drawing their outlines.
+     */
+    boolean filled;
     int querymicroseconds = 0;
-    int hitPolygonIndex = -1;
     Matrix4f transformation = new Matrix4f();
     Matrix4f transformationInv = new Matrix4f();
     Vector3f p = new Vector3f();
@@ -63,6 +69,12 @@ public class PolygonDrawer2 {
             init();
             loop();
 
+            renderer.destroy();
+            try {
+                session.shutdown();
+            } catch (IOException e) {
+                System.err.println("Could not write the trace: " + e.getMessage());
+            }
             glfwDestroyWindow(window);
             keyCallback.free();
             fbCallback.free();
@@ -76,23 +88,52 @@ public class PolygonDrawer2 {
     }
     
     void updateStats() {
-        glfwSetWindowTitle(window, "Polygon Demo (" + num + " vertices @ " + querymicroseconds + " µs.)");
+        glfwSetWindowTitle(window, "Polygon Demo (" + session.num + " vertices, " + (int) (session.simplifier.keptRatio() * 100.0f)
+                + "% of drawn kept @ " + querymicroseconds + " µs.)");
     }
     
+    /**
+     * Let the hover bitmap cover a square around the viewport center which is large enough for the window at any rotation.
+     */
+    void updateRasterBounds() {
+        int radius = (int) Math.ceil(0.5 * Math.sqrt((double) width * width + (double) height * height));
+        session.setRasterBounds(width / 2 - radius, height / 2 - radius, 2 * radius + 1, 2 * radius + 1);
+    }
+
+    /**
+     * Look up the polygon under the cursor. The polygons rotate, so this runs every frame, but only a query after the cursor moved is
+     * recorded as input, and the trace does not grow by an event per frame while the cursor rests.
+     */
     void intersect() {
-        if (pointIntersection != null) {
+        if (session.polygons.size() > 0) {
             long time1 = System.nanoTime();
             transformationInv.transformPosition(p.set(x, y, 0));
-            inside = pointIntersection.testPoint(p.x, p.y, hitPolygons);
-            if (inside) {
-                hitPolygonIndex = hitPolygons.nextSetBit(0);
-            }
+            if (cursorMoved)
+                session.query(p.x, p.y);
+            else
+                session.refresh(p.x, p.y);
+            cursorMoved = false;
             long time2 = System.nanoTime();
             querymicroseconds = (int) ((time2 - time1) / 1E3);
             updateStats();
         }
-        else
-            inside = false;
+    }
+
+    /**
+     * Start recording all mouse input in polygon space into the given trace file, or stop recording.
+     */
+    void toggleRecording(String file) {
+        try {
+            if (session.isRecording()) {
+                long events = session.stopRecording();
+                System.out.println("Recorded " + events + " events to '" + file + "'.");
+            } else {
+                session.startRecording(new File(file));
+                System.out.println("Recording to '" + file + "'...");
+            }
+        } catch (IOException e) {
+            System.err.println("Could not record '" + file + "': " + e.getMessage());
+        }
     }
 
     void init() {
@@ -109,6 +150,9 @@ public class PolygonDrawer2 {
         System.out.println("Draw polygons with holding the left mouse button down");
         System.out.println("Move the mouse cursor in and out of the polygons");
         System.out.println("Press 'C' to clear all polygons");
+        System.out.println("Press 'E' to toggle the exact test for pixels close to an edge");
+        System.out.println("Press 'F' to toggle filling the polygons");
+        System.out.println("Press 'R' to start or stop recording the mouse input to file 'strokes.trace'");
 
         window = glfwCreateWindow(width, height, "Polygon Demo", NULL, NULL);
         if (window == NULL)
@@ -122,9 +166,17 @@ public class PolygonDrawer2 {
                 if (key == GLFW_KEY_ESCAPE && action == GLFW_RELEASE)
                     glfwSetWindowShouldClose(window, true);
                 else if (key == GLFW_KEY_C && action == GLFW_RELEASE) {
-                    num = 0;
-                    polygons = new int[0];
+                    session.clear();
+                    renderer.clear();
                     updateStats();
+                } else if (key == GLFW_KEY_E && action == GLFW_RELEASE) {
+                    session.setExactNearEdges(!session.exactNearEdges);
+                    System.out.println("Exact test near edges: " + (session.exactNearEdges ? "on" : "off"));
+                } else if (key == GLFW_KEY_R && action == GLFW_RELEASE) {
+                    toggleRecording("strokes.trace");
+                } else if (key == GLFW_KEY_F && action == GLFW_RELEASE) {
+                    filled = !filled;
+                    System.out.println("Fill: " + (filled ? "on" : "off") + " (" + renderer.triangleCount() + " triangles)");
                 }
             }
         });
@@ -143,6 +195,7 @@ public class PolygonDrawer2 {
                 if (w > 0 && h > 0) {
                     width = w;
                     height = h;
+                    updateRasterBounds();
                 }
             }
         });
@@ -151,11 +204,10 @@ public class PolygonDrawer2 {
             public void invoke(long window, double xpos, double ypos) {
                 x = (int) xpos;
                 y = (int) ypos;
-                transformationInv.transformPosition(p.set(x, y, 0));
-                if (down) {
-                    verticesXY[2 * num + 0] = p.x;
-                    verticesXY[2 * num + 1] = p.y;
-                    num++;
+                cursorMoved = true;
+                if (session.down) {
+                    transformationInv.transformPosition(p.set(x, y, 0));
+                    session.move(p.x, p.y);
                     updateStats();
                 }
             }
@@ -164,15 +216,12 @@ public class PolygonDrawer2 {
             @Override
             public void invoke(long window, int button, int action, int mods) {
                 if (action == GLFW_PRESS && button == GLFW_MOUSE_BUTTON_LEFT) {
-                    down = true;
-                    inside = false;
+                    session.press();
                 } else if (action == GLFW_RELEASE && button == GLFW_MOUSE_BUTTON_LEFT) {
-                    down = false;
-                    int[] newPolygons = new int[polygons.length + 1];
-                    System.arraycopy(polygons, 0, newPolygons, 0, polygons.length);
-                    newPolygons[polygons.length] = num;
-                    polygons = newPolygons;
-                    pointIntersection = new PolygonsIntersection(verticesXY, polygons, num);
+                    int polygon = session.release();
+                    if (polygon >= 0)
+                        renderer.add(session.vertices.array(), session.firstVertex(polygon), session.vertexCount(polygon));
+                    updateStats();
                 }
             }
         });
@@ -189,68 +238,50 @@ public class PolygonDrawer2 {
         glfwSwapInterval(0);
         glfwShowWindow(window);
 
-        warmup();
+        updateRasterBounds();
         updateStats();
     }
 
-    void warmup() {
-        glfwSetWindowTitle(window, "Warming up...");
-        glfwPollEvents();
-        // Warmup polygon
-        int warmupCount = 1024 * 64;
-        float[] warmupVertices = new float[warmupCount * 2];
-        for (int i = 0; i < warmupCount; i++) {
-            warmupVertices[2*i+0] = ((float)Math.cos((float)i/warmupCount) - 0.5f) * 2.0f;
-            warmupVertices[2*i+1] = ((float)Math.cos((float)i/warmupCount) - 0.5f) * 2.0f;
-        }
-        pointIntersection = new PolygonsIntersection(warmupVertices, new int[0], warmupCount);
-        int warmupIterations = 1024 * 1024 * 8;
-        float[] warmupSamples = new float[256];
-        for (int i = 0; i < warmupSamples.length; i++) {
-            warmupSamples[i] = ((float)Math.random() - 0.5f);
+    void renderPolygons() {
+        if (filled) {
+            glColor3f(0.85f, 0.85f, 0.85f);
+            renderer.fill();
+            if (session.hitPolygon >= 0) {
+                glColor3f(1.0f, 0.75f, 0.75f);
+                renderer.fill(session.hitPolygon);
+            }
         }
-        for (int i = 0; i < warmupIterations; i++) {
-            float x = warmupSamples[i%256];
-            float y = warmupSamples[(i+1)%256];
-            pointIntersection.testPoint(x, y);
+        glColor3f(0.01f, 0.01f, 0.01f);
+        renderer.draw();
+        if (session.hitPolygon >= 0) {
+            glColor3f(1.0f, 0.3f, 0.3f);
+            renderer.draw(session.hitPolygon);
         }
-        pointIntersection = new PolygonsIntersection(verticesXY, new int[0], 0);
     }
 
-    void renderPolygon() {
+    /**
+     * Draw the stroke which is still being drawn and therefore not in the VBO yet.
+     */
+    void renderStroke() {
+        int first = session.first, num = session.num;
+        if (!session.down || num == first)
+            return;
+        float[] verticesXY = session.vertices.array();
+        glColor3f(0.01f, 0.01f, 0.01f);
         glBegin(GL_LINE_STRIP);
-        if (num > 0) {
-            int curr = 0;
-            int first = 0;
-            for (int i = 0; i < num; i++) {
-                if (inside && curr == hitPolygonIndex)
-                    glColor3f(1.0f, 0.3f, 0.3f);
-                else
-                    glColor3f(0.01f, 0.01f, 0.01f);
-                if ((i == (num - 1)) && down)
-                    glColor3f(0.8f, 0.8f, 0.8f);
-                if (polygons.length > curr && polygons[curr] == i) {
-                    // close current polygon
-                    glVertex2f(verticesXY[2 * first + 0], verticesXY[2 * first + 1]);
-                    first = i;
-                    curr++;
-                    glEnd();
-                    glBegin(GL_LINE_STRIP);
-                    if (inside && curr == hitPolygonIndex)
-                        glColor3f(1.0f, 0.3f, 0.3f);
-                    else
-                        glColor3f(0.01f, 0.01f, 0.01f);
-                }
-                glVertex2f(verticesXY[2 * i + 0], verticesXY[2 * i + 1]);
-            }
-            glVertex2f(verticesXY[2 * first + 0], verticesXY[2 * first + 1]);
+        for (int i = first; i < num; i++) {
+            if (i == num - 1)
+                glColor3f(0.8f, 0.8f, 0.8f);
+            glVertex2f(verticesXY[2 * i + 0], verticesXY[2 * i + 1]);
         }
+        glVertex2f(verticesXY[2 * first + 0], verticesXY[2 * first + 1]);
         glEnd();
     }
 
     float angle = 0.0f;
     void loop() {
         GL.createCapabilities();
+        renderer = new PolygonRenderer();
 
         glClearColor(0.99f, 0.99f, 0.99f, 1.0f);
         glLineWidth(1.8f);
@@ -278,7 +309,8 @@ public class PolygonDrawer2 {
             glLoadMatrixf(transformation.get(matBuffer));
 
             intersect();
-            renderPolygon();
+            renderPolygons();
+            renderStroke();
 
             glfwSwapBuffers(window);
             glfwPollEvents();
@@ -0,0 +1,282 @@
+package org.joml.lwjgl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+
+/**
+ * A read-only set of polygons stored in a memory-mapped file, as saved by the {@link PolygonDrawer}.
+ * <p>
+ * The file starts with a header of {@link #HEADER_BYTES} bytes holding the magic number, the version, the number of polygons and the
+ * number of vertices. It is followed by a table with an entry of {@link #TABLE_ENTRY_BYTES} bytes per polygon, holding the index of
+ * its first vertex, its number of vertices and its bounding box <code>minX, minY, maxX, maxY</code>, and then by the <code>(x, y)</code>
+ * coordinates of all vertices. All values are little-endian.
+ * <p>
+ * Opening a file only maps it and checks the header and the table, so it does not read the vertices at all. The vertices are never
+ * copied into the Java heap: {@link #vertices()} is a view of the mapping, and point queries check the bounding boxes in the table
+ * and run the exact crossing-number test directly on that view.
+ * <p>
+ * The {@link PolygonDrawer} saves over the file it loaded while that file is still mapped. {@link #write} therefore never writes into
+ * an existing file but writes a new one and moves it into place, so the mapping keeps seeing the old contents.
+ */
+public class PolygonFile {
+
+    static final int MAGIC = 0x4E4F4750; // "PGON"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int TABLE_ENTRY_BYTES = 24;
+
+    private final int polygonCount;
+    private final int vertexCount;
+    /**
+     * The offset table.
+     */
+    private final ByteBuffer table;
+    private final FloatBuffer vertices;
+
+    private PolygonFile(ByteBuffer map) {
+        this.polygonCount = map.getInt(8);
+        this.vertexCount = map.getInt(12);
+        map.position(HEADER_BYTES).limit(HEADER_BYTES + polygonCount * TABLE_ENTRY_BYTES);
+        this.table = map.slice().order(ByteOrder.LITTLE_ENDIAN);
+        map.limit(map.capacity()).position(HEADER_BYTES + polygonCount * TABLE_ENTRY_BYTES);
+        this.vertices = map.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+    }
+
+    /**
+     * Map the given polygon file.
+     *
+     * @throws IOException
+     *          if the file cannot be read, is not a polygon file, or has a table entry whose vertices lie outside of the vertex section
+     */
+    public static PolygonFile open(File path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE)
+                throw new IOException("Not a polygon file: " + path);
+            ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size).order(ByteOrder.LITTLE_ENDIAN);
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION)
+                throw new IOException("Not a polygon file: " + path);
+            long polygonCount = map.getInt(8), vertexCount = map.getInt(12);
+            if (polygonCount < 0 || vertexCount < 0 || HEADER_BYTES + polygonCount * TABLE_ENTRY_BYTES + vertexCount * 8 != size)
+                throw new IOException("Corrupt polygon file: " + path);
+            /* Check every table entry now, so that a corrupt file cannot make a later query or upload read past the vertices */
+            for (int e = HEADER_BYTES, end = HEADER_BYTES + (int) polygonCount * TABLE_ENTRY_BYTES; e < end; e += TABLE_ENTRY_BYTES) {
+                long first = map.getInt(e), count = map.getInt(e + 4);
+                if (first < 0 || count < 0 || first + count > vertexCount)
+                    throw new IOException("Corrupt polygon file: " + path);
+            }
+            return new PolygonFile(map);
+        } finally {
+            /* The mapping stays valid after closing the file */
+            file.close();
+        }
+    }
+
+    public int polygonCount() {
+        return polygonCount;
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Return the index of the first vertex of the given polygon in {@link #vertices()}.
+     */
+    public int firstVertex(int polygon) {
+        return table.getInt(polygon * TABLE_ENTRY_BYTES);
+    }
+
+    /**
+     * Return the number of vertices of the given polygon.
+     */
+    public int vertexCount(int polygon) {
+        return table.getInt(polygon * TABLE_ENTRY_BYTES + 4);
+    }
+
+    /**
+     * Return the <code>(x, y)</code> coordinates of all vertices. The buffer is a view of the mapped file and must not be modified.
+     */
+    public FloatBuffer vertices() {
+        return vertices;
+    }
+
+    private boolean containsPoint(int polygon, float x, float y) {
+        int e = polygon * TABLE_ENTRY_BYTES;
+        int count = table.getInt(e + 4);
+        if (count < 3 || x < table.getFloat(e + 8) || y < table.getFloat(e + 12) || x > table.getFloat(e + 16)
+                || y > table.getFloat(e + 20))
+            return false;
+        int first = table.getInt(e);
+        boolean inside = false;
+        int j = 2 * (first + count - 1);
+        float xj = vertices.get(j), yj = vertices.get(j + 1);
+        for (int i = 2 * first, end = 2 * (first + count); i < end; i += 2) {
+            float xi = vertices.get(i), yi = vertices.get(i + 1);
+            if ((yi < y && yj >= y || yj < y && yi >= y) && (xi <= x || xj <= x)) {
+                if (xi + (y - yi) / (yj - yi) * (xj - xi) < x)
+                    inside = !inside;
+            }
+            xj = xi;
+            yj = yi;
+        }
+        return inside;
+    }
+
+    /**
+     * Test whether the given point lies inside of any of the polygons, and store the indices of all polygons containing it in
+     * <code>inPolygons</code>.
+     *
+     * @param inPolygons
+     *          will be cleared and then hold the indices of all polygons containing the point; may be <code>null</code>
+     * @return <code>true</code> if the point is inside of at least one polygon
+     */
+    public boolean testPoint(float x, float y, BitSet inPolygons) {
+        if (inPolygons != null)
+            inPolygons.clear();
+        boolean inside = false;
+        for (int p = 0; p < polygonCount; p++) {
+            if (!containsPoint(p, x, y))
+                continue;
+            if (inPolygons == null)
+                return true;
+            inside = true;
+            inPolygons.set(p);
+        }
+        return inside;
+    }
+
+    /**
+     * Return the index of the first polygon containing the given point, or <code>-1</code> if there is none.
+     */
+    public int polygonAt(float x, float y) {
+        for (int p = 0; p < polygonCount; p++)
+            if (containsPoint(p, x, y))
+                return p;
+        return -1;
+    }
+
+    /**
+     * Write the polygons of <code>base</code> followed by the first <code>polygonCount</code> polygons given by
+     * <code>verticesXY</code> and <code>polygons</code> to the given file.
+     * <p>
+     * The file is written to a temporary file first which then replaces the given file, so that a failed write never leaves a truncated
+     * file behind, and so that a {@link PolygonFile} still mapping the given file, such as <code>base</code>, keeps its contents. Where a
+     * mapped file cannot be replaced, as on Windows, it is renamed out of the way first and deleted when the JVM exits.
+     *
+     * @param base
+     *          the polygons to write first; may be <code>null</code>
+     * @param verticesXY
+     *          the <code>(x, y)</code> coordinates of the vertices of the other polygons
+     * @param polygons
+     *          the index of the vertex after the last vertex of each of the other polygons, as used by the {@link PolygonDrawer}
+     * @param polygonCount
+     *          the number of other polygons
+     */
+    public static void write(File path, PolygonFile base, float[] verticesXY, int[] polygons, int polygonCount) throws IOException {
+        int basePolygons = base != null ? base.polygonCount : 0;
+        int baseVertices = base != null ? base.vertexCount : 0;
+        int newVertices = polygonCount > 0 ? polygons[polygonCount - 1] : 0;
+        long totalVertices = (long) baseVertices + newVertices, totalPolygons = (long) basePolygons + polygonCount;
+        if (totalVertices > Integer.MAX_VALUE / 2 || HEADER_BYTES + totalPolygons * TABLE_ENTRY_BYTES > Integer.MAX_VALUE)
+            throw new IOException("Too many polygons or vertices");
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + (int) totalPolygons * TABLE_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt((int) totalPolygons).putInt((int) totalVertices);
+        if (base != null)
+            header.put(base.table.duplicate());
+        for (int p = 0, first = 0; p < polygonCount; first = polygons[p++]) {
+            int count = polygons[p] - first;
+            float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+            float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+            for (int i = first; i < first + count; i++) {
+                minX = Math.min(minX, verticesXY[2 * i]);
+                minY = Math.min(minY, verticesXY[2 * i + 1]);
+                maxX = Math.max(maxX, verticesXY[2 * i]);
+                maxY = Math.max(maxY, verticesXY[2 * i + 1]);
+            }
+            header.putInt(baseVertices + first).putInt(count).putFloat(minX).putFloat(minY).putFloat(maxX).putFloat(maxY);
+        }
+        header.flip();
+
+        File dir = path.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(path.getName(), ".tmp", dir);
+        try {
+            RandomAccessFile file = new RandomAccessFile(tmp, "rw");
+            try {
+                FileChannel channel = file.getChannel();
+                writeFully(channel, header);
+                if (base != null) {
+                    FloatBuffer baseVerticesView = base.vertices.duplicate();
+                    baseVerticesView.clear();
+                    writeFloats(channel, baseVerticesView);
+                }
+                writeFloats(channel, FloatBuffer.wrap(verticesXY, 0, 2 * newVertices));
+            } finally {
+                file.close();
+            }
+            try {
+                replace(tmp, path);
+            } catch (FileSystemException e) {
+                /* The file is still mapped; a mapped file can be renamed but not replaced or deleted */
+                File old = File.createTempFile(path.getName(), ".old", dir);
+                old.delete();
+                Files.move(path.toPath(), old.toPath());
+                try {
+                    replace(tmp, path);
+                } catch (IOException e2) {
+                    Files.move(old.toPath(), path.toPath());
+                    throw e2;
+                }
+                if (!old.delete())
+                    old.deleteOnExit();
+            }
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private static void replace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining())
+            channel.write(buf);
+    }
+
+    /**
+     * Write the remaining floats of the given buffer in little-endian byte order.
+     */
+    private static void writeFloats(FileChannel channel, FloatBuffer floats) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        FloatBuffer fb = buf.asFloatBuffer();
+        while (floats.hasRemaining()) {
+            int n = Math.min(fb.capacity(), floats.remaining());
+            int limit = floats.limit();
+            floats.limit(floats.position() + n);
+            fb.clear();
+            fb.put(floats);
+            floats.limit(limit);
+            buf.clear().limit(4 * n);
+            writeFully(channel, buf);
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.joml.lwjgl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+/**
+ * Checks that a {@link PolygonFile} reports the same polygon for random points as a {@link PolygonIndex} over the vertices it was
+ * written from, that saving an opened file together with more polygons, like the {@link PolygonDrawer} does, keeps all of them, and
+ * that opening a file whose table points outside of the vertices fails.
+ */
+class PolygonFileCheck {
+
+    static final int POLYGONS = 200;
+    static final int QUERIES = 2000;
+
+    static void checkQueries(File path, Random rnd) throws IOException {
+        int strokeVertices = RandomStrokes.STROKE_VERTICES;
+        float[] verticesXY = new float[2 * POLYGONS * strokeVertices];
+        int[] polygons = new int[POLYGONS];
+        PolygonIndex index = new PolygonIndex();
+        for (int p = 0; p < POLYGONS; p++) {
+            RandomStrokes.stroke(rnd, verticesXY, p * strokeVertices, strokeVertices);
+            index.add(verticesXY, p * strokeVertices, strokeVertices);
+            polygons[p] = (p + 1) * strokeVertices;
+        }
+        PolygonFile.write(path, null, verticesXY, polygons, POLYGONS);
+        PolygonFile file = PolygonFile.open(path);
+        if (file.polygonCount() != POLYGONS || file.vertexCount() != POLYGONS * strokeVertices)
+            throw new AssertionError("wrong polygon or vertex count");
+        for (int i = 0; i < QUERIES; i++) {
+            float x = rnd.nextFloat() * RandomStrokes.WIDTH, y = rnd.nextFloat() * RandomStrokes.HEIGHT;
+            int expected = index.polygonAt(x, y), actual = file.polygonAt(x, y);
+            if (actual != expected)
+                throw new AssertionError("(" + x + ", " + y + "): expected " + expected + " but got " + actual);
+        }
+
+        /* Save the opened file followed by two more polygons, the second one without vertices */
+        float[] moreVertices = new float[2 * strokeVertices];
+        RandomStrokes.stroke(rnd, moreVertices, 0, strokeVertices);
+        PolygonFile.write(path, file, moreVertices, new int[] { strokeVertices, strokeVertices }, 2);
+        PolygonFile appended = PolygonFile.open(path);
+        if (appended.polygonCount() != POLYGONS + 2 || appended.vertexCount() != (POLYGONS + 1) * strokeVertices
+                || appended.vertexCount(POLYGONS + 1) != 0 || appended.firstVertex(POLYGONS) != POLYGONS * strokeVertices)
+            throw new AssertionError("wrong polygons after appending");
+        FloatBuffer v = appended.vertices();
+        for (int i = 0; i < verticesXY.length; i++)
+            if (v.get(i) != verticesXY[i])
+                throw new AssertionError("vertex coordinate " + i + " differs");
+        for (int i = 0; i < moreVertices.length; i++)
+            if (v.get(verticesXY.length + i) != moreVertices[i])
+                throw new AssertionError("appended vertex coordinate " + i + " differs");
+    }
+
+    /**
+     * Write two triangles, overwrite the given field of the table entry of the second one and check that opening the file fails.
+     */
+    static void checkCorrupt(File path, int field, int value) throws IOException {
+        PolygonFile.write(path, null, new float[] { 0, 0, 1, 0, 1, 1, 2, 2, 3, 2, 3, 3 }, new int[] { 3, 6 }, 2);
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            file.seek(PolygonFile.HEADER_BYTES + PolygonFile.TABLE_ENTRY_BYTES + 4 * field);
+            file.writeInt(Integer.reverseBytes(value));
+        } finally {
+            file.close();
+        }
+        try {
+            PolygonFile.open(path);
+        } catch (IOException e) {
+            return;
+        }
+        throw new AssertionError("opened a file with " + (field == 0 ? "first vertex " : "vertex count ") + value);
+    }
+
+    static void check() throws IOException {
+        File path = File.createTempFile("polygons", ".gon");
+        try {
+            checkQueries(path, new Random(1));
+            checkCorrupt(path, 0, -1);
+            checkCorrupt(path, 0, 4);
+            checkCorrupt(path, 1, -2);
+            checkCorrupt(path, 1, 4);
+            checkCorrupt(path, 1, Integer.MAX_VALUE);
+        } finally {
+            path.delete();
+        }
+    }
+
+}
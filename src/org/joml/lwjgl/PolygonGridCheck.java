@@ -0,0 +1,144 @@
+package org.joml.lwjgl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.joml.PolygonsIntersection;
+
+/**
+ * Checks that the grid of a {@link PolygonIndex} reports the same polygons for random points as testing each polygon on its own with a
+ * {@link PolygonsIntersection}, for scenes of 10, 1k and 10k small polygons, also after removing every other polygon, and for
+ * triangles with coordinates too far apart, too large, infinite or <code>NaN</code> for the grid.
+ * <p>
+ * A single {@link PolygonsIntersection} over all polygons is no reference here: it sometimes reports polygons which a
+ * {@link PolygonsIntersection} of that polygon alone rejects.
+ */
+class PolygonGridCheck {
+
+    static final int POLYGON_VERTICES = 24;
+    static final int QUERIES = 5000;
+
+    /**
+     * Store a small star-shaped polygon in <code>verticesXY</code>, which is bigger when there are fewer of them, so that they cover the
+     * window about equally.
+     */
+    static void polygon(Random rnd, float[] verticesXY, int first, int numPolygons) {
+        float cx = rnd.nextFloat() * RandomStrokes.WIDTH, cy = rnd.nextFloat() * RandomStrokes.HEIGHT;
+        float radius = (0.5f + rnd.nextFloat()) * 400.0f / (float) Math.sqrt(numPolygons);
+        for (int i = 0; i < POLYGON_VERTICES; i++) {
+            double angle = 2.0 * Math.PI * i / POLYGON_VERTICES;
+            float r = radius * ((i & 1) == 0 ? 1.0f : 0.5f);
+            verticesXY[2 * (first + i)] = cx + r * (float) Math.cos(angle);
+            verticesXY[2 * (first + i) + 1] = cy + r * (float) Math.sin(angle);
+        }
+    }
+
+    /**
+     * Store the ids of all polygons containing the given point in <code>inPolygons</code>, testing every polygon whose bounds contain
+     * the point on its own.
+     */
+    static void testEachPolygon(PolygonsIntersection[] single, float[] bounds, float x, float y, BitSet inPolygons) {
+        inPolygons.clear();
+        for (int p = 0; p < single.length; p++)
+            if (single[p] != null && x >= bounds[4 * p] && y >= bounds[4 * p + 1] && x <= bounds[4 * p + 2] && y <= bounds[4 * p + 3]
+                    && single[p].testPoint(x, y))
+                inPolygons.set(p);
+    }
+
+    /**
+     * Build a {@link PolygonsIntersection} of the polygon with the given vertices of <code>verticesXY</code> alone, and store its bounds
+     * at <code>4 * p</code> in <code>bounds</code>.
+     */
+    static PolygonsIntersection single(float[] verticesXY, int first, int count, float[] bounds, int p) {
+        float[] polygon = Arrays.copyOfRange(verticesXY, 2 * first, 2 * (first + count));
+        bounds[4 * p] = bounds[4 * p + 1] = Float.POSITIVE_INFINITY;
+        bounds[4 * p + 2] = bounds[4 * p + 3] = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            bounds[4 * p] = Math.min(bounds[4 * p], polygon[2 * i]);
+            bounds[4 * p + 1] = Math.min(bounds[4 * p + 1], polygon[2 * i + 1]);
+            bounds[4 * p + 2] = Math.max(bounds[4 * p + 2], polygon[2 * i]);
+            bounds[4 * p + 3] = Math.max(bounds[4 * p + 3], polygon[2 * i + 1]);
+        }
+        return new PolygonsIntersection(polygon, new int[0], count);
+    }
+
+    static void check(int numPolygons) {
+        Random rnd = new Random(numPolygons);
+        float[] verticesXY = new float[2 * numPolygons * POLYGON_VERTICES];
+        PolygonIndex index = new PolygonIndex();
+        PolygonsIntersection[] single = new PolygonsIntersection[numPolygons];
+        float[] bounds = new float[4 * numPolygons];
+        for (int p = 0; p < numPolygons; p++) {
+            polygon(rnd, verticesXY, p * POLYGON_VERTICES, numPolygons);
+            index.add(verticesXY, p * POLYGON_VERTICES, POLYGON_VERTICES);
+            single[p] = single(verticesXY, p * POLYGON_VERTICES, POLYGON_VERTICES, bounds, p);
+        }
+        checkQueries(index, single, bounds, rnd, numPolygons + " polygons");
+        for (int p = 0; p < numPolygons; p += 2) {
+            index.remove(p);
+            single[p] = null;
+        }
+        checkQueries(index, single, bounds, rnd, numPolygons + " polygons after removing every other one");
+    }
+
+    static void checkQueries(PolygonIndex index, PolygonsIntersection[] single, float[] bounds, Random rnd, String name) {
+        BitSet expected = new BitSet(), actual = new BitSet();
+        for (int i = 0; i < QUERIES; i++) {
+            float x = rnd.nextFloat() * RandomStrokes.WIDTH, y = rnd.nextFloat() * RandomStrokes.HEIGHT;
+            testEachPolygon(single, bounds, x, y, expected);
+            index.testPoint(x, y, actual);
+            if (!actual.equals(expected) || index.polygonAt(x, y) != expected.nextSetBit(0))
+                throw new AssertionError(name + ", (" + x + ", " + y + "): expected " + expected + " but got " + actual);
+        }
+    }
+
+    /**
+     * Add triangles whose cells cannot be enumerated by the grid next to a small one, and query points inside and around them before
+     * and after removing them.
+     */
+    static void checkExtremeCoordinates() {
+        float far = 4E10f, huge = 1E30f, inf = Float.POSITIVE_INFINITY;
+        float[] verticesXY = {
+            100, 100, 200, 100, 100, 200,
+            -far, 0, far, 0, 0, far,
+            huge, huge, 2 * huge, huge, huge, 2 * huge,
+            -2 * huge, -2 * huge, -huge, -2 * huge, -2 * huge, -huge,
+            0, 0, inf, 0, 0, 10,
+            0, 0, 10, Float.NaN, 0, 10,
+        };
+        int numPolygons = verticesXY.length / 6;
+        PolygonIndex index = new PolygonIndex();
+        PolygonsIntersection[] single = new PolygonsIntersection[numPolygons];
+        float[] bounds = new float[4 * numPolygons];
+        for (int p = 0; p < numPolygons; p++) {
+            index.add(verticesXY, 3 * p, 3);
+            single[p] = single(verticesXY, 3 * p, 3, bounds, p);
+        }
+        float[] points = { 120, 120, 300, 300, 0, 1E9f, 1E10f, -1, 1.2f * huge, 1.2f * huge, -1.8f * huge, -1.8f * huge, 5, 1, 1, 5,
+                -huge, huge };
+        for (int removed = 0; removed <= numPolygons; removed++) {
+            if (removed > 0) {
+                index.remove(removed - 1);
+                single[removed - 1] = null;
+            }
+            BitSet expected = new BitSet(), actual = new BitSet();
+            for (int i = 0; i < points.length; i += 2) {
+                float x = points[i], y = points[i + 1];
+                testEachPolygon(single, bounds, x, y, expected);
+                index.testPoint(x, y, actual);
+                if (!actual.equals(expected) || index.polygonAt(x, y) != expected.nextSetBit(0))
+                    throw new AssertionError("extreme coordinates with " + removed + " polygons removed, (" + x + ", " + y + "): expected "
+                            + expected + " but got " + actual);
+            }
+        }
+    }
+
+    static void check() {
+        checkExtremeCoordinates();
+        check(10);
+        check(1000);
+        check(10000);
+    }
+
+}
@@ -0,0 +1,446 @@
+package org.joml.lwjgl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.joml.PolygonsIntersection;
+
+/**
+ * Point-in-polygon index over a changing set of polygons.
+ * <p>
+ * Unlike a single {@link PolygonsIntersection} over all vertices, which has to be rebuilt from scratch whenever a polygon is added, every
+ * polygon here gets its own {@link PolygonsIntersection} together with its bounding box. Adding or removing a polygon therefore only costs
+ * time proportional to the size of that polygon.
+ * <p>
+ * The bounding boxes are additionally stored in a uniform grid, implemented as a hash map from cells to the polygons overlapping them, so
+ * that a point query only visits the few polygons registered in the cell under the point and only runs the exact test for those whose
+ * bounding box contains the point. Polygons whose bounding box spans more than {@link #MAX_CELLS_PER_POLYGON} cells, or which have
+ * coordinates too large for the grid, are not put into the grid but tested by every query.
+ * <p>
+ * Each polygon is identified by the id returned from {@link #add(float[], int, int)}, which stays the same until the polygon is
+ * {@link #remove(int) removed}. Ids of removed polygons are reused.
+ */
+public class PolygonIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The default edge length of a grid cell, in the units of the vertex coordinates.
+     */
+    public static final float DEFAULT_CELL_SIZE = 32.0f;
+
+    /**
+     * The maximum number of cells a polygon is registered in.
+     */
+    static final int MAX_CELLS_PER_POLYGON = 4096;
+
+    /**
+     * The copied vertices of each polygon, because {@link PolygonsIntersection} keeps a reference to the array it was built from.
+     */
+    private float[][] vertices = new float[INITIAL_CAPACITY][];
+    private int[] vertexCounts = new int[INITIAL_CAPACITY];
+    /**
+     * The intersection test of each polygon, or <code>null</code> for polygons with less than three vertices.
+     */
+    private PolygonsIntersection[] intersections = new PolygonsIntersection[INITIAL_CAPACITY];
+    /**
+     * <code>minX, minY, maxX, maxY</code> of each polygon.
+     */
+    private float[] bounds = new float[INITIAL_CAPACITY * 4];
+    private final BitSet used = new BitSet();
+    private int size;
+    private int totalVertexCount;
+
+    /* The grid */
+    private final float cellSize;
+    private final float invCellSize;
+    /**
+     * Open addressing hash table from cell keys to the first entry of the cell, or <code>-1</code> for cells without polygons.
+     */
+    private long[] cellKeys = new long[256];
+    private int[] cellHeads = new int[256];
+    private boolean[] cellUsed = new boolean[256];
+    private int cellCount;
+    /**
+     * Singly linked lists of the polygons in each cell, sorted by ascending id, with unused entries forming a free list.
+     */
+    private int[] entryPolygons = new int[256];
+    private int[] entryNext = new int[256];
+    private int freeEntry = -1;
+    private int entryCount;
+    /**
+     * Polygons too large to be put into the grid.
+     */
+    private final BitSet large = new BitSet();
+
+    /**
+     * Create an index with grid cells of {@link #DEFAULT_CELL_SIZE}.
+     */
+    public PolygonIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Create an index with grid cells of the given edge length, which should be about the size of typical polygons.
+     */
+    public PolygonIndex(float cellSize) {
+        if (!(cellSize > 0.0f))
+            throw new IllegalArgumentException("cellSize must be positive");
+        this.cellSize = cellSize;
+        this.invCellSize = 1.0f / cellSize;
+    }
+
+    /**
+     * Create a copy of the given index which can be modified independently of it.
+     * <p>
+     * The copied vertices and the intersection tests of the polygons are never modified, so they are shared and copying only takes time
+     * proportional to the number of polygons and grid cells, not to the number of vertices.
+     */
+    public PolygonIndex(PolygonIndex other) {
+        this.cellSize = other.cellSize;
+        this.invCellSize = other.invCellSize;
+        vertices = other.vertices.clone();
+        vertexCounts = other.vertexCounts.clone();
+        intersections = other.intersections.clone();
+        bounds = other.bounds.clone();
+        used.or(other.used);
+        size = other.size;
+        totalVertexCount = other.totalVertexCount;
+        cellKeys = other.cellKeys.clone();
+        cellHeads = other.cellHeads.clone();
+        cellUsed = other.cellUsed.clone();
+        cellCount = other.cellCount;
+        entryPolygons = other.entryPolygons.clone();
+        entryNext = other.entryNext.clone();
+        freeEntry = other.freeEntry;
+        entryCount = other.entryCount;
+        large.or(other.large);
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < vertexCounts.length)
+            return;
+        int capacity = Math.max(vertexCounts.length * 2, id + 1);
+        float[][] newVertices = new float[capacity][];
+        System.arraycopy(vertices, 0, newVertices, 0, vertices.length);
+        vertices = newVertices;
+        int[] newVertexCounts = new int[capacity];
+        System.arraycopy(vertexCounts, 0, newVertexCounts, 0, vertexCounts.length);
+        vertexCounts = newVertexCounts;
+        PolygonsIntersection[] newIntersections = new PolygonsIntersection[capacity];
+        System.arraycopy(intersections, 0, newIntersections, 0, intersections.length);
+        intersections = newIntersections;
+        float[] newBounds = new float[capacity * 4];
+        System.arraycopy(bounds, 0, newBounds, 0, bounds.length);
+        bounds = newBounds;
+    }
+
+    /**
+     * Add the polygon made of the <code>count</code> vertices starting at vertex <code>first</code> of the given
+     * <code>(x, y)</code> array.
+     * <p>
+     * Polygons with less than three vertices are accepted and get an id, but never contain any point.
+     *
+     * @return the id of the new polygon
+     */
+    public int add(float[] verticesXY, int first, int count) {
+        int id = used.nextClearBit(0);
+        ensureCapacity(id);
+        float[] polygon = new float[count * 2];
+        System.arraycopy(verticesXY, first * 2, polygon, 0, count * 2);
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            float x = polygon[2 * i], y = polygon[2 * i + 1];
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        vertices[id] = polygon;
+        vertexCounts[id] = count;
+        intersections[id] = count >= 3 ? new PolygonsIntersection(polygon, new int[0], count) : null;
+        bounds[4 * id] = minX;
+        bounds[4 * id + 1] = minY;
+        bounds[4 * id + 2] = maxX;
+        bounds[4 * id + 3] = maxY;
+        used.set(id);
+        size++;
+        totalVertexCount += count;
+        if (intersections[id] != null)
+            insertIntoGrid(id);
+        return id;
+    }
+
+    private int cell(float v) {
+        return (int) Math.floor(v * invCellSize);
+    }
+
+    private static long cellKey(int cx, int cy) {
+        return (long) cx << 32 | cy & 0xFFFFFFFFL;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    /**
+     * Return the slot of the given cell in the hash table, or <code>-1</code> if it is not in the table and <code>create</code> is
+     * <code>false</code>.
+     */
+    private int cellSlot(long key, boolean create) {
+        int mask = cellKeys.length - 1;
+        for (int slot = hash(key) & mask;; slot = slot + 1 & mask) {
+            if (!cellUsed[slot]) {
+                if (!create)
+                    return -1;
+                if (2 * (cellCount + 1) > cellKeys.length) {
+                    growCells();
+                    return cellSlot(key, true);
+                }
+                cellUsed[slot] = true;
+                cellKeys[slot] = key;
+                cellHeads[slot] = -1;
+                cellCount++;
+                return slot;
+            }
+            if (cellKeys[slot] == key)
+                return slot;
+        }
+    }
+
+    private void growCells() {
+        long[] oldKeys = cellKeys;
+        int[] oldHeads = cellHeads;
+        boolean[] oldUsed = cellUsed;
+        cellKeys = new long[oldKeys.length * 2];
+        cellHeads = new int[oldKeys.length * 2];
+        cellUsed = new boolean[oldKeys.length * 2];
+        cellCount = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            /* Drop cells which became empty */
+            if (!oldUsed[i] || oldHeads[i] < 0)
+                continue;
+            int slot = cellSlot(oldKeys[i], true);
+            cellHeads[slot] = oldHeads[i];
+        }
+    }
+
+    private int newEntry(int id, int next) {
+        int e = freeEntry;
+        if (e >= 0) {
+            freeEntry = entryNext[e];
+        } else {
+            if (entryCount == entryPolygons.length) {
+                entryPolygons = Arrays.copyOf(entryPolygons, entryCount * 2);
+                entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+            }
+            e = entryCount++;
+        }
+        entryPolygons[e] = id;
+        entryNext[e] = next;
+        return e;
+    }
+
+    /**
+     * Return whether the polygon with the given id must not be put into the grid, because its bounding box spans too many cells, or
+     * because it has coordinates whose cells cannot be enumerated: <code>NaN</code>, infinite, or so large that the cell index saturates
+     * at {@link Integer#MIN_VALUE} or {@link Integer#MAX_VALUE}.
+     */
+    private boolean isLarge(int id) {
+        float minX = bounds[4 * id], minY = bounds[4 * id + 1], maxX = bounds[4 * id + 2], maxY = bounds[4 * id + 3];
+        if (!(minX <= maxX && minY <= maxY))
+            return true;
+        int minCellX = cell(minX), minCellY = cell(minY), maxCellX = cell(maxX), maxCellY = cell(maxY);
+        if (minCellX == Integer.MIN_VALUE || minCellY == Integer.MIN_VALUE || maxCellX == Integer.MAX_VALUE
+                || maxCellY == Integer.MAX_VALUE)
+            return true;
+        return ((long) maxCellX - minCellX + 1L) * ((long) maxCellY - minCellY + 1L) > MAX_CELLS_PER_POLYGON;
+    }
+
+    private void insertIntoGrid(int id) {
+        if (isLarge(id)) {
+            large.set(id);
+            return;
+        }
+        int minCellX = cell(bounds[4 * id]), minCellY = cell(bounds[4 * id + 1]);
+        int maxCellX = cell(bounds[4 * id + 2]), maxCellY = cell(bounds[4 * id + 3]);
+        for (int cy = minCellY; cy <= maxCellY; cy++)
+            for (int cx = minCellX; cx <= maxCellX; cx++) {
+                int slot = cellSlot(cellKey(cx, cy), true);
+                /* Keep the cell sorted by id, so that the first polygon of a cell containing a point has the lowest id */
+                int prev = -1, e = cellHeads[slot];
+                while (e >= 0 && entryPolygons[e] < id) {
+                    prev = e;
+                    e = entryNext[e];
+                }
+                int entry = newEntry(id, e);
+                if (prev < 0)
+                    cellHeads[slot] = entry;
+                else
+                    entryNext[prev] = entry;
+            }
+    }
+
+    private void removeFromGrid(int id) {
+        if (large.get(id)) {
+            large.clear(id);
+            return;
+        }
+        int minCellX = cell(bounds[4 * id]), minCellY = cell(bounds[4 * id + 1]);
+        int maxCellX = cell(bounds[4 * id + 2]), maxCellY = cell(bounds[4 * id + 3]);
+        for (int cy = minCellY; cy <= maxCellY; cy++)
+            for (int cx = minCellX; cx <= maxCellX; cx++) {
+                int slot = cellSlot(cellKey(cx, cy), false);
+                int prev = -1;
+                for (int e = cellHeads[slot]; e >= 0; prev = e, e = entryNext[e]) {
+                    if (entryPolygons[e] != id)
+                        continue;
+                    if (prev < 0)
+                        cellHeads[slot] = entryNext[e];
+                    else
+                        entryNext[prev] = entryNext[e];
+                    entryNext[e] = freeEntry;
+                    freeEntry = e;
+                    break;
+                }
+            }
+    }
+
+    /**
+     * Return whether the given point lies inside of the polygon with the given id, which must exist.
+     */
+    private boolean containsPoint(int id, float x, float y) {
+        return x >= bounds[4 * id] && y >= bounds[4 * id + 1] && x <= bounds[4 * id + 2] && y <= bounds[4 * id + 3]
+            && intersections[id].testPoint(x, y);
+    }
+
+    /**
+     * Return the first entry of the grid cell containing the given point, or <code>-1</code>.
+     */
+    private int cellHead(float x, float y) {
+        int slot = cellSlot(cellKey(cell(x), cell(y)), false);
+        return slot >= 0 ? cellHeads[slot] : -1;
+    }
+
+    /**
+     * Remove the polygon with the given id.
+     *
+     * @return <code>true</code> if there was such a polygon
+     */
+    public boolean remove(int id) {
+        if (id < 0 || !used.get(id))
+            return false;
+        totalVertexCount -= vertexCounts[id];
+        if (intersections[id] != null)
+            removeFromGrid(id);
+        vertices[id] = null;
+        vertexCounts[id] = 0;
+        intersections[id] = null;
+        used.clear(id);
+        size--;
+        return true;
+    }
+
+    /**
+     * Remove all polygons.
+     */
+    public void clear() {
+        for (int id = used.nextSetBit(0); id >= 0; id = used.nextSetBit(id + 1)) {
+            vertices[id] = null;
+            intersections[id] = null;
+            vertexCounts[id] = 0;
+        }
+        used.clear();
+        size = 0;
+        totalVertexCount = 0;
+        Arrays.fill(cellUsed, false);
+        cellCount = 0;
+        freeEntry = -1;
+        entryCount = 0;
+        large.clear();
+    }
+
+    /**
+     * Return whether there is a polygon with the given id.
+     */
+    public boolean contains(int id) {
+        return id >= 0 && used.get(id);
+    }
+
+    /**
+     * Return the number of polygons.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the number of vertices of all polygons.
+     */
+    public int vertexCount() {
+        return totalVertexCount;
+    }
+
+    /**
+     * Test whether the given point lies inside of any of the polygons.
+     */
+    public boolean testPoint(float x, float y) {
+        return testPoint(x, y, null);
+    }
+
+    /**
+     * Test whether the given point lies inside of any of the polygons, and store the ids of all polygons containing it in
+     * <code>inPolygons</code>.
+     *
+     * @param inPolygons
+     *          will be cleared and then hold the ids of all polygons containing the point; may be <code>null</code>
+     * @return <code>true</code> if the point is inside of at least one polygon
+     */
+    public boolean testPoint(float x, float y, BitSet inPolygons) {
+        if (inPolygons != null)
+            inPolygons.clear();
+        boolean inside = false;
+        for (int e = cellHead(x, y); e >= 0; e = entryNext[e]) {
+            int id = entryPolygons[e];
+            if (!containsPoint(id, x, y))
+                continue;
+            if (inPolygons == null)
+                return true;
+            inside = true;
+            inPolygons.set(id);
+        }
+        for (int id = large.nextSetBit(0); id >= 0; id = large.nextSetBit(id + 1)) {
+            if (!containsPoint(id, x, y))
+                continue;
+            if (inPolygons == null)
+                return true;
+            inside = true;
+            inPolygons.set(id);
+        }
+        return inside;
+    }
+
+    /**
+     * Return the lowest id of all polygons containing the given point, or <code>-1</code> if there is none.
+     * <p>
+     * This may be called concurrently from multiple threads as long as the index is not modified at the same time.
+     */
+    public int polygonAt(float x, float y) {
+        /* The polygons of a cell are sorted by id, so the first one containing the point is the best hit in the cell */
+        int best = Integer.MAX_VALUE;
+        for (int e = cellHead(x, y); e >= 0; e = entryNext[e]) {
+            int id = entryPolygons[e];
+            if (containsPoint(id, x, y)) {
+                best = id;
+                break;
+            }
+        }
+        for (int id = large.nextSetBit(0); id >= 0 && id < best; id = large.nextSetBit(id + 1))
+            if (containsPoint(id, x, y))
+                best = id;
+        return best != Integer.MAX_VALUE ? best : -1;
+    }
+
+}
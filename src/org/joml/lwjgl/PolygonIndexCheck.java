@@ -0,0 +1,53 @@
+package org.joml.lwjgl;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.joml.PolygonsIntersection;
+
+/**
+ * Checks that a {@link PolygonIndex} reports the same polygons for random points as testing each polygon on its own with a
+ * {@link PolygonsIntersection}, and that a polygon removed and added again keeps its id. A single {@link PolygonsIntersection} over all
+ * vertices is no reference, see {@link PolygonGridCheck}.
+ */
+class PolygonIndexCheck {
+
+    static final int COMMITS = 20;
+    static final int QUERIES = 10000;
+
+    static void check(int totalVertices) {
+        Random rnd = new Random(totalVertices);
+        int strokes = Math.max(1, totalVertices / RandomStrokes.STROKE_VERTICES);
+        int strokeVertices = Math.min(RandomStrokes.STROKE_VERTICES, totalVertices);
+        float[] verticesXY = new float[2 * (strokes + COMMITS) * strokeVertices];
+        PolygonsIntersection[] single = new PolygonsIntersection[strokes + COMMITS];
+        float[] bounds = new float[4 * single.length];
+        PolygonIndex index = new PolygonIndex();
+        for (int p = 0, num = 0; p < single.length; p++) {
+            RandomStrokes.stroke(rnd, verticesXY, num, strokeVertices);
+            int id = index.add(verticesXY, num, strokeVertices);
+            if (p >= strokes) {
+                /* Undo and redo the last strokes */
+                index.remove(id);
+                if (index.add(verticesXY, num, strokeVertices) != id)
+                    throw new AssertionError("id of re-added polygon " + id + " changed");
+            }
+            single[p] = PolygonGridCheck.single(verticesXY, num, strokeVertices, bounds, p);
+            num += strokeVertices;
+        }
+        BitSet expected = new BitSet(), actual = new BitSet();
+        for (int i = 0; i < QUERIES; i++) {
+            float x = rnd.nextFloat() * RandomStrokes.WIDTH, y = rnd.nextFloat() * RandomStrokes.HEIGHT;
+            PolygonGridCheck.testEachPolygon(single, bounds, x, y, expected);
+            boolean inside = index.testPoint(x, y, actual);
+            if (!expected.equals(actual) || inside != !actual.isEmpty())
+                throw new AssertionError("(" + x + ", " + y + "): expected " + expected + " but got " + actual);
+        }
+    }
+
+    static void check() {
+        check(1000);
+        check(100000);
+    }
+
+}
@@ -0,0 +1,241 @@
+package org.joml.lwjgl;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A bitmap holding the lowest id of the polygons containing each point with integer coordinates in a rectangle, so that looking up the
+ * polygon under the mouse cursor is a single array read.
+ * <p>
+ * Polygons are scan converted when they are added, with the same crossing-number rule as the exact test, so for points with integer
+ * coordinates the bitmap gives the same answer as {@link PolygonIndex#polygonAt(float, float)} up to rounding. Other points are
+ * looked up at the closest point with integer coordinates. Since that can only give a different answer if an edge passes between the
+ * two points, the bitmap also remembers which points lie within a distance of one of any edge, and {@link #needsExactTest(float, float)}
+ * tells when an exact test is needed to be sure.
+ */
+public class PolygonRaster {
+
+    private int originX, originY;
+    private int width, height;
+    /**
+     * The lowest id plus one of all polygons containing each point, or zero if there is none.
+     */
+    private int[] ids = new int[0];
+    private final BitSet nearEdge = new BitSet();
+    /**
+     * The crossings of all rows of the polygon being added, row after row, and the start of each row in it.
+     */
+    private float[] crossings = new float[16];
+    private int[] rowStarts = new int[16];
+
+    /**
+     * Create a bitmap for the points <code>(originX + i, originY + j)</code> with <code>0 &lt;= i &lt; width</code> and
+     * <code>0 &lt;= j &lt; height</code>.
+     */
+    public PolygonRaster(int originX, int originY, int width, int height) {
+        resize(originX, originY, width, height);
+    }
+
+    /**
+     * Change the rectangle covered by the bitmap and remove all polygons.
+     */
+    public void resize(int originX, int originY, int width, int height) {
+        if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid size: " + width + " x " + height);
+        this.originX = originX;
+        this.originY = originY;
+        this.width = width;
+        this.height = height;
+        if (ids.length < width * height)
+            ids = new int[width * height];
+        clear();
+    }
+
+    /**
+     * Remove all polygons.
+     */
+    public void clear() {
+        Arrays.fill(ids, 0, width * height, 0);
+        nearEdge.clear();
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Add the polygon made of the <code>count</code> vertices starting at vertex <code>first</code> of the given
+     * <code>(x, y)</code> array.
+     *
+     * @param id
+     *          the id of the polygon, which is returned by {@link #polygonAt(float, float)} for the points inside of it unless
+     *          they are also inside of a polygon with a lower id
+     */
+    public void add(int id, float[] verticesXY, int first, int count) {
+        add(id, FloatBuffer.wrap(verticesXY), first, count);
+    }
+
+    /**
+     * Add the polygon made of the <code>count</code> vertices starting at vertex <code>first</code> of the given buffer of
+     * <code>(x, y)</code> coordinates, such as {@link PolygonFile#vertices()}.
+     *
+     * @see #add(int, float[], int, int)
+     */
+    public void add(int id, FloatBuffer verticesXY, int first, int count) {
+        if (count < 3)
+            return;
+        float minY = Float.POSITIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int i = first; i < first + count; i++) {
+            minY = Math.min(minY, verticesXY.get(2 * i + 1));
+            maxY = Math.max(maxY, verticesXY.get(2 * i + 1));
+        }
+        int y0 = Math.max(originY, (int) Math.ceil(minY)), y1 = Math.min(originY + height - 1, (int) Math.floor(maxY));
+        if (y0 <= y1) {
+            /*
+             * The exact test counts an edge for the rows y with min(yi, yj) < y <= max(yi, yj). Visit each edge only for those rows,
+             * once to count the crossings of each row and once to store them, instead of testing every edge on every row.
+             */
+            int rows = y1 - y0 + 1;
+            if (rowStarts.length < rows + 1)
+                rowStarts = new int[Math.max(rows + 1, 2 * rowStarts.length)];
+            Arrays.fill(rowStarts, 0, rows + 1, 0);
+            int j = 2 * (first + count - 1);
+            float yj = verticesXY.get(j + 1);
+            for (int i = 2 * first, end = 2 * (first + count); i < end; i += 2) {
+                float yi = verticesXY.get(i + 1);
+                int from = Math.max(y0, (int) Math.floor(Math.min(yi, yj)) + 1), to = Math.min(y1, (int) Math.floor(Math.max(yi, yj)));
+                for (int y = from; y <= to; y++)
+                    rowStarts[y - y0 + 1]++;
+                yj = yi;
+            }
+            for (int r = 0; r < rows; r++)
+                rowStarts[r + 1] += rowStarts[r];
+            if (crossings.length < rowStarts[rows])
+                crossings = new float[Math.max(rowStarts[rows], 2 * crossings.length)];
+            float xj = verticesXY.get(j);
+            yj = verticesXY.get(j + 1);
+            for (int i = 2 * first, end = 2 * (first + count); i < end; i += 2) {
+                float xi = verticesXY.get(i), yi = verticesXY.get(i + 1);
+                int from = Math.max(y0, (int) Math.floor(Math.min(yi, yj)) + 1), to = Math.min(y1, (int) Math.floor(Math.max(yi, yj)));
+                for (int y = from; y <= to; y++)
+                    crossings[rowStarts[y - y0]++] = xi + (y - yi) / (yj - yi) * (xj - xi);
+                xj = xi;
+                yj = yi;
+            }
+            /* Each row start now is the end of its row, which is the start of the next one */
+            for (int y = y0, start = 0; y <= y1; start = rowStarts[y - y0], y++) {
+                int end = rowStarts[y - y0];
+                Arrays.sort(crossings, start, end);
+                /* A point is inside if an odd number of crossings lie left of it */
+                int row = (y - originY) * width - originX;
+                for (int k = start; k + 1 < end; k += 2) {
+                    int from = Math.max(originX, (int) Math.floor(crossings[k]) + 1);
+                    int to = Math.min(originX + width - 1, (int) Math.floor(crossings[k + 1]));
+                    for (int x = from; x <= to; x++) {
+                        int v = ids[row + x];
+                        if (v == 0 || v > id + 1)
+                            ids[row + x] = id + 1;
+                    }
+                }
+            }
+        }
+        markEdges(verticesXY, first, count);
+    }
+
+    /**
+     * Mark all points within a distance of one of any edge of the given polygon, by walking along each edge in steps of half a unit
+     * and marking the points around each step.
+     * <p>
+     * Each edge is clipped to the bitmap grown by one unit first, with the Liang-Barsky algorithm, and only the steps within it are
+     * walked, so edges far outside of the bitmap cost nothing. The steps walked are the same as without clipping, so the same points
+     * are marked.
+     */
+    private void markEdges(FloatBuffer verticesXY, int first, int count) {
+        float minX = originX - 1.0f, minY = originY - 1.0f, maxX = originX + width, maxY = originY + height;
+        int j = 2 * (first + count - 1);
+        float xj = verticesXY.get(j), yj = verticesXY.get(j + 1);
+        for (int i = 2 * first, end = 2 * (first + count); i < end; i += 2) {
+            float xi = verticesXY.get(i), yi = verticesXY.get(i + 1);
+            float dx = xi - xj, dy = yi - yj;
+            int steps = (int) Math.ceil(2.0 * Math.sqrt(dx * dx + dy * dy)) + 1;
+            if (Math.min(xi, xj) >= minX && Math.max(xi, xj) <= maxX && Math.min(yi, yj) >= minY && Math.max(yi, yj) <= maxY)
+                markSteps(xj, yj, dx, dy, steps, 0, steps);
+            else
+                markClippedSteps(xj, yj, dx, dy, steps, minX, minY, maxX, maxY);
+            xj = xi;
+            yj = yi;
+        }
+    }
+
+    /**
+     * Clip the edge from <code>(x, y)</code> to <code>(x + dx, y + dy)</code> to the given rectangle with the Liang-Barsky algorithm,
+     * and mark the points around those of its <code>steps + 1</code> steps which lie within it.
+     */
+    private void markClippedSteps(float x, float y, float dx, float dy, int steps, float minX, float minY, float maxX, float maxY) {
+        /* The parameters t0 <= t <= t1 of the points of the edge within the rectangle */
+        float t0 = 0.0f, t1 = 1.0f;
+        for (int b = 0; b < 4 && t0 <= t1; b++) {
+            float p = b == 0 ? -dx : b == 1 ? dx : b == 2 ? -dy : dy;
+            float q = b == 0 ? x - minX : b == 1 ? maxX - x : b == 2 ? y - minY : maxY - y;
+            if (p == 0.0f) {
+                if (q < 0.0f)
+                    return;
+            } else if (p < 0.0f) {
+                t0 = Math.max(t0, q / p);
+            } else {
+                t1 = Math.min(t1, q / p);
+            }
+        }
+        if (t0 > t1)
+            return;
+        /* One more step on either side covers rounding differences between the clipping and the steps */
+        markSteps(x, y, dx, dy, steps, Math.max(0, (int) Math.floor(t0 * steps) - 1), Math.min(steps, (int) Math.ceil(t1 * steps) + 1));
+    }
+
+    /**
+     * Mark the points within a distance of one of the steps <code>s0</code> to <code>s1</code> of the edge from <code>(x, y)</code> to
+     * <code>(x + dx, y + dy)</code> divided into <code>steps</code> parts.
+     */
+    private void markSteps(float x, float y, float dx, float dy, int steps, int s0, int s1) {
+        for (int s = s0; s <= s1; s++) {
+            float t = (float) s / steps;
+            float sx = x + t * dx, sy = y + t * dy;
+            int x0 = Math.max(originX, (int) Math.ceil(sx - 1.0f)), x1 = Math.min(originX + width - 1, (int) Math.floor(sx + 1.0f));
+            int y0 = Math.max(originY, (int) Math.ceil(sy - 1.0f)), y1 = Math.min(originY + height - 1, (int) Math.floor(sy + 1.0f));
+            for (int py = y0; py <= y1; py++)
+                if (x0 <= x1)
+                    nearEdge.set((py - originY) * width + x0 - originX, (py - originY) * width + x1 - originX + 1);
+        }
+    }
+
+    private int index(float x, float y) {
+        int px = Math.round(x) - originX, py = Math.round(y) - originY;
+        if (px < 0 || py < 0 || px >= width || py >= height)
+            return -1;
+        return py * width + px;
+    }
+
+    /**
+     * Return the lowest id of all polygons containing the point with integer coordinates closest to the given point, or <code>-1</code>
+     * if there is none or the point lies outside of the bitmap.
+     */
+    public int polygonAt(float x, float y) {
+        int index = index(x, y);
+        return index >= 0 ? ids[index] - 1 : -1;
+    }
+
+    /**
+     * Return whether {@link #polygonAt(float, float)} may give a different answer than an exact test for the given point, because the
+     * point is close to an edge or outside of the bitmap.
+     */
+    public boolean needsExactTest(float x, float y) {
+        int index = index(x, y);
+        return index < 0 || nearEdge.get(index);
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.joml.lwjgl;
+
+import java.util.Random;
+
+/**
+ * Checks that a {@link PolygonRaster} reports the same polygon as {@link PolygonIndex#polygonAt(float, float)} for 200 strokes, for
+ * every pixel and for random points with fractional coordinates, also outside of the bitmap, wherever
+ * {@link PolygonRaster#needsExactTest(float, float)} does not ask for an exact test.
+ * <p>
+ * This is checked for a bitmap covering the 800x600 window and for a smaller one in its middle, which strokes cross and overhang.
+ */
+class PolygonRasterCheck {
+
+    static final int STROKES = 200;
+    static final int QUERIES = 200000;
+
+    static void check(PolygonIndex index, float[] verticesXY, int originX, int originY, int width, int height, Random rnd) {
+        int strokeVertices = RandomStrokes.STROKE_VERTICES;
+        PolygonRaster raster = new PolygonRaster(originX, originY, width, height);
+        for (int s = 0; s < STROKES; s++)
+            raster.add(s, verticesXY, s * strokeVertices, strokeVertices);
+        String name = width + "x" + height + " bitmap at (" + originX + ", " + originY + ")";
+        for (int y = originY; y < originY + height; y++)
+            for (int x = originX; x < originX + width; x++) {
+                int expected = index.polygonAt(x, y), actual = raster.polygonAt(x, y);
+                if (actual != expected && !raster.needsExactTest(x, y))
+                    throw new AssertionError(name + ", (" + x + ", " + y + "): expected " + expected + " but got " + actual);
+            }
+        for (int i = 0; i < QUERIES; i++) {
+            float x = originX + rnd.nextFloat() * (width + 20) - 10, y = originY + rnd.nextFloat() * (height + 20) - 10;
+            if (raster.needsExactTest(x, y))
+                continue;
+            int expected = index.polygonAt(x, y), actual = raster.polygonAt(x, y);
+            if (actual != expected)
+                throw new AssertionError(name + ", (" + x + ", " + y + "): expected " + expected + " but got " + actual);
+        }
+    }
+
+    static void check() {
+        Random rnd = new Random(1);
+        int strokeVertices = RandomStrokes.STROKE_VERTICES;
+        float[] verticesXY = new float[2 * STROKES * strokeVertices];
+        PolygonIndex index = new PolygonIndex();
+        for (int s = 0; s < STROKES; s++) {
+            RandomStrokes.stroke(rnd, verticesXY, s * strokeVertices, strokeVertices);
+            if (index.add(verticesXY, s * strokeVertices, strokeVertices) != s)
+                throw new AssertionError("unexpected polygon id");
+        }
+        check(index, verticesXY, 0, 0, RandomStrokes.WIDTH, RandomStrokes.HEIGHT, rnd);
+        check(index, verticesXY, 350, 250, 100, 100, rnd);
+    }
+
+}
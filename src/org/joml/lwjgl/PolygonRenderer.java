@@ -0,0 +1,346 @@
+package org.joml.lwjgl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL14.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL31.*;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+
+/**
+ * Draws the outlines of committed polygons from a VBO, and fills them from an index buffer of cached triangles.
+ * <p>
+ * The vertices of a polygon are uploaded once when it is added and appended to the vertices of the polygons added before, so a frame
+ * costs a single <code>glMultiDrawArrays</code> over the first vertex and vertex count of every polygon instead of a
+ * <code>glVertex2f</code> call per vertex. A single polygon, such as the one under the mouse cursor, can be drawn again on top in
+ * another color with {@link #draw(int)}.
+ * <p>
+ * Each added polygon is also triangulated once with the {@link PolygonTriangulator}, and its triangles are appended to an index buffer
+ * over the same vertices, so filling all polygons is a single <code>glDrawElements</code> and concave polygons never need to be
+ * triangulated again. The polygons of a file are only triangulated when they are first filled or {@link #triangulate()} is called,
+ * since triangulating is much more work per vertex than uploading, and loading a file should not wait for it.
+ * <p>
+ * When a buffer is full it is replaced by one of twice the size, copying its contents on the GPU with OpenGL 3.1 or through a
+ * read-back without it.
+ */
+public class PolygonRenderer {
+
+    private static final int BYTES_PER_VERTEX = 2 * 4;
+    private static final int BYTES_PER_INDEX = 4;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private final boolean copyBuffer;
+    private int vbo;
+    /**
+     * The number of vertices the VBO can hold.
+     */
+    private int capacity;
+    private int vertexCount;
+    private int polygonCount;
+    private IntBuffer firsts = BufferUtils.createIntBuffer(256);
+    private IntBuffer counts = BufferUtils.createIntBuffer(256);
+    private FloatBuffer staging = BufferUtils.createFloatBuffer(2 * 1024);
+
+    /* The triangles */
+    private final PolygonTriangulator triangulator = new PolygonTriangulator();
+    private int ibo;
+    /**
+     * The number of indices the IBO can hold.
+     */
+    private int indexCapacity;
+    private int indexCount;
+    /**
+     * The first index and the number of indices of the triangles of each polygon.
+     */
+    private final IntArray triangleFirsts = new IntArray();
+    private final IntArray triangleCounts = new IntArray();
+    /**
+     * The file whose polygons are not triangulated yet, or <code>null</code>, with the index of its first polygon and vertex.
+     */
+    private PolygonFile untriangulated;
+    private int untriangulatedPolygon, untriangulatedVertex;
+    /**
+     * The triangles not uploaded yet, as indices into the VBO.
+     */
+    private final IntArray triangles = new IntArray();
+    private IntBuffer indexStaging = BufferUtils.createIntBuffer(3 * 1024);
+
+    /**
+     * Create the renderer in the current OpenGL context.
+     */
+    public PolygonRenderer() {
+        copyBuffer = GL.getCapabilities().OpenGL31;
+    }
+
+    /**
+     * Return the new capacity for at least <code>minCapacity</code> elements.
+     */
+    private static int grow(int capacity, int minCapacity, int elementBytes) {
+        int newCapacity = (int) Math.min(Integer.MAX_VALUE / elementBytes,
+                Math.max(minCapacity, Math.max(INITIAL_CAPACITY, 2L * capacity)));
+        if (newCapacity < minCapacity)
+            throw new OutOfMemoryError("Too many elements: " + minCapacity);
+        return newCapacity;
+    }
+
+    /**
+     * Create a buffer of the given size holding the first <code>usedBytes</code> bytes of the given buffer, which is deleted.
+     */
+    private int resize(int buffer, long usedBytes, long newSize) {
+        int newBuffer = glGenBuffers();
+        if (copyBuffer || usedBytes == 0L) {
+            glBindBuffer(GL_ARRAY_BUFFER, newBuffer);
+            glBufferData(GL_ARRAY_BUFFER, newSize, GL_DYNAMIC_DRAW);
+            if (usedBytes > 0L) {
+                glBindBuffer(GL_COPY_READ_BUFFER, buffer);
+                glCopyBufferSubData(GL_COPY_READ_BUFFER, GL_ARRAY_BUFFER, 0L, 0L, usedBytes);
+                glBindBuffer(GL_COPY_READ_BUFFER, 0);
+            }
+        } else {
+            ByteBuffer old = BufferUtils.createByteBuffer((int) usedBytes);
+            glBindBuffer(GL_ARRAY_BUFFER, buffer);
+            glGetBufferSubData(GL_ARRAY_BUFFER, 0L, old);
+            glBindBuffer(GL_ARRAY_BUFFER, newBuffer);
+            glBufferData(GL_ARRAY_BUFFER, newSize, GL_DYNAMIC_DRAW);
+            glBufferSubData(GL_ARRAY_BUFFER, 0L, old);
+        }
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        if (buffer != 0)
+            glDeleteBuffers(buffer);
+        return newBuffer;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= capacity)
+            return;
+        int newCapacity = grow(capacity, minCapacity, BYTES_PER_VERTEX);
+        vbo = resize(vbo, (long) vertexCount * BYTES_PER_VERTEX, (long) newCapacity * BYTES_PER_VERTEX);
+        capacity = newCapacity;
+    }
+
+    private void ensureIndexCapacity(int minCapacity) {
+        if (minCapacity <= indexCapacity)
+            return;
+        int newCapacity = grow(indexCapacity, minCapacity, BYTES_PER_INDEX);
+        ibo = resize(ibo, (long) indexCount * BYTES_PER_INDEX, (long) newCapacity * BYTES_PER_INDEX);
+        indexCapacity = newCapacity;
+    }
+
+    private void addRange(int first, int count) {
+        if (polygonCount == firsts.capacity()) {
+            IntBuffer newFirsts = BufferUtils.createIntBuffer(2 * polygonCount);
+            IntBuffer newCounts = BufferUtils.createIntBuffer(2 * polygonCount);
+            firsts.clear();
+            counts.clear();
+            newFirsts.put(firsts).clear();
+            newCounts.put(counts).clear();
+            firsts = newFirsts;
+            counts = newCounts;
+        }
+        firsts.put(polygonCount, first);
+        counts.put(polygonCount, count);
+        triangleFirsts.add(0);
+        triangleCounts.add(0);
+        polygonCount++;
+    }
+
+    /**
+     * Triangulate the given polygon whose first vertex has the index <code>vboFirst</code> in the VBO, and queue its triangles for
+     * upload.
+     */
+    private void triangulate(int polygon, FloatBuffer verticesXY, int first, int count, int vboFirst) {
+        int start = triangles.size();
+        triangulator.triangulate(verticesXY, first, count, null, triangles);
+        for (int t = start; t < triangles.size(); t++)
+            triangles.set(t, triangles.get(t) + vboFirst);
+        triangleFirsts.set(polygon, indexCount + start);
+        triangleCounts.set(polygon, triangles.size() - start);
+    }
+
+    /**
+     * Triangulate the polygons added from a file which are not triangulated yet, if any.
+     */
+    public void triangulate() {
+        if (untriangulated == null)
+            return;
+        PolygonFile file = untriangulated;
+        untriangulated = null;
+        for (int p = 0; p < file.polygonCount(); p++)
+            triangulate(untriangulatedPolygon + p, file.vertices(), file.firstVertex(p), file.vertexCount(p),
+                    untriangulatedVertex + file.firstVertex(p));
+        uploadTriangles();
+    }
+
+    private void uploadTriangles() {
+        int n = triangles.size();
+        if (n == 0)
+            return;
+        ensureIndexCapacity(indexCount + n);
+        if (indexStaging.capacity() < n)
+            indexStaging = BufferUtils.createIntBuffer(Math.max(n, 2 * indexStaging.capacity()));
+        indexStaging.clear();
+        indexStaging.put(triangles.array(), 0, n).flip();
+        glBindBuffer(GL_ARRAY_BUFFER, ibo);
+        glBufferSubData(GL_ARRAY_BUFFER, (long) indexCount * BYTES_PER_INDEX, indexStaging);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        indexCount += n;
+        triangles.clear();
+    }
+
+    /**
+     * Add the polygon made of the <code>count</code> vertices starting at vertex <code>first</code> of the given <code>(x, y)</code>
+     * array.
+     *
+     * @return the index of the polygon, which is the number of polygons added before
+     */
+    public int add(float[] verticesXY, int first, int count) {
+        ensureCapacity(vertexCount + count);
+        if (count > 0) {
+            if (staging.capacity() < 2 * count)
+                staging = BufferUtils.createFloatBuffer(Math.max(2 * count, 2 * staging.capacity()));
+            staging.clear();
+            staging.put(verticesXY, 2 * first, 2 * count).flip();
+            glBindBuffer(GL_ARRAY_BUFFER, vbo);
+            glBufferSubData(GL_ARRAY_BUFFER, (long) vertexCount * BYTES_PER_VERTEX, staging);
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        }
+        addRange(vertexCount, count);
+        triangulate(polygonCount - 1, FloatBuffer.wrap(verticesXY), first, count, vertexCount);
+        uploadTriangles();
+        vertexCount += count;
+        return polygonCount - 1;
+    }
+
+    /**
+     * Add all polygons of the given file, uploading their vertices straight from the mapped file. They are triangulated when they are
+     * first filled.
+     */
+    public void add(PolygonFile file) {
+        triangulate();
+        int base = vertexCount;
+        ensureCapacity(vertexCount + file.vertexCount());
+        if (file.vertexCount() > 0) {
+            FloatBuffer verticesXY = file.vertices().duplicate();
+            verticesXY.clear();
+            glBindBuffer(GL_ARRAY_BUFFER, vbo);
+            glBufferSubData(GL_ARRAY_BUFFER, (long) base * BYTES_PER_VERTEX, verticesXY);
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        }
+        untriangulated = file;
+        untriangulatedPolygon = polygonCount;
+        untriangulatedVertex = base;
+        for (int p = 0; p < file.polygonCount(); p++)
+            addRange(base + file.firstVertex(p), file.vertexCount(p));
+        vertexCount += file.vertexCount();
+    }
+
+    /**
+     * Remove all polygons but keep the buffers.
+     */
+    public void clear() {
+        vertexCount = 0;
+        polygonCount = 0;
+        indexCount = 0;
+        triangleFirsts.clear();
+        triangleCounts.clear();
+        untriangulated = null;
+    }
+
+    public int polygonCount() {
+        return polygonCount;
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Return the number of triangles of all polygons triangulated so far.
+     */
+    public int triangleCount() {
+        return indexCount / 3;
+    }
+
+    private void bind() {
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glVertexPointer(2, GL_FLOAT, 0, 0L);
+    }
+
+    private void unbind() {
+        glDisableClientState(GL_VERTEX_ARRAY);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Draw the outlines of all polygons in the current color with the current model-view and projection matrices.
+     */
+    public void draw() {
+        if (polygonCount == 0)
+            return;
+        bind();
+        firsts.position(0).limit(polygonCount);
+        counts.position(0).limit(polygonCount);
+        glMultiDrawArrays(GL_LINE_LOOP, firsts, counts);
+        firsts.clear();
+        counts.clear();
+        unbind();
+    }
+
+    /**
+     * Draw the outline of the given polygon in the current color, for example to highlight it on top of {@link #draw()}.
+     */
+    public void draw(int polygon) {
+        if (polygon < 0 || polygon >= polygonCount)
+            return;
+        bind();
+        glDrawArrays(GL_LINE_LOOP, firsts.get(polygon), counts.get(polygon));
+        unbind();
+    }
+
+    /**
+     * Fill all polygons in the current color with the current model-view and projection matrices.
+     */
+    public void fill() {
+        triangulate();
+        if (indexCount == 0)
+            return;
+        bind();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
+        glDrawElements(GL_TRIANGLES, indexCount, GL_UNSIGNED_INT, 0L);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        unbind();
+    }
+
+    /**
+     * Fill the given polygon in the current color, for example to highlight it on top of {@link #fill()}.
+     */
+    public void fill(int polygon) {
+        triangulate();
+        if (polygon < 0 || polygon >= polygonCount || triangleCounts.get(polygon) == 0)
+            return;
+        bind();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
+        glDrawElements(GL_TRIANGLES, triangleCounts.get(polygon), GL_UNSIGNED_INT, (long) triangleFirsts.get(polygon) * BYTES_PER_INDEX);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        unbind();
+    }
+
+    public void destroy() {
+        if (vbo != 0)
+            glDeleteBuffers(vbo);
+        if (ibo != 0)
+            glDeleteBuffers(ibo);
+        vbo = 0;
+        ibo = 0;
+        capacity = 0;
+        indexCapacity = 0;
+        clear();
+    }
+
+}
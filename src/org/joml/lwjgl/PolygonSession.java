@@ -0,0 +1,419 @@
+package org.joml.lwjgl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The polygons of the {@link PolygonDrawer} and {@link PolygonDrawer2} together with the logic to draw, commit and query them, without
+ * any window or OpenGL state.
+ * <p>
+ * The GLFW callbacks of the demos only translate their input into calls of {@link #press()}, {@link #move(float, float)},
+ * {@link #release()} and {@link #query(float, float)}. While recording, every such call is written to a {@link PolygonTrace}, so the
+ * same input can later be replayed into another session without a window, at full speed or in real time, as with
+ * {@link PolygonTraceReplay}.
+ * <p>
+ * All positions are in polygon space, which is window space for the {@link PolygonDrawer}.
+ */
+public class PolygonSession {
+
+    /**
+     * Removed vertices of slowly drawn strokes are at most this many units away from the outline that is kept.
+     */
+    static final float SIMPLIFY_TOLERANCE = 1.0f;
+
+    final FloatArray vertices = new FloatArray(1024 * 1024);
+    /**
+     * The end of each drawn polygon in <code>vertices</code>.
+     */
+    final IntArray polygons = new IntArray();
+    /**
+     * Indexes the drawn polygons on a worker thread for the exact test near edges, so that committing never waits for it. It is only
+     * fed while {@link #exactNearEdges} is on, because all other queries of drawn polygons read the {@link #hoverRaster}.
+     */
+    final BackgroundPolygonIndex pointIntersection = new BackgroundPolygonIndex();
+    final PolygonSimplifier simplifier = new PolygonSimplifier();
+    /**
+     * The polygons loaded from a file, which are queried straight from the mapped file, or <code>null</code>. They come before the
+     * drawn polygons in the order of polygon ids.
+     */
+    PolygonFile loaded;
+    /**
+     * The drawn polygon under each point of the hover area, for looking up the polygon under the mouse cursor with a single array read.
+     */
+    final PolygonRaster hoverRaster = new PolygonRaster(0, 0, 0, 0);
+    /**
+     * Rasterizes the loaded polygons, which takes time proportional to their number of vertices, so that loading a file or resizing the
+     * hover area never waits for it.
+     */
+    private final ExecutorService rasterizer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "PolygonRaster builder");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    /**
+     * The loaded polygon under each point of the hover area, or <code>null</code> while {@link #rasterizing} them. Until then, queries
+     * test the loaded polygons exactly.
+     */
+    PolygonRaster loadedRaster;
+    private Future<PolygonRaster> rasterizing;
+    private int rasterX, rasterY, rasterWidth, rasterHeight;
+    /**
+     * Whether to run the exact test instead of reading the bitmap for points close to an edge.
+     */
+    boolean exactNearEdges;
+    boolean down;
+    /**
+     * The first vertex of the stroke being drawn, and the number of vertices.
+     */
+    int first, num;
+    /**
+     * The polygon found by the last query, or <code>-1</code>.
+     */
+    int hitPolygon = -1;
+    /**
+     * The latencies of all point queries since the polygons were last cleared or loaded.
+     */
+    final LatencyHistogram queryLatency = new LatencyHistogram();
+    /**
+     * The time it took to simplify, rasterize and submit each committed stroke to the index.
+     */
+    final LatencyHistogram commitLatency = new LatencyHistogram();
+    private PolygonTrace.Recorder recorder;
+
+    /**
+     * Return the number of polygons loaded from a file, which come before the polygons drawn since.
+     */
+    int loadedPolygons() {
+        return loaded != null ? loaded.polygonCount() : 0;
+    }
+
+    /**
+     * Return the number of loaded and drawn polygons.
+     */
+    int polygonCount() {
+        return loadedPolygons() + polygons.size();
+    }
+
+    /**
+     * Return the number of loaded and drawn vertices, including the stroke being drawn.
+     */
+    int vertexCount() {
+        return (loaded != null ? loaded.vertexCount() : 0) + num;
+    }
+
+    /**
+     * Return the first vertex of the given drawn polygon in <code>vertices</code>.
+     */
+    int firstVertex(int polygon) {
+        return polygon > 0 ? polygons.get(polygon - 1) : 0;
+    }
+
+    /**
+     * Return the number of vertices of the given drawn polygon.
+     */
+    int vertexCount(int polygon) {
+        return polygons.get(polygon) - firstVertex(polygon);
+    }
+
+    /**
+     * Start drawing a stroke.
+     */
+    void press() {
+        if (recorder != null)
+            recorder.event(PolygonTrace.PRESS);
+        down = true;
+        hitPolygon = -1;
+    }
+
+    /**
+     * Append the given position to the stroke being drawn, if any.
+     */
+    void move(float x, float y) {
+        if (!down)
+            return;
+        if (recorder != null)
+            recorder.position(PolygonTrace.MOVE, x, y);
+        vertices.add(x, y);
+        num++;
+    }
+
+    /**
+     * Simplify and commit the stroke being drawn.
+     *
+     * @return the index of the committed polygon among the drawn polygons, or <code>-1</code> if no stroke was being drawn
+     */
+    int release() {
+        if (!down)
+            return -1;
+        if (recorder != null)
+            recorder.event(PolygonTrace.RELEASE);
+        long time1 = System.nanoTime();
+        down = false;
+        num = first + simplifier.simplify(vertices.array(), first, num - first, SIMPLIFY_TOLERANCE);
+        vertices.setSize(2 * num);
+        polygons.add(num);
+        // Only index the new polygon, and do it in the background. Queries use the previous polygons until it is done
+        if (exactNearEdges)
+            pointIntersection.add(vertices.array(), first, num - first);
+        hoverRaster.add(polygonCount() - 1, vertices.array(), first, num - first);
+        first = num;
+        commitLatency.record(System.nanoTime() - time1);
+        return polygons.size() - 1;
+    }
+
+    /**
+     * Return the id of the first loaded polygon containing the given point, from the bitmap if it is done and the point is not close to
+     * an edge, or else with the exact test.
+     */
+    private int loadedPolygonAt(float x, float y) {
+        if (loadedRaster == null && rasterizing.isDone())
+            loadedRaster = rasterized();
+        if (loadedRaster == null || exactNearEdges && loadedRaster.needsExactTest(x, y))
+            return loaded.polygonAt(x, y);
+        return loadedRaster.polygonAt(x, y);
+    }
+
+    /**
+     * Return the id of the first drawn polygon containing the given point with the exact test, or <code>-1</code>.
+     */
+    private int exactPolygonAt(float x, float y) {
+        int id = pointIntersection.polygonAt(x, y);
+        return id >= 0 ? loadedPolygons() + id : -1;
+    }
+
+    /**
+     * Look up the polygon under the given point and remember it as {@link #hitPolygon}.
+     *
+     * @return the id of the polygon, or <code>-1</code> if there is none
+     */
+    int query(float x, float y) {
+        if (recorder != null)
+            recorder.position(PolygonTrace.QUERY, x, y);
+        return refresh(x, y);
+    }
+
+    /**
+     * Like {@link #query(float, float)}, but without recording the query, for a point that moved in polygon space without any input,
+     * such as the cursor of the {@link PolygonDrawer2} while the polygons rotate under it.
+     *
+     * @return the id of the polygon, or <code>-1</code> if there is none
+     */
+    int refresh(float x, float y) {
+        if (polygonCount() == 0)
+            return hitPolygon = -1;
+        long time1 = System.nanoTime();
+        int hit = loaded != null ? loadedPolygonAt(x, y) : -1;
+        if (hit < 0 && exactNearEdges && hoverRaster.needsExactTest(x, y))
+            hit = exactPolygonAt(x, y);
+        else if (hit < 0)
+            hit = hoverRaster.polygonAt(x, y);
+        long time2 = System.nanoTime();
+        queryLatency.record(time2 - time1);
+        return hitPolygon = hit;
+    }
+
+    private void reset() {
+        num = 0;
+        first = 0;
+        down = false;
+        vertices.clear();
+        polygons.clear();
+        pointIntersection.clear();
+        hitPolygon = -1;
+        queryLatency.reset();
+        commitLatency.reset();
+        pointIntersection.staleness().reset();
+        simplifier.resetStatistics();
+    }
+
+    /**
+     * Remove all polygons.
+     */
+    void clear() {
+        if (recorder != null)
+            recorder.event(PolygonTrace.CLEAR);
+        reset();
+        loaded = null;
+        rasterizeLoaded();
+        hoverRaster.clear();
+    }
+
+    /**
+     * Replace all polygons with the polygons of the given file.
+     */
+    void load(File path) throws IOException {
+        PolygonFile file = PolygonFile.open(path);
+        if (recorder != null)
+            recorder.load(path.getAbsolutePath());
+        reset();
+        loaded = file;
+        rebuildRaster();
+    }
+
+    /**
+     * Save all polygons to the given file.
+     */
+    void store(File path) throws IOException {
+        PolygonFile.write(path, loaded, vertices.array(), polygons.array(), polygons.size());
+    }
+
+    /**
+     * Let the hover bitmap cover the points <code>(originX + i, originY + j)</code> with <code>0 &lt;= i &lt; width</code> and
+     * <code>0 &lt;= j &lt; height</code>, and rasterize all polygons again if that changed.
+     */
+    void setRasterBounds(int originX, int originY, int width, int height) {
+        if (originX == rasterX && originY == rasterY && width == rasterWidth && height == rasterHeight)
+            return;
+        if (recorder != null)
+            recorder.rasterBounds(originX, originY, width, height);
+        rasterX = originX;
+        rasterY = originY;
+        rasterWidth = width;
+        rasterHeight = height;
+        rebuildRaster();
+    }
+
+    private void rebuildRaster() {
+        rasterizeLoaded();
+        hoverRaster.resize(rasterX, rasterY, rasterWidth, rasterHeight);
+        for (int i = 0; i < polygons.size(); i++)
+            hoverRaster.add(loadedPolygons() + i, vertices.array(), firstVertex(i), vertexCount(i));
+    }
+
+    /**
+     * Drop the bitmap of the loaded polygons and start rasterizing the current ones on the worker, cancelling any rasterization still
+     * running for previous ones.
+     */
+    private void rasterizeLoaded() {
+        if (rasterizing != null)
+            rasterizing.cancel(true);
+        rasterizing = null;
+        loadedRaster = null;
+        if (loaded == null)
+            return;
+        final PolygonFile file = loaded;
+        final int originX = rasterX, originY = rasterY, width = rasterWidth, height = rasterHeight;
+        rasterizing = rasterizer.submit(new Callable<PolygonRaster>() {
+            public PolygonRaster call() {
+                PolygonRaster raster = new PolygonRaster(originX, originY, width, height);
+                for (int p = 0; p < file.polygonCount() && !Thread.currentThread().isInterrupted(); p++)
+                    raster.add(p, file.vertices(), file.firstVertex(p), file.vertexCount(p));
+                return raster;
+            }
+        });
+    }
+
+    /**
+     * Return the bitmap of the loaded polygons, waiting for the worker if it is not done yet.
+     */
+    private PolygonRaster rasterized() {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return rasterizing.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new AssertionError(e);
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait until the loaded polygons are rasterized, so that queries read them from the bitmap like the drawn polygons and give the
+     * same answers every time.
+     */
+    void awaitRaster() {
+        if (loadedRaster == null && rasterizing != null)
+            loadedRaster = rasterized();
+    }
+
+    /**
+     * Switch the exact test near edges on or off. Switching it on indexes all drawn polygons in the background, and switching it off
+     * drops that index.
+     */
+    void setExactNearEdges(boolean exact) {
+        if (recorder != null)
+            recorder.exactNearEdges(exact);
+        if (exact == exactNearEdges)
+            return;
+        exactNearEdges = exact;
+        pointIntersection.clear();
+        pointIntersection.staleness().reset();
+        if (exact)
+            pointIntersection.addAll(vertices.array(), polygons.array(), polygons.size());
+    }
+
+    boolean isRecording() {
+        return recorder != null;
+    }
+
+    /**
+     * Start recording all input into the given trace file.
+     * <p>
+     * The trace starts with the current state: any polygons are saved to a polygon file next to the trace, whose name is the name of
+     * the trace followed by <code>.gon</code>, and loaded from there on replay.
+     */
+    void startRecording(File path) throws IOException {
+        stopRecording();
+        PolygonTrace.Recorder recorder = new PolygonTrace.Recorder(path);
+        if (polygonCount() > 0) {
+            File polygonsPath = new File(path.getPath() + ".gon");
+            try {
+                store(polygonsPath);
+            } catch (IOException e) {
+                recorder.close();
+                throw e;
+            }
+            recorder.load(polygonsPath.getAbsolutePath());
+        } else {
+            recorder.event(PolygonTrace.CLEAR);
+        }
+        recorder.rasterBounds(rasterX, rasterY, rasterWidth, rasterHeight);
+        recorder.exactNearEdges(exactNearEdges);
+        if (down) {
+            recorder.event(PolygonTrace.PRESS);
+            float[] verticesXY = vertices.array();
+            for (int i = first; i < num; i++)
+                recorder.position(PolygonTrace.MOVE, verticesXY[2 * i], verticesXY[2 * i + 1]);
+        }
+        this.recorder = recorder;
+    }
+
+    /**
+     * Stop recording, if recording.
+     *
+     * @return the number of recorded events
+     */
+    long stopRecording() throws IOException {
+        if (recorder == null)
+            return 0L;
+        PolygonTrace.Recorder recorder = this.recorder;
+        this.recorder = null;
+        recorder.close();
+        return recorder.events();
+    }
+
+    /**
+     * Stop recording and the worker threads of the index and the bitmap.
+     */
+    void shutdown() throws IOException {
+        pointIntersection.shutdown();
+        rasterizer.shutdownNow();
+        stopRecording();
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.joml.lwjgl;
+
+import java.util.Arrays;
+
+/**
+ * Reduces the number of vertices of closed polygons with the Douglas-Peucker algorithm.
+ * <p>
+ * Every removed vertex lies within the given tolerance of the simplified outline, so a point farther away than the tolerance from the
+ * original outline is inside of the simplified polygon if and only if it was inside of the original one.
+ * <p>
+ * The work arrays are reused between calls, and the simplifier counts how many vertices it was given and how many it kept.
+ */
+public class PolygonSimplifier {
+
+    private int[] stack = new int[64];
+    private boolean[] keep = new boolean[256];
+    private long inputVertices;
+    private long outputVertices;
+
+    /**
+     * Simplify the closed polygon made of the <code>count</code> vertices starting at vertex <code>first</code> of the given
+     * <code>(x, y)</code> array in place.
+     *
+     * @param tolerance
+     *          the maximum distance of a removed vertex to the simplified outline
+     * @return the number of remaining vertices, which now start at vertex <code>first</code>
+     */
+    public int simplify(float[] verticesXY, int first, int count, float tolerance) {
+        inputVertices += count;
+        if (count <= 3) {
+            outputVertices += count;
+            return count;
+        }
+        if (keep.length < count)
+            keep = new boolean[Math.max(count, keep.length * 2)];
+        Arrays.fill(keep, 0, count, false);
+        /* Split the ring at its first vertex and the vertex farthest from it, which both stay */
+        float x0 = verticesXY[2 * first], y0 = verticesXY[2 * first + 1];
+        int farthest = 0;
+        float maxDistSq = -1.0f;
+        for (int i = 1; i < count; i++) {
+            float dx = verticesXY[2 * (first + i)] - x0, dy = verticesXY[2 * (first + i) + 1] - y0;
+            float distSq = dx * dx + dy * dy;
+            if (distSq > maxDistSq) {
+                maxDistSq = distSq;
+                farthest = i;
+            }
+        }
+        keep[0] = true;
+        keep[farthest] = true;
+        float toleranceSq = tolerance * tolerance;
+        simplifySection(verticesXY, first, count, 0, farthest, toleranceSq);
+        simplifySection(verticesXY, first, count, farthest, count, toleranceSq);
+        /* Move the kept vertices to the front */
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (!keep[i])
+                continue;
+            verticesXY[2 * (first + n)] = verticesXY[2 * (first + i)];
+            verticesXY[2 * (first + n) + 1] = verticesXY[2 * (first + i) + 1];
+            n++;
+        }
+        outputVertices += n;
+        return n;
+    }
+
+    /**
+     * Mark the vertices to keep between vertex <code>start</code> and <code>end</code> (exclusive), where <code>end == count</code>
+     * stands for vertex 0.
+     */
+    private void simplifySection(float[] verticesXY, int first, int count, int start, int end, float toleranceSq) {
+        int top = 0;
+        stack[top++] = start;
+        stack[top++] = end;
+        while (top > 0) {
+            int b = stack[--top], a = stack[--top];
+            float ax = verticesXY[2 * (first + a)], ay = verticesXY[2 * (first + a) + 1];
+            int bi = b == count ? 0 : b;
+            float bx = verticesXY[2 * (first + bi)], by = verticesXY[2 * (first + bi) + 1];
+            int farthest = -1;
+            float maxDistSq = toleranceSq;
+            for (int i = a + 1; i < b; i++) {
+                float distSq = distanceSquared(verticesXY[2 * (first + i)], verticesXY[2 * (first + i) + 1], ax, ay, bx, by);
+                if (distSq > maxDistSq) {
+                    maxDistSq = distSq;
+                    farthest = i;
+                }
+            }
+            if (farthest < 0)
+                continue;
+            keep[farthest] = true;
+            if (top + 4 > stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[top++] = a;
+            stack[top++] = farthest;
+            stack[top++] = farthest;
+            stack[top++] = b;
+        }
+    }
+
+    /**
+     * Return the squared distance of the point <code>(px, py)</code> to the line segment from <code>(ax, ay)</code> to
+     * <code>(bx, by)</code>.
+     */
+    static float distanceSquared(float px, float py, float ax, float ay, float bx, float by) {
+        float abx = bx - ax, aby = by - ay;
+        float apx = px - ax, apy = py - ay;
+        float lengthSq = abx * abx + aby * aby;
+        float t = lengthSq > 0.0f ? Math.max(0.0f, Math.min(1.0f, (apx * abx + apy * aby) / lengthSq)) : 0.0f;
+        float dx = apx - t * abx, dy = apy - t * aby;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Return the number of vertices given to {@link #simplify} so far.
+     */
+    public long inputVertices() {
+        return inputVertices;
+    }
+
+    /**
+     * Return the number of vertices kept by {@link #simplify} so far.
+     */
+    public long outputVertices() {
+        return outputVertices;
+    }
+
+    /**
+     * Return the fraction of vertices kept so far, or 1 if nothing was simplified yet.
+     */
+    public float keptRatio() {
+        return inputVertices == 0L ? 1.0f : (float) outputVertices / inputVertices;
+    }
+
+    public void resetStatistics() {
+        inputVertices = 0L;
+        outputVertices = 0L;
+    }
+
+}
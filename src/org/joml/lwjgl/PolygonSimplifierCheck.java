@@ -0,0 +1,81 @@
+package org.joml.lwjgl;
+
+import java.util.Random;
+
+/**
+ * Simplifies slowly drawn strokes in place like the {@link PolygonDrawer} does when committing them, and checks that every removed
+ * vertex lies within the tolerance of the simplified outline. It also checks that a {@link PolygonIndex} over the simplified strokes
+ * reports the same polygon as one over the original strokes for every random point farther away than the tolerance from all original
+ * outlines.
+ */
+class PolygonSimplifierCheck {
+
+    static final int STROKES = 200;
+    static final int QUERIES = 20000;
+    static final float TOLERANCE = 1.0f;
+
+    /**
+     * Return the distance of the given point to the closest edge of the given closed polygon.
+     */
+    static float distance(float[] verticesXY, int first, int count, float x, float y) {
+        float minDistSq = Float.POSITIVE_INFINITY;
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            int a = 2 * (first + j), b = 2 * (first + i);
+            minDistSq = Math.min(minDistSq, PolygonSimplifier.distanceSquared(x, y, verticesXY[a], verticesXY[a + 1], verticesXY[b],
+                    verticesXY[b + 1]));
+        }
+        return (float) Math.sqrt(minDistSq);
+    }
+
+    static void check() {
+        Random rnd = new Random(1);
+        FloatArray original = new FloatArray();
+        int[] polygons = new int[STROKES];
+        for (int s = 0; s < STROKES; s++) {
+            RandomStrokes.slowStroke(rnd, original);
+            polygons[s] = original.size() / 2;
+        }
+        float[] originalXY = original.array();
+        float[] simplifiedXY = originalXY.clone();
+        int[] simplifiedPolygons = new int[STROKES];
+        PolygonSimplifier simplifier = new PolygonSimplifier();
+
+        /* Move each simplified stroke right behind the previous one */
+        int num = 0;
+        for (int s = 0, first = 0; s < STROKES; first = polygons[s++]) {
+            int count = polygons[s] - first;
+            System.arraycopy(simplifiedXY, 2 * first, simplifiedXY, 2 * num, 2 * count);
+            num += simplifier.simplify(simplifiedXY, num, count, TOLERANCE);
+            simplifiedPolygons[s] = num;
+        }
+        if (simplifier.outputVertices() >= simplifier.inputVertices())
+            throw new AssertionError("no vertex removed");
+
+        for (int s = 0, first = 0, sFirst = 0; s < STROKES; first = polygons[s], sFirst = simplifiedPolygons[s++]) {
+            for (int i = first; i < polygons[s]; i++) {
+                float d = distance(simplifiedXY, sFirst, simplifiedPolygons[s] - sFirst, originalXY[2 * i], originalXY[2 * i + 1]);
+                if (d > TOLERANCE * 1.001f)
+                    throw new AssertionError("vertex " + i + " of stroke " + s + " is " + d + " away from the simplified outline");
+            }
+        }
+
+        PolygonIndex originalIndex = new PolygonIndex(), simplifiedIndex = new PolygonIndex();
+        for (int s = 0, first = 0, sFirst = 0; s < STROKES; first = polygons[s], sFirst = simplifiedPolygons[s++]) {
+            originalIndex.add(originalXY, first, polygons[s] - first);
+            simplifiedIndex.add(simplifiedXY, sFirst, simplifiedPolygons[s] - sFirst);
+        }
+        for (int q = 0; q < QUERIES; q++) {
+            float x = rnd.nextFloat() * RandomStrokes.WIDTH, y = rnd.nextFloat() * RandomStrokes.HEIGHT;
+            int expected = originalIndex.polygonAt(x, y), actual = simplifiedIndex.polygonAt(x, y);
+            if (actual == expected)
+                continue;
+            /* Only points within the tolerance of an original outline may change */
+            boolean nearOutline = false;
+            for (int s = 0, first = 0; s < STROKES && !nearOutline; first = polygons[s++])
+                nearOutline = distance(originalXY, first, polygons[s] - first, x, y) <= TOLERANCE;
+            if (!nearOutline)
+                throw new AssertionError("(" + x + ", " + y + "): expected " + expected + " but got " + actual);
+        }
+    }
+
+}
@@ -0,0 +1,278 @@
+package org.joml.lwjgl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A compact binary trace of the input a {@link PolygonSession} received, which can be replayed into another session without a window.
+ * <p>
+ * The file starts with the magic number and the version, followed by one record per event. A record is the event type in one byte,
+ * the time since the previous event in microseconds as a variable-length integer, and the payload of the event. Positions are stored
+ * in sixteenths of a unit as the zigzag-encoded variable-length difference to the previous position, so a mouse movement of a few
+ * pixels takes four to five bytes in total. The trace ends at the end of the file.
+ */
+public class PolygonTrace {
+
+    static final int MAGIC = 0x43525450; // "PTRC"
+    static final int VERSION = 1;
+    /**
+     * Positions are stored in units of <code>1 / POSITION_SCALE</code>.
+     */
+    static final float POSITION_SCALE = 16.0f;
+
+    static final int PRESS = 1;
+    static final int RELEASE = 2;
+    /**
+     * Followed by the position.
+     */
+    static final int MOVE = 3;
+    /**
+     * Followed by the position.
+     */
+    static final int QUERY = 4;
+    static final int CLEAR = 5;
+    /**
+     * Followed by the path of the polygon file as modified UTF-8.
+     */
+    static final int LOAD = 6;
+    /**
+     * Followed by the origin, width and height of the hover bitmap as zigzag-encoded variable-length integers.
+     */
+    static final int RASTER_BOUNDS = 7;
+    /**
+     * Followed by one byte which is <code>1</code> if the exact test is used near edges or <code>0</code> otherwise.
+     */
+    static final int EXACT_NEAR_EDGES = 8;
+
+    /**
+     * Writes the events of a session to a trace file.
+     * <p>
+     * Since events are recorded from the GLFW callbacks, writing never throws. The first {@link IOException} stops the recording and is
+     * thrown by {@link #close()}.
+     */
+    public static class Recorder {
+        private final DataOutputStream out;
+        private long lastTime = System.nanoTime();
+        private int lastX, lastY;
+        private long events;
+        private IOException error;
+
+        public Recorder(File path) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 64 * 1024));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+            } catch (IOException e) {
+                out.close();
+                throw e;
+            }
+        }
+
+        private void writeVarInt(long v) throws IOException {
+            while ((v & ~0x7FL) != 0L) {
+                out.writeByte((int) (v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out.writeByte((int) v);
+        }
+
+        private void writeZigZag(int v) throws IOException {
+            writeVarInt(((v << 1) ^ (v >> 31)) & 0xFFFFFFFFL);
+        }
+
+        private boolean begin(int type) {
+            if (error != null)
+                return false;
+            long time = System.nanoTime();
+            /* Round the times and not the differences, so that rounding errors do not add up */
+            long micros = time / 1000L - lastTime / 1000L;
+            lastTime = time;
+            try {
+                out.writeByte(type);
+                writeVarInt(micros);
+                events++;
+                return true;
+            } catch (IOException e) {
+                error = e;
+                return false;
+            }
+        }
+
+        void event(int type) {
+            begin(type);
+        }
+
+        void position(int type, float x, float y) {
+            if (!begin(type))
+                return;
+            int qx = Math.round(x * POSITION_SCALE), qy = Math.round(y * POSITION_SCALE);
+            try {
+                writeZigZag(qx - lastX);
+                writeZigZag(qy - lastY);
+            } catch (IOException e) {
+                error = e;
+            }
+            lastX = qx;
+            lastY = qy;
+        }
+
+        void load(String path) {
+            if (!begin(LOAD))
+                return;
+            try {
+                out.writeUTF(path);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        void rasterBounds(int originX, int originY, int width, int height) {
+            if (!begin(RASTER_BOUNDS))
+                return;
+            try {
+                writeZigZag(originX);
+                writeZigZag(originY);
+                writeZigZag(width);
+                writeZigZag(height);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        void exactNearEdges(boolean exact) {
+            if (!begin(EXACT_NEAR_EDGES))
+                return;
+            try {
+                out.writeByte(exact ? 1 : 0);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        /**
+         * Return the number of events recorded so far.
+         */
+        public long events() {
+            return events;
+        }
+
+        /**
+         * Finish the trace.
+         *
+         * @throws IOException
+         *          if writing any event or closing the file failed
+         */
+        public void close() throws IOException {
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (error == null)
+                    error = e;
+            }
+            if (error != null)
+                throw error;
+        }
+    }
+
+    private static long readVarInt(DataInputStream in) throws IOException {
+        long v = 0L;
+        for (int shift = 0;; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return v;
+            if (shift > 56)
+                throw new IOException("Corrupt trace: variable-length integer too long");
+        }
+    }
+
+    private static int readZigZag(DataInputStream in) throws IOException {
+        int v = (int) readVarInt(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Replay the trace in the given file into the given session, which should be new or cleared.
+     *
+     * @param realTime
+     *          whether to wait between the events as long as between their recording, or else to replay them as fast as possible,
+     *          waiting for loaded polygons to be rasterized before the next event so that queries give the same answers every time
+     * @param queryResults
+     *          if not <code>null</code>, the result of every query is appended to it
+     * @return the number of replayed events
+     */
+    public static long replay(File path, PolygonSession session, boolean realTime, IntArray queryResults) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path), 64 * 1024));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Not a polygon trace: " + path);
+            long start = System.nanoTime();
+            long time = 0L;
+            long events = 0L;
+            int x = 0, y = 0;
+            while (true) {
+                int type = in.read();
+                if (type < 0)
+                    return events;
+                time += readVarInt(in) * 1000L;
+                if (realTime) {
+                    long wait;
+                    while ((wait = start + time - System.nanoTime()) > 0L)
+                        LockSupport.parkNanos(wait);
+                }
+                switch (type) {
+                case PRESS:
+                    session.press();
+                    break;
+                case RELEASE:
+                    session.release();
+                    break;
+                case MOVE:
+                case QUERY:
+                    x += readZigZag(in);
+                    y += readZigZag(in);
+                    if (type == MOVE)
+                        session.move(x / POSITION_SCALE, y / POSITION_SCALE);
+                    else {
+                        int hit = session.query(x / POSITION_SCALE, y / POSITION_SCALE);
+                        if (queryResults != null)
+                            queryResults.add(hit);
+                    }
+                    break;
+                case CLEAR:
+                    session.clear();
+                    break;
+                case LOAD:
+                    session.load(new File(in.readUTF()));
+                    if (!realTime)
+                        session.awaitRaster();
+                    break;
+                case RASTER_BOUNDS:
+                    session.setRasterBounds(readZigZag(in), readZigZag(in), readZigZag(in), readZigZag(in));
+                    if (!realTime)
+                        session.awaitRaster();
+                    break;
+                case EXACT_NEAR_EDGES:
+                    session.setExactNearEdges(in.readUnsignedByte() != 0);
+                    break;
+                default:
+                    throw new IOException("Corrupt trace: unknown event type " + type + " in " + path);
+                }
+                events++;
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated trace: " + path);
+        } finally {
+            in.close();
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.joml.lwjgl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Replays a {@link PolygonTrace} recorded with the 'R' key of the {@link PolygonDrawer} or {@link PolygonDrawer2} into a
+ * {@link PolygonSession} without a window, and reports the latencies of committing and querying.
+ * <p>
+ * Usage: <code>PolygonTraceReplay [trace [--realtime]]</code>. With <code>--realtime</code> the events are replayed with the same delays
+ * as they were recorded with, otherwise as fast as possible.
+ * <p>
+ * Without a trace it records a trace of generated strokes and mouse movements over an 800x600 window, replays it at full speed, and
+ * checks that the replay reports the same polygon for every query as the recorded session.
+ */
+public class PolygonTraceReplay {
+
+    static final int STROKES = 200;
+    static final int HOVER_MOVES = 100;
+
+    /**
+     * Record drawing {@link RandomStrokes#slowStroke slow strokes} with hover movements in between into the given file.
+     *
+     * @return the result of every query of the recorded session
+     */
+    static IntArray record(File trace) throws IOException {
+        Random rnd = new Random(1);
+        PolygonSession session = new PolygonSession();
+        IntArray results = new IntArray();
+        session.setRasterBounds(0, 0, RandomStrokes.WIDTH, RandomStrokes.HEIGHT);
+        session.startRecording(trace);
+        FloatArray stroke = new FloatArray();
+        for (int s = 0; s < STROKES; s++) {
+            stroke.clear();
+            int count = RandomStrokes.slowStroke(rnd, stroke);
+            session.press();
+            for (int i = 0; i < count; i++)
+                session.move(stroke.get(2 * i), stroke.get(2 * i + 1));
+            session.release();
+            int x = (int) stroke.get(0), y = (int) stroke.get(1);
+            for (int i = 0; i < HOVER_MOVES; i++) {
+                x = Math.max(0, Math.min(RandomStrokes.WIDTH - 1, x + rnd.nextInt(7) - 3));
+                y = Math.max(0, Math.min(RandomStrokes.HEIGHT - 1, y + rnd.nextInt(7) - 3));
+                results.add(session.query(x, y));
+            }
+        }
+        long events = session.stopRecording();
+        session.shutdown();
+        System.out.printf("recorded %d events in %d bytes (%.1f bytes per event)%n", events, trace.length(),
+                (double) trace.length() / events);
+        return results;
+    }
+
+    static void report(PolygonSession session, long events, long nanos) {
+        System.out.printf("replayed %d events in %.1f ms (%.0f events/s): %d polygons, %d vertices%n", events, nanos / 1E6,
+                events / (nanos / 1E9), session.polygonCount(), session.vertexCount());
+        System.out.println("commit: " + session.commitLatency.count() + " strokes, " + session.commitLatency.summary());
+        System.out.println("query:  " + session.queryLatency.count() + " queries, " + session.queryLatency.summary());
+        /* The exact index is only fed while the exact test near edges is on */
+        if (!session.exactNearEdges)
+            return;
+        System.out.println("index:  " + session.pointIntersection.publishLatency().count() + " publishes, "
+                + session.pointIntersection.publishLatency().summary());
+        System.out.println("stale:  " + session.pointIntersection.staleness().count() + " queries, max "
+                + session.pointIntersection.staleness().max() / 1000L + " µs");
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        File trace;
+        IntArray expected = null;
+        boolean realTime = args.length > 1 && args[1].equals("--realtime");
+        if (args.length > 0) {
+            trace = new File(args[0]);
+        } else {
+            trace = File.createTempFile("polygons", ".trace");
+            trace.deleteOnExit();
+            expected = record(trace);
+        }
+
+        PolygonSession session = new PolygonSession();
+        IntArray results = new IntArray();
+        long t0 = System.nanoTime();
+        long events = PolygonTrace.replay(trace, session, realTime, results);
+        long t1 = System.nanoTime();
+        session.pointIntersection.awaitPublished();
+        report(session, events, t1 - t0);
+        session.shutdown();
+
+        if (expected == null)
+            return;
+        /* The bitmap is updated when committing, so without the exact test every query must give the same answer */
+        if (results.size() != expected.size())
+            throw new AssertionError("expected " + expected.size() + " queries but replayed " + results.size());
+        for (int q = 0; q < expected.size(); q++)
+            if (results.get(q) != expected.get(q))
+                throw new AssertionError("query " + q + ": expected " + expected.get(q) + " but got " + results.get(q));
+        if (session.polygonCount() != STROKES)
+            throw new AssertionError("expected " + STROKES + " polygons but got " + session.polygonCount());
+        System.out.println("OK");
+    }
+
+}
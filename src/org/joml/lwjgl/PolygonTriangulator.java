@@ -0,0 +1,574 @@
+package org.joml.lwjgl;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Triangulates polygons with holes by ear clipping, following the approach of the <a href="https://github.com/mapbox/earcut">earcut</a>
+ * library.
+ * <p>
+ * The vertices are put into a circular doubly linked list, holes are joined with the outer ring through bridges to the closest visible
+ * vertex, and then ears are clipped off one after another. For polygons with more than 80 vertices the vertices are additionally sorted
+ * along a z-order curve, so that checking whether an ear contains other vertices only visits the vertices near it. Self-intersecting
+ * polygons, as drawn with the mouse, are still triangulated as good as possible by curing local self-intersections and splitting the
+ * polygon along valid diagonals when no ear is left.
+ */
+public class PolygonTriangulator {
+
+    private static final int HASH_THRESHOLD = 80;
+
+    private static final class Node {
+        /**
+         * The index of the vertex, relative to the first vertex of the polygon.
+         */
+        final int i;
+        final double x, y;
+        Node prev, next;
+        /**
+         * The z-order curve value and the neighbours in z-order.
+         */
+        int z;
+        Node prevZ, nextZ;
+        /**
+         * Whether this is a hole made of a single vertex.
+         */
+        boolean steiner;
+
+        Node(int i, double x, double y) {
+            this.i = i;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static final Comparator<Node> BY_X = new Comparator<Node>() {
+        public int compare(Node a, Node b) {
+            return Double.compare(a.x, b.x);
+        }
+    };
+
+    private IntArray triangles;
+    private double minX, minY, invSize;
+    private Node[] holeQueue = new Node[4];
+
+    /**
+     * Triangulate the polygon made of the <code>count</code> vertices starting at vertex <code>first</code> of the given
+     * <code>(x, y)</code> array.
+     *
+     * @param triangles
+     *          receives three vertex indices per triangle, relative to <code>first</code>
+     * @return the number of triangles added
+     */
+    public int triangulate(float[] verticesXY, int first, int count, IntArray triangles) {
+        return triangulate(FloatBuffer.wrap(verticesXY), first, count, null, triangles);
+    }
+
+    /**
+     * Triangulate the polygon made of the <code>count</code> vertices starting at vertex <code>first</code> of the given buffer of
+     * <code>(x, y)</code> coordinates, with holes.
+     *
+     * @param holes
+     *          the index of the first vertex of each hole relative to <code>first</code>, in ascending order. The vertices before the first
+     *          hole form the outer ring and each hole ends where the next one starts. May be <code>null</code>
+     * @param triangles
+     *          receives three vertex indices per triangle, relative to <code>first</code>
+     * @return the number of triangles added
+     */
+    public int triangulate(FloatBuffer verticesXY, int first, int count, int[] holes, IntArray triangles) {
+        int start = triangles.size();
+        boolean hasHoles = holes != null && holes.length > 0;
+        int outerCount = hasHoles ? holes[0] : count;
+        Node outer = linkedList(verticesXY, first, 0, outerCount, true);
+        if (outer == null || outer.next == outer.prev)
+            return 0;
+        this.triangles = triangles;
+        try {
+            if (hasHoles)
+                outer = eliminateHoles(verticesXY, first, count, holes, outer);
+            invSize = 0.0;
+            if (count > HASH_THRESHOLD) {
+                double maxX, maxY;
+                minX = maxX = verticesXY.get(2 * first);
+                minY = maxY = verticesXY.get(2 * first + 1);
+                for (int i = 1; i < outerCount; i++) {
+                    double x = verticesXY.get(2 * (first + i)), y = verticesXY.get(2 * (first + i) + 1);
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                }
+                /* Map the bounding box to [0, 32767] for the z-order curve */
+                invSize = Math.max(maxX - minX, maxY - minY);
+                invSize = invSize != 0.0 ? 32767.0 / invSize : 0.0;
+            }
+            earcutLinked(outer, 0);
+        } finally {
+            this.triangles = null;
+            Arrays.fill(holeQueue, null);
+        }
+        return (triangles.size() - start) / 3;
+    }
+
+    /**
+     * Create a circular linked list of the given vertices in the given winding order.
+     */
+    private static Node linkedList(FloatBuffer verticesXY, int first, int from, int to, boolean clockwise) {
+        Node last = null;
+        if (clockwise == (signedArea(verticesXY, first, from, to) > 0.0)) {
+            for (int i = from; i < to; i++)
+                last = insertNode(i, verticesXY.get(2 * (first + i)), verticesXY.get(2 * (first + i) + 1), last);
+        } else {
+            for (int i = to - 1; i >= from; i--)
+                last = insertNode(i, verticesXY.get(2 * (first + i)), verticesXY.get(2 * (first + i) + 1), last);
+        }
+        if (last != null && equals(last, last.next)) {
+            removeNode(last);
+            last = last.next;
+        }
+        return last;
+    }
+
+    private static double signedArea(FloatBuffer verticesXY, int first, int from, int to) {
+        double sum = 0.0;
+        for (int i = from, j = to - 1; i < to; j = i++) {
+            double xi = verticesXY.get(2 * (first + i)), yi = verticesXY.get(2 * (first + i) + 1);
+            double xj = verticesXY.get(2 * (first + j)), yj = verticesXY.get(2 * (first + j) + 1);
+            sum += (xj - xi) * (yi + yj);
+        }
+        return sum;
+    }
+
+    /**
+     * Remove duplicate and collinear vertices.
+     */
+    private static Node filterPoints(Node start, Node end) {
+        if (start == null)
+            return null;
+        if (end == null)
+            end = start;
+        Node p = start;
+        boolean again;
+        do {
+            again = false;
+            if (!p.steiner && (equals(p, p.next) || area(p.prev, p, p.next) == 0.0)) {
+                removeNode(p);
+                p = end = p.prev;
+                if (p == p.next)
+                    break;
+                again = true;
+            } else {
+                p = p.next;
+            }
+        } while (again || p != end);
+        return end;
+    }
+
+    /**
+     * Clip ears off the polygon until only a triangle is left. If no ear is found, filter the vertices in pass 1, cure local
+     * self-intersections in pass 2 and split the polygon in two in the last pass.
+     */
+    private void earcutLinked(Node ear, int pass) {
+        if (ear == null)
+            return;
+        if (pass == 0 && invSize != 0.0)
+            indexCurve(ear);
+        Node stop = ear;
+        while (ear.prev != ear.next) {
+            Node prev = ear.prev, next = ear.next;
+            if (invSize != 0.0 ? isEarHashed(ear) : isEar(ear)) {
+                triangles.add(prev.i);
+                triangles.add(ear.i);
+                triangles.add(next.i);
+                removeNode(ear);
+                /* Skipping the next vertex leads to fewer sliver triangles */
+                ear = next.next;
+                stop = next.next;
+                continue;
+            }
+            ear = next;
+            if (ear == stop) {
+                if (pass == 0) {
+                    earcutLinked(filterPoints(ear, null), 1);
+                } else if (pass == 1) {
+                    ear = cureLocalIntersections(filterPoints(ear, null));
+                    earcutLinked(ear, 2);
+                } else {
+                    splitEarcut(ear);
+                }
+                break;
+            }
+        }
+    }
+
+    private static boolean isEar(Node ear) {
+        Node a = ear.prev, b = ear, c = ear.next;
+        if (area(a, b, c) >= 0.0)
+            return false; // reflex
+        double x0 = Math.min(a.x, Math.min(b.x, c.x)), y0 = Math.min(a.y, Math.min(b.y, c.y));
+        double x1 = Math.max(a.x, Math.max(b.x, c.x)), y1 = Math.max(a.y, Math.max(b.y, c.y));
+        for (Node p = c.next; p != a; p = p.next) {
+            if (p.x >= x0 && p.x <= x1 && p.y >= y0 && p.y <= y1 && pointInTriangle(a.x, a.y, b.x, b.y, c.x, c.y, p.x, p.y)
+                    && area(p.prev, p, p.next) >= 0.0)
+                return false;
+        }
+        return true;
+    }
+
+    private boolean isEarHashed(Node ear) {
+        Node a = ear.prev, b = ear, c = ear.next;
+        if (area(a, b, c) >= 0.0)
+            return false; // reflex
+        double x0 = Math.min(a.x, Math.min(b.x, c.x)), y0 = Math.min(a.y, Math.min(b.y, c.y));
+        double x1 = Math.max(a.x, Math.max(b.x, c.x)), y1 = Math.max(a.y, Math.max(b.y, c.y));
+        /* Only the vertices with a z-order value within the range of the triangle's bounding box can be inside of it */
+        int minZ = zOrder(x0, y0), maxZ = zOrder(x1, y1);
+        Node p = ear.prevZ, n = ear.nextZ;
+        while (p != null && p.z >= minZ && n != null && n.z <= maxZ) {
+            if (blocksEar(p, a, b, c, x0, y0, x1, y1))
+                return false;
+            p = p.prevZ;
+            if (blocksEar(n, a, b, c, x0, y0, x1, y1))
+                return false;
+            n = n.nextZ;
+        }
+        for (; p != null && p.z >= minZ; p = p.prevZ)
+            if (blocksEar(p, a, b, c, x0, y0, x1, y1))
+                return false;
+        for (; n != null && n.z <= maxZ; n = n.nextZ)
+            if (blocksEar(n, a, b, c, x0, y0, x1, y1))
+                return false;
+        return true;
+    }
+
+    private static boolean blocksEar(Node p, Node a, Node b, Node c, double x0, double y0, double x1, double y1) {
+        return p.x >= x0 && p.x <= x1 && p.y >= y0 && p.y <= y1 && p != a && p != c
+                && pointInTriangle(a.x, a.y, b.x, b.y, c.x, c.y, p.x, p.y) && area(p.prev, p, p.next) >= 0.0;
+    }
+
+    /**
+     * Clip the triangles at places where two consecutive edges cross each other.
+     */
+    private Node cureLocalIntersections(Node start) {
+        Node p = start;
+        do {
+            Node a = p.prev, b = p.next.next;
+            if (!equals(a, b) && intersects(a, p, p.next, b) && locallyInside(a, b) && locallyInside(b, a)) {
+                triangles.add(a.i);
+                triangles.add(p.i);
+                triangles.add(b.i);
+                removeNode(p);
+                removeNode(p.next);
+                p = start = b;
+            }
+            p = p.next;
+        } while (p != start);
+        return filterPoints(p, null);
+    }
+
+    /**
+     * Split the polygon along a valid diagonal and triangulate both halves.
+     */
+    private void splitEarcut(Node start) {
+        Node a = start;
+        do {
+            for (Node b = a.next.next; b != a.prev; b = b.next) {
+                if (a.i != b.i && isValidDiagonal(a, b)) {
+                    Node c = splitPolygon(a, b);
+                    a = filterPoints(a, a.next);
+                    c = filterPoints(c, c.next);
+                    earcutLinked(a, 0);
+                    earcutLinked(c, 0);
+                    return;
+                }
+            }
+            a = a.next;
+        } while (a != start);
+    }
+
+    /**
+     * Join all holes with the outer ring, from left to right.
+     */
+    private Node eliminateHoles(FloatBuffer verticesXY, int first, int count, int[] holes, Node outer) {
+        if (holeQueue.length < holes.length)
+            holeQueue = new Node[holes.length];
+        int n = 0;
+        for (int h = 0; h < holes.length; h++) {
+            int end = h < holes.length - 1 ? holes[h + 1] : count;
+            Node list = linkedList(verticesXY, first, holes[h], end, false);
+            if (list == null)
+                continue;
+            if (list == list.next)
+                list.steiner = true;
+            holeQueue[n++] = leftmost(list);
+        }
+        Arrays.sort(holeQueue, 0, n, BY_X);
+        for (int h = 0; h < n; h++)
+            outer = eliminateHole(holeQueue[h], outer);
+        return outer;
+    }
+
+    private static Node eliminateHole(Node hole, Node outer) {
+        Node bridge = findHoleBridge(hole, outer);
+        if (bridge == null)
+            return outer;
+        Node bridgeReverse = splitPolygon(bridge, hole);
+        filterPoints(bridgeReverse, bridgeReverse.next);
+        return filterPoints(bridge, bridge.next);
+    }
+
+    /**
+     * Find a vertex of the outer ring which can be connected with the leftmost vertex of a hole without crossing any edge.
+     */
+    private static Node findHoleBridge(Node hole, Node outer) {
+        Node p = outer;
+        double hx = hole.x, hy = hole.y;
+        double qx = Double.NEGATIVE_INFINITY;
+        Node m = null;
+        /* Find the closest edge left of the hole vertex on a horizontal ray and the endpoint of it with the smaller x */
+        do {
+            if (hy <= p.y && hy >= p.next.y && p.next.y != p.y) {
+                double x = p.x + (hy - p.y) * (p.next.x - p.x) / (p.next.y - p.y);
+                if (x <= hx && x > qx) {
+                    qx = x;
+                    m = p.x < p.next.x ? p : p.next;
+                    if (x == hx)
+                        return m; // the hole touches the outer ring
+                }
+            }
+            p = p.next;
+        } while (p != outer);
+        if (m == null)
+            return null;
+        /* Vertices inside of the triangle of the hole vertex, the intersection and m may be closer; take the one with the smallest angle */
+        Node stop = m;
+        double mx = m.x, my = m.y;
+        double tanMin = Double.POSITIVE_INFINITY;
+        p = m;
+        do {
+            if (hx >= p.x && p.x >= mx && hx != p.x
+                    && pointInTriangle(hy < my ? hx : qx, hy, mx, my, hy < my ? qx : hx, hy, p.x, p.y)) {
+                double tan = Math.abs(hy - p.y) / (hx - p.x);
+                if (locallyInside(p, hole)
+                        && (tan < tanMin || tan == tanMin && (p.x > m.x || p.x == m.x && sectorContainsSector(m, p)))) {
+                    m = p;
+                    tanMin = tan;
+                }
+            }
+            p = p.next;
+        } while (p != stop);
+        return m;
+    }
+
+    private static boolean sectorContainsSector(Node m, Node p) {
+        return area(m.prev, m, p.prev) < 0.0 && area(p.next, m, m.next) < 0.0;
+    }
+
+    /**
+     * Link the vertices in z-order and sort them by their z-order value.
+     */
+    private void indexCurve(Node start) {
+        Node p = start;
+        do {
+            p.z = zOrder(p.x, p.y);
+            p.prevZ = p.prev;
+            p.nextZ = p.next;
+            p = p.next;
+        } while (p != start);
+        p.prevZ.nextZ = null;
+        p.prevZ = null;
+        sortLinked(p);
+    }
+
+    /**
+     * Sort the z-order list by z with a bottom-up merge sort.
+     */
+    private static Node sortLinked(Node list) {
+        int numMerges;
+        int inSize = 1;
+        do {
+            Node p = list, tail = null;
+            list = null;
+            numMerges = 0;
+            while (p != null) {
+                numMerges++;
+                Node q = p;
+                int pSize = 0;
+                for (int i = 0; i < inSize; i++) {
+                    pSize++;
+                    q = q.nextZ;
+                    if (q == null)
+                        break;
+                }
+                int qSize = inSize;
+                while (pSize > 0 || qSize > 0 && q != null) {
+                    Node e;
+                    if (pSize != 0 && (qSize == 0 || q == null || p.z <= q.z)) {
+                        e = p;
+                        p = p.nextZ;
+                        pSize--;
+                    } else {
+                        e = q;
+                        q = q.nextZ;
+                        qSize--;
+                    }
+                    if (tail != null)
+                        tail.nextZ = e;
+                    else
+                        list = e;
+                    e.prevZ = tail;
+                    tail = e;
+                }
+                p = q;
+            }
+            tail.nextZ = null;
+            inSize *= 2;
+        } while (numMerges > 1);
+        return list;
+    }
+
+    /**
+     * Interleave the bits of the 15-bit coordinates of the given point within the bounding box.
+     */
+    private int zOrder(double px, double py) {
+        int x = (int) ((px - minX) * invSize), y = (int) ((py - minY) * invSize);
+        x = (x | x << 8) & 0x00FF00FF;
+        x = (x | x << 4) & 0x0F0F0F0F;
+        x = (x | x << 2) & 0x33333333;
+        x = (x | x << 1) & 0x55555555;
+        y = (y | y << 8) & 0x00FF00FF;
+        y = (y | y << 4) & 0x0F0F0F0F;
+        y = (y | y << 2) & 0x33333333;
+        y = (y | y << 1) & 0x55555555;
+        return x | y << 1;
+    }
+
+    private static Node leftmost(Node start) {
+        Node p = start, leftmost = start;
+        do {
+            if (p.x < leftmost.x || p.x == leftmost.x && p.y < leftmost.y)
+                leftmost = p;
+            p = p.next;
+        } while (p != start);
+        return leftmost;
+    }
+
+    private static boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy, double px, double py) {
+        return (cx - px) * (ay - py) >= (ax - px) * (cy - py) && (ax - px) * (by - py) >= (bx - px) * (ay - py)
+                && (bx - px) * (cy - py) >= (cx - px) * (by - py);
+    }
+
+    /**
+     * Return whether the diagonal from a to b lies inside of the polygon and does not cross any edge.
+     */
+    private static boolean isValidDiagonal(Node a, Node b) {
+        return a.next.i != b.i && a.prev.i != b.i && !intersectsPolygon(a, b)
+                && (locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b)
+                        && (area(a.prev, a, b.prev) != 0.0 || area(a, b.prev, b) != 0.0)
+                    || equals(a, b) && area(a.prev, a, a.next) > 0.0 && area(b.prev, b, b.next) > 0.0);
+    }
+
+    /**
+     * Return twice the signed area of the triangle, which is negative for a convex corner at q.
+     */
+    private static double area(Node p, Node q, Node r) {
+        return (q.y - p.y) * (r.x - q.x) - (q.x - p.x) * (r.y - q.y);
+    }
+
+    private static boolean equals(Node p1, Node p2) {
+        return p1.x == p2.x && p1.y == p2.y;
+    }
+
+    private static boolean intersects(Node p1, Node q1, Node p2, Node q2) {
+        int o1 = sign(area(p1, q1, p2)), o2 = sign(area(p1, q1, q2));
+        int o3 = sign(area(p2, q2, p1)), o4 = sign(area(p2, q2, q1));
+        return o1 != o2 && o3 != o4
+                || o1 == 0 && onSegment(p1, p2, q1) || o2 == 0 && onSegment(p1, q2, q1)
+                || o3 == 0 && onSegment(p2, p1, q2) || o4 == 0 && onSegment(p2, q1, q2);
+    }
+
+    /**
+     * Return whether q lies on the segment from p to r, given that the three are collinear.
+     */
+    private static boolean onSegment(Node p, Node q, Node r) {
+        return q.x <= Math.max(p.x, r.x) && q.x >= Math.min(p.x, r.x) && q.y <= Math.max(p.y, r.y) && q.y >= Math.min(p.y, r.y);
+    }
+
+    private static int sign(double v) {
+        return v > 0.0 ? 1 : v < 0.0 ? -1 : 0;
+    }
+
+    private static boolean intersectsPolygon(Node a, Node b) {
+        Node p = a;
+        do {
+            if (p.i != a.i && p.next.i != a.i && p.i != b.i && p.next.i != b.i && intersects(p, p.next, a, b))
+                return true;
+            p = p.next;
+        } while (p != a);
+        return false;
+    }
+
+    private static boolean locallyInside(Node a, Node b) {
+        return area(a.prev, a, a.next) < 0.0
+                ? area(a, b, a.next) >= 0.0 && area(a, a.prev, b) >= 0.0
+                : area(a, b, a.prev) < 0.0 || area(a, a.next, b) < 0.0;
+    }
+
+    /**
+     * Return whether the middle of the segment from a to b is inside of the polygon.
+     */
+    private static boolean middleInside(Node a, Node b) {
+        Node p = a;
+        boolean inside = false;
+        double px = (a.x + b.x) * 0.5, py = (a.y + b.y) * 0.5;
+        do {
+            if (p.y > py != p.next.y > py && p.next.y != p.y && px < (p.next.x - p.x) * (py - p.y) / (p.next.y - p.y) + p.x)
+                inside = !inside;
+            p = p.next;
+        } while (p != a);
+        return inside;
+    }
+
+    /**
+     * Link a with b by splitting the polygon in two. If a and b belong to different rings, this joins them into one instead.
+     *
+     * @return the copy of b in the second polygon
+     */
+    private static Node splitPolygon(Node a, Node b) {
+        Node a2 = new Node(a.i, a.x, a.y), b2 = new Node(b.i, b.x, b.y);
+        Node an = a.next, bp = b.prev;
+        a.next = b;
+        b.prev = a;
+        a2.next = an;
+        an.prev = a2;
+        b2.next = a2;
+        a2.prev = b2;
+        bp.next = b2;
+        b2.prev = bp;
+        return b2;
+    }
+
+    private static Node insertNode(int i, double x, double y, Node last) {
+        Node p = new Node(i, x, y);
+        if (last == null) {
+            p.prev = p;
+            p.next = p;
+        } else {
+            p.next = last.next;
+            p.prev = last;
+            last.next.prev = p;
+            last.next = p;
+        }
+        return p;
+    }
+
+    private static void removeNode(Node p) {
+        p.next.prev = p.prev;
+        p.prev.next = p.next;
+        if (p.prevZ != null)
+            p.prevZ.nextZ = p.nextZ;
+        if (p.nextZ != null)
+            p.nextZ.prevZ = p.prevZ;
+    }
+
+}
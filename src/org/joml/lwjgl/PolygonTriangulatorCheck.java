@@ -0,0 +1,90 @@
+package org.joml.lwjgl;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+/**
+ * Checks that the triangles the {@link PolygonTriangulator} produces cover exactly the area of the polygon minus the areas of its holes,
+ * and that there are no more than <code>n - 2 + 2 * holes</code> of them, for a large wavy outline with and without holes and for many
+ * strokes like the ones drawn in the {@link PolygonDrawer}.
+ */
+class PolygonTriangulatorCheck {
+
+    static final int VERTICES = 20000;
+    static final int HOLES = 20;
+    static final int HOLE_VERTICES = 64;
+    static final int STROKES = 200;
+    /**
+     * Makes the vertices of the large polygon about one unit apart, like those of a stroke.
+     */
+    static final float RADIUS = 3000.0f;
+
+    static double polygonArea(float[] verticesXY, int first, int count) {
+        double sum = 0.0;
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            int a = 2 * (first + j), b = 2 * (first + i);
+            sum += (double) verticesXY[a] * verticesXY[b + 1] - (double) verticesXY[b] * verticesXY[a + 1];
+        }
+        return Math.abs(sum) * 0.5;
+    }
+
+    static double trianglesArea(float[] verticesXY, int first, IntArray triangles, int start) {
+        double sum = 0.0;
+        for (int t = start; t < triangles.size(); t += 3) {
+            int a = 2 * (first + triangles.get(t)), b = 2 * (first + triangles.get(t + 1)), c = 2 * (first + triangles.get(t + 2));
+            double abx = verticesXY[b] - verticesXY[a], aby = verticesXY[b + 1] - verticesXY[a + 1];
+            double acx = verticesXY[c] - verticesXY[a], acy = verticesXY[c + 1] - verticesXY[a + 1];
+            sum += Math.abs(abx * acy - aby * acx) * 0.5;
+        }
+        return sum;
+    }
+
+    static void checkArea(String name, double expected, double actual) {
+        if (Math.abs(actual - expected) > 1E-6 * expected)
+            throw new AssertionError(name + ": expected area " + expected + " but triangles cover " + actual);
+    }
+
+    static void check() {
+        Random rnd = new Random(1);
+        PolygonTriangulator triangulator = new PolygonTriangulator();
+        IntArray triangles = new IntArray();
+
+        float[] outline = new float[2 * VERTICES];
+        RandomStrokes.outline(rnd, outline, 0, VERTICES, 0.0f, 0.0f, RADIUS, false);
+        triangulator.triangulate(outline, 0, VERTICES, triangles);
+        if (triangles.size() / 3 > VERTICES - 2)
+            throw new AssertionError("too many triangles: " + triangles.size() / 3);
+        checkArea("outline", polygonArea(outline, 0, VERTICES), trianglesArea(outline, 0, triangles, 0));
+
+        /* The same polygon with holes on a ring well inside of its smallest radius */
+        int total = VERTICES + HOLES * HOLE_VERTICES;
+        float[] holed = new float[2 * total];
+        System.arraycopy(outline, 0, holed, 0, 2 * VERTICES);
+        int[] holes = new int[HOLES];
+        double holesArea = 0.0;
+        for (int h = 0; h < HOLES; h++) {
+            double angle = 2.0 * Math.PI * h / HOLES;
+            holes[h] = VERTICES + h * HOLE_VERTICES;
+            float cx = 0.4f * RADIUS * (float) Math.cos(angle), cy = 0.4f * RADIUS * (float) Math.sin(angle);
+            RandomStrokes.outline(rnd, holed, holes[h], HOLE_VERTICES, cx, cy, 50.0f, true);
+            holesArea += polygonArea(holed, holes[h], HOLE_VERTICES);
+        }
+        triangles.clear();
+        triangulator.triangulate(FloatBuffer.wrap(holed), 0, total, holes, triangles);
+        if (triangles.size() / 3 > total - 2 + 2 * HOLES)
+            throw new AssertionError("too many triangles: " + triangles.size() / 3);
+        checkArea("holes", polygonArea(holed, 0, VERTICES) - holesArea, trianglesArea(holed, 0, triangles, 0));
+
+        int strokeVertices = RandomStrokes.STROKE_VERTICES;
+        float[] strokes = new float[2 * STROKES * strokeVertices];
+        triangles.clear();
+        for (int s = 0; s < STROKES; s++) {
+            RandomStrokes.stroke(rnd, strokes, s * strokeVertices, strokeVertices);
+            int start = triangles.size();
+            triangulator.triangulate(strokes, s * strokeVertices, strokeVertices, triangles);
+            checkArea("stroke " + s, polygonArea(strokes, s * strokeVertices, strokeVertices),
+                    trianglesArea(strokes, s * strokeVertices, triangles, start));
+        }
+    }
+
+}
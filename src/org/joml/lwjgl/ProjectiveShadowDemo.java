@@ -103,57 +103,9 @@ public class ProjectiveShadowDemo {
         glEnd();
     }
 
-    void renderCube(boolean shadow) {
-        glBegin(GL_QUADS);
-        if (shadow) {
-            glColor3f(0.2f, 0.2f, 0.2f);
-        } else {
-            glColor3f(0.0f, 0.0f, 0.2f);
-        }
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        if (!shadow) {
-            glColor3f(0.0f, 0.0f, 1.0f);
-        }
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        if (!shadow) {
-            glColor3f(1.0f, 0.0f, 0.0f);
-        }
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        if (!shadow) {
-            glColor3f(0.2f, 0.0f, 0.0f);
-        }
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        if (!shadow) {
-            glColor3f(0.0f, 1.0f, 0.0f);
-        }
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        if (!shadow) {
-            glColor3f(0.0f, 0.2f, 0.0f);
-        }
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glEnd();
-    }
-
     void loop() {
         GL.createCapabilities();
+        InstancedCubeRenderer cubes = new InstancedCubeRenderer();
 
         glClearColor(0.6f, 0.7f, 0.8f, 1.0f);
         glEnable(GL_DEPTH_TEST);
@@ -196,7 +148,7 @@ public class ProjectiveShadowDemo {
             glStencilFunc(GL_ALWAYS, 1, 1);
 
             // render cube in the center
-            renderCube(false);
+            cubes.drawCube();
 
             // Render the plane on which to project the shadow
             glLoadMatrixf(m.mulAffine(planeTransform, m2).get(fb));
@@ -214,12 +166,13 @@ public class ProjectiveShadowDemo {
             glEnable(GL_POLYGON_OFFSET_FILL);
             // use polygon offset to combat z-fighting between plane and projected shadow
             glPolygonOffset(-1.0f, -1.0f);
-            renderCube(true);
+            cubes.drawCube(0.2f, 0.2f, 0.2f);
             glDisable(GL_POLYGON_OFFSET_FILL);
 
             glfwSwapBuffers(window);
             glfwPollEvents();
         }
+        cubes.destroy();
     }
 
     public static void main(String[] args) {
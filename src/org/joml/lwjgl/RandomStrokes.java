@@ -0,0 +1,67 @@
+package org.joml.lwjgl;
+
+import java.util.Random;
+
+/**
+ * Generates closed polygons like the strokes drawn with the mouse in the 800x600 window of the {@link PolygonDrawer}, as input for the
+ * {@link Checks}, the JMH benchmarks and the {@link PolygonTraceReplay}.
+ */
+public class RandomStrokes {
+
+    public static final int WIDTH = 800;
+    public static final int HEIGHT = 600;
+    /**
+     * The number of vertices of a typical stroke.
+     */
+    public static final int STROKE_VERTICES = 500;
+
+    /**
+     * Store a wobbly closed stroke of <code>count</code> vertices around a random center in <code>verticesXY</code>, starting at vertex
+     * <code>first</code>.
+     */
+    public static void stroke(Random rnd, float[] verticesXY, int first, int count) {
+        float cx = rnd.nextFloat() * WIDTH, cy = rnd.nextFloat() * HEIGHT;
+        float radius = 10.0f + rnd.nextFloat() * 60.0f;
+        outline(rnd, verticesXY, first, count, cx, cy, radius, false);
+    }
+
+    /**
+     * Store a wavy closed outline of <code>count</code> vertices around <code>(cx, cy)</code>, whose radius varies by 30% plus one unit
+     * of noise, in <code>verticesXY</code>, starting at vertex <code>first</code>.
+     */
+    public static void outline(Random rnd, float[] verticesXY, int first, int count, float cx, float cy, float radius, boolean clockwise) {
+        for (int i = 0; i < count; i++) {
+            double angle = 2.0 * Math.PI * i / count * (clockwise ? -1.0 : 1.0);
+            float r = radius * (1.0f + 0.3f * (float) Math.sin(angle * 7.0)) + rnd.nextFloat();
+            verticesXY[2 * (first + i)] = cx + r * (float) Math.cos(angle);
+            verticesXY[2 * (first + i) + 1] = cy + r * (float) Math.sin(angle);
+        }
+    }
+
+    /**
+     * Append a closed stroke drawn slowly with the mouse, with one vertex at integer pixel coordinates per pixel moved, to
+     * <code>verticesXY</code>.
+     *
+     * @return the number of vertices appended
+     */
+    public static int slowStroke(Random rnd, FloatArray verticesXY) {
+        float cx = rnd.nextFloat() * WIDTH, cy = rnd.nextFloat() * HEIGHT;
+        float radius = 10.0f + rnd.nextFloat() * 60.0f;
+        int steps = (int) (2.0 * Math.PI * radius * 1.5);
+        int count = 0;
+        float lastX = Float.NaN, lastY = Float.NaN;
+        for (int i = 0; i < steps; i++) {
+            double angle = 2.0 * Math.PI * i / steps;
+            float r = radius * (1.0f + 0.3f * (float) Math.sin(angle * 5.0));
+            float x = Math.round(cx + r * (float) Math.cos(angle)), y = Math.round(cy + r * (float) Math.sin(angle));
+            if (x == lastX && y == lastY)
+                continue;
+            verticesXY.add(x, y);
+            lastX = x;
+            lastY = y;
+            count++;
+        }
+        return count;
+    }
+
+}
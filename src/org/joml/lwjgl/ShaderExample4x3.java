@@ -26,6 +26,7 @@ public class ShaderExample4x3 {
     int height = 300;
     Object lock = new Object();
     boolean destroyed;
+    Thread renderThread;
 
     Matrix4f projMatrix = new Matrix4f();
     Matrix4x3f viewMatrix = new Matrix4x3f();
@@ -38,8 +39,14 @@ public class ShaderExample4x3 {
 
             synchronized (lock) {
                 destroyed = true;
-                glfwDestroyWindow(window);
             }
+            /* Let the render thread delete its GL objects while its context still exists */
+            try {
+                renderThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            glfwDestroyWindow(window);
             keyCallback.free();
             fbCallback.free();
         } finally {
@@ -89,40 +96,6 @@ public class ShaderExample4x3 {
         height = framebufferSize.get(1);
     }
 
-    void renderCube() {
-        glBegin(GL_QUADS);
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glEnd();
-    }
-
     void renderGrid() {
         glBegin(GL_LINES);
         for (int i = -20; i <= 20; i++) {
@@ -138,6 +111,7 @@ public class ShaderExample4x3 {
         glfwMakeContextCurrent(window);
         glfwSwapInterval(0);
         GL.createCapabilities();
+        InstancedCubeRenderer cubes = new InstancedCubeRenderer();
 
         glClearColor(0.6f, 0.7f, 0.8f, 1.0f);
         glEnable(GL_DEPTH_TEST);
@@ -199,12 +173,12 @@ public class ShaderExample4x3 {
             // Render solid cube with outlines
             glPolygonMode(GL_FRONT_AND_BACK, GL_FILL);
             glUniform3f(colorLocation, 0.6f, 0.7f, 0.8f);
-            renderCube();
+            cubes.drawCube();
             glPolygonMode(GL_FRONT_AND_BACK, GL_LINE);
             glEnable(GL_POLYGON_OFFSET_LINE);
             glPolygonOffset(-1.f,-1.f);
             glUniform3f(colorLocation, 0.0f, 0.0f, 0.0f);
-            renderCube();
+            cubes.drawCubeQuads();
             glDisable(GL_POLYGON_OFFSET_LINE);
 
             synchronized (lock) {
@@ -213,6 +187,7 @@ public class ShaderExample4x3 {
                 }
             }
         }
+        cubes.destroy();
     }
 
     void loop() {
@@ -220,11 +195,12 @@ public class ShaderExample4x3 {
          * Spawn a new thread which to make the OpenGL context current in and which does the
          * rendering.
          */
-        new Thread(new Runnable() {
+        renderThread = new Thread(new Runnable() {
             public void run() {
                 initOpenGLAndRenderInAnotherThread();
             }
-        }).start();
+        });
+        renderThread.start();
 
         /* Process window messages in the main thread */
         while (!glfwWindowShouldClose(window)) {
@@ -24,6 +24,7 @@ public class ShaderExampleLH {
     int height = 300;
     Object lock = new Object();
     boolean destroyed;
+    Thread renderThread;
 
     Matrix4f viewProjMatrix = new Matrix4f();
     FloatBuffer fb = BufferUtils.createFloatBuffer(16);
@@ -35,8 +36,14 @@ public class ShaderExampleLH {
 
             synchronized (lock) {
                 destroyed = true;
-                glfwDestroyWindow(window);
             }
+            /* Let the render thread delete its GL objects while its context still exists */
+            try {
+                renderThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            glfwDestroyWindow(window);
             keyCallback.free();
             fbCallback.free();
         } finally {
@@ -86,40 +93,6 @@ public class ShaderExampleLH {
         height = framebufferSize.get(1);
     }
 
-    void renderCube() {
-        glBegin(GL_QUADS);
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        
-        glVertex3f(  0.5f,  0.5f, -0.5f );
-        glVertex3f(  0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f,  0.5f );
-        glVertex3f( -0.5f,  0.5f, -0.5f );
-        
-        glVertex3f(  0.5f, -0.5f,  0.5f );
-        glVertex3f(  0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f, -0.5f );
-        glVertex3f( -0.5f, -0.5f,  0.5f );
-        glEnd();
-    }
-
     void renderGrid() {
         glBegin(GL_LINES);
         for (int i = -20; i <= 20; i++) {
@@ -135,6 +108,7 @@ public class ShaderExampleLH {
         glfwMakeContextCurrent(window);
         glfwSwapInterval(0);
         GL.createCapabilities();
+        InstancedCubeRenderer cubes = new InstancedCubeRenderer();
 
         glClearColor(0.6f, 0.7f, 0.8f, 1.0f);
         glEnable(GL_DEPTH_TEST);
@@ -201,12 +175,12 @@ public class ShaderExampleLH {
             // Render solid cube with outlines
             glPolygonMode(GL_FRONT_AND_BACK, GL_FILL);
             glUniform3f(colorLocation, 0.6f, 0.7f, 0.8f);
-            renderCube();
+            cubes.drawCube();
             glPolygonMode(GL_FRONT_AND_BACK, GL_LINE);
             glEnable(GL_POLYGON_OFFSET_LINE);
             glPolygonOffset(-1.f,-1.f);
             glUniform3f(colorLocation, 0.0f, 0.0f, 0.0f);
-            renderCube();
+            cubes.drawCubeQuads();
             glDisable(GL_POLYGON_OFFSET_LINE);
 
             synchronized (lock) {
@@ -215,6 +189,7 @@ public class ShaderExampleLH {
                 }
             }
         }
+        cubes.destroy();
     }
 
     void loop() {
@@ -222,11 +197,12 @@ public class ShaderExampleLH {
          * Spawn a new thread which to make the OpenGL context current in and which does the
          * rendering.
          */
-        new Thread(new Runnable() {
+        renderThread = new Thread(new Runnable() {
             public void run() {
                 initOpenGLAndRenderInAnotherThread();
             }
-        }).start();
+        });
+        renderThread.start();
 
         /* Process window messages in the main thread */
         while (!glfwWindowShouldClose(window)) {
@@ -0,0 +1,82 @@
+package org.joml.lwjgl;
+
+import java.util.Arrays;
+
+/**
+ * Growable vertex and index arrays holding the triangles generated by the {@link VoxelMesher} for a chunk.
+ * <p>
+ * Each vertex has a position (x, y, z) and a color (r, g, b). Each quad is made of four vertices and six indices.
+ */
+public class VoxelMesh {
+    float[] positions = new float[3 * 256];
+    float[] colors = new float[3 * 256];
+    int[] indices = new int[6 * 64];
+    int vertexCount;
+    int indexCount;
+
+    void clear() {
+        vertexCount = 0;
+        indexCount = 0;
+    }
+
+    int quadCount() {
+        return indexCount / 6;
+    }
+
+    /**
+     * Return the number of vertices of this mesh.
+     */
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Return the number of indices of this mesh, six per quad.
+     */
+    public int indexCount() {
+        return indexCount;
+    }
+
+    /**
+     * Return the number of bytes needed to store the vertices and indices of this mesh.
+     */
+    int sizeInBytes() {
+        return vertexCount * 6 * 4 + indexCount * 4;
+    }
+
+    private int addVertex(float x, float y, float z, float r, float g, float b) {
+        if (3 * vertexCount == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+            colors = Arrays.copyOf(colors, colors.length * 2);
+        }
+        int i = 3 * vertexCount;
+        positions[i] = x;
+        positions[i + 1] = y;
+        positions[i + 2] = z;
+        colors[i] = r;
+        colors[i + 1] = g;
+        colors[i + 2] = b;
+        return vertexCount++;
+    }
+
+    /**
+     * Add a quad with the given corners in counter-clockwise order and a single color.
+     */
+    void addQuad(float x0, float y0, float z0, float x1, float y1, float z1,
+                 float x2, float y2, float z2, float x3, float y3, float z3,
+                 float r, float g, float b) {
+        int v0 = addVertex(x0, y0, z0, r, g, b);
+        int v1 = addVertex(x1, y1, z1, r, g, b);
+        int v2 = addVertex(x2, y2, z2, r, g, b);
+        int v3 = addVertex(x3, y3, z3, r, g, b);
+        if (indexCount + 6 > indices.length)
+            indices = Arrays.copyOf(indices, indices.length * 2);
+        indices[indexCount++] = v0;
+        indices[indexCount++] = v1;
+        indices[indexCount++] = v2;
+        indices[indexCount++] = v2;
+        indices[indexCount++] = v3;
+        indices[indexCount++] = v0;
+    }
+
+}
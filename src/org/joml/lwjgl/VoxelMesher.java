@@ -0,0 +1,157 @@
+package org.joml.lwjgl;
+
+import static org.joml.lwjgl.VoxelStorage.*;
+
+/**
+ * Builds a compact triangle mesh for a chunk of voxels.
+ * <p>
+ * Faces between two solid voxels are never visible and are dropped. The remaining faces of each of the six directions are merged slice
+ * by slice into maximal rectangles of the same block type ("greedy meshing"), so that for example a flat floor of 16x16 voxels becomes a
+ * single quad per side instead of 256 cubes with 6 quads each.
+ * <p>
+ * The mesher works on a copy of the chunk including a one voxel border of its neighbours (see {@link #copyPadded}), so it neither needs
+ * the {@link VoxelStorage} while meshing nor produces faces towards solid voxels of neighbour chunks.
+ * <p>
+ * Instances are not thread-safe, but they can be used for any number of chunks one after another.
+ */
+public class VoxelMesher {
+
+    /**
+     * Edge length of the padded copy of a chunk.
+     */
+    public static final int PADDED_SIZE = CHUNK_SIZE + 2;
+    /**
+     * Number of voxels in the padded copy of a chunk.
+     */
+    public static final int PADDED_VOLUME = PADDED_SIZE * PADDED_SIZE * PADDED_SIZE;
+
+    /**
+     * The colors of the default block type for the faces facing -X, +X, -Y, +Y, -Z and +Z, matching {@link BoxPickingDemo#renderCube}.
+     */
+    static final float[] FACE_COLORS = {
+        0.0f, 0.0f, 0.0f,
+        1.0f, 0.0f, 0.0f,
+        0.0f, 0.2f, 0.0f,
+        0.0f, 1.0f, 0.0f,
+        0.0f, 0.0f, 0.2f,
+        0.0f, 0.0f, 1.0f
+    };
+
+    /**
+     * Stride of the x, y and z axis within the padded copy.
+     */
+    private static final int[] STRIDES = { 1, PADDED_SIZE * PADDED_SIZE, PADDED_SIZE };
+
+    private final int[] mask = new int[CHUNK_SIZE * CHUNK_SIZE];
+    private final float[] color = new float[3];
+    private final float[] quad = new float[12];
+
+    /**
+     * Copy the block types of the chunk with the given chunk coordinates and the one voxel wide border around it into <code>dest</code>
+     * of length {@link #PADDED_VOLUME}, in y, z, x order.
+     */
+    public static void copyPadded(VoxelStorage storage, int cx, int cy, int cz, int[] dest) {
+        int x0 = (cx << CHUNK_SHIFT) - 1, y0 = (cy << CHUNK_SHIFT) - 1, z0 = (cz << CHUNK_SHIFT) - 1;
+        int i = 0;
+        for (int y = 0; y < PADDED_SIZE; y++)
+            for (int z = 0; z < PADDED_SIZE; z++)
+                for (int x = 0; x < PADDED_SIZE; x++)
+                    dest[i++] = storage.getType(x0 + x, y0 + y, z0 + z);
+    }
+
+    /**
+     * Write the color of faces of the given block type facing the given direction (0 = -X, 1 = +X, 2 = -Y, 3 = +Y, 4 = -Z, 5 = +Z) into
+     * <code>dest</code>.
+     */
+    static void faceColor(int face, int type, float[] dest) {
+        dest[0] = FACE_COLORS[3 * face];
+        dest[1] = FACE_COLORS[3 * face + 1];
+        dest[2] = FACE_COLORS[3 * face + 2];
+        if (type != DEFAULT_TYPE) {
+            /* Tint other block types by a few bits of their type */
+            int h = type * 0x9E3779B9;
+            dest[0] = 0.5f * dest[0] + (h >>> 24) / 510.0f;
+            dest[1] = 0.5f * dest[1] + (h >>> 16 & 0xFF) / 510.0f;
+            dest[2] = 0.5f * dest[2] + (h >>> 8 & 0xFF) / 510.0f;
+        }
+    }
+
+    /**
+     * Build the mesh of the given padded chunk copy into <code>out</code>.
+     * <p>
+     * The voxel at (x, y, z) within the chunk spans <code>[x, x+1] x [y, y+1] x [z, z+1]</code> translated by
+     * <code>(offsetX, offsetY, offsetZ)</code>.
+     */
+    public void mesh(int[] padded, float offsetX, float offsetY, float offsetZ, VoxelMesh out) {
+        out.clear();
+        for (int face = 0; face < 6; face++) {
+            int a = face >> 1, u = (a + 1) % 3, v = (a + 2) % 3;
+            int sign = (face & 1) == 0 ? -1 : 1;
+            int neighbour = sign * STRIDES[a];
+            for (int k = 0; k < CHUNK_SIZE; k++) {
+                /* Collect the visible faces of this slice */
+                int base = (k + 1) * STRIDES[a] + STRIDES[u] + STRIDES[v];
+                for (int j = 0, n = 0; j < CHUNK_SIZE; j++) {
+                    for (int i = 0; i < CHUNK_SIZE; i++, n++) {
+                        int p = base + i * STRIDES[u] + j * STRIDES[v];
+                        int type = padded[p];
+                        mask[n] = type != 0 && padded[p + neighbour] == 0 ? type : 0;
+                    }
+                }
+                /* Merge them into maximal rectangles */
+                float plane = k + (sign > 0 ? 1 : 0);
+                for (int j = 0; j < CHUNK_SIZE; j++) {
+                    for (int i = 0; i < CHUNK_SIZE;) {
+                        int n = j * CHUNK_SIZE + i;
+                        int type = mask[n];
+                        if (type == 0) {
+                            i++;
+                            continue;
+                        }
+                        int w = 1;
+                        while (i + w < CHUNK_SIZE && mask[n + w] == type)
+                            w++;
+                        int h = 1;
+                        grow: while (j + h < CHUNK_SIZE) {
+                            for (int l = 0; l < w; l++)
+                                if (mask[n + h * CHUNK_SIZE + l] != type)
+                                    break grow;
+                            h++;
+                        }
+                        for (int m = 0; m < h; m++)
+                            for (int l = 0; l < w; l++)
+                                mask[n + m * CHUNK_SIZE + l] = 0;
+                        emitQuad(face, a, u, v, sign, plane, i, j, i + w, j + h, type, offsetX, offsetY, offsetZ, out);
+                        i += w;
+                    }
+                }
+            }
+        }
+    }
+
+    private void emitQuad(int face, int a, int u, int v, int sign, float plane, int u0, int v0, int u1, int v1, int type,
+                          float offsetX, float offsetY, float offsetZ, VoxelMesh out) {
+        /*
+         * With u = a+1 and v = a+2 the corners (u0,v0), (u1,v0), (u1,v1), (u0,v1) are counter-clockwise when looking along -a, so use
+         * the reverse order for faces facing -a.
+         */
+        setCorner(0, a, u, v, plane, u0, v0, offsetX, offsetY, offsetZ);
+        setCorner(sign > 0 ? 1 : 3, a, u, v, plane, u1, v0, offsetX, offsetY, offsetZ);
+        setCorner(2, a, u, v, plane, u1, v1, offsetX, offsetY, offsetZ);
+        setCorner(sign > 0 ? 3 : 1, a, u, v, plane, u0, v1, offsetX, offsetY, offsetZ);
+        faceColor(face, type, color);
+        float[] q = quad;
+        out.addQuad(q[0], q[1], q[2], q[3], q[4], q[5], q[6], q[7], q[8], q[9], q[10], q[11], color[0], color[1], color[2]);
+    }
+
+    private void setCorner(int index, int a, int u, int v, float plane, int cu, int cv, float offsetX, float offsetY, float offsetZ) {
+        int i = 3 * index;
+        quad[i + a] = plane;
+        quad[i + u] = cu;
+        quad[i + v] = cv;
+        quad[i] += offsetX;
+        quad[i + 1] += offsetY;
+        quad[i + 2] += offsetZ;
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.joml.lwjgl;
+
+/**
+ * Checks the number of quads the {@link VoxelMesher} produces for a few shapes whose greedy meshes are known.
+ */
+class VoxelMesherCheck {
+
+    interface Shape {
+        void build(VoxelStorage storage);
+    }
+
+    static void check(String name, int expectedQuads, Shape shape) {
+        VoxelStorage storage = new ChunkedVoxelStorage(32, 32, 32);
+        shape.build(storage);
+        int[] padded = new int[VoxelMesher.PADDED_VOLUME];
+        VoxelMesher.copyPadded(storage, 0, 0, 0, padded);
+        VoxelMesh mesh = new VoxelMesh();
+        new VoxelMesher().mesh(padded, 0, 0, 0, mesh);
+        if (mesh.quadCount() != expectedQuads)
+            throw new AssertionError(name + ": expected " + expectedQuads + " quads but got " + mesh.quadCount());
+    }
+
+    static void check() {
+        check("single cube", 6, new Shape() {
+            public void build(VoxelStorage s) {
+                s.set(3, 3, 3, true);
+            }
+        });
+        check("bar of 3 cubes", 6, new Shape() {
+            public void build(VoxelStorage s) {
+                s.fill(2, 2, 2, 5, 3, 3, true);
+            }
+        });
+        check("two separate cubes", 12, new Shape() {
+            public void build(VoxelStorage s) {
+                s.set(1, 1, 1, true);
+                s.set(5, 1, 1, true);
+            }
+        });
+        check("L of 3 cubes", 10, new Shape() {
+            public void build(VoxelStorage s) {
+                s.set(0, 0, 0, true);
+                s.set(1, 0, 0, true);
+                s.set(0, 0, 1, true);
+            }
+        });
+        check("16x16 floor", 6, new Shape() {
+            public void build(VoxelStorage s) {
+                s.fill(0, 0, 0, 16, 1, 16, true);
+            }
+        });
+        check("two block types side by side", 10, new Shape() {
+            public void build(VoxelStorage s) {
+                s.setType(4, 4, 4, 1);
+                s.setType(5, 4, 4, 2);
+            }
+        });
+        check("full chunk in the corner of a full world", 3, new Shape() {
+            public void build(VoxelStorage s) {
+                s.fill(0, 0, 0, 32, 32, 32, true);
+            }
+        });
+        check("cube on the chunk border touching the neighbour chunk", 5, new Shape() {
+            public void build(VoxelStorage s) {
+                s.set(15, 4, 4, true);
+                s.set(16, 4, 4, true);
+            }
+        });
+        int checkerboardCubes = VoxelStorage.CHUNK_SIZE * VoxelStorage.CHUNK_SIZE * VoxelStorage.CHUNK_SIZE / 2;
+        check("3D checkerboard", 6 * checkerboardCubes, new Shape() {
+            public void build(VoxelStorage s) {
+                for (int y = 0; y < VoxelStorage.CHUNK_SIZE; y++)
+                    for (int z = 0; z < VoxelStorage.CHUNK_SIZE; z++)
+                        for (int x = 0; x < VoxelStorage.CHUNK_SIZE; x++)
+                            if (((x + y + z) & 1) == 0)
+                                s.set(x, y, z, true);
+            }
+        });
+    }
+
+}
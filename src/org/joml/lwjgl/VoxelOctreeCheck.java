@@ -0,0 +1,95 @@
+package org.joml.lwjgl;
+
+import java.util.Random;
+
+/**
+ * Checks that ray casts into the {@link ChunkedVoxelStorage} and the {@link OctreeVoxelStorage} hit the same voxels as into a
+ * {@link FlatVoxelStorage}, for random and terrain worlds of several fill ratios, and that both need less memory than the flat storage
+ * for terrain.
+ * <p>
+ * It prints the {@link VoxelStorage#memoryFootprint() memory footprint} of the three storages for every world, which the
+ * <code>VoxelOctreeBenchmark</code> compares the ray casting time of.
+ */
+class VoxelOctreeCheck {
+
+    static final int SIZE = 128;
+    static final int HEIGHT = 64;
+    static final int RAYS = 20000;
+
+    static void random(VoxelStorage s, double ratio) {
+        Random rnd = new Random(1234);
+        for (int y = 0; y < HEIGHT; y++)
+            for (int z = 0; z < SIZE; z++)
+                for (int x = 0; x < SIZE; x++)
+                    if (rnd.nextDouble() < ratio)
+                        s.set(x, y, z, true);
+    }
+
+    static void terrain(VoxelStorage s, double ratio) {
+        double mean = ratio * HEIGHT;
+        double amplitude = Math.min(mean, HEIGHT - mean) * 0.8;
+        for (int z = 0; z < SIZE; z++)
+            for (int x = 0; x < SIZE; x++) {
+                int h = (int) Math.round(mean + amplitude * Math.sin(x * 0.05) * Math.cos(z * 0.04));
+                s.fill(x, 0, z, x + 1, h, z + 1, true);
+            }
+    }
+
+    /**
+     * Cast rays from random points in the upper half of the world in random, mostly downward directions, and return the hit voxels,
+     * or <code>-1</code> for a miss.
+     */
+    static int[] castAll(VoxelStorage storage) {
+        Random rnd = new Random(42);
+        VoxelRaycast.Hit hit = new VoxelRaycast.Hit();
+        int[] hits = new int[RAYS];
+        for (int i = 0; i < RAYS; i++) {
+            float ox = rnd.nextFloat() * SIZE, oy = HEIGHT * (0.5f + 0.5f * rnd.nextFloat()), oz = rnd.nextFloat() * SIZE;
+            float dx = rnd.nextFloat() * 2.0f - 1.0f, dy = -rnd.nextFloat(), dz = rnd.nextFloat() * 2.0f - 1.0f;
+            float invLength = (float) (1.0 / Math.sqrt(dx * dx + dy * dy + dz * dz));
+            if (storage.raycast(ox, oy, oz, dx * invLength, dy * invLength, dz * invLength, 2.0f * SIZE, hit))
+                hits[i] = (hit.y * SIZE + hit.z) * SIZE + hit.x;
+            else
+                hits[i] = -1;
+        }
+        return hits;
+    }
+
+    static void check(String name, boolean isTerrain, double ratio) {
+        VoxelStorage[] storages = {
+            new FlatVoxelStorage(SIZE, HEIGHT, SIZE),
+            new ChunkedVoxelStorage(SIZE, HEIGHT, SIZE),
+            new OctreeVoxelStorage(SIZE, HEIGHT, SIZE)
+        };
+        int[] expected = null;
+        for (int s = 0; s < storages.length; s++) {
+            if (isTerrain)
+                terrain(storages[s], ratio);
+            else
+                random(storages[s], ratio);
+            int[] hits = castAll(storages[s]);
+            if (s == 0) {
+                expected = hits;
+                continue;
+            }
+            String storage = storages[s].getClass().getSimpleName();
+            for (int i = 0; i < RAYS; i++)
+                if (hits[i] != expected[i])
+                    throw new AssertionError(name + ", " + storage + ": ray " + i + " hit " + hits[i] + " instead of " + expected[i]);
+            if (isTerrain && storages[s].memoryFootprint() >= storages[0].memoryFootprint())
+                throw new AssertionError(name + ", " + storage + ": " + storages[s].memoryFootprint() + " bytes, but the flat storage needs "
+                        + storages[0].memoryFootprint());
+        }
+        System.out.printf("  %s, %dx%dx%d: flat %d bytes, chunked %d bytes, octree %d bytes%n", name, SIZE, HEIGHT, SIZE,
+                storages[0].memoryFootprint(), storages[1].memoryFootprint(), storages[2].memoryFootprint());
+    }
+
+    static void check() {
+        double[] ratios = { 0.01, 0.10, 0.50 };
+        for (double ratio : ratios) {
+            check("random " + ratio, false, ratio);
+            check("terrain " + ratio, true, ratio);
+        }
+    }
+
+}
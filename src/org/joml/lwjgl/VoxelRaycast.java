@@ -0,0 +1,123 @@
+package org.joml.lwjgl;
+
+/**
+ * Casts rays through a {@link VoxelStorage} in grid space, where the voxel (x, y, z) spans <code>[x, x+1] x [y, y+1] x [z, z+1]</code>.
+ * <p>
+ * This is the cell walk of Amanatides & Woo ("A Fast Voxel Traversal Algorithm for Ray Tracing"), extended to skip whole empty regions:
+ * {@link VoxelStorage#emptyExtent} tells how large the aligned empty cube around the current cell is, and the walk continues right
+ * behind that cube instead of in the next cell. With a storage answering <code>1</code> for every empty cell this is the plain cell
+ * walk.
+ */
+public class VoxelRaycast {
+
+    /**
+     * The first solid voxel hit by a ray.
+     */
+    public static class Hit {
+        /**
+         * The hit voxel.
+         */
+        public int x, y, z;
+        /**
+         * The normal of the face through which the ray entered the hit voxel, or all zero if the ray started inside of it.
+         */
+        public int faceX, faceY, faceZ;
+        /**
+         * The ray parameter at which the voxel was entered.
+         */
+        public float t;
+    }
+
+    static int clamp(int v, int min, int max) {
+        return v < min ? min : v > max ? max : v;
+    }
+
+    /**
+     * Return the cell containing the coordinate <code>p</code> on a ray going in the direction <code>step</code>. Coordinates exactly on a
+     * cell boundary belong to the cell the ray is heading into, so that the result does not depend on how far the walk skipped.
+     */
+    static int cell(float p, int step) {
+        return step < 0 ? (int) Math.ceil(p) - 1 : (int) Math.floor(p);
+    }
+
+    /**
+     * Cast the ray <code>o + t * d</code> for <code>0 <= t <= maxDistance</code> and store the first solid voxel it hits in
+     * <code>hit</code>.
+     *
+     * @return <code>true</code> if a solid voxel was hit
+     */
+    public static boolean raycast(VoxelStorage storage, float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance, Hit hit) {
+        int sizeX = storage.sizeX(), sizeY = storage.sizeY(), sizeZ = storage.sizeZ();
+        int stepX = dx > 0.0f ? 1 : dx < 0.0f ? -1 : 0;
+        int stepY = dy > 0.0f ? 1 : dy < 0.0f ? -1 : 0;
+        int stepZ = dz > 0.0f ? 1 : dz < 0.0f ? -1 : 0;
+        float invX = 1.0f / dx, invY = 1.0f / dy, invZ = 1.0f / dz;
+        /* Clip the ray against the grid bounds (slab test) */
+        float txNear = stepX != 0 ? ((stepX > 0 ? 0 : sizeX) - ox) * invX : ox >= 0 && ox <= sizeX ? Float.NEGATIVE_INFINITY : Float.NaN;
+        float tyNear = stepY != 0 ? ((stepY > 0 ? 0 : sizeY) - oy) * invY : oy >= 0 && oy <= sizeY ? Float.NEGATIVE_INFINITY : Float.NaN;
+        float tzNear = stepZ != 0 ? ((stepZ > 0 ? 0 : sizeZ) - oz) * invZ : oz >= 0 && oz <= sizeZ ? Float.NEGATIVE_INFINITY : Float.NaN;
+        float txFar = stepX != 0 ? ((stepX > 0 ? sizeX : 0) - ox) * invX : Float.POSITIVE_INFINITY;
+        float tyFar = stepY != 0 ? ((stepY > 0 ? sizeY : 0) - oy) * invY : Float.POSITIVE_INFINITY;
+        float tzFar = stepZ != 0 ? ((stepZ > 0 ? sizeZ : 0) - oz) * invZ : Float.POSITIVE_INFINITY;
+        if (txNear != txNear || tyNear != tyNear || tzNear != tzNear)
+            return false;
+        float tNear = Math.max(txNear, Math.max(tyNear, tzNear));
+        float tEnd = Math.min(maxDistance, Math.min(txFar, Math.min(tyFar, tzFar)));
+        float t = Math.max(tNear, 0.0f);
+        if (t > tEnd)
+            return false;
+        hit.faceX = hit.faceY = hit.faceZ = 0;
+        if (tNear > 0.0f) {
+            /* Coming from outside, the face we entered through is the one of the slab we crossed last */
+            if (txNear >= tyNear && txNear >= tzNear)
+                hit.faceX = -stepX;
+            else if (tyNear >= tzNear)
+                hit.faceY = -stepY;
+            else
+                hit.faceZ = -stepZ;
+        }
+        int x = clamp(cell(ox + dx * t, stepX), 0, sizeX - 1);
+        int y = clamp(cell(oy + dy * t, stepY), 0, sizeY - 1);
+        int z = clamp(cell(oz + dz * t, stepZ), 0, sizeZ - 1);
+        while (true) {
+            int s = storage.emptyExtent(x, y, z);
+            if (s == 0) {
+                hit.x = x;
+                hit.y = y;
+                hit.z = z;
+                hit.t = t;
+                return true;
+            }
+            /* Leave the empty cube of size s containing the current cell through its nearest exit face */
+            int bx = x & -s, by = y & -s, bz = z & -s;
+            float tx = stepX != 0 ? ((stepX > 0 ? bx + s : bx) - ox) * invX : Float.POSITIVE_INFINITY;
+            float ty = stepY != 0 ? ((stepY > 0 ? by + s : by) - oy) * invY : Float.POSITIVE_INFINITY;
+            float tz = stepZ != 0 ? ((stepZ > 0 ? bz + s : bz) - oz) * invZ : Float.POSITIVE_INFINITY;
+            if (tx <= ty && tx <= tz) {
+                t = tx;
+                x = stepX > 0 ? bx + s : bx - 1;
+                y = clamp(cell(oy + dy * t, stepY), by, by + s - 1);
+                z = clamp(cell(oz + dz * t, stepZ), bz, bz + s - 1);
+                hit.faceX = -stepX;
+                hit.faceY = hit.faceZ = 0;
+            } else if (ty <= tz) {
+                t = ty;
+                y = stepY > 0 ? by + s : by - 1;
+                x = clamp(cell(ox + dx * t, stepX), bx, bx + s - 1);
+                z = clamp(cell(oz + dz * t, stepZ), bz, bz + s - 1);
+                hit.faceY = -stepY;
+                hit.faceX = hit.faceZ = 0;
+            } else {
+                t = tz;
+                z = stepZ > 0 ? bz + s : bz - 1;
+                x = clamp(cell(ox + dx * t, stepX), bx, bx + s - 1);
+                y = clamp(cell(oy + dy * t, stepY), by, by + s - 1);
+                hit.faceZ = -stepZ;
+                hit.faceX = hit.faceY = 0;
+            }
+            if (t > tEnd || x < 0 || x >= sizeX || y < 0 || y >= sizeY || z < 0 || z >= sizeZ)
+                return false;
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.joml.lwjgl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Checks that chunks saved by a {@link VoxelRegionStore} read back equal, both when only the chunks around a point are loaded and when
+ * all of them are, that saving again after editing one voxel writes only the edited chunk and that the chunk reads back edited from the
+ * still open file, and that a truncated region file is rejected with an {@link IOException}.
+ */
+class VoxelRegionCheck {
+
+    static final int SIZE = 256;
+    static final int HEIGHT = 64;
+    static final int RADIUS = 2;
+
+    static ChunkedVoxelStorage generate() {
+        ChunkedVoxelStorage storage = new ChunkedVoxelStorage(SIZE, HEIGHT, SIZE);
+        for (int z = 0; z < SIZE; z++)
+            for (int x = 0; x < SIZE; x++) {
+                int h = 24 + (int) (16.0 * Math.sin(x * 0.03) * Math.cos(z * 0.02));
+                storage.fill(x, 0, z, x + 1, h, z + 1, true);
+                /* Some other block types on top */
+                if (((x ^ z) & 7) == 0)
+                    storage.setType(x, h - 1, z, 2 + (x & 3));
+            }
+        return storage;
+    }
+
+    static void checkChunk(VoxelStorage expected, VoxelStorage actual, int cx, int cy, int cz) {
+        int x0 = cx << VoxelStorage.CHUNK_SHIFT, y0 = cy << VoxelStorage.CHUNK_SHIFT, z0 = cz << VoxelStorage.CHUNK_SHIFT;
+        for (int y = y0; y < y0 + VoxelStorage.CHUNK_SIZE; y++)
+            for (int z = z0; z < z0 + VoxelStorage.CHUNK_SIZE; z++)
+                for (int x = x0; x < x0 + VoxelStorage.CHUNK_SIZE; x++)
+                    if (expected.getType(x, y, z) != actual.getType(x, y, z))
+                        throw new AssertionError("(" + x + ", " + y + ", " + z + "): expected type " + expected.getType(x, y, z) + " but got "
+                                + actual.getType(x, y, z));
+    }
+
+    static void delete(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File f : files)
+                f.delete();
+        directory.delete();
+    }
+
+    /**
+     * Cut the first region file off after the first chunk sector and check that loading from it fails with an {@link IOException}.
+     */
+    static void checkTruncated(File directory) throws IOException {
+        VoxelRegionStore store = new VoxelRegionStore(directory, new ChunkedVoxelStorage(SIZE, HEIGHT, SIZE));
+        RandomAccessFile file = new RandomAccessFile(store.regionPath(0, 0, 0), "rw");
+        try {
+            file.setLength((long) (VoxelRegionFile.TABLE_SECTORS + 1) * VoxelRegionFile.SECTOR_SIZE);
+        } finally {
+            file.close();
+        }
+        try {
+            store.ensureLoaded(0, 0, 0);
+            throw new AssertionError("expected a truncated region file to be rejected");
+        } catch (IOException e) {
+            /* Expected */
+        } finally {
+            store.close();
+        }
+    }
+
+    static void check() throws IOException {
+        File directory = File.createTempFile("voxelworld", "");
+        directory.delete();
+        try {
+            ChunkedVoxelStorage world = generate();
+            VoxelRegionStore store = new VoxelRegionStore(directory, world);
+            store.markAllModified();
+            store.save();
+            store.close();
+
+            ChunkedVoxelStorage nearby = new ChunkedVoxelStorage(SIZE, HEIGHT, SIZE);
+            store = new VoxelRegionStore(directory, nearby);
+            int center = (SIZE / 2) >> VoxelStorage.CHUNK_SHIFT;
+            for (int cz = center - RADIUS; cz <= center + RADIUS; cz++)
+                for (int cx = center - RADIUS; cx <= center + RADIUS; cx++)
+                    for (int cy = 0; cy < nearby.chunksY(); cy++) {
+                        store.ensureLoaded(cx, cy, cz);
+                        checkChunk(world, nearby, cx, cy, cz);
+                    }
+
+            nearby.set(SIZE / 2, HEIGHT - 1, SIZE / 2, true);
+            store.markModified(center, nearby.chunksY() - 1, center);
+            int written = store.save();
+            if (written != 1)
+                throw new AssertionError("expected 1 chunk to be written after an edit but got " + written);
+            world.set(SIZE / 2, HEIGHT - 1, SIZE / 2, true);
+            /* The edited chunk was empty before, so it was appended to the file and lies past the current mapping */
+            store.unload(center, nearby.chunksY() - 1, center);
+            store.ensureLoaded(center, nearby.chunksY() - 1, center);
+            checkChunk(world, nearby, center, nearby.chunksY() - 1, center);
+            store.close();
+
+            ChunkedVoxelStorage all = new ChunkedVoxelStorage(SIZE, HEIGHT, SIZE);
+            store = new VoxelRegionStore(directory, all);
+            for (int cy = 0; cy < all.chunksY(); cy++)
+                for (int cz = 0; cz < all.chunksZ(); cz++)
+                    for (int cx = 0; cx < all.chunksX(); cx++) {
+                        store.ensureLoaded(cx, cy, cz);
+                        checkChunk(world, all, cx, cy, cz);
+                    }
+            store.close();
+
+            checkTruncated(directory);
+        } finally {
+            delete(directory);
+        }
+    }
+
+}
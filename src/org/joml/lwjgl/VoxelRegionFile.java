@@ -0,0 +1,277 @@
+package org.joml.lwjgl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+/**
+ * A file holding the chunks of one region of {@link #REGION_SIZE}<sup>3</sup> chunks of a {@link ChunkedVoxelStorage}.
+ * <p>
+ * The file starts with a header and an offset table with one entry per chunk, followed by the chunk data in sectors of
+ * {@link #SECTOR_SIZE} bytes. A table entry is either {@link #EMPTY}, {@link #FULL} or the first sector of the chunk data shifted left
+ * by 8 bits or'ed with the number of sectors it spans. Empty chunks and full chunks of the {@link VoxelStorage#DEFAULT_TYPE} thus take no
+ * sectors at all.
+ * <p>
+ * Chunks are read from a memory mapping of the file, so loading a chunk only touches the pages of that chunk and not the whole file.
+ * Chunks are written in place if they still fit into their sectors, or else into the first run of free sectors large enough. Writes go
+ * through the same file and are seen by the mapping, which is therefore only mapped again when the file grew past it.
+ * <p>
+ * The offset table is checked when the file is opened: entries pointing outside of the file or into sectors used by the table or by
+ * another chunk are rejected with an {@link IOException}, as is chunk data which does not fit into its sectors.
+ */
+public class VoxelRegionFile {
+
+    /**
+     * Log2 of the edge length of a region in chunks.
+     */
+    public static final int REGION_SHIFT = 3;
+    /**
+     * The edge length of a region in chunks.
+     */
+    public static final int REGION_SIZE = 1 << REGION_SHIFT;
+    static final int REGION_MASK = REGION_SIZE - 1;
+    /**
+     * Number of chunks in a region.
+     */
+    static final int REGION_CHUNKS = REGION_SIZE * REGION_SIZE * REGION_SIZE;
+    static final int SECTOR_SIZE = 1024;
+    static final int MAGIC = 0x56585247; // "VXRG"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int TABLE_SECTORS = (HEADER_BYTES + 4 * REGION_CHUNKS + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    /* Special table entries */
+    static final int EMPTY = 0;
+    static final int FULL = -1;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private final int[] table = new int[REGION_CHUNKS];
+    private final BitSet usedSectors = new BitSet();
+    private boolean tableModified;
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(2 * SECTOR_SIZE);
+
+    /**
+     * Open the given region file, creating it if it does not exist.
+     */
+    public VoxelRegionFile(File path) throws IOException {
+        file = new RandomAccessFile(path, "rw");
+        channel = file.getChannel();
+        if (channel.size() == 0L) {
+            usedSectors.set(0, TABLE_SECTORS);
+            tableModified = true;
+            flush();
+            return;
+        }
+        try {
+            readTable(path);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void readTable(File path) throws IOException {
+        long size = channel.size();
+        if (size < (long) TABLE_SECTORS * SECTOR_SIZE)
+            throw new IOException("Truncated voxel region file: " + path);
+        ByteBuffer header = map(size);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+            throw new IOException("Not a voxel region file: " + path);
+        long fileSectors = (size + SECTOR_SIZE - 1) / SECTOR_SIZE;
+        usedSectors.set(0, TABLE_SECTORS);
+        for (int i = 0; i < REGION_CHUNKS; i++) {
+            int entry = table[i] = header.getInt(HEADER_BYTES + 4 * i);
+            if (entry == EMPTY || entry == FULL)
+                continue;
+            int sector = entry >>> 8, sectors = entry & 0xFF;
+            if (sectors == 0 || sector < TABLE_SECTORS || sector + sectors > fileSectors)
+                throw new IOException("Chunk " + i + " of " + path + " lies outside of the file: sectors " + sector + " to "
+                        + (sector + sectors) + " of " + fileSectors);
+            int used = usedSectors.nextSetBit(sector);
+            if (used >= 0 && used < sector + sectors)
+                throw new IOException("Chunk " + i + " of " + path + " overlaps another chunk at sector " + used);
+            usedSectors.set(sector, sector + sectors);
+        }
+    }
+
+    /**
+     * Return the index of the chunk with the given chunk coordinates within its region.
+     */
+    static int indexInRegion(int cx, int cy, int cz) {
+        return ((cy & REGION_MASK) * REGION_SIZE + (cz & REGION_MASK)) * REGION_SIZE + (cx & REGION_MASK);
+    }
+
+    /**
+     * Return a mapping of the file covering at least the first <code>end</code> bytes, mapping the whole file again if it grew past the
+     * current mapping since.
+     */
+    private MappedByteBuffer map(long end) throws IOException {
+        if (map == null || map.capacity() < end)
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+        return map;
+    }
+
+    /**
+     * Return whether the region holds data for the chunk with the given chunk coordinates.
+     */
+    public boolean contains(int cx, int cy, int cz) {
+        return table[indexInRegion(cx, cy, cz)] != EMPTY;
+    }
+
+    /**
+     * Read the chunk with the given chunk coordinates into the given storage. Chunks never written are read as empty.
+     */
+    public void readChunk(ChunkedVoxelStorage storage, int cx, int cy, int cz) throws IOException {
+        int c = storage.chunkIndex(cx, cy, cz);
+        int entry = table[indexInRegion(cx, cy, cz)];
+        if (entry == EMPTY) {
+            storage.setChunk(c, null, null);
+            return;
+        }
+        if (entry == FULL) {
+            storage.setChunk(c, ChunkedVoxelStorage.FULL, null);
+            return;
+        }
+        long start = (long) (entry >>> 8) * SECTOR_SIZE;
+        long end = Math.min(start + (long) (entry & 0xFF) * SECTOR_SIZE, channel.size());
+        ByteBuffer buf = map(end).duplicate();
+        buf.position((int) start).limit((int) end);
+        if (buf.remaining() < 4 + 8 * ChunkedVoxelStorage.CHUNK_WORDS)
+            throw corruptChunk(cx, cy, cz);
+        int paletteSize = buf.getInt();
+        if (paletteSize < 0)
+            throw corruptChunk(cx, cy, cz);
+        long[] b = new long[ChunkedVoxelStorage.CHUNK_WORDS];
+        for (int w = 0; w < b.length; w++)
+            b[w] = buf.getLong();
+        ChunkedVoxelStorage.Palette p = null;
+        if (paletteSize > 0) {
+            if (buf.remaining() < 4)
+                throw corruptChunk(cx, cy, cz);
+            int bitsPerEntry = buf.getInt();
+            /* Palettes grow by doubling the bits per entry, starting with one, and never need more than 16 */
+            if (bitsPerEntry < 1 || bitsPerEntry > 16 || Integer.bitCount(bitsPerEntry) != 1 || paletteSize > 1 << bitsPerEntry
+                    || buf.remaining() < 4 * paletteSize + 8 * ((ChunkedVoxelStorage.CHUNK_VOLUME * bitsPerEntry) >>> 6))
+                throw corruptChunk(cx, cy, cz);
+            p = new ChunkedVoxelStorage.Palette(0);
+            p.bitsPerEntry = bitsPerEntry;
+            p.size = paletteSize;
+            p.types = new int[1 << p.bitsPerEntry];
+            for (int i = 0; i < paletteSize; i++)
+                p.types[i] = buf.getInt();
+            p.indices = new long[(ChunkedVoxelStorage.CHUNK_VOLUME * p.bitsPerEntry) >>> 6];
+            for (int i = 0; i < p.indices.length; i++)
+                p.indices[i] = buf.getLong();
+        }
+        storage.setChunk(c, b, p);
+    }
+
+    private IOException corruptChunk(int cx, int cy, int cz) {
+        return new IOException("Corrupt data of chunk (" + cx + ", " + cy + ", " + cz + ") in voxel region file");
+    }
+
+    /**
+     * Write the chunk with the given chunk coordinates of the given storage. The offset table is only written on {@link #flush()}.
+     */
+    public void writeChunk(ChunkedVoxelStorage storage, int cx, int cy, int cz) throws IOException {
+        int c = storage.chunkIndex(cx, cy, cz);
+        int index = indexInRegion(cx, cy, cz);
+        long[] b = storage.chunkBits(c);
+        ChunkedVoxelStorage.Palette p = storage.chunkPalette(c);
+        int entry = table[index];
+        if (b == null || b == ChunkedVoxelStorage.FULL && p == null) {
+            freeSectors(entry);
+            setEntry(index, b == null ? EMPTY : FULL);
+            return;
+        }
+        int bytes = 4 + 8 * ChunkedVoxelStorage.CHUNK_WORDS + (p != null ? 4 + 4 * p.size + 8 * p.indices.length : 0);
+        int sectors = (bytes + SECTOR_SIZE - 1) / SECTOR_SIZE;
+        if (writeBuffer.capacity() < sectors * SECTOR_SIZE)
+            writeBuffer = ByteBuffer.allocate(sectors * SECTOR_SIZE);
+        writeBuffer.clear();
+        writeBuffer.putInt(p != null ? p.size : 0);
+        for (int w = 0; w < ChunkedVoxelStorage.CHUNK_WORDS; w++)
+            writeBuffer.putLong(b[w]);
+        if (p != null) {
+            writeBuffer.putInt(p.bitsPerEntry);
+            for (int i = 0; i < p.size; i++)
+                writeBuffer.putInt(p.types[i]);
+            for (int i = 0; i < p.indices.length; i++)
+                writeBuffer.putLong(p.indices[i]);
+        }
+        writeBuffer.flip();
+        int sector;
+        if (entry != EMPTY && entry != FULL && (entry & 0xFF) >= sectors) {
+            /* Still fits into the sectors it had before */
+            sector = entry >>> 8;
+            usedSectors.clear(sector + sectors, sector + (entry & 0xFF));
+        } else {
+            freeSectors(entry);
+            sector = allocateSectors(sectors);
+        }
+        long position = (long) sector * SECTOR_SIZE;
+        while (writeBuffer.hasRemaining())
+            position += channel.write(writeBuffer, position);
+        setEntry(index, sector << 8 | sectors);
+    }
+
+    private void setEntry(int index, int entry) {
+        if (table[index] != entry) {
+            table[index] = entry;
+            tableModified = true;
+        }
+    }
+
+    private void freeSectors(int entry) {
+        if (entry != EMPTY && entry != FULL)
+            usedSectors.clear(entry >>> 8, (entry >>> 8) + (entry & 0xFF));
+    }
+
+    private int allocateSectors(int count) {
+        int start = usedSectors.nextClearBit(TABLE_SECTORS);
+        while (true) {
+            int end = usedSectors.nextSetBit(start);
+            if (end < 0 || end - start >= count)
+                break;
+            start = usedSectors.nextClearBit(end);
+        }
+        usedSectors.set(start, start + count);
+        return start;
+    }
+
+    /**
+     * Write the header and offset table, if they changed. Chunk data is always written before the table referencing it.
+     */
+    public void flush() throws IOException {
+        if (!tableModified)
+            return;
+        ByteBuffer buf = ByteBuffer.allocate(TABLE_SECTORS * SECTOR_SIZE);
+        buf.putInt(MAGIC).putInt(VERSION);
+        for (int i = 0; i < REGION_CHUNKS; i++)
+            buf.putInt(table[i]);
+        buf.clear();
+        long position = 0L;
+        while (buf.hasRemaining())
+            position += channel.write(buf, position);
+        tableModified = false;
+    }
+
+    /**
+     * Return the size of the file in bytes.
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    public void close() throws IOException {
+        map = null;
+        channel.close();
+        file.close();
+    }
+
+}
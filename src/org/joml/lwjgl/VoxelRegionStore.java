@@ -0,0 +1,205 @@
+package org.joml.lwjgl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Persists a {@link ChunkedVoxelStorage} in a directory of {@link VoxelRegionFile region files}.
+ * <p>
+ * Chunks are loaded one at a time on first use via {@link #ensureLoaded(int, int, int)}, so opening a world costs nothing and the work
+ * done at startup only depends on the chunks actually needed. Chunks must be {@link #markModified(int, int, int) marked} when edited,
+ * and {@link #save()} then only rewrites those.
+ */
+public class VoxelRegionStore {
+
+    private final File directory;
+    private final ChunkedVoxelStorage storage;
+    private final int regionsX, regionsY, regionsZ;
+    /**
+     * The opened region files, or <code>null</code> for regions not opened yet.
+     */
+    private final VoxelRegionFile[] regions;
+    private final BitSet loaded = new BitSet();
+    private final BitSet modified = new BitSet();
+
+    /* Metrics */
+    private int chunksLoaded;
+    private int chunksSaved;
+    private int chunksUnloaded;
+
+    public VoxelRegionStore(File directory, ChunkedVoxelStorage storage) {
+        this.directory = directory;
+        this.storage = storage;
+        this.regionsX = (storage.chunksX() + VoxelRegionFile.REGION_MASK) >> VoxelRegionFile.REGION_SHIFT;
+        this.regionsY = (storage.chunksY() + VoxelRegionFile.REGION_MASK) >> VoxelRegionFile.REGION_SHIFT;
+        this.regionsZ = (storage.chunksZ() + VoxelRegionFile.REGION_MASK) >> VoxelRegionFile.REGION_SHIFT;
+        this.regions = new VoxelRegionFile[regionsX * regionsY * regionsZ];
+    }
+
+    /**
+     * Return whether the directory contains a saved world.
+     */
+    public boolean exists() {
+        String[] names = directory.list();
+        if (names == null)
+            return false;
+        for (String name : names)
+            if (name.endsWith(".vxr"))
+                return true;
+        return false;
+    }
+
+    File regionPath(int rx, int ry, int rz) {
+        return new File(directory, "r." + rx + "." + ry + "." + rz + ".vxr");
+    }
+
+    /**
+     * Return the region file of the chunk with the given chunk coordinates, or <code>null</code> if it does not exist and
+     * <code>create</code> is <code>false</code>.
+     */
+    private VoxelRegionFile region(int cx, int cy, int cz, boolean create) throws IOException {
+        int rx = cx >> VoxelRegionFile.REGION_SHIFT, ry = cy >> VoxelRegionFile.REGION_SHIFT, rz = cz >> VoxelRegionFile.REGION_SHIFT;
+        int r = (ry * regionsZ + rz) * regionsX + rx;
+        if (regions[r] == null) {
+            File path = regionPath(rx, ry, rz);
+            if (!create && !path.exists())
+                return null;
+            directory.mkdirs();
+            regions[r] = new VoxelRegionFile(path);
+        }
+        return regions[r];
+    }
+
+    public boolean isLoaded(int cx, int cy, int cz) {
+        return loaded.get(storage.chunkIndex(cx, cy, cz));
+    }
+
+    /**
+     * Consider all chunks loaded, such as after generating a new world in the storage.
+     */
+    public void markAllLoaded() {
+        loaded.set(0, storage.chunksX() * storage.chunksY() * storage.chunksZ());
+    }
+
+    /**
+     * Mark all chunks as modified, so that the next {@link #save()} writes the whole world.
+     */
+    public void markAllModified() {
+        modified.set(0, storage.chunksX() * storage.chunksY() * storage.chunksZ());
+    }
+
+    /**
+     * Load the chunk with the given chunk coordinates from its region file, unless it was loaded already.
+     *
+     * @return <code>true</code> if the chunk was loaded just now
+     */
+    public boolean ensureLoaded(int cx, int cy, int cz) throws IOException {
+        int c = storage.chunkIndex(cx, cy, cz);
+        if (loaded.get(c))
+            return false;
+        VoxelRegionFile region = region(cx, cy, cz, false);
+        if (region != null)
+            region.readChunk(storage, cx, cy, cz);
+        loaded.set(c);
+        chunksLoaded++;
+        return true;
+    }
+
+    /**
+     * Drop the voxels of the chunk with the given chunk coordinates from the storage to free memory, writing them first if the chunk
+     * was modified. The table of the region is flushed right away, so the file never references stale data for a dropped chunk. The
+     * chunk is loaded again by the next {@link #ensureLoaded(int, int, int)}.
+     */
+    public void unload(int cx, int cy, int cz) throws IOException {
+        int c = storage.chunkIndex(cx, cy, cz);
+        if (!loaded.get(c))
+            return;
+        if (modified.get(c)) {
+            VoxelRegionFile region = region(cx, cy, cz, !storage.isChunkEmpty(cx, cy, cz));
+            if (region != null) {
+                region.writeChunk(storage, cx, cy, cz);
+                region.flush();
+                chunksSaved++;
+            }
+            modified.clear(c);
+        }
+        storage.setChunk(c, null, null);
+        loaded.clear(c);
+        chunksUnloaded++;
+    }
+
+    /**
+     * Return the number of bytes the voxels of the chunk with the given chunk coordinates occupy in memory.
+     */
+    public long chunkFootprint(int cx, int cy, int cz) {
+        return storage.chunkFootprint(storage.chunkIndex(cx, cy, cz));
+    }
+
+    /**
+     * Remember that the chunk with the given chunk coordinates must be written on the next {@link #save()}.
+     */
+    public void markModified(int cx, int cy, int cz) {
+        modified.set(storage.chunkIndex(cx, cy, cz));
+    }
+
+    /**
+     * Write all modified chunks to their region files.
+     *
+     * @return the number of chunks written
+     */
+    public int save() throws IOException {
+        int chunksX = storage.chunksX(), chunksZ = storage.chunksZ();
+        int written = 0;
+        for (int c = modified.nextSetBit(0); c >= 0; c = modified.nextSetBit(c + 1)) {
+            int cx = c % chunksX, cz = c / chunksX % chunksZ, cy = c / (chunksX * chunksZ);
+            /* Avoid creating region files only to store empty chunks */
+            VoxelRegionFile region = region(cx, cy, cz, !storage.isChunkEmpty(cx, cy, cz));
+            if (region == null)
+                continue;
+            region.writeChunk(storage, cx, cy, cz);
+            written++;
+        }
+        for (VoxelRegionFile region : regions)
+            if (region != null)
+                region.flush();
+        modified.clear();
+        chunksSaved += written;
+        return written;
+    }
+
+    /**
+     * Return the number of chunks loaded so far.
+     */
+    public int chunksLoaded() {
+        return chunksLoaded;
+    }
+
+    /**
+     * Return the number of chunks written so far.
+     */
+    public int chunksSaved() {
+        return chunksSaved;
+    }
+
+    /**
+     * Return the number of chunks unloaded so far.
+     */
+    public int chunksUnloaded() {
+        return chunksUnloaded;
+    }
+
+    /**
+     * Flush the tables of all open region files and close them. Chunks modified since the last {@link #save()} are not written.
+     */
+    public void close() throws IOException {
+        for (int r = 0; r < regions.length; r++) {
+            if (regions[r] != null) {
+                regions[r].flush();
+                regions[r].close();
+            }
+            regions[r] = null;
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.joml.lwjgl;
+
+/**
+ * Access to a box-shaped grid of voxels with the dimensions <code>sizeX() * sizeY() * sizeZ()</code>.
+ * <p>
+ * Every voxel is either empty or solid and every solid voxel has a non-zero block type. Voxels are organized in cubic chunks of
+ * {@link #CHUNK_SIZE}<sup>3</sup> voxels, so that picking, meshing and editing can work on a chunk at a time instead of on the whole
+ * grid.
+ */
+public interface VoxelStorage {
+
+    /**
+     * Log2 of the edge length of a chunk.
+     */
+    int CHUNK_SHIFT = 4;
+    /**
+     * The edge length of a chunk in voxels.
+     */
+    int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    /**
+     * Mask to obtain the voxel coordinate within its chunk.
+     */
+    int CHUNK_MASK = CHUNK_SIZE - 1;
+    /**
+     * The block type of solid voxels that were set without specifying a type.
+     */
+    int DEFAULT_TYPE = 1;
+
+    /**
+     * Callback for the solid voxels within a chunk.
+     */
+    interface Visitor {
+        void visit(int x, int y, int z, int type);
+    }
+
+    int sizeX();
+
+    int sizeY();
+
+    int sizeZ();
+
+    /**
+     * Return whether the voxel at the given coordinates is solid.
+     * <p>
+     * Coordinates outside of the grid are always empty.
+     */
+    boolean get(int x, int y, int z);
+
+    /**
+     * Make the voxel at the given coordinates solid with the {@link #DEFAULT_TYPE} or empty.
+     */
+    void set(int x, int y, int z, boolean solid);
+
+    /**
+     * Return the block type of the voxel at the given coordinates, or <code>0</code> if it is empty.
+     */
+    int getType(int x, int y, int z);
+
+    /**
+     * Set the block type of the voxel at the given coordinates. A type of <code>0</code> makes the voxel empty.
+     */
+    void setType(int x, int y, int z, int type);
+
+    /**
+     * Return the number of bytes (approximately) used to store the voxels.
+     */
+    long memoryFootprint();
+
+    /**
+     * Return <code>0</code> if the voxel at the given coordinates is solid, or else the edge length <code>s</code> (a power of two) of an
+     * empty cube of voxels aligned to multiples of <code>s</code> which contains the given voxel.
+     * <p>
+     * Storages which know about large empty regions should return large cubes, so that {@link #raycast ray casts} can skip them.
+     */
+    default int emptyExtent(int x, int y, int z) {
+        return get(x, y, z) ? 0 : 1;
+    }
+
+    /**
+     * Cast a ray in grid space, where the voxel (x, y, z) spans <code>[x, x+1] x [y, y+1] x [z, z+1]</code>, and store the first solid
+     * voxel it hits in <code>hit</code>.
+     *
+     * @see VoxelRaycast#raycast
+     */
+    default boolean raycast(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance, VoxelRaycast.Hit hit) {
+        return VoxelRaycast.raycast(this, ox, oy, oz, dx, dy, dz, maxDistance, hit);
+    }
+
+    /**
+     * Make all voxels within <code>[minX, maxX) x [minY, maxY) x [minZ, maxZ)</code> solid or empty.
+     */
+    default void fill(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, boolean solid) {
+        for (int y = minY; y < maxY; y++)
+            for (int z = minZ; z < maxZ; z++)
+                for (int x = minX; x < maxX; x++)
+                    set(x, y, z, solid);
+    }
+
+    default int chunksX() {
+        return (sizeX() + CHUNK_MASK) >> CHUNK_SHIFT;
+    }
+
+    default int chunksY() {
+        return (sizeY() + CHUNK_MASK) >> CHUNK_SHIFT;
+    }
+
+    default int chunksZ() {
+        return (sizeZ() + CHUNK_MASK) >> CHUNK_SHIFT;
+    }
+
+    /**
+     * Return whether the chunk with the given chunk coordinates contains no solid voxel.
+     */
+    default boolean isChunkEmpty(int cx, int cy, int cz) {
+        int x0 = cx << CHUNK_SHIFT, y0 = cy << CHUNK_SHIFT, z0 = cz << CHUNK_SHIFT;
+        if (emptyExtent(x0, y0, z0) >= CHUNK_SIZE)
+            return true;
+        for (int y = y0; y < y0 + CHUNK_SIZE; y++)
+            for (int z = z0; z < z0 + CHUNK_SIZE; z++)
+                for (int x = x0; x < x0 + CHUNK_SIZE; x++)
+                    if (get(x, y, z))
+                        return false;
+        return true;
+    }
+
+    /**
+     * Call the given {@link Visitor} for every solid voxel in the chunk with the given chunk coordinates, in y, z, x order.
+     */
+    default void visitChunk(int cx, int cy, int cz, Visitor visitor) {
+        int x0 = cx << CHUNK_SHIFT, y0 = cy << CHUNK_SHIFT, z0 = cz << CHUNK_SHIFT;
+        for (int y = y0; y < y0 + CHUNK_SIZE; y++)
+            for (int z = z0; z < z0 + CHUNK_SIZE; z++)
+                for (int x = x0; x < x0 + CHUNK_SIZE; x++) {
+                    int type = getType(x, y, z);
+                    if (type != 0)
+                        visitor.visit(x, y, z, type);
+                }
+    }
+
+}
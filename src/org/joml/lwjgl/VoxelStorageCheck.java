@@ -0,0 +1,79 @@
+package org.joml.lwjgl;
+
+import java.util.Random;
+
+/**
+ * Checks that a {@link ChunkedVoxelStorage} reads back every voxel like a flat <code>boolean[]</code> of one byte per voxel, as used by
+ * the {@link BoxPickingDemo} before, and that it needs less memory than that array for the single layer of the demo, a terrain and a
+ * world with 1% of random voxels set.
+ * <p>
+ * It prints the footprint of both for these worlds and for a 1024x256x1024 world with a single layer or a terrain, for which the flat
+ * array is only computed rather than allocated.
+ */
+class VoxelStorageCheck {
+
+    interface Fill {
+        boolean solid(int x, int y, int z, Random rnd);
+    }
+
+    static long flatFootprint(int sizeX, int sizeY, int sizeZ) {
+        return ChunkedVoxelStorage.ARRAY_HEADER_BYTES + (long) sizeX * sizeY * sizeZ;
+    }
+
+    static void printFootprint(String name, ChunkedVoxelStorage chunked) {
+        long flatBytes = flatFootprint(chunked.sizeX(), chunked.sizeY(), chunked.sizeZ()), chunkedBytes = chunked.memoryFootprint();
+        System.out.printf("  %s, %dx%dx%d: flat %d bytes, chunked %d bytes (%.2f%%)%n", name, chunked.sizeX(), chunked.sizeY(),
+                chunked.sizeZ(), flatBytes, chunkedBytes, 100.0 * chunkedBytes / flatBytes);
+    }
+
+    static void check(String name, int sizeX, int sizeY, int sizeZ, Fill fill) {
+        Random rnd = new Random(1234);
+        boolean[] flat = new boolean[sizeX * sizeY * sizeZ];
+        ChunkedVoxelStorage chunked = new ChunkedVoxelStorage(sizeX, sizeY, sizeZ);
+        for (int y = 0; y < sizeY; y++)
+            for (int z = 0; z < sizeZ; z++)
+                for (int x = 0; x < sizeX; x++)
+                    if (fill.solid(x, y, z, rnd)) {
+                        flat[(y * sizeZ + z) * sizeX + x] = true;
+                        chunked.set(x, y, z, true);
+                    }
+        printFootprint(name, chunked);
+        for (int y = 0; y < sizeY; y++)
+            for (int z = 0; z < sizeZ; z++)
+                for (int x = 0; x < sizeX; x++)
+                    if (chunked.get(x, y, z) != flat[(y * sizeZ + z) * sizeX + x])
+                        throw new AssertionError(name + ", (" + x + ", " + y + ", " + z + "): expected " + flat[(y * sizeZ + z) * sizeX + x]
+                                + " but got " + chunked.get(x, y, z));
+        long flatBytes = flatFootprint(sizeX, sizeY, sizeZ), chunkedBytes = chunked.memoryFootprint();
+        if (chunkedBytes >= flatBytes)
+            throw new AssertionError(name + ": chunked storage needs " + chunkedBytes + " bytes, the flat array only " + flatBytes);
+    }
+
+    static void check() {
+        check("flat base (BoxPickingDemo)", 64, 64, 64, new Fill() {
+            public boolean solid(int x, int y, int z, Random rnd) {
+                return y == 0;
+            }
+        });
+        check("terrain", 256, 128, 256, new Fill() {
+            public boolean solid(int x, int y, int z, Random rnd) {
+                return y < 32 + (int) (16.0 * Math.sin(x * 0.05) * Math.cos(z * 0.05));
+            }
+        });
+        check("random 1%", 128, 128, 128, new Fill() {
+            public boolean solid(int x, int y, int z, Random rnd) {
+                return rnd.nextInt(100) == 0;
+            }
+        });
+
+        ChunkedVoxelStorage layer = new ChunkedVoxelStorage(1024, 256, 1024);
+        layer.fill(0, 0, 0, 1024, 1, 1024, true);
+        printFootprint("single layer", layer);
+        ChunkedVoxelStorage terrain = new ChunkedVoxelStorage(1024, 256, 1024);
+        for (int z = 0; z < 1024; z++)
+            for (int x = 0; x < 1024; x++)
+                terrain.fill(x, 0, z, x + 1, 32 + (int) (16.0 * Math.sin(x * 0.05) * Math.cos(z * 0.05)), z + 1, true);
+        printFootprint("terrain", terrain);
+    }
+
+}